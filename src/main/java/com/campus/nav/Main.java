@@ -2,6 +2,9 @@ package com.campus.nav;
 
 import com.campus.nav.config.DatabaseConfig;
 import com.campus.nav.controller.LoginController;
+import com.campus.nav.dao.DaoFactory;
+import com.campus.nav.service.ServiceFactory;
+import com.campus.nav.utils.StartupMetrics;
 import com.campus.nav.view.LoginFrame;
 import com.formdev.flatlaf.FlatLightLaf;
 import org.apache.logging.log4j.LogManager;
@@ -9,40 +12,175 @@ import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 程序入口
+ * 启动分阶段进行：主线程只读取配置文件；数据层（连接池及测试连接）在后台初始化，完成后并行预热语句缓存、
+ * 构建路网图快照（同时填充地点缓存）、加载系统配置并启动后台任务；登录界面同时在EDT上创建和显示，
+ * 不等待数据库。登录时数据层尚未就绪的，在后台线程上等待初始化完成；启动时连接失败的，
+ * 之后（如登录时）重试连接成功后再执行预热。
+ * 各阶段耗时及首帧、首条路线的时刻由StartupMetrics记录
+ */
 public class Main {
     private static final Logger logger = LogManager.getLogger(Main.class);
 
+    private static final int STARTUP_THREADS = 4;
+
     public static void main(String[] args) {
-        // 设置Swing外观
-        SwingUtilities.invokeLater(() -> {
-            try {
-                // 使用FlatLaf现代化外观
-                FlatLightLaf.setup();
-                UIManager.setLookAndFeel(new FlatLightLaf());
+        // 读取配置文件，不连接数据库
+        StartupMetrics.time("config", DatabaseConfig::loadProperties);
+        DatabaseConfig.registerShutdownHook();
 
-                // 设置UI默认字体
-                setUIFont();
+        ExecutorService startupExecutor = Executors.newFixedThreadPool(STARTUP_THREADS, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "startup-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // 后台初始化数据层，完成后并行预热
+        CompletableFuture<Void> dataLayer = CompletableFuture.runAsync(
+                () -> StartupMetrics.time("data-layer", Main::initializeDataLayer), startupExecutor);
+        Runnable startWarmUp = () -> warmUp(startupExecutor)
+                .whenComplete((ignored, ex) -> {
+                    startupExecutor.shutdown();
+                    if (ex != null) {
+                        logger.error("后台启动阶段失败", ex);
+                    }
+                    logger.info(StartupMetrics.getSummary());
+                });
+        if (DatabaseConfig.isMemoryBackend()) {
+            dataLayer.thenRun(startWarmUp);
+        } else {
+            // 连接池首次初始化成功时触发，无论是这里的后台初始化还是之后获取连接时的重试
+            DatabaseConfig.whenReady(startWarmUp);
+        }
+
+        // 同时在EDT上显示登录界面
+        SwingUtilities.invokeLater(() -> showLoginFrame(dataLayer));
+    }
 
-                // 初始化数据库连接
-                DatabaseConfig.initialize();
+    /**
+     * 初始化数据层：MySQL后端创建连接池并测试连接，内存后端加载数据快照
+     */
+    private static void initializeDataLayer() {
+        if (!DatabaseConfig.isMemoryBackend()) {
+            DatabaseConfig.initializeDataSource();
+        }
+        DaoFactory.getUserDao();
+    }
+
+    /**
+     * 数据层就绪后并行执行的预热阶段，单个阶段失败不影响其他阶段
+     */
+    private static CompletableFuture<Void> warmUp(ExecutorService executor) {
+        List<CompletableFuture<Void>> stages = new ArrayList<>();
+
+        // 预热预编译语句缓存
+        if (Boolean.parseBoolean(DatabaseConfig.getProperty("db.statementCache.warmUp", "true"))) {
+            stages.add(stage("statement-cache", () -> DaoFactory.warmUpStatements(), executor));
+        }
+
+        // 构建路网图快照（同时加载地点缓存），首次导航不再等待
+        stages.add(stage("route-graph", () -> ServiceFactory.getNavigationService().preloadRouteGraph(), executor));
 
-                logger.info("校园导航系统启动...");
+        // 加载system_config表中的系统配置，之后随变更日志轮询热更新
+        stages.add(stage("system-config", () -> ServiceFactory.getSystemConfigManager().reload(), executor));
 
-                // 显示登录界面
-                LoginFrame loginFrame = new LoginFrame();
-                LoginController loginController = new LoginController(loginFrame);
-                loginFrame.setController(loginController);
-                loginFrame.setVisible(true);
+        stages.add(stage("background-jobs", Main::startBackgroundJobs, executor));
+
+        return CompletableFuture.allOf(stages.toArray(new CompletableFuture<?>[0]));
+    }
 
+    private static CompletableFuture<Void> stage(String name, Runnable action, ExecutorService executor) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                StartupMetrics.time(name, action);
             } catch (Exception e) {
-                logger.error("系统启动失败", e);
-                JOptionPane.showMessageDialog(null,
-                        "系统启动失败: " + e.getMessage(),
-                        "错误",
-                        JOptionPane.ERROR_MESSAGE);
+                logger.error("启动阶段 {} 失败", name, e);
             }
-        });
+        }, executor);
+    }
+
+    /**
+     * 启动后台任务
+     */
+    private static void startBackgroundJobs() {
+        if (DatabaseConfig.isMemoryBackend()) {
+            return;
+        }
+
+        // 多实例部署时轮询其他实例的数据变更
+        ServiceFactory.getChangeLogPoller().start();
+
+        // 导航历史按月分区的滚动创建和过期清理
+        if (Boolean.parseBoolean(DatabaseConfig.getProperty("history.partition.enabled", "true"))) {
+            ServiceFactory.getHistoryPartitionManager().start();
+        }
+
+        // 导航历史增量汇总（热门路线、策略和时段统计）
+        if (Boolean.parseBoolean(DatabaseConfig.getProperty("history.rollup.enabled", "true"))) {
+            ServiceFactory.getHistoryRollupJob().start();
+        }
+    }
+
+    /**
+     * 设置外观并显示登录界面（在EDT上执行），数据层初始化失败时提示，登录时会重试连接
+     */
+    private static void showLoginFrame(CompletableFuture<Void> dataLayer) {
+        try {
+            // 使用FlatLaf现代化外观，设置UI默认字体
+            StartupMetrics.time("look-and-feel", () -> {
+                FlatLightLaf.setup();
+                setUIFont();
+            });
+
+            logger.info("校园导航系统启动...");
+
+            // 显示登录界面
+            LoginFrame loginFrame = new LoginFrame();
+            LoginController loginController = new LoginController(loginFrame);
+            loginFrame.setController(loginController);
+            loginFrame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    StartupMetrics.mark(StartupMetrics.FIRST_FRAME);
+                }
+            });
+            loginFrame.setVisible(true);
+
+            dataLayer.whenComplete((ignored, ex) -> {
+                if (ex != null) {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    logger.error("数据库初始化失败", cause);
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(loginFrame,
+                            "数据库连接失败: " + cause.getMessage(),
+                            "错误",
+                            JOptionPane.ERROR_MESSAGE));
+                }
+            });
+
+        } catch (Exception e) {
+            logger.error("系统启动失败", e);
+            JOptionPane.showMessageDialog(null,
+                    "系统启动失败: " + e.getMessage(),
+                    "错误",
+                    JOptionPane.ERROR_MESSAGE);
+        }
     }
 
     /**
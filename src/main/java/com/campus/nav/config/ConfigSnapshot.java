@@ -0,0 +1,121 @@
+package com.campus.nav.config;
+
+import com.campus.nav.model.NavigationStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 系统配置快照（不可变）
+ * 常用配置在构建时解析为对应类型，无效的值记录警告后使用内置默认值；读取时不加锁也不再解析
+ */
+public final class ConfigSnapshot {
+    private static final Logger logger = LogManager.getLogger(ConfigSnapshot.class);
+
+    private final long version;
+    private final Map<String, String> values;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final String uiTheme;
+    private final Map<String, Double> pathWeights;
+    private final NavigationStrategy defaultStrategy;
+
+    /**
+     * @param version 快照版本，每次配置变化加1
+     * @param values  配置键到配置值的映射
+     */
+    ConfigSnapshot(long version, Map<String, String> values) {
+        this.version = version;
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+        this.mapWidth = parsePositiveInt("map.width", 800);
+        this.mapHeight = parsePositiveInt("map.height", 600);
+        this.uiTheme = values.getOrDefault("ui.theme", "FlatLaf Light");
+
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("shortest", parseWeight("path.weight.shortest", 1.0));
+        weights.put("shade", parseWeight("path.weight.shade", 1.5));
+        weights.put("scenic", parseWeight("path.weight.scenic", 1.3));
+        this.pathWeights = Collections.unmodifiableMap(weights);
+
+        String strategy = values.get("navigation.defaultStrategy");
+        this.defaultStrategy = strategy != null ? NavigationStrategy.fromString(strategy.trim())
+                : NavigationStrategy.SHORTEST;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取配置值，不存在时返回null
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * 全部配置（只读）
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public int getMapWidth() {
+        return mapWidth;
+    }
+
+    public int getMapHeight() {
+        return mapHeight;
+    }
+
+    public String getUiTheme() {
+        return uiTheme;
+    }
+
+    /**
+     * 路径权重（只读），键为shortest、shade、scenic
+     */
+    public Map<String, Double> getPathWeights() {
+        return pathWeights;
+    }
+
+    public NavigationStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    private int parsePositiveInt(String key, int defaultValue) {
+        String value = values.get(key);
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NullPointerException | NumberFormatException ignored) {
+            // 下面记录警告
+        }
+        logger.warn("配置 {} 的值无效: {}，使用默认值 {}", key, value, defaultValue);
+        return defaultValue;
+    }
+
+    private double parseWeight(String key, double defaultValue) {
+        String value = values.get(key);
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            if (parsed > 0 && !Double.isInfinite(parsed)) {
+                return parsed;
+            }
+        } catch (NullPointerException | NumberFormatException ignored) {
+            // 下面记录警告
+        }
+        logger.warn("配置 {} 的值无效: {}，使用默认值 {}", key, value, defaultValue);
+        return defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{version=" + version + ", values=" + values + "}";
+    }
+}
@@ -0,0 +1,115 @@
+package com.campus.nav.config;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 连接池管理接口（JMX: com.campus.nav:type=ConnectionPool）
+ */
+public interface ConnectionPoolMXBean {
+
+    /**
+     * 活动（已借出）连接数
+     */
+    int getNumActive();
+
+    /**
+     * 空闲连接数
+     */
+    int getNumIdle();
+
+    /**
+     * 等待借出连接的线程数
+     */
+    int getNumWaiters();
+
+    /**
+     * 最大连接数
+     */
+    int getMaxTotal();
+
+    /**
+     * 最小空闲连接数
+     */
+    int getMinIdle();
+
+    /**
+     * 最大空闲连接数
+     */
+    int getMaxIdle();
+
+    /**
+     * 借出次数
+     */
+    long getBorrowCount();
+
+    /**
+     * 借出失败次数（超时或无法创建连接）
+     */
+    long getBorrowFailureCount();
+
+    /**
+     * 累计创建的物理连接数
+     */
+    long getCreatedCount();
+
+    /**
+     * 累计销毁的物理连接数
+     */
+    long getDestroyedCount();
+
+    /**
+     * 平均借出等待时间（毫秒）
+     */
+    double getBorrowWaitMeanMillis();
+
+    /**
+     * 借出等待时间p50（毫秒）
+     */
+    double getBorrowWaitP50Millis();
+
+    /**
+     * 借出等待时间p99（毫秒）
+     */
+    double getBorrowWaitP99Millis();
+
+    /**
+     * 最大借出等待时间（毫秒）
+     */
+    double getBorrowWaitMaxMillis();
+
+    /**
+     * 借出等待时间分布（桶上界 -> 次数）
+     */
+    Map<String, Long> getBorrowWaitHistogram();
+
+    /**
+     * 回收的泄漏连接数
+     */
+    long getAbandonedCount();
+
+    /**
+     * 最近回收的泄漏连接的借出调用栈
+     */
+    List<String> getAbandonedStackTraces();
+
+    /**
+     * 是否启用自适应调整连接池大小
+     */
+    boolean isAdaptiveSizingEnabled();
+
+    /**
+     * 启用或停用自适应调整
+     */
+    void setAdaptiveSizingEnabled(boolean enabled);
+
+    /**
+     * 手动调整连接池大小
+     */
+    void resize(int minIdle, int maxTotal);
+
+    /**
+     * 重置统计
+     */
+    void resetStatistics();
+}
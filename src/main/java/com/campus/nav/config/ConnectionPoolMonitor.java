@@ -0,0 +1,356 @@
+package com.campus.nav.config;
+
+import com.campus.nav.utils.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池监控与管理
+ * 1. 统计借出等待时间分布和失败次数，通过JMX（com.campus.nav:type=ConnectionPool）暴露连接池状态
+ * 2. 接收DBCP回收泄漏连接时输出的借出调用栈，保留最近的若干条
+ * 3. 定时采样需求（活动连接数+等待线程数），按窗口内的峰值和均值自适应调整maxTotal/minIdle/maxIdle：
+ *    出现等待时扩容，需求长期低于一半时逐步缩容，始终限制在配置的上下限之间
+ */
+public class ConnectionPoolMonitor implements ConnectionPoolMXBean {
+    private static final Logger logger = LogManager.getLogger(ConnectionPoolMonitor.class);
+
+    private static final String OBJECT_NAME = "com.campus.nav:type=ConnectionPool";
+    private static final int MAX_ABANDONED_TRACES = 20;
+    private static final int GROW_STEP = 2;
+    private static final int SHRINK_STEP = 1;
+
+    private final ManagedDataSource dataSource;
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final LongAdder borrowFailures = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final Deque<String> abandonedTraces = new ArrayDeque<>();
+    private final PrintWriter abandonedLogWriter = new PrintWriter(new AbandonedTraceWriter());
+
+    private volatile boolean adaptiveEnabled;
+    private final int minTotal;
+    private final int maxTotalCeiling;
+    private final int minIdleFloor;
+    private final int configuredMaxIdle;
+    private final long sampleMillis;
+    private final int samplesPerWindow;
+
+    // 以下窗口统计只在采样线程中访问
+    private int windowSamples;
+    private int windowPeak;
+    private long windowDemandSum;
+    private boolean windowHadWaiters;
+
+    private ScheduledExecutorService scheduler;
+    private ObjectName registeredName;
+
+    public ConnectionPoolMonitor(ManagedDataSource dataSource, Properties properties) {
+        this.dataSource = dataSource;
+        int maxTotal = Integer.parseInt(properties.getProperty("db.pool.maxTotal", "20"));
+        int minIdle = Integer.parseInt(properties.getProperty("db.pool.minIdle", "5"));
+        this.adaptiveEnabled = Boolean.parseBoolean(properties.getProperty("db.pool.adaptive.enabled", "true"));
+        this.minTotal = Integer.parseInt(properties.getProperty("db.pool.adaptive.minTotal", String.valueOf(minIdle)));
+        this.maxTotalCeiling = Integer.parseInt(
+                properties.getProperty("db.pool.adaptive.maxTotal", String.valueOf(maxTotal)));
+        this.minIdleFloor = Integer.parseInt(properties.getProperty("db.pool.adaptive.minIdle", "2"));
+        this.configuredMaxIdle = Integer.parseInt(properties.getProperty("db.pool.maxIdle", "10"));
+        this.sampleMillis = Long.parseLong(properties.getProperty("db.pool.adaptive.sampleMillis", "1000"));
+        long windowMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(properties.getProperty("db.pool.adaptive.windowSeconds", "60")));
+        this.samplesPerWindow = (int) Math.max(1, windowMillis / sampleMillis);
+    }
+
+    /**
+     * 交给DBCP的泄漏连接日志输出
+     */
+    public PrintWriter getAbandonedLogWriter() {
+        return abandonedLogWriter;
+    }
+
+    /**
+     * 注册JMX并启动采样线程
+     */
+    public synchronized void start() {
+        registerMBean();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, sampleMillis, sampleMillis, TimeUnit.MILLISECONDS);
+        logger.info("连接池监控已启动，自适应调整: {} (maxTotal范围 {}-{})", adaptiveEnabled, minTotal, maxTotalCeiling);
+    }
+
+    /**
+     * 停止采样线程并注销JMX
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (Exception e) {
+                logger.warn("注销连接池MBean失败", e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * 记录一次借出连接
+     * @param waitNanos 借出耗时
+     * @param success 是否成功借出
+     */
+    public void recordBorrow(long waitNanos, boolean success) {
+        borrowWait.record(waitNanos);
+        if (!success) {
+            borrowFailures.increment();
+        }
+    }
+
+    /**
+     * 获取连接池状态信息
+     */
+    public String getStatus() {
+        return String.format("连接池状态: 活动连接=%d, 空闲连接=%d, 等待线程=%d, 最大连接=%d, 最小空闲=%d, " +
+                        "借出=%d, 借出失败=%d, 借出等待p99=%.2fms, 泄漏回收=%d",
+                getNumActive(), getNumIdle(), getNumWaiters(), getMaxTotal(), getMinIdle(),
+                getBorrowCount(), getBorrowFailureCount(), getBorrowWaitP99Millis(), getAbandonedCount());
+    }
+
+    @Override
+    public int getNumActive() {
+        return dataSource.getNumActive();
+    }
+
+    @Override
+    public int getNumIdle() {
+        return dataSource.getNumIdle();
+    }
+
+    @Override
+    public int getNumWaiters() {
+        return dataSource.getNumWaiters();
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return dataSource.getMaxTotal();
+    }
+
+    @Override
+    public int getMinIdle() {
+        return dataSource.getMinIdle();
+    }
+
+    @Override
+    public int getMaxIdle() {
+        return dataSource.getMaxIdle();
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowWait.getCount();
+    }
+
+    @Override
+    public long getBorrowFailureCount() {
+        return borrowFailures.sum();
+    }
+
+    @Override
+    public long getCreatedCount() {
+        return dataSource.getCreatedCount();
+    }
+
+    @Override
+    public long getDestroyedCount() {
+        return dataSource.getDestroyedCount();
+    }
+
+    @Override
+    public double getBorrowWaitMeanMillis() {
+        return borrowWait.getMeanMillis();
+    }
+
+    @Override
+    public double getBorrowWaitP50Millis() {
+        return borrowWait.getPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getBorrowWaitP99Millis() {
+        return borrowWait.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getBorrowWaitMaxMillis() {
+        return borrowWait.getMaxMillis();
+    }
+
+    @Override
+    public Map<String, Long> getBorrowWaitHistogram() {
+        return borrowWait.getBuckets();
+    }
+
+    @Override
+    public long getAbandonedCount() {
+        return abandoned.sum();
+    }
+
+    @Override
+    public List<String> getAbandonedStackTraces() {
+        synchronized (abandonedTraces) {
+            return new ArrayList<>(abandonedTraces);
+        }
+    }
+
+    @Override
+    public boolean isAdaptiveSizingEnabled() {
+        return adaptiveEnabled;
+    }
+
+    @Override
+    public void setAdaptiveSizingEnabled(boolean enabled) {
+        this.adaptiveEnabled = enabled;
+        logger.info("连接池自适应调整已{}", enabled ? "启用" : "停用");
+    }
+
+    @Override
+    public void resize(int minIdle, int maxTotal) {
+        if (maxTotal <= 0 || minIdle < 0 || minIdle > maxTotal) {
+            throw new IllegalArgumentException("无效的连接池大小: minIdle=" + minIdle + ", maxTotal=" + maxTotal);
+        }
+        apply(minIdle, Math.min(maxTotal, Math.max(minIdle, configuredMaxIdle)), maxTotal);
+    }
+
+    @Override
+    public void resetStatistics() {
+        borrowWait.reset();
+        borrowFailures.reset();
+    }
+
+    /**
+     * 采样一次需求，窗口结束时调整连接池大小
+     */
+    private void sample() {
+        try {
+            int waiters = dataSource.getNumWaiters();
+            int demand = dataSource.getNumActive() + waiters;
+            windowSamples++;
+            windowPeak = Math.max(windowPeak, demand);
+            windowDemandSum += demand;
+            windowHadWaiters |= waiters > 0;
+
+            if (windowSamples >= samplesPerWindow) {
+                if (adaptiveEnabled) {
+                    adjust(windowPeak, (double) windowDemandSum / windowSamples, windowHadWaiters);
+                }
+                windowSamples = 0;
+                windowPeak = 0;
+                windowDemandSum = 0;
+                windowHadWaiters = false;
+            }
+        } catch (Exception e) {
+            logger.warn("连接池采样失败", e);
+        }
+    }
+
+    private void adjust(int peak, double average, boolean hadWaiters) {
+        int maxTotal = dataSource.getMaxTotal();
+        int newMaxTotal = maxTotal;
+        if (hadWaiters) {
+            // 出现等待：按峰值的1.25倍扩容，至少扩GROW_STEP
+            newMaxTotal = Math.max(maxTotal + GROW_STEP, (int) Math.ceil(peak * 1.25));
+        } else if (peak < maxTotal / 2) {
+            // 峰值不到一半：逐步缩容，保留峰值1.5倍的余量
+            newMaxTotal = Math.max(maxTotal - SHRINK_STEP, (int) Math.ceil(peak * 1.5));
+        }
+        newMaxTotal = Math.max(minTotal, Math.min(maxTotalCeiling, newMaxTotal));
+
+        int newMinIdle = Math.max(minIdleFloor, Math.min(newMaxTotal, (int) Math.ceil(average)));
+        int newMaxIdle = Math.min(newMaxTotal, Math.max(newMinIdle, configuredMaxIdle));
+        apply(newMinIdle, newMaxIdle, newMaxTotal);
+    }
+
+    private void apply(int minIdle, int maxIdle, int maxTotal) {
+        if (minIdle == dataSource.getMinIdle() && maxIdle == dataSource.getMaxIdle()
+                && maxTotal == dataSource.getMaxTotal()) {
+            return;
+        }
+        logger.info("调整连接池大小: maxTotal {} -> {}, minIdle {} -> {}, maxIdle {} -> {}",
+                dataSource.getMaxTotal(), maxTotal, dataSource.getMinIdle(), minIdle, dataSource.getMaxIdle(), maxIdle);
+        dataSource.setMaxTotal(maxTotal);
+        dataSource.setMaxIdle(maxIdle);
+        dataSource.setMinIdle(minIdle);
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (Exception e) {
+            logger.warn("注册连接池MBean失败", e);
+        }
+    }
+
+    private void recordAbandoned(String trace) {
+        abandoned.increment();
+        logger.warn("回收了未归还的数据库连接:{}{}", System.lineSeparator(), trace);
+        synchronized (abandonedTraces) {
+            if (abandonedTraces.size() >= MAX_ABANDONED_TRACES) {
+                abandonedTraces.removeFirst();
+            }
+            abandonedTraces.addLast(trace);
+        }
+    }
+
+    /**
+     * 收集DBCP输出的泄漏连接调用栈，每次flush为一条记录
+     */
+    private final class AbandonedTraceWriter extends Writer {
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public synchronized void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public synchronized void flush() {
+            String trace = buffer.toString().trim();
+            buffer.setLength(0);
+            if (!trace.isEmpty()) {
+                recordAbandoned(trace);
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+}
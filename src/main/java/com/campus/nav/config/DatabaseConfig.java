@@ -1,6 +1,5 @@
 package com.campus.nav.config;
 
-import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -8,15 +7,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 数据库配置和连接池管理类
  */
 public class DatabaseConfig {
     private static final Logger logger = LogManager.getLogger(DatabaseConfig.class);
-    private static BasicDataSource dataSource;
-    private static Properties properties = new Properties();
+    private static volatile ManagedDataSource dataSource;
+    private static volatile ConnectionPoolMonitor poolMonitor;
+    private static volatile ReplicaRouter replicaRouter;
+    private static final Properties properties = new Properties();
+    private static volatile boolean propertiesLoaded;
+    private static final String CONNECTION_PROPERTY_PREFIX = "db.connection.";
+    private static final List<Runnable> closeHooks = new CopyOnWriteArrayList<>();
+    private static final List<Runnable> readyCallbacks = new ArrayList<>();   // 由DatabaseConfig.class保护
 
     // 私有构造器，防止实例化
     private DatabaseConfig() {
@@ -26,6 +35,37 @@ public class DatabaseConfig {
      * 初始化数据库连接池
      */
     public static void initialize() {
+        // 显式初始化时总是重新读取，使修改后的系统属性生效
+        synchronized (properties) {
+            readProperties();
+        }
+        
+        // 内存后端不需要连接池
+        if (isMemoryBackend()) {
+            logger.info("使用内存数据后端（dao.backend=memory），不连接数据库");
+            return;
+        }
+        
+        // 初始化连接池
+        initializeDataSource();
+    }
+    
+    /**
+     * 加载配置文件（不连接数据库），已加载时直接返回
+     */
+    public static void loadProperties() {
+        if (propertiesLoaded) {
+            return;
+        }
+        // 不与连接池初始化共用类锁，后台初始化连接池期间读取配置不需要等待
+        synchronized (properties) {
+            if (!propertiesLoaded) {
+                readProperties();
+            }
+        }
+    }
+    
+    private static void readProperties() {
         try (InputStream input = DatabaseConfig.class.getClassLoader()
                 .getResourceAsStream("config.properties")) {
             
@@ -36,8 +76,13 @@ public class DatabaseConfig {
             properties.load(input);
             logger.info("加载配置文件成功");
             
-            // 初始化连接池
-            initializeDataSource();
+            // 允许通过系统属性（-Ddb.xxx=... / -Ddao.xxx=...）覆盖数据库配置
+            for (String key : System.getProperties().stringPropertyNames()) {
+                if (key.startsWith("db.") || key.startsWith("dao.")) {
+                    properties.setProperty(key, System.getProperty(key));
+                }
+            }
+            propertiesLoaded = true;
             
         } catch (IOException e) {
             logger.error("加载配置文件失败", e);
@@ -46,38 +91,31 @@ public class DatabaseConfig {
     }
 
     /**
-     * 初始化数据源连接池
+     * 初始化数据源连接池（包括测试连接），可以在后台线程调用；
+     * 初始化期间其他线程获取连接时等待初始化完成，初始化失败后下次获取连接时重试
      */
-    private static void initializeDataSource() {
+    public static void initializeDataSource() {
+        List<Runnable> ready = null;
         if (dataSource == null) {
             synchronized (DatabaseConfig.class) {
                 if (dataSource == null) {
                     try {
-                        dataSource = new BasicDataSource();
+                        ManagedDataSource dataSource = createDataSource(properties.getProperty("db.url"),
+                                properties.getProperty("db.username"), properties.getProperty("db.password"),
+                                "db.pool.");
                         
-                        // 基础连接配置
-                        dataSource.setDriverClassName(properties.getProperty("db.driver"));
-                        dataSource.setUrl(properties.getProperty("db.url"));
-                        dataSource.setUsername(properties.getProperty("db.username"));
-                        dataSource.setPassword(properties.getProperty("db.password"));
-                        
-                        // 连接池配置
-                        dataSource.setInitialSize(Integer.parseInt(
-                                properties.getProperty("db.pool.initialSize", "5")));
-                        dataSource.setMaxTotal(Integer.parseInt(
-                                properties.getProperty("db.pool.maxTotal", "20")));
-                        dataSource.setMaxIdle(Integer.parseInt(
-                                properties.getProperty("db.pool.maxIdle", "10")));
-                        dataSource.setMinIdle(Integer.parseInt(
-                                properties.getProperty("db.pool.minIdle", "5")));
-                        dataSource.setMaxWaitMillis(Long.parseLong(
-                                properties.getProperty("db.pool.maxWaitMillis", "10000")));
-                        
-                        // 连接验证配置
-                        dataSource.setValidationQuery("SELECT 1");
-                        dataSource.setTestOnBorrow(true);
-                        dataSource.setTestWhileIdle(true);
-                        dataSource.setTimeBetweenEvictionRunsMillis(30000);
+                        // 泄漏连接检测：借出超过超时时间未归还的连接在驱逐时回收，并记录借出时的调用栈
+                        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(dataSource, properties);
+                        if (Boolean.parseBoolean(properties.getProperty("db.pool.abandoned.enabled", "true"))) {
+                            dataSource.setRemoveAbandonedOnMaintenance(true);
+                            dataSource.setRemoveAbandonedTimeout(Integer.parseInt(
+                                    properties.getProperty("db.pool.abandoned.timeoutSeconds", "300")));
+                            dataSource.setLogAbandoned(Boolean.parseBoolean(
+                                    properties.getProperty("db.pool.abandoned.logStackTraces", "true")));
+                            dataSource.setAbandonedLogWriter(monitor.getAbandonedLogWriter());
+                            // 流式读取通过keepAlive标记连接正在使用，长时间的导出、导入不会被当作泄漏回收
+                            dataSource.setAbandonedUsageTracking(true);
+                        }
                         
                         // 测试连接
                         try (Connection conn = dataSource.getConnection()) {
@@ -87,6 +125,14 @@ public class DatabaseConfig {
                             }
                         }
                         
+                        monitor.start();
+                        poolMonitor = monitor;
+                        DatabaseConfig.dataSource = dataSource;
+                        
+                        initializeReplicas();
+                        
+                        ready = new ArrayList<>(readyCallbacks);
+                        readyCallbacks.clear();
                     } catch (Exception e) {
                         logger.error("数据库连接池初始化失败", e);
                         throw new RuntimeException("数据库连接池初始化失败", e);
@@ -94,6 +140,114 @@ public class DatabaseConfig {
                 }
             }
         }
+        if (ready != null) {
+            runReadyCallbacks(ready);
+        }
+    }
+
+    /**
+     * 连接池初始化成功后执行一次（已初始化时立即在调用线程上执行）；
+     * 启动时初始化失败的，之后获取连接重试成功时在该线程上执行
+     */
+    public static void whenReady(Runnable callback) {
+        synchronized (DatabaseConfig.class) {
+            if (dataSource == null) {
+                readyCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    private static void runReadyCallbacks(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                logger.error("执行连接池就绪回调失败", e);
+            }
+        }
+    }
+
+    /**
+     * 创建连接池（主库和只读副本共用），连接池大小等参数按poolPrefix读取，未配置时使用db.pool.的配置
+     */
+    private static ManagedDataSource createDataSource(String url, String username, String password,
+                                                      String poolPrefix) {
+        ManagedDataSource dataSource = new ManagedDataSource();
+        
+        // 基础连接配置
+        dataSource.setDriverClassName(properties.getProperty("db.driver"));
+        dataSource.setUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        
+        // 连接池配置
+        dataSource.setInitialSize(Integer.parseInt(poolProperty(poolPrefix, "initialSize", "5")));
+        dataSource.setMaxTotal(Integer.parseInt(poolProperty(poolPrefix, "maxTotal", "20")));
+        dataSource.setMaxIdle(Integer.parseInt(poolProperty(poolPrefix, "maxIdle", "10")));
+        dataSource.setMinIdle(Integer.parseInt(poolProperty(poolPrefix, "minIdle", "5")));
+        dataSource.setMaxWaitMillis(Long.parseLong(poolProperty(poolPrefix, "maxWaitMillis", "10000")));
+        
+        // 预编译语句池（每个物理连接缓存一份）
+        dataSource.setPoolPreparedStatements(Boolean.parseBoolean(
+                properties.getProperty("db.pool.poolPreparedStatements", "true")));
+        dataSource.setMaxOpenPreparedStatements(Integer.parseInt(
+                properties.getProperty("db.pool.maxOpenPreparedStatements", "100")));
+        
+        // 驱动连接属性（db.connection.前缀，如服务端预编译和驱动语句缓存）
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(CONNECTION_PROPERTY_PREFIX)) {
+                dataSource.addConnectionProperty(
+                        key.substring(CONNECTION_PROPERTY_PREFIX.length()),
+                        properties.getProperty(key));
+            }
+        }
+        
+        // 连接验证配置：默认不在借出时验证，由驱逐线程对空闲连接调用Connection.isValid()
+        // （未配置validationQuery时DBCP使用isValid，即驱动的ping，不执行SQL）
+        String validationQuery = properties.getProperty("db.pool.validationQuery", "");
+        dataSource.setValidationQuery(validationQuery.isEmpty() ? null : validationQuery);
+        dataSource.setValidationQueryTimeout(Integer.parseInt(
+                properties.getProperty("db.pool.validationTimeoutSeconds", "2")));
+        dataSource.setTestOnBorrow(Boolean.parseBoolean(
+                properties.getProperty("db.pool.testOnBorrow", "false")));
+        dataSource.setTestWhileIdle(true);
+        dataSource.setTimeBetweenEvictionRunsMillis(Long.parseLong(
+                properties.getProperty("db.pool.evictionIntervalMillis", "30000")));
+        dataSource.setNumTestsPerEvictionRun(dataSource.getMaxIdle());
+        dataSource.setMaxConnLifetimeMillis(Long.parseLong(
+                properties.getProperty("db.pool.maxConnLifetimeMillis", "1800000")));
+        // 出现致命错误（如连接断开）的连接归还时直接销毁，不再借出
+        dataSource.setFastFailValidation(true);
+        return dataSource;
+    }
+
+    private static String poolProperty(String poolPrefix, String name, String defaultValue) {
+        return properties.getProperty(poolPrefix + name, properties.getProperty("db.pool." + name, defaultValue));
+    }
+
+    /**
+     * 初始化只读副本（db.replica.urls，逗号分隔），未配置时所有读写都走主库
+     */
+    private static void initializeReplicas() {
+        String urls = properties.getProperty("db.replica.urls", "").trim();
+        if (urls.isEmpty()) {
+            return;
+        }
+        String username = properties.getProperty("db.replica.username", "");
+        String password = properties.getProperty("db.replica.password", "");
+        ReplicaRouter router = new ReplicaRouter(properties);
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                router.addReplica(url.trim(), createDataSource(url.trim(),
+                        username.isEmpty() ? properties.getProperty("db.username") : username,
+                        username.isEmpty() ? properties.getProperty("db.password") : password,
+                        "db.replica.pool."));
+            }
+        }
+        router.start();
+        replicaRouter = router;
     }
 
     /**
@@ -101,18 +255,116 @@ public class DatabaseConfig {
      */
     public static Connection getConnection() throws SQLException {
         if (dataSource == null) {
-            initialize();
+            loadProperties();
+            if (isMemoryBackend()) {
+                throw new SQLException("内存数据后端（dao.backend=memory）没有数据库连接");
+            }
+            initializeDataSource();
         }
-        return dataSource.getConnection();
+        long begin = System.nanoTime();
+        try {
+            Connection conn = dataSource.getConnection();
+            poolMonitor.recordBorrow(System.nanoTime() - begin, true);
+            return conn;
+        } catch (SQLException e) {
+            poolMonitor.recordBorrow(System.nanoTime() - begin, false);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取只读查询使用的连接：有满足延迟和读己之写条件的副本时使用副本，否则使用主库
+     * @param tables 查询涉及的表
+     * @param allowStale 调用方明确接受旧数据，忽略本进程最近的写入
+     */
+    public static Connection getReadConnection(Collection<String> tables, boolean allowStale) throws SQLException {
+        ReplicaRouter router = replicaRouter;
+        if (router != null) {
+            Connection conn = router.getConnection(tables, allowStale);
+            if (conn != null) {
+                return conn;
+            }
+        }
+        return getConnection();
+    }
+
+    /**
+     * 流式读取期间定期调用：把主库连接标记为正在使用，推迟泄漏连接回收（只读副本的连接不做泄漏回收）
+     */
+    public static void keepAlive(Connection connection) {
+        ManagedDataSource current = dataSource;
+        if (current != null) {
+            current.markInUse(connection);
+        }
+    }
+
+    /**
+     * 主库连接池可能达到的最大连接数：启用自适应调整时为db.pool.maxTotal和db.pool.adaptive.maxTotal中较大的，
+     * 否则为db.pool.maxTotal
+     */
+    public static int getMaxPoolSize() {
+        int maxTotal = Integer.parseInt(properties.getProperty("db.pool.maxTotal", "20"));
+        if (!Boolean.parseBoolean(properties.getProperty("db.pool.adaptive.enabled", "true"))) {
+            return maxTotal;
+        }
+        return Math.max(maxTotal,
+                Integer.parseInt(properties.getProperty("db.pool.adaptive.maxTotal", String.valueOf(maxTotal))));
+    }
+
+    /**
+     * 是否配置了只读副本
+     */
+    public static boolean hasReplicas() {
+        return replicaRouter != null;
+    }
+
+    /**
+     * 记录本进程写入的表，用于读己之写
+     */
+    public static void recordWrite(Collection<String> tables) {
+        ReplicaRouter router = replicaRouter;
+        if (router != null) {
+            router.recordWrite(tables);
+        }
+    }
+
+    /**
+     * 注册关闭数据源前执行的操作（如排空异步写入队列），按注册的逆序执行
+     */
+    public static void addCloseHook(Runnable hook) {
+        closeHooks.add(0, hook);
+    }
+
+    /**
+     * 注册JVM关闭钩子，退出时关闭数据源
+     */
+    public static void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConfig::closeDataSource, "datasource-shutdown"));
     }
 
     /**
      * 关闭数据源（应用关闭时调用）
      */
-    public static void closeDataSource() {
+    public static synchronized void closeDataSource() {
+        for (Runnable hook : closeHooks) {
+            try {
+                hook.run();
+            } catch (Exception e) {
+                logger.error("执行关闭钩子失败", e);
+            }
+        }
+        if (poolMonitor != null) {
+            poolMonitor.stop();
+        }
+        if (replicaRouter != null) {
+            replicaRouter.stop();
+            replicaRouter = null;
+        }
         if (dataSource != null) {
             try {
                 dataSource.close();
+                dataSource = null;
+                poolMonitor = null;
                 logger.info("数据库连接池已关闭");
             } catch (SQLException e) {
                 logger.error("关闭数据库连接池失败", e);
@@ -134,17 +386,36 @@ public class DatabaseConfig {
         return properties.getProperty(key, defaultValue);
     }
 
+    /**
+     * 是否使用内存数据后端（dao.backend=memory）
+     */
+    public static boolean isMemoryBackend() {
+        return "memory".equalsIgnoreCase(properties.getProperty("dao.backend", "mysql"));
+    }
+
     /**
      * 获取连接池状态信息
      */
     public static String getPoolStatus() {
-        if (dataSource == null) {
+        ConnectionPoolMonitor monitor = poolMonitor;
+        if (dataSource == null || monitor == null) {
             return "连接池未初始化";
         }
-        
-        return String.format("连接池状态: 活动连接=%d, 空闲连接=%d, 最大连接=%d",
-                dataSource.getNumActive(),
-                dataSource.getNumIdle(),
-                dataSource.getMaxTotal());
+        return monitor.getStatus();
+    }
+
+    /**
+     * 获取只读副本状态信息
+     */
+    public static String getReplicaStatus() {
+        ReplicaRouter router = replicaRouter;
+        return router != null ? router.getStatus() : "未配置只读副本";
+    }
+
+    /**
+     * 获取连接池监控（未初始化时为null）
+     */
+    public static ConnectionPoolMonitor getPoolMonitor() {
+        return poolMonitor;
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.campus.nav.config;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.dbcp2.PoolableConnectionFactory;
+import org.apache.commons.pool2.DestroyMode;
+import org.apache.commons.pool2.impl.AbandonedConfig;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 暴露底层对象池统计信息的数据源
+ * 另外记录借出中的连接，流式读取期间可以把连接标记为正在使用，推迟泄漏回收
+ */
+public class ManagedDataSource extends BasicDataSource {
+
+    /**
+     * 等待借出连接的线程数
+     */
+    public int getNumWaiters() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return pool != null ? pool.getNumWaiters() : 0;
+    }
+
+    /**
+     * 累计借出次数
+     */
+    public long getBorrowedCount() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return pool != null ? pool.getBorrowedCount() : 0;
+    }
+
+    /**
+     * 累计创建的物理连接数
+     */
+    public long getCreatedCount() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return pool != null ? pool.getCreatedCount() : 0;
+    }
+
+    /**
+     * 累计销毁的物理连接数（含验证失败和被回收的泄漏连接）
+     */
+    public long getDestroyedCount() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return pool != null ? pool.getDestroyedCount() : 0;
+    }
+
+    /**
+     * 把借出的连接标记为正在使用，推迟泄漏连接回收（removeAbandonedTimeout从现在重新计算）
+     * 流式读取在同一个结果集上逐行读取时不执行新的语句，DBCP不会更新最近使用时间，需要定期调用；
+     * 需要开启abandonedUsageTracking，不是本连接池借出的连接（如只读副本的连接）忽略
+     */
+    public void markInUse(Connection connection) {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        if (!(pool instanceof TrackingPool) || !getAbandonedUsageTracking()) {
+            return;
+        }
+        try {
+            if (!connection.isClosed() && connection.isWrapperFor(PoolableConnection.class)) {
+                ((TrackingPool) pool).use(connection.unwrap(PoolableConnection.class));
+            }
+        } catch (SQLException e) {
+            // 连接已关闭，不需要推迟回收
+        }
+    }
+
+    @Override
+    protected GenericObjectPool<PoolableConnection> createObjectPool(PoolableConnectionFactory factory,
+            GenericObjectPoolConfig<PoolableConnection> poolConfig, AbandonedConfig abandonedConfig) {
+        if (abandonedConfig != null
+                && (abandonedConfig.getRemoveAbandonedOnBorrow() || abandonedConfig.getRemoveAbandonedOnMaintenance())) {
+            return new TrackingPool(factory, poolConfig, abandonedConfig);
+        }
+        return super.createObjectPool(factory, poolConfig, abandonedConfig);
+    }
+
+    /**
+     * 记录借出中的连接的对象池：GenericObjectPool.use()只接受本池借出的对象
+     */
+    private static final class TrackingPool extends GenericObjectPool<PoolableConnection> {
+        private final Set<PoolableConnection> borrowed = ConcurrentHashMap.newKeySet();
+        // 回收（invalidate）与标记使用互斥，避免标记一个正在被销毁的连接
+        private final Object usageLock = new Object();
+
+        TrackingPool(PoolableConnectionFactory factory, GenericObjectPoolConfig<PoolableConnection> poolConfig,
+                     AbandonedConfig abandonedConfig) {
+            super(factory, poolConfig, abandonedConfig);
+        }
+
+        @Override
+        public PoolableConnection borrowObject(Duration borrowMaxWaitDuration) throws Exception {
+            PoolableConnection connection = super.borrowObject(borrowMaxWaitDuration);
+            borrowed.add(connection);
+            return connection;
+        }
+
+        @Override
+        public void returnObject(PoolableConnection connection) {
+            borrowed.remove(connection);
+            super.returnObject(connection);
+        }
+
+        @Override
+        public void invalidateObject(PoolableConnection connection, DestroyMode destroyMode) throws Exception {
+            synchronized (usageLock) {
+                borrowed.remove(connection);
+                super.invalidateObject(connection, destroyMode);
+            }
+        }
+
+        @Override
+        public void use(PoolableConnection connection) {
+            synchronized (usageLock) {
+                if (borrowed.contains(connection)) {
+                    super.use(connection);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.campus.nav.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只读副本路由
+ * 1. 每个副本一个连接池，查询轮询可用的副本；副本不可用、复制延迟超过db.replica.maxLagSeconds或读不到延迟时回退到主库
+ * 2. 后台线程定时检查副本连通性和复制延迟（db.replica.lagQuery），恢复后重新加入轮询
+ * 3. 读己之写：记录本进程最近写入每张表的时间，查询涉及的表在写入后
+ *    max(db.replica.readYourWritesMillis, 副本当前延迟) 之内读主库
+ */
+public class ReplicaRouter {
+    private static final Logger logger = LogManager.getLogger(ReplicaRouter.class);
+
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private final long maxLagMillis;
+    private final long readYourWritesMillis;
+    private final long checkIntervalMillis;
+    private final String lagQuery;
+
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaRouter(Properties properties) {
+        this.maxLagMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(properties.getProperty("db.replica.maxLagSeconds", "5")));
+        this.readYourWritesMillis = Long.parseLong(properties.getProperty("db.replica.readYourWritesMillis", "3000"));
+        this.checkIntervalMillis = Long.parseLong(properties.getProperty("db.replica.checkIntervalMillis", "2000"));
+        this.lagQuery = properties.getProperty("db.replica.lagQuery", "").trim();
+    }
+
+    /**
+     * 添加一个副本
+     */
+    public void addReplica(String url, ManagedDataSource dataSource) {
+        replicas.add(new Replica(url, dataSource));
+    }
+
+    /**
+     * 副本数量
+     */
+    public int size() {
+        return replicas.size();
+    }
+
+    /**
+     * 立即检查一次所有副本并启动定时检查线程
+     */
+    public synchronized void start() {
+        checkReplicas();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        logger.info("只读副本路由已启动: {} 个副本, 最大延迟 {}ms, 读己之写窗口 {}ms",
+                replicas.size(), maxLagMillis, readYourWritesMillis);
+    }
+
+    /**
+     * 停止检查线程并关闭副本连接池
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        for (Replica replica : replicas) {
+            try {
+                replica.dataSource.close();
+            } catch (SQLException e) {
+                logger.warn("关闭副本连接池失败: {}", replica.url, e);
+            }
+        }
+    }
+
+    /**
+     * 记录本进程写入了哪些表（由DatabaseUtil在写操作成功和事务结束后调用）
+     */
+    public void recordWrite(Collection<String> tables) {
+        long now = System.currentTimeMillis();
+        for (String table : tables) {
+            lastWrites.put(table.toLowerCase(Locale.ROOT), now);
+        }
+    }
+
+    /**
+     * 借出一个副本连接
+     * @param tables 查询涉及的表，用于读己之写判断
+     * @param allowStale 调用方明确接受旧数据（忽略最近的写入，但仍受最大延迟限制）
+     * @return 副本连接，没有满足条件的副本时返回null（由调用方使用主库）
+     */
+    public Connection getConnection(Collection<String> tables, boolean allowStale) {
+        long sinceWrite = allowStale ? Long.MAX_VALUE : millisSinceWrite(tables);
+        if (sinceWrite > readYourWritesMillis) {
+            int count = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), count);
+            for (int i = 0; i < count; i++) {
+                Replica replica = replicas.get((start + i) % count);
+                if (!replica.up || replica.lagMillis > maxLagMillis || sinceWrite <= replica.lagMillis) {
+                    continue;
+                }
+                try {
+                    Connection conn = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return conn;
+                } catch (SQLException e) {
+                    // 借出失败立即摘除，由检查线程确认恢复后再加入
+                    replica.markDown(e);
+                    fallbacks.increment();
+                }
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    /**
+     * 获取路由状态信息
+     */
+    public String getStatus() {
+        StringBuilder status = new StringBuilder(String.format(
+                "只读副本: 副本读=%d, 主库读=%d, 借出失败回退=%d",
+                replicaReads.sum(), primaryReads.sum(), fallbacks.sum()));
+        for (Replica replica : replicas) {
+            status.append(String.format("; %s [%s, 延迟=%s, 活动连接=%d, 空闲连接=%d]",
+                    replica.url, replica.up ? "可用" : "不可用",
+                    replica.lagMillis == Long.MAX_VALUE ? "未知" : replica.lagMillis + "ms",
+                    replica.dataSource.getNumActive(), replica.dataSource.getNumIdle()));
+        }
+        return status.toString();
+    }
+
+    private long millisSinceWrite(Collection<String> tables) {
+        long latest = 0;
+        for (String table : tables) {
+            Long written = lastWrites.get(table);
+            if (written != null && written > latest) {
+                latest = written;
+            }
+        }
+        return latest == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - latest;
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                check(replica);
+            } catch (Exception e) {
+                logger.error("检查副本失败: {}", replica.url, e);
+            }
+        }
+    }
+
+    /**
+     * 检查副本连通性并读取复制延迟
+     */
+    private void check(Replica replica) {
+        long lagMillis;
+        try (Connection conn = replica.dataSource.getConnection()) {
+            lagMillis = readLag(replica, conn);
+        } catch (SQLException e) {
+            replica.markDown(e);
+            return;
+        }
+        replica.lagMillis = lagMillis;
+        if (lagMillis > maxLagMillis) {
+            logger.debug("副本 {} 复制延迟 {}ms，超过上限，读请求走主库", replica.url,
+                    lagMillis == Long.MAX_VALUE ? "未知" : lagMillis);
+        }
+        if (!replica.up) {
+            replica.up = true;
+            logger.info("副本已恢复: {}", replica.url);
+        }
+    }
+
+    /**
+     * 读取复制延迟（毫秒），复制线程停止（延迟为NULL）视为无限大。
+     * 读不到延迟（没有权限、没有复制状态或没有延迟列）时延迟未知，同样视为无限大，副本不参与轮询；
+     * 只检查连通性需要显式把db.replica.lagQuery配置为空
+     */
+    private long readLag(Replica replica, Connection conn) throws SQLException {
+        if (lagQuery.isEmpty()) {
+            return 0;
+        }
+        String problem;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(lagQuery)) {
+            String column = rs.next() ? lagColumn(rs.getMetaData()) : null;
+            if (column != null) {
+                long seconds = rs.getLong(column);
+                replica.lagUnknown = false;
+                return rs.wasNull() ? Long.MAX_VALUE : TimeUnit.SECONDS.toMillis(seconds);
+            }
+            problem = "没有复制状态";
+        } catch (SQLException e) {
+            if (!conn.isValid(2)) {
+                throw e;
+            }
+            problem = e.getMessage();
+        }
+        if (!replica.lagUnknown) {
+            replica.lagUnknown = true;
+            logger.warn("无法读取副本 {} 的复制延迟（{}），读请求走主库: {}", replica.url, lagQuery, problem);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static String lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (String name : LAG_COLUMNS) {
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 副本状态
+     */
+    private static final class Replica {
+        private final String url;
+        private final ManagedDataSource dataSource;
+        // 首次检查前视为可用，首次检查失败时输出日志
+        private volatile boolean up = true;
+        private volatile long lagMillis = Long.MAX_VALUE;
+        // 只在状态变化时输出日志，由监控线程访问
+        private boolean lagUnknown;
+
+        Replica(String url, ManagedDataSource dataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+        }
+
+        void markDown(SQLException e) {
+            if (up) {
+                logger.warn("副本不可用，读请求回退到主库: {} ({})", url, e.getMessage());
+            }
+            up = false;
+        }
+    }
+}
@@ -1,99 +1,196 @@
 package com.campus.nav.config;
 
+import com.campus.nav.model.NavigationStrategy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 系统配置管理类
+ * 配置保存在不可变的快照中：默认值来自config.properties，system_config表中的配置加载后覆盖默认值。
+ * 读取只访问volatile的当前快照；重新加载时整体替换快照，配置有变化时通知监听器
  */
 public class SystemConfig {
-    private static final Map<String, String> configMap = new HashMap<>();
-    
-    static {
-        // 加载系统配置
-        loadDefaultConfig();
+    private static final Logger logger = LogManager.getLogger(SystemConfig.class);
+
+    /**
+     * system_config表中的配置键到配置键的映射
+     */
+    private static final Map<String, String> TABLE_KEYS = Map.of(
+            "MAP_WIDTH", "map.width",
+            "MAP_HEIGHT", "map.height",
+            "UI_THEME", "ui.theme",
+            "SHORTEST_WEIGHT", "path.weight.shortest",
+            "SHADE_WEIGHT", "path.weight.shade",
+            "SCENIC_WEIGHT", "path.weight.scenic",
+            "DEFAULT_STRATEGY", "navigation.defaultStrategy");
+
+    private static final Map<String, String> defaults = loadDefaultConfig();
+    private static volatile ConfigSnapshot snapshot = new ConfigSnapshot(0, defaults);
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 配置变化监听器，在执行重新加载的线程上回调
+     */
+    public interface Listener {
+        void onConfigChange(ConfigSnapshot previous, ConfigSnapshot current);
     }
-    
+
     private SystemConfig() {
     }
-    
+
     /**
      * 加载默认配置
      */
-    private static void loadDefaultConfig() {
+    private static Map<String, String> loadDefaultConfig() {
+        Map<String, String> configMap = new HashMap<>();
         configMap.put("map.width", DatabaseConfig.getProperty("system.map.width", "800"));
         configMap.put("map.height", DatabaseConfig.getProperty("system.map.height", "600"));
         configMap.put("ui.theme", DatabaseConfig.getProperty("system.ui.theme", "FlatLaf Light"));
         configMap.put("path.weight.shortest", DatabaseConfig.getProperty("path.weight.shortest", "1.0"));
         configMap.put("path.weight.shade", DatabaseConfig.getProperty("path.weight.shade", "1.5"));
         configMap.put("path.weight.scenic", DatabaseConfig.getProperty("path.weight.scenic", "1.3"));
+        configMap.put("navigation.defaultStrategy",
+                DatabaseConfig.getProperty("navigation.defaultStrategy", NavigationStrategy.SHORTEST.name()));
+        return Collections.unmodifiableMap(configMap);
     }
-    
+
+    /**
+     * 当前配置快照
+     */
+    public static ConfigSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * 用system_config表中的配置重新生成快照，表中没有的配置使用默认值
+     * @param tableValues 表中的配置键到配置值的映射
+     * @return 配置是否有变化
+     */
+    public static boolean reload(Map<String, String> tableValues) {
+        Map<String, String> values = new HashMap<>(defaults);
+        for (Map.Entry<String, String> entry : tableValues.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                values.put(toConfigKey(entry.getKey()), entry.getValue().trim());
+            }
+        }
+        return publish(values);
+    }
+
+    /**
+     * system_config表中的配置键对应的配置键，没有映射时原样使用
+     */
+    public static String toConfigKey(String tableKey) {
+        return TABLE_KEYS.getOrDefault(tableKey.toUpperCase(Locale.ROOT), tableKey);
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * 获取配置值
      */
     public static String getConfig(String key) {
-        return configMap.get(key);
+        return snapshot.get(key);
     }
-    
+
     /**
      * 获取配置值（整数类型）
      */
     public static int getIntConfig(String key) {
+        String value = snapshot.get(key);
         try {
-            return Integer.parseInt(configMap.get(key));
+            return value != null ? Integer.parseInt(value) : 0;
         } catch (NumberFormatException e) {
             return 0;
         }
     }
-    
+
     /**
      * 获取配置值（浮点数类型）
      */
     public static double getDoubleConfig(String key) {
+        String value = snapshot.get(key);
         try {
-            return Double.parseDouble(configMap.get(key));
+            return value != null ? Double.parseDouble(value) : 0.0;
         } catch (NumberFormatException e) {
             return 0.0;
         }
     }
-    
+
     /**
-     * 设置配置值
+     * 设置配置值（只在本进程生效，下次从system_config表重新加载时被覆盖）
      */
-    public static void setConfig(String key, String value) {
-        configMap.put(key, value);
+    public static synchronized void setConfig(String key, String value) {
+        Map<String, String> values = new HashMap<>(snapshot.getValues());
+        values.put(key, value);
+        publish(values);
     }
-    
+
     /**
      * 获取地图宽度
      */
     public static int getMapWidth() {
-        return getIntConfig("map.width");
+        return snapshot.getMapWidth();
     }
-    
+
     /**
      * 获取地图高度
      */
     public static int getMapHeight() {
-        return getIntConfig("map.height");
+        return snapshot.getMapHeight();
     }
-    
+
     /**
      * 获取UI主题
      */
     public static String getUITheme() {
-        return getConfig("ui.theme");
+        return snapshot.getUiTheme();
     }
-    
+
     /**
-     * 获取路径权重配置
+     * 获取路径权重配置（只读，快照构建时已解析）
      */
     public static Map<String, Double> getPathWeights() {
-        Map<String, Double> weights = new HashMap<>();
-        weights.put("shortest", getDoubleConfig("path.weight.shortest"));
-        weights.put("shade", getDoubleConfig("path.weight.shade"));
-        weights.put("scenic", getDoubleConfig("path.weight.scenic"));
-        return weights;
+        return snapshot.getPathWeights();
+    }
+
+    /**
+     * 获取默认导航策略
+     */
+    public static NavigationStrategy getDefaultStrategy() {
+        return snapshot.getDefaultStrategy();
+    }
+
+    /**
+     * 配置有变化时发布新快照并通知监听器；串行执行，监听器按发布顺序收到变化
+     */
+    private static synchronized boolean publish(Map<String, String> values) {
+        ConfigSnapshot previous = snapshot;
+        if (previous.getValues().equals(values)) {
+            return false;
+        }
+        ConfigSnapshot next = new ConfigSnapshot(previous.getVersion() + 1, values);
+        snapshot = next;
+        logger.info("系统配置已更新到版本 {}", next.getVersion());
+        for (Listener listener : listeners) {
+            try {
+                listener.onConfigChange(previous, next);
+            } catch (Exception e) {
+                logger.error("系统配置监听器处理失败", e);
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
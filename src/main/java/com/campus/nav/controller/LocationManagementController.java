@@ -1,6 +1,7 @@
 package com.campus.nav.controller;
 
 import com.campus.nav.model.Location;
+import com.campus.nav.model.PageCursor;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.model.User;
@@ -26,6 +27,9 @@ public class LocationManagementController extends AdminBaseController {
     private List<Location> currentLocations;
     private Location selectedLocation;
     private int currentPage = 1;
+    private PageResult<Location> currentPageResult;
+    private PageCursor pageCursor;   // 键集分页游标，为null时按页码查询
+    private boolean pageBackward;
     
     public LocationManagementController(User currentUser, JFrame parentFrame) {
         super(currentUser, parentFrame);
@@ -72,11 +76,14 @@ public class LocationManagementController extends AdminBaseController {
         try {
             PageQuery query = PageQuery.builder()
                     .pageNum(currentPage)
+                    .cursor(pageCursor)
+                    .backward(pageBackward)
                     .pageSize(10)
                     .keyword(dialog.getSearchKeyword())
                     .build();
             
             PageResult<Location> pageResult = locationService.findByPage(query);
+            currentPageResult = pageResult;
             currentLocations = pageResult.getData();
             
             // 更新表格
@@ -277,6 +284,7 @@ public class LocationManagementController extends AdminBaseController {
      */
     private void handleSearch(ActionEvent e) {
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
     
@@ -288,6 +296,13 @@ public class LocationManagementController extends AdminBaseController {
         if (currentPage < 1) {
             currentPage = 1;
         }
+        // 相邻翻页从当前页的首行/末行游标继续定位，回到第一页时直接查询
+        pageBackward = delta < 0;
+        if (currentPage == 1 || currentPageResult == null) {
+            pageCursor = null;
+        } else {
+            pageCursor = pageBackward ? currentPageResult.getStartCursor() : currentPageResult.getEndCursor();
+        }
         loadData();
     }
     
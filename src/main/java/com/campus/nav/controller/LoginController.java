@@ -1,6 +1,6 @@
 package com.campus.nav.controller;
 
-import com.campus.nav.model.AuthInfo;
+import com.campus.nav.dao.AsyncDao;
 import com.campus.nav.model.User;
 import com.campus.nav.service.ServiceFactory;
 import com.campus.nav.service.UserService;
@@ -19,15 +19,20 @@ public class LoginController extends BaseController {
     private static final Logger logger = LogManager.getLogger(LoginController.class);
     
     private final LoginFrame loginFrame;
-    private final UserService userService;
     private User currentUser;
     
     public LoginController(LoginFrame loginFrame) {
         this.loginFrame = loginFrame;
-        this.userService = ServiceFactory.getUserService();
         initListeners();
     }
     
+    /**
+     * 用户Service（首次使用时获取，创建登录界面时不等待数据层初始化）
+     */
+    private UserService userService() {
+        return ServiceFactory.getUserService();
+    }
+    
     /**
      * 初始化事件监听器
      */
@@ -58,33 +63,31 @@ public class LoginController extends BaseController {
             return;
         }
         
-        // 执行登录
-        try {
-            AuthInfo authInfo = userService.login(username, password);
-            
-            if (authInfo.isAuthenticated()) {
-                this.currentUser = authInfo.getUser();
-                logger.info("用户登录成功: {} ({})", username, currentUser.getUserType());
-                
-                // 登录成功，跳转到主界面
-                SwingUtilities.invokeLater(() -> {
-                    loginFrame.setVisible(false);
-                    loginFrame.dispose();
-                    
-                    MainFrame mainFrame = new MainFrame(currentUser);
-                    MainController mainController = new MainController(mainFrame, currentUser);
-                    mainFrame.setController(mainController);
-                    mainFrame.setVisible(true);
-                });
-                
-            } else {
-                showErrorDialog(authInfo.getErrorMessage());
-            }
-            
-        } catch (Exception ex) {
-            logger.error("登录过程出错", ex);
-            showErrorDialog("登录过程中出现错误: " + ex.getMessage());
-        }
+        // 在后台线程执行登录，避免界面卡顿
+        loginFrame.getLoginButton().setEnabled(false);
+        AsyncDao.supply(() -> userService().login(username, password))
+                .whenCompleteAsync((authInfo, ex) -> {
+                    loginFrame.getLoginButton().setEnabled(true);
+                    if (ex != null) {
+                        Throwable cause = AsyncDao.unwrap(ex);
+                        logger.error("登录过程出错", cause);
+                        showErrorDialog("登录过程中出现错误: " + cause.getMessage());
+                    } else if (authInfo.isAuthenticated()) {
+                        this.currentUser = authInfo.getUser();
+                        logger.info("用户登录成功: {} ({})", username, currentUser.getUserType());
+                        
+                        // 登录成功，跳转到主界面
+                        loginFrame.setVisible(false);
+                        loginFrame.dispose();
+                        
+                        MainFrame mainFrame = new MainFrame(currentUser);
+                        MainController mainController = new MainController(mainFrame, currentUser);
+                        mainFrame.setController(mainController);
+                        mainFrame.setVisible(true);
+                    } else {
+                        showErrorDialog(authInfo.getErrorMessage());
+                    }
+                }, SwingUtilities::invokeLater);
     }
     
     /**
@@ -114,27 +117,28 @@ public class LoginController extends BaseController {
             return;
         }
         
-        // 执行注册
-        try {
-            AuthInfo authInfo = userService.register(username, password, email);
-            
-            if (authInfo.isAuthenticated()) {
-                this.currentUser = authInfo.getUser();
-                logger.info("用户注册成功: {} ({})", username, currentUser.getUserType());
-                showSuccessDialog("注册成功！请使用新账户登录。");
-                
-                // 清空输入框
-                loginFrame.getUsernameField().setText("");
-                loginFrame.getPasswordField().setText("");
-                
-            } else {
-                showErrorDialog(authInfo.getErrorMessage());
-            }
-            
-        } catch (Exception ex) {
-            logger.error("注册过程出错", ex);
-            showErrorDialog("注册过程中出现错误: " + ex.getMessage());
-        }
+        // 在后台线程执行注册
+        String registerEmail = email;
+        loginFrame.getRegisterButton().setEnabled(false);
+        AsyncDao.supply(() -> userService().register(username, password, registerEmail))
+                .whenCompleteAsync((authInfo, ex) -> {
+                    loginFrame.getRegisterButton().setEnabled(true);
+                    if (ex != null) {
+                        Throwable cause = AsyncDao.unwrap(ex);
+                        logger.error("注册过程出错", cause);
+                        showErrorDialog("注册过程中出现错误: " + cause.getMessage());
+                    } else if (authInfo.isAuthenticated()) {
+                        this.currentUser = authInfo.getUser();
+                        logger.info("用户注册成功: {} ({})", username, currentUser.getUserType());
+                        showSuccessDialog("注册成功！请使用新账户登录。");
+                        
+                        // 清空输入框
+                        loginFrame.getUsernameField().setText("");
+                        loginFrame.getPasswordField().setText("");
+                    } else {
+                        showErrorDialog(authInfo.getErrorMessage());
+                    }
+                }, SwingUtilities::invokeLater);
     }
     
     /**
@@ -1,10 +1,12 @@
 package com.campus.nav.controller;
 
+import com.campus.nav.dao.AsyncDao;
 import com.campus.nav.model.*;
 import com.campus.nav.service.LocationService;
 import com.campus.nav.service.NavigationService;
 import com.campus.nav.service.PathService;
 import com.campus.nav.service.ServiceFactory;
+import com.campus.nav.service.impl.ChangeLogPoller;
 import com.campus.nav.view.MainFrame;
 import com.campus.nav.view.MapPanel;
 import org.apache.logging.log4j.LogManager;
@@ -14,6 +16,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 主界面控制器
@@ -26,6 +30,8 @@ public class MainController extends BaseController {
     private final LocationService locationService;
     private final PathService pathService;
     private final NavigationService navigationService;
+    private final ChangeLogPoller changeLogPoller;
+    private final ChangeLogPoller.Listener dataChangeListener = this::handleDataChange;
     
     // 当前选择的状态
     private Location selectedStartLocation;
@@ -38,19 +44,22 @@ public class MainController extends BaseController {
         this.locationService = ServiceFactory.getLocationService();
         this.pathService = ServiceFactory.getPathService();
         this.navigationService = ServiceFactory.getNavigationService();
+        this.changeLogPoller = ServiceFactory.getChangeLogPoller();
         
         initData();
         initListeners();
         updateUI();
+
+        // 其他实例修改地点或路径后重新加载地图数据
+        changeLogPoller.addListener(dataChangeListener);
     }
 
     /**
      * 初始化数据
      */
     private void initData() {
-        // 加载地点数据
+        // 并行加载地点和路径数据
         loadLocations();
-        // 加载路径数据
         loadPaths();
 
         // 设置默认导航策略
@@ -105,43 +114,80 @@ public class MainController extends BaseController {
     }
     
     /**
-     * 加载地点数据
+     * 异步加载地点数据，完成后在EDT上更新界面
      */
-    private void loadLocations() {
-        try {
-            List<Location> locations = locationService.findAccessibleLocations();
-
-            // 创建自定义的下拉框模型
-            DefaultComboBoxModel<Location> model = new DefaultComboBoxModel<Location>();
-            locations.forEach(model::addElement);
-
-            // 获取下拉框组件
-            JComboBox<Location> startCombo = mainFrame.getStartLocationComboBox();
-            JComboBox<Location> endCombo = mainFrame.getEndLocationComboBox();
-
-            // 设置下拉框模型
-            startCombo.setModel(model);
-            endCombo.setModel(new DefaultComboBoxModel<>(locations.toArray(new Location[0])));
-
-            // 设置自定义渲染器，只显示地点名称
-            setLocationComboBoxRenderer(startCombo);
-            setLocationComboBoxRenderer(endCombo);
+    private CompletableFuture<Void> loadLocations() {
+        return AsyncDao.supply(locationService::findAccessibleLocations)
+                .thenAcceptAsync(this::showLocations, SwingUtilities::invokeLater)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = AsyncDao.unwrap(ex);
+                        logger.error("加载地点数据失败", cause);
+                        showErrorDialog("加载地点数据失败: " + cause.getMessage());
+                    }
+                });
+    }
 
-            // 添加空选项到开头
-            startCombo.insertItemAt(null, 0);
-            endCombo.insertItemAt(null, 0);
-            startCombo.setSelectedIndex(0);
-            endCombo.setSelectedIndex(0);
+    /**
+     * 显示地点数据
+     */
+    private void showLocations(List<Location> locations) {
+        // 记住当前选择，重新加载后按ID恢复
+        Integer startId = selectedStartLocation != null ? selectedStartLocation.getId() : null;
+        Integer endId = selectedEndLocation != null ? selectedEndLocation.getId() : null;
+
+        // 创建自定义的下拉框模型
+        DefaultComboBoxModel<Location> model = new DefaultComboBoxModel<Location>();
+        locations.forEach(model::addElement);
+
+        // 获取下拉框组件
+        JComboBox<Location> startCombo = mainFrame.getStartLocationComboBox();
+        JComboBox<Location> endCombo = mainFrame.getEndLocationComboBox();
+
+        // 设置下拉框模型
+        startCombo.setModel(model);
+        endCombo.setModel(new DefaultComboBoxModel<>(locations.toArray(new Location[0])));
+
+        // 设置自定义渲染器，只显示地点名称
+        setLocationComboBoxRenderer(startCombo);
+        setLocationComboBoxRenderer(endCombo);
+
+        // 添加空选项到开头
+        startCombo.insertItemAt(null, 0);
+        endCombo.insertItemAt(null, 0);
+        startCombo.setSelectedIndex(indexOf(locations, startId) + 1);
+        endCombo.setSelectedIndex(indexOf(locations, endId) + 1);
+
+        // 更新地图面板
+        MapPanel mapPanel = mainFrame.getMapPanel();
+        mapPanel.setLocations(locations);
 
-            // 更新地图面板
-            MapPanel mapPanel = mainFrame.getMapPanel();
-            mapPanel.setLocations(locations);
+        logger.info("加载了 {} 个地点", locations.size());
+    }
 
-            logger.info("加载了 {} 个地点", locations.size());
+    /**
+     * 按ID查找地点下标，未找到时返回-1
+     */
+    private static int indexOf(List<Location> locations, Integer id) {
+        if (id != null) {
+            for (int i = 0; i < locations.size(); i++) {
+                if (id.equals(locations.get(i).getId())) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
 
-        } catch (Exception e) {
-            logger.error("加载地点数据失败", e);
-            showErrorDialog("加载地点数据失败: " + e.getMessage());
+    /**
+     * 其他实例修改了数据（在变更日志轮询线程上回调）
+     */
+    private void handleDataChange(String tableName, Set<Integer> rowIds) {
+        if ("locations".equals(tableName)) {
+            loadLocations();
+            loadPaths();
+        } else if ("paths".equals(tableName)) {
+            loadPaths();
         }
     }
 
@@ -187,20 +233,24 @@ public class MainController extends BaseController {
         });
     }
     /*
-    * 加载路径数据
+    * 异步加载路径数据，完成后在EDT上更新地图
      */
-    private void loadPaths() {
-        try {
-            List<Path> paths = pathService.findActivePaths();
-            MapPanel mapPanel = mainFrame.getMapPanel();
-            mapPanel.setPaths(paths);
-            mapPanel.repaint();
-
-            logger.info("加载了 {} 个路径", paths.size());
-        } catch (Exception ex) {
-            logger.error("加载路径数据失败", ex);
-            showErrorDialog("加载路径数据失败: " + ex.getMessage());
-        }
+    private CompletableFuture<Void> loadPaths() {
+        return AsyncDao.supply(pathService::findActivePaths)
+                .thenAcceptAsync(paths -> {
+                    MapPanel mapPanel = mainFrame.getMapPanel();
+                    mapPanel.setPaths(paths);
+                    mapPanel.repaint();
+
+                    logger.info("加载了 {} 个路径", paths.size());
+                }, SwingUtilities::invokeLater)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = AsyncDao.unwrap(ex);
+                        logger.error("加载路径数据失败", cause);
+                        showErrorDialog("加载路径数据失败: " + cause.getMessage());
+                    }
+                });
     }
     /**
      * 处理导航
@@ -343,6 +393,7 @@ public class MainController extends BaseController {
         
         if (confirm == JOptionPane.YES_OPTION) {
             logger.info("用户注销: {}", currentUser.getUsername());
+            changeLogPoller.removeListener(dataChangeListener);
             
             // 关闭主窗口
             mainFrame.setVisible(false);
@@ -529,9 +580,9 @@ public class MainController extends BaseController {
      * 处理刷新
      */
     private void handleRefresh() {
-        loadLocations();
-        loadPaths();
-        showSuccessDialog("地图数据已刷新");
+        navigationService.invalidateRouteGraph();
+        CompletableFuture.allOf(loadLocations(), loadPaths())
+                .thenRun(() -> showSuccessDialog("地图数据已刷新"));
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.campus.nav.controller;
 
+import com.campus.nav.dao.AsyncDao;
 import com.campus.nav.dao.DaoFactory;
 import com.campus.nav.dao.NavigationHistoryDao;
 import com.campus.nav.dao.UserDao;
@@ -18,6 +19,7 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 导航历史控制器 - 完整修复版（适配搜索功能）
@@ -34,8 +36,12 @@ public class NavigationHistoryController extends AdminBaseController {
     private List<NavigationHistory> currentHistories;
     private NavigationHistory selectedHistory;
     private int currentPage = 1;
+    private PageResult<NavigationHistory> currentPageResult;
+    private PageCursor pageCursor;   // 键集分页游标，为null时按页码查询
+    private boolean pageBackward;
     private final int pageSize = 20;
     private String lastSearchKeyword = null;
+    private int loadSequence;   // 只在EDT上访问，用于丢弃过期的加载结果
 
     public NavigationHistoryController(User currentUser, JFrame parentFrame, boolean showUserFilter) {
         super(currentUser, parentFrame);
@@ -95,6 +101,7 @@ public class NavigationHistoryController extends AdminBaseController {
         String keyword = dialog.getSearchKeyword();
         if (keyword != null && !keyword.equals(lastSearchKeyword)) {
             currentPage = 1;
+            pageCursor = null;
             lastSearchKeyword = keyword;
         }
         loadData();
@@ -107,6 +114,7 @@ public class NavigationHistoryController extends AdminBaseController {
         // 当过滤条件变化时，重置到第一页
         if (currentPage != 1) {
             currentPage = 1;
+            pageCursor = null;
             loadData();
         }
     }
@@ -155,73 +163,80 @@ public class NavigationHistoryController extends AdminBaseController {
                 java.sql.Timestamp.valueOf(now));
     }
 
+    /**
+     * 在后台写入异步队列并查询当前页，完成后在EDT上更新表格；
+     * 连续触发时只显示最后一次加载的结果
+     */
     @Override
     protected void loadData() {
-        try {
-            // 获取搜索关键词
-            String searchKeyword = dialog.getSearchKeyword();
-
-            // 构建分页查询
-            PageQuery query = PageQuery.builder()
-                    .pageNum(currentPage)
-                    .pageSize(pageSize)
-                    .keyword(searchKeyword) // 设置搜索关键词
-                    .build();
-
-            PageResult<NavigationHistory> pageResult;
-
-            if (showUserFilter) {
-                // 管理员查看所有用户的历史 - 使用支持搜索的findByPage方法
-                pageResult = historyDao.findByPage(query);
-                currentHistories = pageResult.getData();
-
-                // 应用其他过滤条件（用户、策略、日期）
-                applyFilters();
-
-                // 重新计算分页信息
-                long filteredTotal = currentHistories.size();
-                int totalPages = (int) Math.ceil((double) filteredTotal / pageSize);
-                pageResult = PageResult.of(currentHistories, filteredTotal, query);
-
-            } else {
-                // 普通用户查看自己的历史
-                // 注意：需要检查getUserNavigationHistoryPage是否支持搜索
-                // 如果不支持，可能需要分页后在内存中过滤
-                pageResult = navigationService.getUserNavigationHistoryPage(
-                        currentUser.getId(), query);
+        // 获取搜索关键词
+        String searchKeyword = dialog.getSearchKeyword();
 
-                currentHistories = pageResult.getData();
+        // 构建分页查询
+        PageQuery query = PageQuery.builder()
+                .pageNum(currentPage)
+                .cursor(pageCursor)
+                .backward(pageBackward)
+                .pageSize(pageSize)
+                .keyword(searchKeyword) // 设置搜索关键词
+                .countMode(CountMode.CACHED) // 翻页时复用总数，历史写入后重新统计
+                .build();
+
+        int sequence = ++loadSequence;
+        AsyncDao.supply(() -> {
+            // 先写入异步队列中尚未保存的历史，保证能查到刚完成的导航
+            navigationService.flushNavigationHistory();
+            // 管理员查看所有用户的历史 - 使用支持搜索的findByPage方法；普通用户查看自己的历史
+            return showUserFilter ? historyDao.findByPage(query)
+                    : navigationService.getUserNavigationHistoryPage(currentUser.getId(), query);
+        }).whenCompleteAsync((pageResult, ex) -> {
+            if (sequence != loadSequence) {
+                return;
+            }
+            if (ex != null) {
+                Throwable cause = AsyncDao.unwrap(ex);
+                logger.error("加载导航历史数据失败", cause);
+                showErrorDialog("加载导航历史数据失败: " + cause.getMessage());
+                return;
+            }
+            try {
+                showPage(pageResult, searchKeyword);
+            } catch (Exception e) {
+                logger.error("显示导航历史数据失败", e);
+                showErrorDialog("加载导航历史数据失败: " + e.getMessage());
+            }
+        }, SwingUtilities::invokeLater);
+    }
 
-                // 应用其他过滤条件（策略、日期）
-                applyFilters();
+    /**
+     * 显示查询到的一页历史
+     */
+    private void showPage(PageResult<NavigationHistory> pageResult, String searchKeyword) {
+        currentPageResult = pageResult;
+        currentHistories = pageResult.getData();
 
-                // 应用搜索过滤（如果service不支持搜索）
-                if (searchKeyword != null && !searchKeyword.isEmpty()) {
-                    applySearchFilter(searchKeyword);
-                }
+        // 应用其他过滤条件（管理员为用户、策略、日期，普通用户为策略、日期）
+        applyFilters();
 
-                // 重新计算分页信息
-                long filteredTotal = currentHistories.size();
-                int totalPages = (int) Math.ceil((double) filteredTotal / pageSize);
-                pageResult = PageResult.of(currentHistories, filteredTotal, query);
-            }
+        // 普通用户的分页查询不支持搜索时在内存中过滤
+        if (!showUserFilter && searchKeyword != null && !searchKeyword.isEmpty()) {
+            applySearchFilter(searchKeyword);
+        }
 
-            // 更新表格
-            updateTable();
+        // 分页信息沿用查询结果，数据替换为过滤后的当前页
+        pageResult.setData(currentHistories);
 
-            // 更新分页信息
-            updatePagination(pageResult);
+        // 更新表格
+        updateTable();
 
-            // 更新统计信息
-            updateStatistics();
+        // 更新分页信息
+        updatePagination(pageResult);
 
-            logger.info("加载导航历史数据，第 {} 页，共 {} 条记录，搜索词: {}",
-                    currentPage, pageResult.getTotal(), searchKeyword);
+        // 更新统计信息
+        updateStatistics();
 
-        } catch (Exception e) {
-            logger.error("加载导航历史数据失败", e);
-            showErrorDialog("加载导航历史数据失败: " + e.getMessage());
-        }
+        logger.info("加载导航历史数据，第 {} 页，共 {} 条记录，搜索词: {}",
+                currentPage, pageResult.getTotal(), searchKeyword);
     }
 
     /**
@@ -346,6 +361,7 @@ public class NavigationHistoryController extends AdminBaseController {
         }
 
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
 
@@ -355,18 +371,20 @@ public class NavigationHistoryController extends AdminBaseController {
     private void handleReset(ActionEvent e) {
         dialog.resetFilters();
         currentPage = 1;
+        pageCursor = null;
         lastSearchKeyword = null;
         loadData();
     }
 
     /**
-     * 处理导出
+     * 处理导出：按当前的用户、策略和日期条件导出全部匹配的记录（不只是当前页），
+     * 在后台线程流式写入，显示进度，可取消
      */
     private void handleExport(ActionEvent e) {
-        if (currentHistories == null || currentHistories.isEmpty()) {
-            showWarningDialog("没有数据可以导出");
+        if (!validateInput()) {
             return;
         }
+        HistoryFilter filter = buildExportFilter();
 
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("导出导航历史");
@@ -374,54 +392,83 @@ public class NavigationHistoryController extends AdminBaseController {
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv"));
 
         if (fileChooser.showSaveDialog(dialog) == JFileChooser.APPROVE_OPTION) {
-            java.io.File file = fileChooser.getSelectedFile();
-            try {
-                exportToCSV(file);
-                showSuccessDialog("导出成功！文件已保存到：" + file.getAbsolutePath());
-            } catch (Exception ex) {
-                logger.error("导出失败", ex);
-                showErrorDialog("导出失败: " + ex.getMessage());
-            }
+            exportInBackground(filter, fileChooser.getSelectedFile());
         }
     }
 
     /**
-     * 导出到CSV
+     * 导出条件：管理员按选择的用户（未选择时为全部用户），普通用户只导出自己的记录
      */
-    private void exportToCSV(java.io.File file) throws java.io.IOException {
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(file, "UTF-8")) {
-            // 写入表头
-            if (showUserFilter) {
-                writer.println("用户名,起点,终点,策略,距离(米),时间(分钟),导航时间");
-            } else {
-                writer.println("起点,终点,策略,距离(米),时间(分钟),导航时间");
+    private HistoryFilter buildExportFilter() {
+        return HistoryFilter.builder()
+                .userId(showUserFilter ? dialog.getSelectedUserId() : currentUser.getId())
+                .strategy(dialog.getSelectedStrategy())
+                .from(dialog.getDateFrom())
+                .to(dialog.getDateTo())
+                .build();
+    }
+
+    /**
+     * 在后台线程统计条数并导出到CSV，显示进度，可取消（取消时不保留文件）；
+     * 条数统计完成前只显示提示，没有数据时不创建文件
+     */
+    private void exportInBackground(HistoryFilter filter, java.io.File file) {
+        ProgressMonitor monitor = new ProgressMonitor(dialog, "正在导出导航历史记录...", null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        dialog.getExportButton().setEnabled(false);
+
+        SwingWorker<Long, Long> worker = new SwingWorker<>() {
+            // 统计完成前为-1
+            private volatile long total = -1;
+
+            @Override
+            protected Long doInBackground() throws Exception {
+                publish(0L);
+                long count = navigationService.countNavigationHistory(filter);
+                total = count;
+                if (count == 0) {
+                    return 0L;
+                }
+                return ServiceFactory.getHistoryCsvExporter().exportToFile(filter, showUserFilter, file, this::publish);
             }
 
-            // 写入数据
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (NavigationHistory history : currentHistories) {
-                if (showUserFilter) {
-                    writer.printf("%s,%s,%s,%s,%.1f,%d,%s%n",
-                            history.getUser() != null ? history.getUser().getUsername() : "",
-                            history.getStartLocation() != null ? history.getStartLocation().getName() : "",
-                            history.getEndLocation() != null ? history.getEndLocation().getName() : "",
-                            history.getPathStrategy() != null ? history.getPathStrategy().getDisplayName() : "",
-                            history.getTotalDistance() != null ? history.getTotalDistance() : 0.0,
-                            history.getTotalTime() != null ? history.getTotalTime() : 0,
-                            history.getCreatedAt() != null ? history.getCreatedAt().format(formatter) : ""
-                    );
-                } else {
-                    writer.printf("%s,%s,%s,%.1f,%d,%s%n",
-                            history.getStartLocation() != null ? history.getStartLocation().getName() : "",
-                            history.getEndLocation() != null ? history.getEndLocation().getName() : "",
-                            history.getPathStrategy() != null ? history.getPathStrategy().getDisplayName() : "",
-                            history.getTotalDistance() != null ? history.getTotalDistance() : 0.0,
-                            history.getTotalTime() != null ? history.getTotalTime() : 0,
-                            history.getCreatedAt() != null ? history.getCreatedAt().format(formatter) : ""
-                    );
+            @Override
+            protected void process(List<Long> chunks) {
+                long written = chunks.get(chunks.size() - 1);
+                long known = total;
+                if (known < 0) {
+                    // 总数未知，只显示提示
+                    monitor.setNote("正在统计记录数...");
+                } else if (known > 0) {
+                    monitor.setNote("已导出 " + written + " / " + known + " 条");
+                    monitor.setProgress((int) Math.min(99, written * 100 / known));
+                }
+                if (monitor.isCanceled()) {
+                    cancel(true);
                 }
             }
-        }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                dialog.getExportButton().setEnabled(true);
+                try {
+                    if (isCancelled()) {
+                        showWarningDialog("已取消导出");
+                    } else if (total == 0) {
+                        showWarningDialog("没有数据可以导出");
+                    } else {
+                        showSuccessDialog("成功导出 " + get() + " 条记录！文件已保存到：" + file.getAbsolutePath());
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    logger.error("导出失败", ex.getCause());
+                    showErrorDialog("导出失败: " + ex.getCause().getMessage());
+                }
+            }
+        };
+        worker.execute();
     }
 
     /**
@@ -435,6 +482,13 @@ public class NavigationHistoryController extends AdminBaseController {
         }
 
         currentPage = newPage;
+        // 相邻翻页从当前页的首行/末行游标继续定位，回到第一页时直接查询
+        pageBackward = delta < 0;
+        if (currentPage == 1 || currentPageResult == null) {
+            pageCursor = null;
+        } else {
+            pageCursor = pageBackward ? currentPageResult.getStartCursor() : currentPageResult.getEndCursor();
+        }
         loadData();
     }
 
@@ -551,10 +605,31 @@ public class NavigationHistoryController extends AdminBaseController {
             return;
         }
 
+        // 管理员清空所有记录，普通用户只清空自己的记录
+        HistoryFilter filter = showUserFilter ? HistoryFilter.all() : HistoryFilter.forUser(currentUser.getId());
+        // 统计前要先写入异步队列，不在EDT上执行
+        dialog.getDeleteAllButton().setEnabled(false);
+        AsyncDao.supply(() -> navigationService.countNavigationHistory(filter))
+                .whenCompleteAsync((total, ex) -> {
+                    dialog.getDeleteAllButton().setEnabled(true);
+                    if (ex != null) {
+                        Throwable cause = AsyncDao.unwrap(ex);
+                        logger.error("统计导航历史失败", cause);
+                        showErrorDialog("统计导航历史失败: " + cause.getMessage());
+                    } else {
+                        confirmDeleteAll(filter, total);
+                    }
+                }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * 确认后清空
+     */
+    private void confirmDeleteAll(HistoryFilter filter, long total) {
         int confirm = JOptionPane.showConfirmDialog(
                 dialog,
                 "<html><b>确定要清空导航历史记录吗？</b><br>" +
-                        "将删除 " + currentHistories.size() + " 条记录<br>" +
+                        "将删除 " + total + " 条记录<br>" +
                         (showUserFilter ? "" : "(仅清空您自己的历史记录)<br>") +
                         "此操作无法撤销！</html>",
                 "确认清空",
@@ -563,36 +638,55 @@ public class NavigationHistoryController extends AdminBaseController {
         );
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                int deletedCount = 0;
-                if (showUserFilter) {
-                    // 管理员删除所有记录
-                    List<NavigationHistory> allHistories = historyDao.findAll();
-                    for (NavigationHistory history : allHistories) {
-                        if (historyDao.deleteById(history.getId())) {
-                            deletedCount++;
-                        }
-                    }
-                } else {
-                    // 普通用户删除自己的记录
-                    List<NavigationHistory> histories = historyDao.findByUserId(currentUser.getId());
-                    for (NavigationHistory history : histories) {
-                        if (historyDao.deleteById(history.getId())) {
-                            deletedCount++;
-                        }
-                    }
+            purgeInBackground(filter, total);
+        }
+    }
+
+    /**
+     * 在后台线程分块清空历史记录，显示进度，可取消
+     */
+    private void purgeInBackground(HistoryFilter filter, long total) {
+        ProgressMonitor monitor = new ProgressMonitor(dialog, "正在清空导航历史记录...", null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        dialog.getDeleteAllButton().setEnabled(false);
+
+        SwingWorker<Long, Long> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() {
+                return navigationService.purgeNavigationHistory(filter, this::publish);
+            }
 
+            @Override
+            protected void process(List<Long> chunks) {
+                long deleted = chunks.get(chunks.size() - 1);
+                monitor.setNote("已删除 " + deleted + " / " + total + " 条");
+                monitor.setProgress(total > 0 ? (int) Math.min(99, deleted * 100 / total) : 0);
+                if (monitor.isCanceled()) {
+                    cancel(true);
                 }
+            }
 
-                showSuccessDialog("成功清空 " + deletedCount + " 条历史记录");
+            @Override
+            protected void done() {
+                monitor.close();
+                dialog.getDeleteAllButton().setEnabled(true);
+                try {
+                    if (isCancelled()) {
+                        showWarningDialog("已取消清空，已删除的记录无法恢复");
+                    } else {
+                        showSuccessDialog("成功清空 " + get() + " 条历史记录");
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    logger.error("清空历史记录失败", ex.getCause());
+                    showErrorDialog("清空历史记录失败: " + ex.getCause().getMessage());
+                }
                 clearSelection();
                 loadData();
-
-            } catch (Exception ex) {
-                logger.error("清空历史记录失败", ex);
-                showErrorDialog("清空历史记录失败: " + ex.getMessage());
             }
-        }
+        };
+        worker.execute();
     }
 
     /**
@@ -10,8 +10,13 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 路径管理控制器
@@ -25,6 +30,9 @@ public class PathManagementController extends AdminBaseController {
     private List<Path> currentPaths;
     private Path selectedPath;
     private int currentPage = 1;
+    private PageResult<Path> currentPageResult;
+    private PageCursor pageCursor;   // 键集分页游标，为null时按页码查询
+    private boolean pageBackward;
     
     public PathManagementController(User currentUser, JFrame parentFrame) {
         super(currentUser, parentFrame);
@@ -49,6 +57,7 @@ public class PathManagementController extends AdminBaseController {
         dialog.getCancelButton().addActionListener(this::handleCancel);
         dialog.getCloseButton().addActionListener(this::handleClose);
         dialog.getToggleStatusButton().addActionListener(this::handleToggleStatus);
+        dialog.getImportButton().addActionListener(this::handleImport);
         dialog.getSearchButton().addActionListener(this::handleSearch);
         
         // 表格选择事件
@@ -94,11 +103,14 @@ public class PathManagementController extends AdminBaseController {
         try {
             PageQuery query = PageQuery.builder()
                     .pageNum(currentPage)
+                    .cursor(pageCursor)
+                    .backward(pageBackward)
                     .pageSize(15)
                     .keyword(dialog.getSearchKeyword())
                     .build();
             
             PageResult<Path> pageResult = pathService.findByPage(query);
+            currentPageResult = pageResult;
             currentPaths = pageResult.getData();
             
             // 应用可用路径过滤
@@ -395,6 +407,7 @@ public class PathManagementController extends AdminBaseController {
      */
     private void handleSearch(ActionEvent e) {
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
     
@@ -406,6 +419,13 @@ public class PathManagementController extends AdminBaseController {
         if (currentPage < 1) {
             currentPage = 1;
         }
+        // 相邻翻页从当前页的首行/末行游标继续定位，回到第一页时直接查询
+        pageBackward = delta < 0;
+        if (currentPage == 1 || currentPageResult == null) {
+            pageCursor = null;
+        } else {
+            pageCursor = pageBackward ? currentPageResult.getStartCursor() : currentPageResult.getEndCursor();
+        }
         loadData();
     }
     
@@ -414,9 +434,87 @@ public class PathManagementController extends AdminBaseController {
      */
     private void handleActiveOnlyFilter() {
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
     
+    /**
+     * 处理批量导入：选择地点/路径CSV或GeoJSON文件，在后台线程导入，可取消（取消时全部回滚）。
+     * 取消只是请求，导入线程在提交前检查；结果以导入线程的返回为准
+     */
+    private void handleImport(ActionEvent e) {
+        if (!checkAdminPermission()) {
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("批量导入地点和路径");
+        fileChooser.setMultiSelectionEnabled(true);
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV / GeoJSON", "csv", "geojson", "json"));
+        if (fileChooser.showOpenDialog(dialog) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        List<File> files = Arrays.asList(fileChooser.getSelectedFiles());
+        
+        ProgressMonitor monitor = new ProgressMonitor(dialog, "正在导入地图数据...", null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        dialog.getImportButton().setEnabled(false);
+        
+        SwingWorker<ImportResult, Long> worker = new SwingWorker<>() {
+            private volatile boolean cancelRequested;
+            
+            @Override
+            protected ImportResult doInBackground() throws Exception {
+                return ServiceFactory.getMapImporter().importFiles(files, this::publish, () -> cancelRequested);
+            }
+            
+            @Override
+            protected void process(List<Long> chunks) {
+                // 总行数未知，只显示已处理的行数
+                monitor.setNote("已处理 " + chunks.get(chunks.size() - 1) + " 行");
+                // 不调用cancel(true)：那样done()会在导入线程提交或回滚之前就执行
+                if (monitor.isCanceled()) {
+                    cancelRequested = true;
+                }
+            }
+            
+            @Override
+            protected void done() {
+                monitor.close();
+                dialog.getImportButton().setEnabled(true);
+                try {
+                    ImportResult result = get();
+                    StringBuilder message = new StringBuilder(String.format(
+                            "导入完成（%.1f 秒）\n地点: 新增 %d, 已存在 %d\n路径: 新增 %d, 已存在 %d\n拒绝: %d 行",
+                            result.getElapsedMillis() / 1000.0, result.getLocationsImported(),
+                            result.getLocationsSkipped(), result.getPathsImported(), result.getPathsSkipped(),
+                            result.getRejected()));
+                    for (String error : result.getErrors().subList(0, Math.min(10, result.getErrors().size()))) {
+                        message.append('\n').append(error);
+                    }
+                    if (result.getRejected() > 0) {
+                        showWarningDialog(message.toString());
+                    } else {
+                        showSuccessDialog(message.toString());
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof CancellationException) {
+                        showWarningDialog("已取消导入，所有数据已回滚");
+                    } else {
+                        logger.error("批量导入失败", ex.getCause());
+                        showErrorDialog("批量导入失败，所有数据已回滚: " + ex.getCause().getMessage());
+                    }
+                }
+                loadLocations();
+                currentPage = 1;
+                pageCursor = null;
+                loadData();
+            }
+        };
+        worker.execute();
+    }
+    
     /**
      * 更新表格
      */
@@ -1,5 +1,6 @@
 package com.campus.nav.controller;
 
+import com.campus.nav.model.PageCursor;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.model.User;
@@ -26,6 +27,9 @@ public class UserManagementController extends AdminBaseController {
     private List<User> currentUsers;
     private User selectedUser;
     private int currentPage = 1;
+    private PageResult<User> currentPageResult;
+    private PageCursor pageCursor;   // 键集分页游标，为null时按页码查询
+    private boolean pageBackward;
     
     public UserManagementController(User currentUser, JFrame parentFrame) {
         super(currentUser, parentFrame);
@@ -70,11 +74,14 @@ public class UserManagementController extends AdminBaseController {
         try {
             PageQuery query = PageQuery.builder()
                     .pageNum(currentPage)
+                    .cursor(pageCursor)
+                    .backward(pageBackward)
                     .pageSize(15)
                     .keyword(dialog.getSearchKeyword())
                     .build();
             
             PageResult<User> pageResult = userService.findByPage(query);
+            currentPageResult = pageResult;
             currentUsers = pageResult.getData();
             
             // 应用用户类型过滤
@@ -349,6 +356,7 @@ public class UserManagementController extends AdminBaseController {
      */
     private void handleSearch(ActionEvent e) {
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
     
@@ -359,6 +367,7 @@ public class UserManagementController extends AdminBaseController {
         dialog.getSearchField().setText("");
         dialog.getUserTypeFilterComboBox().setSelectedIndex(0);
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
     
@@ -370,6 +379,13 @@ public class UserManagementController extends AdminBaseController {
         if (currentPage < 1) {
             currentPage = 1;
         }
+        // 相邻翻页从当前页的首行/末行游标继续定位，回到第一页时直接查询
+        pageBackward = delta < 0;
+        if (currentPage == 1 || currentPageResult == null) {
+            pageCursor = null;
+        } else {
+            pageCursor = pageBackward ? currentPageResult.getStartCursor() : currentPageResult.getEndCursor();
+        }
         loadData();
     }
     
@@ -378,6 +394,7 @@ public class UserManagementController extends AdminBaseController {
      */
     private void handleUserTypeFilter(ActionEvent e) {
         currentPage = 1;
+        pageCursor = null;
         loadData();
     }
     
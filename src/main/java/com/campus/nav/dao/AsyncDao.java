@@ -0,0 +1,198 @@
+package com.campus.nav.dao;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.utils.QueryContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 异步DAO门面
+ * 在专用的JDBC线程池上执行DAO（或服务）调用并返回CompletableFuture，避免在EDT上等待数据库。
+ * 线程数等于连接池可能达到的最大连接数（含自适应调整的上限），连接池扩大后线程数不会成为瓶颈；
+ * 超时或取消时通过QueryContext取消正在执行的语句
+ */
+public final class AsyncDao {
+    private static final Logger logger = LogManager.getLogger(AsyncDao.class);
+
+    private static volatile ThreadPoolExecutor executor;
+    private static boolean closeHookRegistered;
+
+    private AsyncDao() {
+    }
+
+    /**
+     * 异步执行查询，使用默认超时（db.async.timeoutMillis）
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return supply(query, Long.parseLong(DatabaseConfig.getProperty("db.async.timeoutMillis", "30000")),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步执行查询
+     * 返回的future被cancel或超时后，未开始的任务不再执行，正在执行的语句被取消
+     * @param timeout 超时时间，&lt;=0表示不限制
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> query, long timeout, TimeUnit unit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        QueryContext context = new QueryContext(timeout > 0 ? unit.toNanos(timeout) : 0);
+
+        Future<?> task;
+        try {
+            task = executor().submit(() -> context.run(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(query.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            logger.warn("数据库任务队列已满，拒绝执行");
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        if (timeout > 0) {
+            future.orTimeout(timeout, unit);
+        }
+        future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                context.cancel();
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 异步执行地点DAO调用
+     */
+    public static <T> CompletableFuture<T> locations(Function<LocationDao, T> call) {
+        return supply(() -> call.apply(DaoFactory.getLocationDao()));
+    }
+
+    /**
+     * 异步执行路径DAO调用
+     */
+    public static <T> CompletableFuture<T> paths(Function<PathDao, T> call) {
+        return supply(() -> call.apply(DaoFactory.getPathDao()));
+    }
+
+    /**
+     * 异步执行用户DAO调用
+     */
+    public static <T> CompletableFuture<T> users(Function<UserDao, T> call) {
+        return supply(() -> call.apply(DaoFactory.getUserDao()));
+    }
+
+    /**
+     * 异步执行导航历史DAO调用
+     */
+    public static <T> CompletableFuture<T> histories(Function<NavigationHistoryDao, T> call) {
+        return supply(() -> call.apply(DaoFactory.getNavigationHistoryDao()));
+    }
+
+    /**
+     * 异步执行系统配置DAO调用
+     */
+    public static <T> CompletableFuture<T> configs(Function<SystemConfigDao, T> call) {
+        return supply(() -> call.apply(DaoFactory.getSystemConfigDao()));
+    }
+
+    /**
+     * 取出CompletableFuture异常链中的实际异常
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 获取执行器状态信息
+     */
+    public static String getStatus() {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            return "异步数据库执行器: 未启动";
+        }
+        return String.format("异步数据库执行器: 线程=%d/%d, 活动=%d, 排队=%d, 已完成=%d",
+                current.getPoolSize(), current.getMaximumPoolSize(), current.getActiveCount(),
+                current.getQueue().size(), current.getCompletedTaskCount());
+    }
+
+    /**
+     * 关闭执行器，等待正在执行的任务结束
+     */
+    public static void shutdown() {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            return;
+        }
+        synchronized (AsyncDao.class) {
+            executor = null;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("异步数据库执行器已关闭");
+    }
+
+    private static ThreadPoolExecutor executor() {
+        if (executor == null) {
+            synchronized (AsyncDao.class) {
+                if (executor == null) {
+                    executor = createExecutor();
+                    if (!closeHookRegistered) {
+                        // 关闭连接池前先停止执行器
+                        DatabaseConfig.addCloseHook(AsyncDao::shutdown);
+                        closeHookRegistered = true;
+                    }
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = DatabaseConfig.getMaxPoolSize();
+        int queueCapacity = Integer.parseInt(DatabaseConfig.getProperty("db.async.queueCapacity", "1000"));
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "jdbc-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        logger.info("异步数据库执行器已启动: {} 个线程, 队列容量 {}", threads, queueCapacity);
+        return pool;
+    }
+}
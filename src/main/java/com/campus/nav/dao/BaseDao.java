@@ -1,10 +1,12 @@
 package com.campus.nav.dao;
 
+import com.campus.nav.model.BatchResult;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 基础DAO接口
@@ -38,6 +40,11 @@ public interface BaseDao<T, ID> {
      */
     List<T> findAll();
     
+    /**
+     * 流式查询所有（逐行读取，调用方负责关闭）
+     */
+    Stream<T> streamAll();
+    
     /**
      * 分页查询
      */
@@ -52,4 +59,9 @@ public interface BaseDao<T, ID> {
      * 批量保存
      */
     boolean saveBatch(List<T> entities);
+    
+    /**
+     * 批量保存，返回逐行结果，成功保存的实体会回填生成的ID
+     */
+    BatchResult saveBatchWithResult(List<T> entities);
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.campus.nav.dao;
+
+import com.campus.nav.model.DataChange;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 数据变更日志DAO接口
+ * 地点、路径、系统配置的DAO在写操作的同一事务中登记变更，各实例轮询变更日志增量刷新缓存和路网图
+ */
+public interface ChangeLogDao {
+    
+    /**
+     * 是否启用（changelog.enabled且变更日志表存在）
+     */
+    boolean isEnabled();
+    
+    /**
+     * 本实例ID，轮询时跳过本实例写入的变更
+     */
+    String getInstanceId();
+    
+    /**
+     * 登记同一连接上刚插入的行（LAST_INSERT_ID()），需要在插入所在的事务中调用
+     */
+    void recordInsert(String tableName);
+    
+    /**
+     * 登记一行变更
+     */
+    void record(String tableName, Integer rowId, DataChange.Operation operation);
+    
+    /**
+     * 登记多行变更
+     */
+    void recordAll(String tableName, Collection<Integer> rowIds, DataChange.Operation operation);
+    
+    /**
+     * 登记满足条件的所有行（INSERT ... SELECT id FROM 表 WHERE 条件），删除前调用
+     */
+    void recordMatching(String tableName, DataChange.Operation operation, String whereClause, Object... params);
+    
+    /**
+     * 当前最新版本号，没有变更时为0
+     */
+    long findLatestVersion();
+    
+    /**
+     * 查询版本号大于version的变更（按版本号升序），失败时抛出DatabaseException
+     */
+    List<DataChange> findSince(long version, int limit);
+    
+    /**
+     * 主库当前时间（秒），失败时抛出DatabaseException
+     */
+    long currentTime();
+    
+    /**
+     * 主库上其他连接中仍在进行的最早读写事务的开始时间（秒）
+     * @return 没有时返回0，无法查询（没有PROCESS权限或查询失败）时返回-1
+     */
+    long oldestTransactionStart();
+    
+    /**
+     * 删除早于指定时间的变更
+     * @return 删除的行数
+     */
+    int purgeBefore(LocalDateTime time, int limit);
+}
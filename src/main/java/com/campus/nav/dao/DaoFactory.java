@@ -1,9 +1,13 @@
 package com.campus.nav.dao;
 
+import com.campus.nav.config.DatabaseConfig;
 import com.campus.nav.dao.impl.*;
+import com.campus.nav.dao.memory.*;
+import com.campus.nav.utils.StatementCache;
 
 /**
  * DAO工厂类，用于获取各个DAO的实例
+ * dao.backend=mysql（默认）时使用MySQL实现，dao.backend=memory时使用dao.memory下的内存实现
  */
 public class DaoFactory {
     
@@ -12,6 +16,9 @@ public class DaoFactory {
     private static volatile PathDao pathDao;
     private static volatile NavigationHistoryDao navigationHistoryDao;
     private static volatile SystemConfigDao systemConfigDao;
+    private static volatile ChangeLogDao changeLogDao;
+    private static volatile HistoryPartitionDao historyPartitionDao;
+    private static volatile HistoryRollupDao historyRollupDao;
     
     private DaoFactory() {
         // 私有构造器，防止实例化
@@ -24,7 +31,9 @@ public class DaoFactory {
         if (userDao == null) {
             synchronized (DaoFactory.class) {
                 if (userDao == null) {
-                    userDao = new UserDaoImpl();
+                    userDao = MemoryStore.isEnabled()
+                            ? new MemoryUserDao(MemoryStore.getInstance())
+                            : new UserDaoImpl();
                 }
             }
         }
@@ -38,7 +47,17 @@ public class DaoFactory {
         if (locationDao == null) {
             synchronized (DaoFactory.class) {
                 if (locationDao == null) {
-                    locationDao = new LocationDaoImpl();
+                    if (MemoryStore.isEnabled()) {
+                        // 内存实现本身就是缓存，不再包装
+                        locationDao = new MemoryLocationDao(MemoryStore.getInstance());
+                        return locationDao;
+                    }
+                    LocationDao dao = new LocationDaoImpl();
+                    if (Boolean.parseBoolean(DatabaseConfig.getProperty("cache.location.enabled", "true"))) {
+                        int maxSize = Integer.parseInt(DatabaseConfig.getProperty("cache.location.maxSize", "10000"));
+                        dao = new CachedLocationDao(dao, maxSize);
+                    }
+                    locationDao = dao;
                 }
             }
         }
@@ -52,7 +71,9 @@ public class DaoFactory {
         if (pathDao == null) {
             synchronized (DaoFactory.class) {
                 if (pathDao == null) {
-                    pathDao = new PathDaoImpl();
+                    pathDao = MemoryStore.isEnabled()
+                            ? new MemoryPathDao(MemoryStore.getInstance())
+                            : new PathDaoImpl();
                 }
             }
         }
@@ -66,7 +87,9 @@ public class DaoFactory {
         if (navigationHistoryDao == null) {
             synchronized (DaoFactory.class) {
                 if (navigationHistoryDao == null) {
-                    navigationHistoryDao = new NavigationHistoryDaoImpl();
+                    navigationHistoryDao = MemoryStore.isEnabled()
+                            ? new MemoryNavigationHistoryDao(MemoryStore.getInstance())
+                            : new NavigationHistoryDaoImpl();
                 }
             }
         }
@@ -80,10 +103,76 @@ public class DaoFactory {
         if (systemConfigDao == null) {
             synchronized (DaoFactory.class) {
                 if (systemConfigDao == null) {
-                    systemConfigDao = new SystemConfigDaoImpl();
+                    systemConfigDao = MemoryStore.isEnabled()
+                            ? new MemorySystemConfigDao(MemoryStore.getInstance())
+                            : new SystemConfigDaoImpl();
                 }
             }
         }
         return systemConfigDao;
     }
+    
+    /**
+     * 获取数据变更日志DAO实例（内存后端下不启用）
+     */
+    public static ChangeLogDao getChangeLogDao() {
+        if (changeLogDao == null) {
+            synchronized (DaoFactory.class) {
+                if (changeLogDao == null) {
+                    changeLogDao = new ChangeLogDaoImpl();
+                }
+            }
+        }
+        return changeLogDao;
+    }
+    
+    /**
+     * 获取导航历史分区维护DAO实例（仅MySQL后端）
+     */
+    public static HistoryPartitionDao getHistoryPartitionDao() {
+        if (historyPartitionDao == null) {
+            synchronized (DaoFactory.class) {
+                if (historyPartitionDao == null) {
+                    historyPartitionDao = new HistoryPartitionDaoImpl();
+                }
+            }
+        }
+        return historyPartitionDao;
+    }
+    
+    /**
+     * 获取导航历史汇总DAO实例
+     */
+    public static HistoryRollupDao getHistoryRollupDao() {
+        if (historyRollupDao == null) {
+            synchronized (DaoFactory.class) {
+                if (historyRollupDao == null) {
+                    historyRollupDao = MemoryStore.isEnabled()
+                            ? new MemoryHistoryRollupDao(MemoryStore.getInstance())
+                            : new HistoryRollupDaoImpl();
+                }
+            }
+        }
+        return historyRollupDao;
+    }
+    
+    /**
+     * 预热各DAO的预编译语句缓存
+     * 先实例化所有DAO以完成SQL登记，再在连接池的初始连接上预编译
+     */
+    public static int warmUpStatements() {
+        if (MemoryStore.isEnabled()) {
+            return 0;
+        }
+        getUserDao();
+        getLocationDao();
+        getPathDao();
+        getNavigationHistoryDao();
+        getSystemConfigDao();
+        getChangeLogDao();
+        getHistoryRollupDao();
+        
+        int connections = Integer.parseInt(DatabaseConfig.getProperty("db.pool.initialSize", "5"));
+        return StatementCache.warmUp(connections);
+    }
 }
\ No newline at end of file
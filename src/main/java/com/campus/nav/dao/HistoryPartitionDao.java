@@ -0,0 +1,52 @@
+package com.campus.nav.dao;
+
+import com.campus.nav.model.HistoryPartition;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 导航历史分区维护DAO接口
+ * navigation_history按created_at的月份RANGE分区，最高的兜底分区p_future存放超出已建分区范围的数据；
+ * DDL失败时抛出DatabaseException
+ */
+public interface HistoryPartitionDao {
+    
+    /**
+     * 导航历史表是否已分区（未执行分区迁移的旧库返回false）
+     */
+    boolean isPartitioned();
+    
+    /**
+     * 按顺序列出所有分区
+     */
+    List<HistoryPartition> findPartitions();
+    
+    /**
+     * 最早一条导航历史的月份，表为空时返回空
+     */
+    Optional<YearMonth> findOldestMonth();
+    
+    /**
+     * 在已有的月分区之后追加分区（从兜底分区中拆分），months须按升序且晚于已有的月分区
+     */
+    void addMonthlyPartitions(List<YearMonth> months);
+    
+    /**
+     * 持有分区维护锁执行维护，多个实例同时检查时只有一个执行DDL
+     * @return 锁被其他实例持有时不执行，返回false
+     */
+    boolean runWithMaintenanceLock(Runnable maintenance);
+    
+    /**
+     * 删除分区及其中的数据
+     */
+    void dropPartition(String partitionName);
+    
+    /**
+     * 把分区的数据交换到归档表（navigation_history_archive_pYYYYMM）后删除分区
+     * @return 归档表已存在时不归档，返回false
+     */
+    boolean archivePartition(String partitionName);
+}
@@ -0,0 +1,60 @@
+package com.campus.nav.dao;
+
+import com.campus.nav.model.HistoryStat;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.RouteStat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 导航历史汇总表DAO接口
+ * route_rollup按（起点, 终点, 策略）、history_daily_rollup按（日期, 小时, 策略）累计导航次数和距离、时间之和，
+ * 由catchUp按上次处理到的历史ID增量合并，统计查询只读汇总表
+ */
+public interface HistoryRollupDao {
+    
+    /**
+     * 汇总表是否可用（未执行建表脚本的旧库返回false）
+     */
+    boolean isAvailable();
+    
+    /**
+     * 把上次处理之后的导航历史合并到汇总表（一批一个事务）
+     * @param batchSize 每批最多处理的历史条数
+     * @param maxTransactionSeconds 无法查看数据库事务列表时假定的最长事务时长，
+     *                              分配ID后等待这么久才认为更小ID的并发写入都已结束
+     * @return 本批合并的历史条数
+     */
+    int catchUp(int batchSize, int maxTransactionSeconds);
+    
+    /**
+     * 已合并到的最大历史ID
+     */
+    long getLastProcessedId();
+    
+    /**
+     * 最热门的路线
+     * @param strategy 导航策略，为null时不限
+     */
+    List<RouteStat> findTopRoutes(NavigationStrategy strategy, int limit);
+    
+    /**
+     * 从指定起点出发最常去的路线
+     */
+    List<RouteStat> findTopRoutesFrom(Integer startLocationId, int limit);
+    
+    /**
+     * 日期范围内各导航策略的次数和距离、时间之和
+     * @param from 起始日期（含）
+     * @param to 结束日期（不含）
+     */
+    List<HistoryStat> findStrategyMix(LocalDate from, LocalDate to);
+    
+    /**
+     * 日期范围内按小时（0-23）汇总的导航次数，用于统计高峰时段
+     * @param from 起始日期（含）
+     * @param to 结束日期（不含）
+     */
+    List<HistoryStat> findHourlyCounts(LocalDate from, LocalDate to);
+}
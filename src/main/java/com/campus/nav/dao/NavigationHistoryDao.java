@@ -1,8 +1,11 @@
 package com.campus.nav.dao;
 
+import com.campus.nav.model.HistoryFilter;
 import com.campus.nav.model.NavigationHistory;
 
 import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 /**
  * 导航历史DAO接口
@@ -14,6 +17,11 @@ public interface NavigationHistoryDao extends BaseDao<NavigationHistory, Integer
      */
     List<NavigationHistory> findByUserId(Integer userId);
     
+    /**
+     * 根据用户ID流式查询导航历史（调用方负责关闭）
+     */
+    Stream<NavigationHistory> streamByUserId(Integer userId);
+    
     /**
      * 根据用户ID分页查询导航历史
      */
@@ -29,4 +37,22 @@ public interface NavigationHistoryDao extends BaseDao<NavigationHistory, Integer
      * 统计用户的导航次数
      */
     long countByUserId(Integer userId);
+    
+    /**
+     * 统计符合过滤条件的导航历史数量
+     */
+    long countByFilter(HistoryFilter filter);
+    
+    /**
+     * 按过滤条件流式查询导航历史（按ID顺序，服务端游标分批读取，调用方负责关闭）
+     */
+    Stream<NavigationHistory> streamByFilter(HistoryFilter filter);
+    
+    /**
+     * 按过滤条件分块删除导航历史（每块DELETE ... LIMIT chunkSize，单独提交），线程被中断时停止
+     * @param progress 每删除一块后回调累计删除数，可为null
+     * @return 删除的记录数
+     * @throws com.campus.nav.exception.DatabaseException 某块删除失败时（之前已提交的块不回滚，消息中带已删除数）
+     */
+    long deleteByFilter(HistoryFilter filter, int chunkSize, LongConsumer progress);
 }
\ No newline at end of file
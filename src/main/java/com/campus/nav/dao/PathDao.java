@@ -1,6 +1,7 @@
 package com.campus.nav.dao;
 
 import com.campus.nav.model.Path;
+import com.campus.nav.model.PathGraphData;
 
 import java.util.List;
 import java.util.Optional;
@@ -44,4 +45,9 @@ public interface PathDao extends BaseDao<Path, Integer> {
      * 更新路径状态
      */
     boolean updateStatus(Integer pathId, boolean isActive);
+    
+    /**
+     * 加载路网图数据（仅可用路径且两端地点可通行）
+     */
+    PathGraphData loadGraphData();
 }
\ No newline at end of file
@@ -21,7 +21,7 @@ public interface SystemConfigDao extends BaseDao<SystemConfig, Integer> {
     boolean updateValue(String configKey, String configValue);
     
     /**
-     * 批量更新配置
+     * 批量更新配置（一个事务，任何一项不存在或更新失败时整体回滚并返回false）
      */
     boolean updateBatch(List<SystemConfig> configs);
 }
\ No newline at end of file
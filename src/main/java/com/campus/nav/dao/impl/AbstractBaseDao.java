@@ -1,22 +1,47 @@
 package com.campus.nav.dao.impl;
 
 import com.campus.nav.dao.BaseDao;
+import com.campus.nav.dao.ChangeLogDao;
+import com.campus.nav.dao.DaoFactory;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.CountMode;
+import com.campus.nav.model.DataChange;
+import com.campus.nav.model.PageCursor;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
+import com.campus.nav.utils.CountCache;
 import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.TransactionTemplate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * 抽象基础DAO实现类
  */
 public abstract class AbstractBaseDao<T, ID> implements BaseDao<T, ID> {
+    private static final String ESTIMATE_ROWS_SQL = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+    private static final Pattern COUNT_TABLE_PATTERN = Pattern.compile("\\bFROM\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_CACHED_MAPPERS = 256;
+    
     protected final Logger logger = LogManager.getLogger(getClass());
     protected final Class<T> entityClass;
+    private final Map<String, DatabaseUtil.RowMapper<T>> rowMappers = new ConcurrentHashMap<>();
     
     @SuppressWarnings("unchecked")
     public AbstractBaseDao() {
@@ -49,6 +74,11 @@ public abstract class AbstractBaseDao<T, ID> implements BaseDao<T, ID> {
         throw new UnsupportedOperationException("请在各具体DAO中实现");
     }
     
+    @Override
+    public Stream<T> streamAll() {
+        throw new UnsupportedOperationException("请在各具体DAO中实现");
+    }
+    
     @Override
     public PageResult<T> findByPage(PageQuery query) {
         throw new UnsupportedOperationException("请在各具体DAO中实现");
@@ -61,6 +91,11 @@ public abstract class AbstractBaseDao<T, ID> implements BaseDao<T, ID> {
     
     @Override
     public boolean saveBatch(List<T> entities) {
+        return saveBatchWithResult(entities).isAllSucceeded();
+    }
+    
+    @Override
+    public BatchResult saveBatchWithResult(List<T> entities) {
         throw new UnsupportedOperationException("请在各具体DAO中实现");
     }
     
@@ -68,7 +103,7 @@ public abstract class AbstractBaseDao<T, ID> implements BaseDao<T, ID> {
      * 执行查询并返回单个结果
      */
     protected Optional<T> queryForObject(String sql, Object... params) {
-        List<T> results = DatabaseUtil.executeQuery(sql, getRowMapper(), params);
+        List<T> results = DatabaseUtil.executeQuery(sql, rowMapper(sql), params);
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
     
@@ -76,11 +111,280 @@ public abstract class AbstractBaseDao<T, ID> implements BaseDao<T, ID> {
      * 执行查询并返回列表
      */
     protected List<T> queryForList(String sql, Object... params) {
-        return DatabaseUtil.executeQuery(sql, getRowMapper(), params);
+        return DatabaseUtil.executeQuery(sql, rowMapper(sql), params);
+    }
+    
+    /**
+     * 执行流式查询（使用默认fetchSize），调用方负责关闭返回的Stream
+     */
+    protected Stream<T> queryForStream(String sql, Object... params) {
+        return DatabaseUtil.executeQueryAsStream(sql, rowMapper(sql), 0, params);
+    }
+    
+    /**
+     * 分页查询
+     * 使用默认排序时按键集（seek）分页：带游标时从上一页边界行 (排序列, ID) 继续定位，
+     * 第N页与第1页代价相同；没有游标（首次加载、直接跳页）或指定了自定义排序时使用LIMIT/OFFSET；
+     * 总数按PageQuery的CountMode统计
+     * @param selectSql     不含WHERE/ORDER BY/LIMIT的查询语句
+     * @param countSql      不含WHERE的计数语句
+     * @param whereClause   过滤条件（不含WHERE关键字），没有时为null
+     * @param customOrderBy 自定义排序（ORDER BY之后的部分），为null时使用order
+     */
+    protected PageResult<T> queryForPage(String selectSql, String countSql, String whereClause,
+                                         KeysetOrder<T> order, String customOrderBy,
+                                         PageQuery query, Object... params) {
+        StringBuilder sql = new StringBuilder(selectSql);
+        List<Object> args = new ArrayList<>(Arrays.asList(params));
+        boolean seek = customOrderBy == null && query.getCursor() != null;
+        boolean backward = seek && query.isBackward();
+        
+        List<String> conditions = new ArrayList<>();
+        if (whereClause != null) {
+            conditions.add("(" + whereClause + ")");
+        }
+        if (seek) {
+            conditions.add(order.seekCondition(backward, query.getCursor(), args));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        
+        CountMode countMode = query.getCountMode() != null ? query.getCountMode() : CountMode.EXACT;
+        int pageSize = query.getPageSize();
+        // 不计数时多取一行，用于判断是否还有更多数据
+        int limit = countMode == CountMode.NONE ? pageSize + 1 : pageSize;
+        
+        sql.append(" ORDER BY ").append(customOrderBy != null ? customOrderBy : order.orderBy(backward));
+        if (seek) {
+            sql.append(" LIMIT ?");
+            args.add(limit);
+        } else {
+            sql.append(" LIMIT ? OFFSET ?");
+            args.add(limit);
+            args.add(query.getOffset());
+        }
+        
+        String pageSql = sql.toString();
+        List<T> data = DatabaseUtil.executeQuery(pageSql, rowMapper(pageSql), args.toArray());
+        boolean hasMore = data.size() > pageSize;
+        if (hasMore) {
+            data = new ArrayList<>(data.subList(0, pageSize));
+        }
+        if (backward) {
+            // 向前翻页时逆序扫描，需恢复为正常顺序
+            Collections.reverse(data);
+        }
+        
+        PageResult<T> result;
+        if (countMode == CountMode.NONE) {
+            int pageNum = query.getPageNum() != null ? query.getPageNum() : 1;
+            result = backward
+                    ? PageResult.withoutTotal(data, hasMore, true, query)
+                    : PageResult.withoutTotal(data, pageNum > 1, hasMore, query);
+        } else {
+            String fullCountSql = whereClause != null ? countSql + " WHERE " + whereClause : countSql;
+            Long estimate = countMode == CountMode.ESTIMATED && whereClause == null ? estimateRows(countSql) : null;
+            Long total = estimate != null ? estimate : countRows(fullCountSql, countMode, params);
+            result = PageResult.of(data, total != null ? total : 0L, query);
+            result.setTotalEstimated(estimate != null);
+        }
+        if (customOrderBy == null && !data.isEmpty()) {
+            result.setStartCursor(order.cursorOf(data.get(0)));
+            result.setEndCursor(order.cursorOf(data.get(data.size() - 1)));
+        }
+        return result;
+    }
+    
+    /**
+     * 统计总数，缓存/估算模式下优先使用缓存的结果
+     */
+    private Long countRows(String countSql, CountMode countMode, Object... params) {
+        if (countMode == CountMode.EXACT) {
+            return DatabaseUtil.executeQueryForSingle(countSql, Long.class, params);
+        }
+        Long cached = CountCache.get(countSql, params);
+        if (cached != null) {
+            return cached;
+        }
+        Long total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, params);
+        if (total != null) {
+            CountCache.put(countSql, total, params);
+        }
+        return total;
+    }
+    
+    /**
+     * 从information_schema读取表的估算行数，无法估算时返回null
+     */
+    private Long estimateRows(String countSql) {
+        Matcher matcher = COUNT_TABLE_PATTERN.matcher(countSql);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            Long rows = DatabaseUtil.executeQueryForSingle(ESTIMATE_ROWS_SQL, Long.class, matcher.group(1));
+            // 统计信息尚未收集（或为视图）时退回计数
+            return rows != null && rows > 0 ? rows : null;
+        } catch (Exception e) {
+            logger.warn("读取表统计信息失败: {}", countSql, e);
+            return null;
+        }
     }
     
     /**
-     * 获取行映射器
+     * 执行需要登记变更日志的写操作：启用变更日志时在事务中执行，使写操作和变更日志同时提交或回滚
+     * @param write 执行写操作（及登记变更）并返回影响行数
+     */
+    protected int writeWithChangeLog(IntSupplier write) {
+        // 先在事务外确认变更日志是否可用，检查失败不会影响写操作所在的事务
+        if (!changeLog().isEnabled()) {
+            return write.getAsInt();
+        }
+        return TransactionTemplate.execute(write::getAsInt);
+    }
+    
+    /**
+     * 登记批量插入成功的行（批量插入按块提交，变更日志在插入之后单独登记）
+     */
+    protected void recordBatchInsert(String tableName, BatchResult result) {
+        List<Integer> ids = new ArrayList<>(result.getSuccessCount());
+        for (int i = 0; i < result.getTotalCount(); i++) {
+            Long key = result.getGeneratedKey(i);
+            if (key != null) {
+                ids.add(key.intValue());
+            }
+        }
+        try {
+            changeLog().recordAll(tableName, ids, DataChange.Operation.INSERT);
+        } catch (Exception e) {
+            logger.error("登记批量插入的变更日志失败: {}", tableName, e);
+        }
+    }
+    
+    /**
+     * 变更日志DAO
+     */
+    protected ChangeLogDao changeLog() {
+        return DaoFactory.getChangeLogDao();
+    }
+    
+    /**
+     * 批量插入实体，成功的实体回填生成的ID
+     * @param paramsMapper 实体到INSERT参数的转换
+     * @param idSetter     回填生成的ID
+     */
+    protected BatchResult insertBatch(String sql, List<T> entities,
+                                      Function<T, Object[]> paramsMapper, BiConsumer<T, Integer> idSetter) {
+        if (entities == null || entities.isEmpty()) {
+            return new BatchResult(0);
+        }
+        try {
+            List<Object[]> paramsList = new ArrayList<>(entities.size());
+            for (T entity : entities) {
+                paramsList.add(paramsMapper.apply(entity));
+            }
+            BatchResult result = DatabaseUtil.executeBatch(sql, paramsList, 0, true);
+            for (int i = 0; i < entities.size(); i++) {
+                Long key = result.getGeneratedKey(i);
+                if (key != null) {
+                    idSetter.accept(entities.get(i), key.intValue());
+                }
+            }
+            if (!result.isAllSucceeded()) {
+                logger.warn("批量保存{}部分失败: {}, {}", entityClass.getSimpleName(), result, result.getErrors());
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("批量保存{}失败", entityClass.getSimpleName(), e);
+            BatchResult result = new BatchResult(entities.size());
+            result.markFailed(0, entities.size(), e.getMessage());
+            return result;
+        }
+    }
+    
+    /**
+     * 获取SQL对应的RowMapper，按SQL缓存，使IndexedRowMapper解析出的列序号可以复用
+     */
+    protected DatabaseUtil.RowMapper<T> rowMapper(String sql) {
+        DatabaseUtil.RowMapper<T> mapper = rowMappers.get(sql);
+        if (mapper == null) {
+            mapper = getRowMapper();
+            // 动态拼接的SQL过多时不再缓存，避免无限增长
+            if (rowMappers.size() < MAX_CACHED_MAPPERS) {
+                DatabaseUtil.RowMapper<T> existing = rowMappers.putIfAbsent(sql, mapper);
+                if (existing != null) {
+                    mapper = existing;
+                }
+            }
+        }
+        return mapper;
+    }
+    
+    /**
+     * 创建行映射器（每次返回新实例，由rowMapper(sql)按SQL缓存）
      */
     protected abstract DatabaseUtil.RowMapper<T> getRowMapper();
+    
+    /**
+     * 键集分页的排序定义：按 (排序列, ID列) 排序，ID列保证顺序唯一
+     */
+    protected static final class KeysetOrder<E> {
+        private final String sortColumn;
+        private final String idColumn;
+        private final boolean descending;
+        private final Function<E, Object> sortKey;
+        private final Function<E, Integer> idKey;
+        
+        public KeysetOrder(String sortColumn, String idColumn, boolean descending,
+                           Function<E, Object> sortKey, Function<E, Integer> idKey) {
+            this.sortColumn = sortColumn;
+            this.idColumn = idColumn;
+            this.descending = descending;
+            this.sortKey = sortKey;
+            this.idKey = idKey;
+        }
+        
+        /**
+         * 只按ID排序
+         */
+        public static <E> KeysetOrder<E> byId(String idColumn, boolean descending, Function<E, Integer> idKey) {
+            return new KeysetOrder<>(null, idColumn, descending, null, idKey);
+        }
+        
+        /**
+         * 游标之后（backward时为之前）的定位条件，参数追加到args
+         */
+        String seekCondition(boolean backward, PageCursor cursor, List<Object> args) {
+            String op = descending != backward ? "<" : ">";
+            if (sortColumn == null) {
+                args.add(cursor.getId());
+                return idColumn + " " + op + " ?";
+            }
+            args.add(cursor.getSortValue());
+            args.add(cursor.getSortValue());
+            args.add(cursor.getSortValue());
+            args.add(cursor.getId());
+            // 冗余的单列范围条件让优化器直接按排序列做范围扫描和分区裁剪
+            return sortColumn + " " + op + "= ? AND (" + sortColumn + " " + op + " ? OR (" + sortColumn + " = ? AND "
+                    + idColumn + " " + op + " ?))";
+        }
+        
+        /**
+         * 排序子句（backward时反向）
+         */
+        String orderBy(boolean backward) {
+            String direction = descending != backward ? " DESC" : " ASC";
+            return sortColumn == null
+                    ? idColumn + direction
+                    : sortColumn + direction + ", " + idColumn + direction;
+        }
+        
+        /**
+         * 生成指定行的游标
+         */
+        PageCursor cursorOf(E entity) {
+            return new PageCursor(sortKey != null ? sortKey.apply(entity) : null, idKey.apply(entity));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,389 @@
+package com.campus.nav.dao.impl;
+
+import com.campus.nav.dao.LocationDao;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.utils.SingleFlight;
+import com.campus.nav.utils.TransactionTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 带读穿透缓存的地点DAO（装饰LocationDaoImpl）
+ * 首次读取时加载全部地点，建立ID、名称、类型索引和可通行视图，之后的读取不再访问数据库；
+ * 写操作使缓存失效，事务中的写操作在事务结束后再失效一次。
+ * 地点数量超过上限时不建立全量快照，只按ID缓存最近访问的地点。
+ * 返回的都是副本，调用方修改不会影响缓存
+ */
+public class CachedLocationDao implements LocationDao {
+    private static final Logger logger = LogManager.getLogger(CachedLocationDao.class);
+
+    private final LocationDao delegate;
+    private final int maxSize;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final SingleFlight<Long, Snapshot> loader = new SingleFlight<>();
+    private final Map<Integer, Location> recentById;
+    private volatile Snapshot snapshot;
+    private volatile long oversizedGeneration = -1;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachedLocationDao(LocationDao delegate, int maxSize) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.recentById = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Location> eldest) {
+                if (size() > CachedLocationDao.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public boolean save(Location entity) {
+        try {
+            return delegate.save(entity);
+        } finally {
+            invalidateOnWrite();
+        }
+    }
+
+    @Override
+    public boolean update(Location entity) {
+        try {
+            return delegate.update(entity);
+        } finally {
+            invalidateOnWrite();
+        }
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            invalidateOnWrite();
+        }
+    }
+
+    @Override
+    public boolean saveBatch(List<Location> entities) {
+        try {
+            return delegate.saveBatch(entities);
+        } finally {
+            invalidateOnWrite();
+        }
+    }
+
+    @Override
+    public BatchResult saveBatchWithResult(List<Location> entities) {
+        try {
+            return delegate.saveBatchWithResult(entities);
+        } finally {
+            invalidateOnWrite();
+        }
+    }
+
+    @Override
+    public Optional<Location> findById(Integer id) {
+        if (id == null || TransactionTemplate.isActive()) {
+            return delegate.findById(id);
+        }
+        Snapshot current = snapshot();
+        if (current != null) {
+            return Optional.ofNullable(current.byId.get(id)).map(CachedLocationDao::copy);
+        }
+
+        // 没有全量快照时按ID缓存
+        Location cached = recentById.get(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(copy(cached));
+        }
+        misses.increment();
+        long gen = generation.get();
+        Optional<Location> loaded = delegate.findById(id);
+        loaded.ifPresent(location -> {
+            synchronized (this) {
+                if (generation.get() == gen) {
+                    recentById.put(id, copy(location));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    @Override
+    public List<Location> findAll() {
+        Snapshot current = snapshot();
+        return current != null ? copyAll(current.all) : delegate.findAll();
+    }
+
+    @Override
+    public Optional<Location> findByName(String name) {
+        Snapshot current = name != null ? snapshot() : null;
+        if (current == null) {
+            return delegate.findByName(name);
+        }
+        return Optional.ofNullable(current.byName.get(nameKey(name))).map(CachedLocationDao::copy);
+    }
+
+    @Override
+    public List<Location> findByType(Location.LocationType type) {
+        Snapshot current = snapshot();
+        if (current == null) {
+            return delegate.findByType(type);
+        }
+        return copyAll(current.byType.getOrDefault(type, List.of()));
+    }
+
+    @Override
+    public List<Location> findAccessibleLocations() {
+        Snapshot current = snapshot();
+        return current != null ? copyAll(current.accessible) : delegate.findAccessibleLocations();
+    }
+
+    @Override
+    public List<Location> findByCoordinateRange(double minX, double maxX, double minY, double maxY) {
+        Snapshot current = snapshot();
+        if (current == null) {
+            return delegate.findByCoordinateRange(minX, maxX, minY, maxY);
+        }
+        return current.all.stream()
+                .filter(l -> l.getXCoordinate() != null && l.getYCoordinate() != null)
+                .filter(l -> l.getXCoordinate() >= minX && l.getXCoordinate() <= maxX
+                        && l.getYCoordinate() >= minY && l.getYCoordinate() <= maxY)
+                .map(CachedLocationDao::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Location> search(String keyword) {
+        // LIKE的匹配规则取决于数据库排序规则，直接查询
+        return delegate.search(keyword);
+    }
+
+    @Override
+    public Stream<Location> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public PageResult<Location> findByPage(PageQuery query) {
+        return delegate.findByPage(query);
+    }
+
+    @Override
+    public long count() {
+        Snapshot current = snapshot();
+        return current != null ? current.all.size() : delegate.count();
+    }
+
+    /**
+     * 使缓存失效
+     */
+    public void invalidate() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            snapshot = null;
+            recentById.clear();
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * 按ID增量刷新缓存（其他实例修改了这些地点时由变更日志轮询调用）
+     * 先从数据库读取最新数据，再原位替换快照中的对应条目；已删除的地点从快照中移除。
+     * 快照按数据库排序规则的名称顺序排列，新增或改名的地点无法在内存中确定位置，此时丢弃快照重新加载
+     */
+    public void refresh(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Integer, Location> fresh = new HashMap<>(ids.size() * 2);
+        for (Integer id : ids) {
+            delegate.findById(id).ifPresent(location -> fresh.put(id, location));
+        }
+
+        synchronized (this) {
+            // 递增代次，丢弃刷新前开始、刷新后才完成的加载
+            generation.incrementAndGet();
+            recentById.keySet().removeAll(ids);
+            Snapshot current = snapshot;
+            if (current != null) {
+                List<Location> patched = new ArrayList<>(current.all.size());
+                int replaced = 0;
+                for (Location location : current.all) {
+                    if (!ids.contains(location.getId())) {
+                        patched.add(location);
+                        continue;
+                    }
+                    Location updated = fresh.get(location.getId());
+                    if (updated != null) {
+                        if (!Objects.equals(updated.getName(), location.getName())) {
+                            break;
+                        }
+                        patched.add(updated);
+                        replaced++;
+                    }
+                }
+                snapshot = replaced == fresh.size() ? new Snapshot(patched) : null;
+            }
+        }
+        refreshes.increment();
+    }
+
+    /**
+     * 命中率
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * 获取缓存状态信息
+     */
+    public String getStatus() {
+        Snapshot current = snapshot;
+        return String.format("地点缓存: 快照=%s, ID缓存=%d, 命中=%d, 未命中=%d, 命中率=%.1f%%, 加载=%d, 失效=%d, 增量刷新=%d, 淘汰=%d",
+                current != null ? current.all.size() + "条" : "无", recentById.size(), hits.sum(), misses.sum(),
+                getHitRatio() * 100, loads.sum(), invalidations.sum(), refreshes.sum(), evictions.sum());
+    }
+
+    /**
+     * 写操作后失效；处于事务中时，事务结束后再失效一次，丢弃提交前被其他线程加载的旧数据
+     */
+    private void invalidateOnWrite() {
+        invalidate();
+        if (TransactionTemplate.isActive()) {
+            TransactionTemplate.afterCompletion(this::invalidate);
+        }
+    }
+
+    /**
+     * 获取全量快照，不存在时加载；事务中（需要读到未提交的修改）或地点数量超过上限时返回null
+     */
+    private Snapshot snapshot() {
+        if (TransactionTemplate.isActive()) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+
+        long gen = generation.get();
+        if (oversizedGeneration == gen) {
+            return null;
+        }
+        // 按代次合并并发加载，失效后发起的读取不会拿到失效前开始加载的数据
+        Snapshot loaded = loader.execute(gen, () -> load(gen));
+        if (loaded != null) {
+            misses.increment();
+        }
+        return loaded;
+    }
+
+    private Snapshot load(long gen) {
+        long total = delegate.count();
+        if (total > maxSize) {
+            oversizedGeneration = gen;
+            logger.info("地点数量 {} 超过缓存上限 {}，仅按ID缓存", total, maxSize);
+            return null;
+        }
+
+        Snapshot loaded = new Snapshot(delegate.findAll());
+        loads.increment();
+        synchronized (this) {
+            if (generation.get() == gen) {
+                snapshot = loaded;
+            }
+        }
+        logger.debug("地点缓存已加载: {} 条", loaded.all.size());
+        return loaded;
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Location copy(Location location) {
+        return location.toBuilder().build();
+    }
+
+    private static List<Location> copyAll(List<Location> locations) {
+        List<Location> copies = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            copies.add(copy(location));
+        }
+        return copies;
+    }
+
+    /**
+     * 全量快照及索引（只读）
+     */
+    private static final class Snapshot {
+        private final List<Location> all;
+        private final Map<Integer, Location> byId;
+        private final Map<String, Location> byName;
+        private final Map<Location.LocationType, List<Location>> byType;
+        private final List<Location> accessible;
+
+        Snapshot(List<Location> locations) {
+            this.all = copyAll(locations);
+            Map<Integer, Location> idIndex = new HashMap<>(all.size() * 2);
+            Map<String, Location> nameIndex = new HashMap<>(all.size() * 2);
+            Map<Location.LocationType, List<Location>> typeIndex = new EnumMap<>(Location.LocationType.class);
+            List<Location> accessibleView = new ArrayList<>();
+
+            // all已按名称排序，各视图保持同样的顺序
+            for (Location location : all) {
+                idIndex.put(location.getId(), location);
+                if (location.getName() != null) {
+                    nameIndex.putIfAbsent(nameKey(location.getName()), location);
+                }
+                Location.LocationType type = location.getType() != null ? location.getType() : Location.LocationType.OTHER;
+                typeIndex.computeIfAbsent(type, k -> new ArrayList<>()).add(location);
+                if (Boolean.TRUE.equals(location.getIsAccessible())) {
+                    accessibleView.add(location);
+                }
+            }
+
+            this.byId = idIndex;
+            this.byName = nameIndex;
+            this.byType = typeIndex;
+            this.accessible = accessibleView;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.campus.nav.dao.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.ChangeLogDao;
+import com.campus.nav.model.DataChange;
+import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.ReadRouting;
+import com.campus.nav.utils.StatementCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 数据变更日志DAO实现类
+ * 登记方法的异常不在此处捕获，由调用方所在的事务回滚，保证写操作和变更日志同时生效
+ */
+public class ChangeLogDaoImpl implements ChangeLogDao {
+    private static final Logger logger = LogManager.getLogger(ChangeLogDaoImpl.class);
+
+    // SQL语句
+    private static final String TABLE_NAME = "data_change_log";
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE_NAME +
+            "(table_name, row_id, operation, source) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_LAST_ID_SQL = "INSERT INTO " + TABLE_NAME +
+            "(table_name, row_id, operation, source) VALUES (?, LAST_INSERT_ID(), 'I', ?)";
+    private static final String SELECT_SINCE = "SELECT id, table_name, row_id, operation, source, changed_at FROM " +
+            TABLE_NAME + " WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_LATEST = "SELECT COALESCE(MAX(id), 0) FROM " + TABLE_NAME;
+    private static final String PURGE_SQL = "DELETE FROM " + TABLE_NAME + " WHERE changed_at < ? LIMIT ?";
+    private static final String SELECT_NOW = "SELECT UNIX_TIMESTAMP()";
+    // 自动提交的只读查询不会登记变更，不必等待
+    private static final String SELECT_OLDEST_TRANSACTION = "SELECT COALESCE(UNIX_TIMESTAMP(MIN(trx_started)), 0) " +
+            "FROM information_schema.INNODB_TRX " +
+            "WHERE trx_mysql_thread_id <> CONNECTION_ID() AND trx_autocommit_non_locking = 0";
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+    private static final IndexedRowMapper<DataChange> ROW_MAPPER = new IndexedRowMapper<>(
+            "id", "table_name", "row_id", "operation", "source", "changed_at") {
+        @Override
+        protected DataChange mapRow(ResultSet rs, int[] columns) throws SQLException {
+            int rowId = rs.getInt(columns[2]);
+            return DataChange.builder()
+                    .id(rs.getLong(columns[0]))
+                    .tableName(rs.getString(columns[1]))
+                    .rowId(rs.wasNull() ? null : rowId)
+                    .operation(DataChange.Operation.fromCode(rs.getString(columns[3])))
+                    .source(rs.getString(columns[4]))
+                    .changedAt(getLocalDateTime(rs, columns[5]))
+                    .build();
+        }
+    };
+
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(INSERT_SQL, INSERT_LAST_ID_SQL, SELECT_SINCE, SELECT_LATEST);
+    }
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile Boolean available;
+    private volatile boolean transactionsVisible = true;
+
+    @Override
+    public boolean isEnabled() {
+        if (DatabaseConfig.isMemoryBackend()
+                || !Boolean.parseBoolean(DatabaseConfig.getProperty("changelog.enabled", "true"))) {
+            return false;
+        }
+        Boolean current = available;
+        if (current == null) {
+            synchronized (this) {
+                current = available;
+                if (current == null) {
+                    // 检查失败（如数据库暂时不可用）时不缓存结果，下次再检查
+                    current = checkTable();
+                    available = current;
+                }
+            }
+        }
+        return Boolean.TRUE.equals(current);
+    }
+
+    @Override
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public void recordInsert(String tableName) {
+        if (isEnabled()) {
+            DatabaseUtil.executeUpdate(INSERT_LAST_ID_SQL, tableName, instanceId);
+        }
+    }
+
+    @Override
+    public void record(String tableName, Integer rowId, DataChange.Operation operation) {
+        if (isEnabled()) {
+            DatabaseUtil.executeUpdate(INSERT_SQL, tableName, rowId, operation.getCode(), instanceId);
+        }
+    }
+
+    @Override
+    public void recordAll(String tableName, Collection<Integer> rowIds, DataChange.Operation operation) {
+        if (rowIds.isEmpty() || !isEnabled()) {
+            return;
+        }
+        List<Object[]> paramsList = new ArrayList<>(rowIds.size());
+        for (Integer rowId : rowIds) {
+            paramsList.add(new Object[]{tableName, rowId, operation.getCode(), instanceId});
+        }
+        DatabaseUtil.executeBatch(INSERT_SQL, paramsList, 0, false);
+    }
+
+    @Override
+    public void recordMatching(String tableName, DataChange.Operation operation, String whereClause, Object... params) {
+        if (!isEnabled()) {
+            return;
+        }
+        String sql = "INSERT INTO " + TABLE_NAME + "(table_name, row_id, operation, source) SELECT ?, id, ?, ? FROM " +
+                tableName + " WHERE " + whereClause;
+        Object[] args = new Object[params.length + 3];
+        args[0] = tableName;
+        args[1] = operation.getCode();
+        args[2] = instanceId;
+        System.arraycopy(params, 0, args, 3, params.length);
+        DatabaseUtil.executeUpdate(sql, args);
+    }
+
+    @Override
+    public long findLatestVersion() {
+        try {
+            Long version = ReadRouting.onPrimary(() -> DatabaseUtil.executeQueryForSingle(SELECT_LATEST, Long.class));
+            return version != null ? version : 0;
+        } catch (Exception e) {
+            logger.error("查询最新变更版本失败", e);
+            return -1;
+        }
+    }
+
+    @Override
+    public List<DataChange> findSince(long version, int limit) {
+        // 副本延迟会使版本号出现空洞，轮询始终读主库
+        return ReadRouting.onPrimary(() -> DatabaseUtil.executeQuery(SELECT_SINCE, ROW_MAPPER, version, limit));
+    }
+
+    @Override
+    public long currentTime() {
+        return ReadRouting.onPrimary(() -> DatabaseUtil.executeQueryForSingle(SELECT_NOW, Long.class));
+    }
+
+    @Override
+    public long oldestTransactionStart() {
+        if (!transactionsVisible) {
+            return -1;
+        }
+        try {
+            Long oldest = ReadRouting.onPrimary(
+                    () -> DatabaseUtil.executeQueryForSingle(SELECT_OLDEST_TRANSACTION, Long.class));
+            return oldest != null ? oldest : 0;
+        } catch (Exception e) {
+            // 通常是没有PROCESS权限，之后不再查询
+            transactionsVisible = false;
+            logger.warn("无法读取INNODB_TRX（需要PROCESS权限），变更日志空洞改为按最长事务时长等待", e);
+            return -1;
+        }
+    }
+
+    @Override
+    public int purgeBefore(LocalDateTime time, int limit) {
+        try {
+            return DatabaseUtil.executeUpdate(PURGE_SQL, time, limit);
+        } catch (Exception e) {
+            logger.error("清理变更日志失败", e);
+            return 0;
+        }
+    }
+
+    /**
+     * 检查变更日志表是否存在，不存在时不登记变更（未执行建表脚本的旧库照常写入）；检查失败时返回null
+     */
+    private Boolean checkTable() {
+        try {
+            Long count = DatabaseUtil.executeQueryForSingle(TABLE_EXISTS_SQL, Long.class, TABLE_NAME);
+            if (count == null || count == 0) {
+                logger.warn("变更日志表 {} 不存在，多实例缓存同步已停用", TABLE_NAME);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("检查变更日志表失败", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.campus.nav.dao.impl;
+
+import com.campus.nav.dao.HistoryPartitionDao;
+import com.campus.nav.model.HistoryPartition;
+import com.campus.nav.utils.CountCache;
+import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.ReadRouting;
+import com.campus.nav.utils.TransactionTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * 导航历史分区维护DAO实现类
+ * 分区键为UNIX_TIMESTAMP(created_at)（TIMESTAMP列只能按此函数做RANGE分区并支持分区裁剪），
+ * 分区pYYYYMM存放该月及更早（最低的分区）的数据
+ */
+public class HistoryPartitionDaoImpl implements HistoryPartitionDao {
+    private static final Logger logger = LogManager.getLogger(HistoryPartitionDaoImpl.class);
+
+    private static final String TABLE_NAME = "navigation_history";
+    private static final String ARCHIVE_PREFIX = TABLE_NAME + "_archive_";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME, TABLE_ROWS FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final String SELECT_OLDEST_MONTH = "SELECT DATE_FORMAT(MIN(created_at), '%Y-%m') FROM " + TABLE_NAME;
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+    private static final String LOCK_NAME = "campus_nav.navigation_history.partition";
+    private static final String GET_LOCK = "SELECT COALESCE(GET_LOCK(?, 0), 0)";
+    private static final String RELEASE_LOCK = "SELECT RELEASE_LOCK(?)";
+
+    @Override
+    public boolean isPartitioned() {
+        return !findPartitions().isEmpty();
+    }
+
+    @Override
+    public List<HistoryPartition> findPartitions() {
+        // 元数据始终读主库，副本上的表结构可能还没同步
+        return ReadRouting.onPrimary(() -> DatabaseUtil.executeQuery(SELECT_PARTITIONS, (rs, rowNum) -> {
+            String name = rs.getString(1);
+            long rows = rs.getLong(2);
+            return HistoryPartition.builder()
+                    .name(name)
+                    .month(monthOf(name))
+                    .rows(rs.wasNull() ? null : rows)
+                    .build();
+        }, TABLE_NAME));
+    }
+
+    @Override
+    public Optional<YearMonth> findOldestMonth() {
+        String month = ReadRouting.onPrimary(() -> DatabaseUtil.executeQueryForSingle(SELECT_OLDEST_MONTH, String.class));
+        return month != null ? Optional.of(YearMonth.parse(month)) : Optional.empty();
+    }
+
+    @Override
+    public void addMonthlyPartitions(List<YearMonth> months) {
+        if (months.isEmpty()) {
+            return;
+        }
+        StringJoiner definitions = new StringJoiner(", ");
+        for (YearMonth month : months) {
+            // 上界为下个月第一天，按会话时区换算为时间戳，与TIMESTAMP列的存储一致
+            definitions.add("PARTITION " + partitionName(month) + " VALUES LESS THAN (UNIX_TIMESTAMP('"
+                    + month.plusMonths(1).atDay(1) + " 00:00:00'))");
+        }
+
+        boolean hasFuture = findPartitions().stream().anyMatch(p -> FUTURE_PARTITION.equals(p.getName()));
+        String sql = hasFuture
+                ? "ALTER TABLE " + TABLE_NAME + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" + definitions +
+                ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)"
+                : "ALTER TABLE " + TABLE_NAME + " ADD PARTITION (" + definitions + ")";
+        DatabaseUtil.executeUpdate(sql);
+        logger.info("导航历史已添加分区: {}", months);
+    }
+
+    @Override
+    public boolean runWithMaintenanceLock(Runnable maintenance) {
+        // GET_LOCK是会话级的命名锁，借用事务把加锁、DDL和释放固定在同一个连接上（DDL会隐式提交，不影响锁）
+        return TransactionTemplate.execute(() -> {
+            Long locked = DatabaseUtil.executeQueryForSingle(GET_LOCK, Long.class, LOCK_NAME);
+            if (locked == null || locked != 1) {
+                logger.info("其他实例正在维护导航历史分区，本次跳过");
+                return false;
+            }
+            try {
+                maintenance.run();
+                return true;
+            } finally {
+                DatabaseUtil.executeQueryForSingle(RELEASE_LOCK, Long.class, LOCK_NAME);
+            }
+        });
+    }
+
+    @Override
+    public void dropPartition(String partitionName) {
+        DatabaseUtil.executeUpdate("ALTER TABLE " + TABLE_NAME + " DROP PARTITION " + checkName(partitionName));
+        CountCache.invalidateTable(TABLE_NAME);
+        logger.info("导航历史分区已删除: {}", partitionName);
+    }
+
+    @Override
+    public boolean archivePartition(String partitionName) {
+        String archiveTable = ARCHIVE_PREFIX + checkName(partitionName);
+        Long exists = DatabaseUtil.executeQueryForSingle(TABLE_EXISTS_SQL, Long.class, archiveTable);
+        if (exists != null && exists > 0) {
+            // 已有的归档表可能有数据，交换会把它换回分区，不能再删除分区
+            logger.warn("归档表 {} 已存在，跳过分区 {} 的归档", archiveTable, partitionName);
+            return false;
+        }
+
+        // 交换分区只修改元数据，不复制数据；归档表需与原表结构相同且不分区
+        DatabaseUtil.executeUpdate("CREATE TABLE " + archiveTable + " LIKE " + TABLE_NAME);
+        DatabaseUtil.executeUpdate("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+        DatabaseUtil.executeUpdate("ALTER TABLE " + TABLE_NAME + " EXCHANGE PARTITION " + partitionName +
+                " WITH TABLE " + archiveTable);
+        dropPartition(partitionName);
+        logger.info("导航历史分区 {} 已归档到 {}", partitionName, archiveTable);
+        return true;
+    }
+
+    /**
+     * 月份对应的分区名
+     */
+    private static String partitionName(YearMonth month) {
+        return "p" + month.format(MONTH_FORMAT);
+    }
+
+    /**
+     * 分区名对应的月份，不是月分区时返回null
+     */
+    private static YearMonth monthOf(String partitionName) {
+        if (partitionName == null || partitionName.length() != 7 || partitionName.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(1), MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 分区名会拼接到DDL中，只接受月分区名
+     */
+    private static String checkName(String partitionName) {
+        if (monthOf(partitionName) == null) {
+            throw new IllegalArgumentException("不是月分区: " + partitionName);
+        }
+        return partitionName;
+    }
+}
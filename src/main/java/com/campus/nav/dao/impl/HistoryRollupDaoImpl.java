@@ -0,0 +1,274 @@
+package com.campus.nav.dao.impl;
+
+import com.campus.nav.dao.HistoryRollupDao;
+import com.campus.nav.model.HistoryStat;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.RouteStat;
+import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.ReadRouting;
+import com.campus.nav.utils.StatementCache;
+import com.campus.nav.utils.TransactionTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 导航历史汇总表DAO实现类
+ * 每批在一个事务中完成：锁定rollup_state中的进度行（多个实例串行合并），
+ * 用INSERT ... SELECT ... GROUP BY ... ON DUPLICATE KEY UPDATE累加到两张汇总表，再推进进度；
+ * 只处理到所在事务都已结束的ID（见RollupWatermark），不会跳过晚提交的更小ID
+ */
+public class HistoryRollupDaoImpl implements HistoryRollupDao {
+    private static final Logger logger = LogManager.getLogger(HistoryRollupDaoImpl.class);
+
+    // SQL语句
+    private static final String STATE_NAME = "navigation_history";
+    private static final String INIT_STATE = "INSERT IGNORE INTO rollup_state(name, last_id) VALUES (?, 0)";
+    private static final String LOCK_STATE = "SELECT last_id FROM rollup_state WHERE name = ? FOR UPDATE";
+    private static final String SELECT_STATE = "SELECT last_id FROM rollup_state WHERE name = ?";
+    private static final String UPDATE_STATE = "UPDATE rollup_state SET last_id = ? WHERE name = ?";
+    private static final String SELECT_BATCH_END = "SELECT COALESCE(MAX(id), 0) FROM " +
+            "(SELECT id FROM navigation_history WHERE id > ? ORDER BY id LIMIT ?) t";
+    private static final String SELECT_MAX_ID = "SELECT COALESCE(MAX(id), 0) FROM navigation_history";
+    private static final String SELECT_NOW = "SELECT UNIX_TIMESTAMP()";
+    // 自动提交的只读查询不会写入历史，不必等待
+    private static final String SELECT_OLDEST_TRANSACTION = "SELECT COALESCE(UNIX_TIMESTAMP(MIN(trx_started)), 0) " +
+            "FROM information_schema.INNODB_TRX " +
+            "WHERE trx_mysql_thread_id <> CONNECTION_ID() AND trx_autocommit_non_locking = 0";
+    private static final String PROBE_TRANSACTIONS = "SELECT COUNT(*) FROM information_schema.INNODB_TRX WHERE 1 = 0";
+    private static final String COUNT_RANGE = "SELECT COUNT(*) FROM navigation_history WHERE id > ? AND id <= ?";
+    private static final String MERGE_ROUTES = "INSERT INTO route_rollup " +
+            "(start_location_id, end_location_id, path_strategy, nav_count, distance_sum, time_sum, last_navigated_at) " +
+            "SELECT start_location_id, end_location_id, path_strategy, COUNT(*), SUM(total_distance), SUM(total_time), " +
+            "MAX(created_at) FROM navigation_history WHERE id > ? AND id <= ? " +
+            "GROUP BY start_location_id, end_location_id, path_strategy " +
+            "ON DUPLICATE KEY UPDATE nav_count = nav_count + VALUES(nav_count), " +
+            "distance_sum = distance_sum + VALUES(distance_sum), time_sum = time_sum + VALUES(time_sum), " +
+            "last_navigated_at = GREATEST(last_navigated_at, VALUES(last_navigated_at))";
+    private static final String MERGE_DAILY = "INSERT INTO history_daily_rollup " +
+            "(stat_date, stat_hour, path_strategy, nav_count, distance_sum, time_sum) " +
+            "SELECT DATE(created_at), HOUR(created_at), path_strategy, COUNT(*), SUM(total_distance), SUM(total_time) " +
+            "FROM navigation_history WHERE id > ? AND id <= ? " +
+            "GROUP BY DATE(created_at), HOUR(created_at), path_strategy " +
+            "ON DUPLICATE KEY UPDATE nav_count = nav_count + VALUES(nav_count), " +
+            "distance_sum = distance_sum + VALUES(distance_sum), time_sum = time_sum + VALUES(time_sum)";
+
+    private static final String ROUTE_COLUMNS = "r.start_location_id, l1.name AS start_name, r.end_location_id, " +
+            "l2.name AS end_name, r.path_strategy, r.nav_count, r.distance_sum, r.time_sum, r.last_navigated_at " +
+            "FROM route_rollup r " +
+            "LEFT JOIN locations l1 ON r.start_location_id = l1.id " +
+            "LEFT JOIN locations l2 ON r.end_location_id = l2.id";
+    private static final String SELECT_TOP_ROUTES = "SELECT " + ROUTE_COLUMNS +
+            " ORDER BY r.nav_count DESC LIMIT ?";
+    private static final String SELECT_TOP_ROUTES_BY_STRATEGY = "SELECT " + ROUTE_COLUMNS +
+            " WHERE r.path_strategy = ? ORDER BY r.nav_count DESC LIMIT ?";
+    private static final String SELECT_TOP_ROUTES_FROM = "SELECT " + ROUTE_COLUMNS +
+            " WHERE r.start_location_id = ? ORDER BY r.nav_count DESC LIMIT ?";
+    private static final String SELECT_STRATEGY_MIX = "SELECT NULL AS stat_hour, path_strategy, SUM(nav_count) AS nav_count, " +
+            "SUM(distance_sum) AS distance_sum, SUM(time_sum) AS time_sum FROM history_daily_rollup " +
+            "WHERE stat_date >= ? AND stat_date < ? GROUP BY path_strategy ORDER BY nav_count DESC";
+    private static final String SELECT_HOURLY = "SELECT stat_hour, NULL AS path_strategy, SUM(nav_count) AS nav_count, " +
+            "SUM(distance_sum) AS distance_sum, SUM(time_sum) AS time_sum FROM history_daily_rollup " +
+            "WHERE stat_date >= ? AND stat_date < ? GROUP BY stat_hour ORDER BY stat_hour";
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*) FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN ('route_rollup', 'history_daily_rollup', 'rollup_state')";
+
+    private static final IndexedRowMapper<RouteStat> ROUTE_MAPPER = new IndexedRowMapper<>(
+            "start_location_id", "start_name", "end_location_id", "end_name", "path_strategy",
+            "nav_count", "distance_sum", "time_sum", "last_navigated_at") {
+        @Override
+        protected RouteStat mapRow(ResultSet rs, int[] columns) throws SQLException {
+            return RouteStat.builder()
+                    .startLocationId(rs.getInt(columns[0]))
+                    .startLocationName(rs.getString(columns[1]))
+                    .endLocationId(rs.getInt(columns[2]))
+                    .endLocationName(rs.getString(columns[3]))
+                    .strategy(NavigationStrategy.fromString(rs.getString(columns[4])))
+                    .navCount(rs.getLong(columns[5]))
+                    .distanceSum(rs.getDouble(columns[6]))
+                    .timeSum(rs.getLong(columns[7]))
+                    .lastNavigatedAt(getLocalDateTime(rs, columns[8]))
+                    .build();
+        }
+    };
+
+    private static final IndexedRowMapper<HistoryStat> STAT_MAPPER = new IndexedRowMapper<>(
+            "stat_hour", "path_strategy", "nav_count", "distance_sum", "time_sum") {
+        @Override
+        protected HistoryStat mapRow(ResultSet rs, int[] columns) throws SQLException {
+            int hour = rs.getInt(columns[0]);
+            boolean noHour = rs.wasNull();
+            String strategy = rs.getString(columns[1]);
+            return HistoryStat.builder()
+                    .hour(noHour ? null : hour)
+                    .strategy(strategy != null ? NavigationStrategy.fromString(strategy) : null)
+                    .navCount(rs.getLong(columns[2]))
+                    .distanceSum(rs.getDouble(columns[3]))
+                    .timeSum(rs.getLong(columns[4]))
+                    .build();
+        }
+    };
+
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(SELECT_TOP_ROUTES, SELECT_TOP_ROUTES_BY_STRATEGY, SELECT_TOP_ROUTES_FROM,
+                SELECT_STRATEGY_MIX, SELECT_HOURLY);
+    }
+
+    private final RollupWatermark watermark = new RollupWatermark();
+
+    private volatile Boolean available;
+    private volatile Boolean transactionsVisible;
+
+    @Override
+    public boolean isAvailable() {
+        Boolean current = available;
+        if (current == null) {
+            try {
+                Long count = DatabaseUtil.executeQueryForSingle(TABLE_EXISTS_SQL, Long.class);
+                current = count != null && count == 3;
+                if (!current) {
+                    logger.warn("导航历史汇总表不存在，统计汇总已停用");
+                }
+                available = current;
+            } catch (Exception e) {
+                // 检查失败时不缓存结果，下次再检查
+                logger.warn("检查导航历史汇总表失败", e);
+                return false;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public int catchUp(int batchSize, int maxTransactionSeconds) {
+        RollupWatermark.Source source = new DatabaseSource(canInspectTransactions());
+        return TransactionTemplate.execute(() -> {
+            DatabaseUtil.executeUpdate(INIT_STATE, STATE_NAME);
+            long lastId = DatabaseUtil.executeQueryForSingle(LOCK_STATE, Long.class, STATE_NAME);
+
+            // 在本事务的第一次一致性读之前判断，随后的读取能看到已确认结束的事务写入的历史
+            long settled = watermark.advance(source, maxTransactionSeconds);
+            if (settled <= lastId) {
+                return 0;
+            }
+            long end = Math.min(settled,
+                    DatabaseUtil.executeQueryForSingle(SELECT_BATCH_END, Long.class, lastId, batchSize));
+            if (end <= lastId) {
+                return 0;
+            }
+
+            long rows = DatabaseUtil.executeQueryForSingle(COUNT_RANGE, Long.class, lastId, end);
+            DatabaseUtil.executeUpdate(MERGE_ROUTES, lastId, end);
+            DatabaseUtil.executeUpdate(MERGE_DAILY, lastId, end);
+            DatabaseUtil.executeUpdate(UPDATE_STATE, end, STATE_NAME);
+            logger.debug("导航历史汇总: ID {} - {}, {} 条", lastId + 1, end, rows);
+            return (int) rows;
+        });
+    }
+
+    /**
+     * 当前账号能否读取information_schema.INNODB_TRX（需要PROCESS权限），在事务外检查，
+     * 避免查询失败使汇总事务回滚
+     */
+    private boolean canInspectTransactions() {
+        Boolean current = transactionsVisible;
+        if (current == null) {
+            try {
+                DatabaseUtil.executeQueryForSingle(PROBE_TRANSACTIONS, Long.class);
+                current = true;
+            } catch (Exception e) {
+                logger.warn("无法读取INNODB_TRX（需要PROCESS权限），导航历史汇总改为按最长事务时长等待并发写入", e);
+                current = false;
+            }
+            transactionsVisible = current;
+        }
+        return current;
+    }
+
+    /**
+     * 在当前汇总事务的连接上查询
+     */
+    private static final class DatabaseSource implements RollupWatermark.Source {
+        private final boolean inspectTransactions;
+
+        DatabaseSource(boolean inspectTransactions) {
+            this.inspectTransactions = inspectTransactions;
+        }
+
+        @Override
+        public long maxId() {
+            return DatabaseUtil.executeQueryForSingle(SELECT_MAX_ID, Long.class);
+        }
+
+        @Override
+        public long now() {
+            return DatabaseUtil.executeQueryForSingle(SELECT_NOW, Long.class);
+        }
+
+        @Override
+        public long oldestTransactionStart() {
+            return inspectTransactions ? DatabaseUtil.executeQueryForSingle(SELECT_OLDEST_TRANSACTION, Long.class) : -1;
+        }
+    }
+
+    @Override
+    public long getLastProcessedId() {
+        try {
+            Long lastId = ReadRouting.onPrimary(() -> DatabaseUtil.executeQueryForSingle(SELECT_STATE, Long.class, STATE_NAME));
+            return lastId != null ? lastId : 0;
+        } catch (Exception e) {
+            logger.error("查询导航历史汇总进度失败", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public List<RouteStat> findTopRoutes(NavigationStrategy strategy, int limit) {
+        try {
+            // 统计数据允许少量延迟，优先读副本
+            return ReadRouting.readOnly(() -> strategy != null
+                    ? DatabaseUtil.executeQuery(SELECT_TOP_ROUTES_BY_STRATEGY, ROUTE_MAPPER, strategy.name(), limit)
+                    : DatabaseUtil.executeQuery(SELECT_TOP_ROUTES, ROUTE_MAPPER, limit));
+        } catch (Exception e) {
+            logger.error("查询热门路线失败", e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<RouteStat> findTopRoutesFrom(Integer startLocationId, int limit) {
+        try {
+            return ReadRouting.readOnly(() ->
+                    DatabaseUtil.executeQuery(SELECT_TOP_ROUTES_FROM, ROUTE_MAPPER, startLocationId, limit));
+        } catch (Exception e) {
+            logger.error("查询起点热门路线失败: {}", startLocationId, e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<HistoryStat> findStrategyMix(LocalDate from, LocalDate to) {
+        try {
+            return ReadRouting.readOnly(() -> DatabaseUtil.executeQuery(SELECT_STRATEGY_MIX, STAT_MAPPER, from, to));
+        } catch (Exception e) {
+            logger.error("查询导航策略分布失败", e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<HistoryStat> findHourlyCounts(LocalDate from, LocalDate to) {
+        try {
+            return ReadRouting.readOnly(() -> DatabaseUtil.executeQuery(SELECT_HOURLY, STAT_MAPPER, from, to));
+        } catch (Exception e) {
+            logger.error("查询导航时段分布失败", e);
+            return List.of();
+        }
+    }
+}
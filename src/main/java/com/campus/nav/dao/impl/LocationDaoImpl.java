@@ -1,10 +1,14 @@
 package com.campus.nav.dao.impl;
 
 import com.campus.nav.dao.LocationDao;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.DataChange;
 import com.campus.nav.model.Location;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.StatementCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -13,6 +17,7 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 地点DAO实现类
@@ -42,19 +47,26 @@ public class LocationDaoImpl extends AbstractBaseDao<Location, Integer> implemen
     private static final String SEARCH = "SELECT " + COLUMNS + " FROM " + TABLE_NAME + 
             " WHERE name LIKE ? OR description LIKE ? ORDER BY name";
     private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_NAME;
+    private static final KeysetOrder<Location> PAGE_ORDER =
+            new KeysetOrder<>("name", "id", false, Location::getName, Location::getId);
+    
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(INSERT_SQL, UPDATE_SQL, DELETE_SQL, SELECT_BY_ID, SELECT_ALL,
+                SELECT_BY_NAME, SELECT_BY_TYPE, SELECT_ACCESSIBLE, SELECT_BY_COORDINATE_RANGE,
+                SEARCH, COUNT_SQL);
+    }
     
     @Override
     public boolean save(Location location) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL,
-                    location.getName(),
-                    location.getDescription(),
-                    location.getType() != null ? location.getType().name() : Location.LocationType.OTHER.name(),
-                    location.getXCoordinate(),
-                    location.getYCoordinate(),
-                    location.getHasShade() != null ? location.getHasShade() : false,
-                    location.getScenicLevel() != null ? location.getScenicLevel() : 1,
-                    location.getIsAccessible() != null ? location.getIsAccessible() : true);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(INSERT_SQL, toInsertParams(location));
+                if (rows > 0) {
+                    changeLog().recordInsert(TABLE_NAME);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("保存地点失败: {}", location.getName(), e);
@@ -62,19 +74,32 @@ public class LocationDaoImpl extends AbstractBaseDao<Location, Integer> implemen
         }
     }
     
+    @Override
+    public BatchResult saveBatchWithResult(List<Location> locations) {
+        BatchResult result = insertBatch(INSERT_SQL, locations, this::toInsertParams, Location::setId);
+        recordBatchInsert(TABLE_NAME, result);
+        return result;
+    }
+    
     @Override
     public boolean update(Location location) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(UPDATE_SQL,
-                    location.getName(),
-                    location.getDescription(),
-                    location.getType() != null ? location.getType().name() : Location.LocationType.OTHER.name(),
-                    location.getXCoordinate(),
-                    location.getYCoordinate(),
-                    location.getHasShade() != null ? location.getHasShade() : false,
-                    location.getScenicLevel() != null ? location.getScenicLevel() : 1,
-                    location.getIsAccessible() != null ? location.getIsAccessible() : true,
-                    location.getId());
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(UPDATE_SQL,
+                        location.getName(),
+                        location.getDescription(),
+                        location.getType() != null ? location.getType().name() : Location.LocationType.OTHER.name(),
+                        location.getXCoordinate(),
+                        location.getYCoordinate(),
+                        location.getHasShade() != null ? location.getHasShade() : false,
+                        location.getScenicLevel() != null ? location.getScenicLevel() : 1,
+                        location.getIsAccessible() != null ? location.getIsAccessible() : true,
+                        location.getId());
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, location.getId(), DataChange.Operation.UPDATE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("更新地点失败: {}", location.getId(), e);
@@ -85,7 +110,13 @@ public class LocationDaoImpl extends AbstractBaseDao<Location, Integer> implemen
     @Override
     public boolean deleteById(Integer id) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(DELETE_SQL, id);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(DELETE_SQL, id);
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, id, DataChange.Operation.DELETE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("删除地点失败: {}", id, e);
@@ -103,57 +134,33 @@ public class LocationDaoImpl extends AbstractBaseDao<Location, Integer> implemen
         return queryForList(SELECT_ALL);
     }
     
+    @Override
+    public Stream<Location> streamAll() {
+        return queryForStream(SELECT_ALL);
+    }
+    
     @Override
     public PageResult<Location> findByPage(PageQuery query) {
         if (query == null) {
             query = PageQuery.defaultQuery();
         }
         
-        // 构建查询SQL
-        StringBuilder sqlBuilder = new StringBuilder("SELECT " + COLUMNS + " FROM " + TABLE_NAME);
-        StringBuilder countSqlBuilder = new StringBuilder("SELECT COUNT(*) FROM " + TABLE_NAME);
-        
-        // 添加搜索条件
-        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
-            String keyword = "%" + query.getKeyword() + "%";
-            String whereClause = " WHERE name LIKE ? OR description LIKE ?";
-            sqlBuilder.append(whereClause);
-            countSqlBuilder.append(whereClause);
-        }
-        
-        // 添加排序
+        // 指定排序字段时无法生成游标，退回OFFSET分页
+        String customOrderBy = null;
         if (query.getSortBy() != null) {
-            sqlBuilder.append(" ORDER BY ").append(query.getSortBy());
-            if (query.getSortOrder() != null) {
-                sqlBuilder.append(" ").append(query.getSortOrder());
-            }
-        } else {
-            sqlBuilder.append(" ORDER BY name ASC");
+            customOrderBy = query.getSortBy()
+                    + (query.getSortOrder() != null ? " " + query.getSortOrder() : "");
         }
         
-        // 添加分页
-        sqlBuilder.append(" LIMIT ? OFFSET ?");
-        
-        String sql = sqlBuilder.toString();
-        String countSql = countSqlBuilder.toString();
-        
         try {
-            // 执行查询
-            List<Location> data;
-            Long total;
-            
+            // 添加搜索条件
             if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
                 String keyword = "%" + query.getKeyword() + "%";
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        keyword, keyword, query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, keyword, keyword);
-            } else {
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class);
+                return queryForPage("SELECT " + COLUMNS + " FROM " + TABLE_NAME, COUNT_SQL,
+                        "name LIKE ? OR description LIKE ?", PAGE_ORDER, customOrderBy, query, keyword, keyword);
             }
-            
-            return PageResult.of(data, total, query);
+            return queryForPage("SELECT " + COLUMNS + " FROM " + TABLE_NAME, COUNT_SQL,
+                    null, PAGE_ORDER, customOrderBy, query);
             
         } catch (Exception e) {
             logger.error("分页查询地点失败", e);
@@ -178,42 +185,58 @@ public class LocationDaoImpl extends AbstractBaseDao<Location, Integer> implemen
     
     @Override
     public List<Location> findByType(Location.LocationType type) {
-        return DatabaseUtil.executeQuery(SELECT_BY_TYPE, getRowMapper(), type.name());
+        return DatabaseUtil.executeQuery(SELECT_BY_TYPE, rowMapper(SELECT_BY_TYPE), type.name());
     }
     
     @Override
     public List<Location> findAccessibleLocations() {
-        return DatabaseUtil.executeQuery(SELECT_ACCESSIBLE, getRowMapper());
+        return DatabaseUtil.executeQuery(SELECT_ACCESSIBLE, rowMapper(SELECT_ACCESSIBLE));
     }
     
     @Override
     public List<Location> findByCoordinateRange(double minX, double maxX, double minY, double maxY) {
-        return DatabaseUtil.executeQuery(SELECT_BY_COORDINATE_RANGE, getRowMapper(), minX, maxX, minY, maxY);
+        return DatabaseUtil.executeQuery(SELECT_BY_COORDINATE_RANGE, rowMapper(SELECT_BY_COORDINATE_RANGE), minX, maxX, minY, maxY);
     }
     
     @Override
     public List<Location> search(String keyword) {
         String searchKeyword = "%" + keyword + "%";
-        return DatabaseUtil.executeQuery(SEARCH, getRowMapper(), searchKeyword, searchKeyword);
+        return DatabaseUtil.executeQuery(SEARCH, rowMapper(SEARCH), searchKeyword, searchKeyword);
+    }
+    
+    /**
+     * INSERT_SQL的参数
+     */
+    private Object[] toInsertParams(Location location) {
+        return new Object[]{
+                location.getName(),
+                location.getDescription(),
+                location.getType() != null ? location.getType().name() : Location.LocationType.OTHER.name(),
+                location.getXCoordinate(),
+                location.getYCoordinate(),
+                location.getHasShade() != null ? location.getHasShade() : false,
+                location.getScenicLevel() != null ? location.getScenicLevel() : 1,
+                location.getIsAccessible() != null ? location.getIsAccessible() : true};
     }
     
     @Override
     protected DatabaseUtil.RowMapper<Location> getRowMapper() {
-        return new DatabaseUtil.RowMapper<Location>() {
+        return new IndexedRowMapper<Location>(
+                "id", "name", "description", "type", "x_coordinate", "y_coordinate",
+                "has_shade", "scenic_level", "is_accessible", "created_at") {
             @Override
-            public Location mapRow(ResultSet rs, int rowNum) throws SQLException {
+            protected Location mapRow(ResultSet rs, int[] columns) throws SQLException {
                 return Location.builder()
-                        .id(rs.getInt("id"))
-                        .name(rs.getString("name"))
-                        .description(rs.getString("description"))
-                        .type(Location.LocationType.fromString(rs.getString("type")))
-                        .xCoordinate(rs.getDouble("x_coordinate"))
-                        .yCoordinate(rs.getDouble("y_coordinate"))
-                        .hasShade(rs.getBoolean("has_shade"))
-                        .scenicLevel(rs.getInt("scenic_level"))
-                        .isAccessible(rs.getBoolean("is_accessible"))
-                        .createdAt(rs.getTimestamp("created_at") != null ? 
-                                rs.getTimestamp("created_at").toLocalDateTime() : null)
+                        .id(rs.getInt(columns[0]))
+                        .name(rs.getString(columns[1]))
+                        .description(rs.getString(columns[2]))
+                        .type(Location.LocationType.fromString(rs.getString(columns[3])))
+                        .xCoordinate(rs.getDouble(columns[4]))
+                        .yCoordinate(rs.getDouble(columns[5]))
+                        .hasShade(rs.getBoolean(columns[6]))
+                        .scenicLevel(rs.getInt(columns[7]))
+                        .isAccessible(rs.getBoolean(columns[8]))
+                        .createdAt(getLocalDateTime(rs, columns[9]))
                         .build();
             }
         };
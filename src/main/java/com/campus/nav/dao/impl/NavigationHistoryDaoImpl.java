@@ -1,20 +1,28 @@
 package com.campus.nav.dao.impl;
 
 import com.campus.nav.dao.NavigationHistoryDao;
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.HistoryFilter;
 import com.campus.nav.model.NavigationHistory;
 import com.campus.nav.model.NavigationStrategy;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.model.User;
 import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.StatementCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 /**
  * 导航历史DAO实现类
@@ -33,8 +41,8 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
             "LEFT JOIN locations l1 ON nh.start_location_id = l1.id " +
             "LEFT JOIN locations l2 ON nh.end_location_id = l2.id";
     private static final String INSERT_SQL = "INSERT INTO " + TABLE_NAME + 
-            "(user_id, start_location_id, end_location_id, path_strategy, total_distance, total_time) " +
-            "VALUES (?, ?, ?, ?, ?, ?)";
+            "(user_id, start_location_id, end_location_id, path_strategy, total_distance, total_time, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
     private static final String DELETE_SQL = "DELETE FROM " + TABLE_NAME + " WHERE id = ?";
     private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " " + FROM_CLAUSE + " WHERE nh.id = ?";
     private static final String SELECT_ALL = "SELECT " + COLUMNS + " " + FROM_CLAUSE + " ORDER BY nh.created_at DESC";
@@ -43,17 +51,19 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
     private static final String DELETE_BY_USER_ID = "DELETE FROM " + TABLE_NAME + " WHERE user_id = ?";
     private static final String COUNT_BY_USER_ID = "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE user_id = ?";
     private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_NAME;
+    private static final KeysetOrder<NavigationHistory> PAGE_ORDER =
+            new KeysetOrder<>("nh.created_at", "nh.id", true, NavigationHistory::getCreatedAt, NavigationHistory::getId);
+    
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(INSERT_SQL, DELETE_SQL, SELECT_BY_ID, SELECT_ALL, SELECT_BY_USER_ID,
+                DELETE_BY_USER_ID, COUNT_BY_USER_ID, COUNT_SQL);
+    }
     
     @Override
     public boolean save(NavigationHistory history) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL,
-                    history.getUserId(),
-                    history.getStartLocationId(),
-                    history.getEndLocationId(),
-                    history.getPathStrategy() != null ? history.getPathStrategy().name() : NavigationStrategy.SHORTEST.name(),
-                    history.getTotalDistance(),
-                    history.getTotalTime());
+            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL, toInsertParams(history));
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("保存导航历史失败", e);
@@ -61,6 +71,11 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
         }
     }
     
+    @Override
+    public BatchResult saveBatchWithResult(List<NavigationHistory> histories) {
+        return insertBatch(INSERT_SQL, histories, this::toInsertParams, NavigationHistory::setId);
+    }
+    
     @Override
     public boolean update(NavigationHistory entity) {
         // 导航历史通常不允许更新
@@ -88,52 +103,27 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
         return queryForList(SELECT_ALL);
     }
     
+    @Override
+    public Stream<NavigationHistory> streamAll() {
+        return queryForStream(SELECT_ALL);
+    }
+    
     @Override
     public PageResult<NavigationHistory> findByPage(PageQuery query) {
         if (query == null) {
             query = PageQuery.defaultQuery();
         }
         
-        // 构建查询SQL
-        StringBuilder sqlBuilder = new StringBuilder("SELECT " + COLUMNS + " " + FROM_CLAUSE);
-        StringBuilder countSqlBuilder = new StringBuilder("SELECT COUNT(*) FROM " + TABLE_NAME + " nh");
-        
-        // 添加搜索条件
-        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
-            String keyword = "%" + query.getKeyword() + "%";
-            String whereClause = " WHERE u.username LIKE ? OR l1.name LIKE ? OR l2.name LIKE ?";
-            sqlBuilder.append(whereClause);
-            countSqlBuilder.append(" LEFT JOIN users u ON nh.user_id = u.id " +
-                    "LEFT JOIN locations l1 ON nh.start_location_id = l1.id " +
-                    "LEFT JOIN locations l2 ON nh.end_location_id = l2.id").append(whereClause);
-        }
-        
-        // 添加排序
-        sqlBuilder.append(" ORDER BY nh.created_at DESC");
-        
-        // 添加分页
-        sqlBuilder.append(" LIMIT ? OFFSET ?");
-        
-        String sql = sqlBuilder.toString();
-        String countSql = countSqlBuilder.toString();
-        
         try {
-            // 执行查询
-            List<NavigationHistory> data;
-            Long total;
-            
+            // 添加搜索条件
             if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
                 String keyword = "%" + query.getKeyword() + "%";
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        keyword, keyword, keyword, query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, keyword, keyword, keyword);
-            } else {
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class);
+                return queryForPage("SELECT " + COLUMNS + " " + FROM_CLAUSE, "SELECT COUNT(*) " + FROM_CLAUSE,
+                        "u.username LIKE ? OR l1.name LIKE ? OR l2.name LIKE ?", PAGE_ORDER, null, query,
+                        keyword, keyword, keyword);
             }
-            
-            return PageResult.of(data, total, query);
+            return queryForPage("SELECT " + COLUMNS + " " + FROM_CLAUSE, "SELECT COUNT(*) FROM " + TABLE_NAME + " nh",
+                    null, PAGE_ORDER, null, query);
             
         } catch (Exception e) {
             logger.error("分页查询导航历史失败", e);
@@ -153,7 +143,12 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
     
     @Override
     public List<NavigationHistory> findByUserId(Integer userId) {
-        return DatabaseUtil.executeQuery(SELECT_BY_USER_ID, getRowMapper(), userId);
+        return DatabaseUtil.executeQuery(SELECT_BY_USER_ID, rowMapper(SELECT_BY_USER_ID), userId);
+    }
+    
+    @Override
+    public Stream<NavigationHistory> streamByUserId(Integer userId) {
+        return queryForStream(SELECT_BY_USER_ID, userId);
     }
     
     @Override
@@ -162,17 +157,9 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
             query = PageQuery.defaultQuery();
         }
         
-        // 构建查询SQL
-        String sql = "SELECT " + COLUMNS + " " + FROM_CLAUSE + 
-                " WHERE nh.user_id = ? ORDER BY nh.created_at DESC LIMIT ? OFFSET ?";
-        String countSql = "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE user_id = ?";
-        
         try {
-            List<NavigationHistory> data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                    userId, query.getPageSize(), query.getOffset());
-            Long total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, userId);
-            
-            return PageResult.of(data, total, query);
+            return queryForPage("SELECT " + COLUMNS + " " + FROM_CLAUSE, "SELECT COUNT(*) FROM " + TABLE_NAME + " nh",
+                    "nh.user_id = ?", PAGE_ORDER, null, query, userId);
             
         } catch (Exception e) {
             logger.error("分页查询用户导航历史失败: {}", userId, e);
@@ -201,43 +188,138 @@ public class NavigationHistoryDaoImpl extends AbstractBaseDao<NavigationHistory,
         }
     }
     
+    @Override
+    public long countByFilter(HistoryFilter filter) {
+        List<Object> params = new ArrayList<>();
+        String where = buildFilterWhere(filter, "", params);
+        try {
+            Long count = DatabaseUtil.executeQueryForSingle(COUNT_SQL + where, Long.class, params.toArray());
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            logger.error("统计导航历史失败: {}", filter, e);
+            return 0;
+        }
+    }
+    
+    @Override
+    public long deleteByFilter(HistoryFilter filter, int chunkSize, LongConsumer progress) {
+        List<Object> params = new ArrayList<>();
+        String sql = "DELETE FROM " + TABLE_NAME + buildFilterWhere(filter, "", params) + " LIMIT ?";
+        params.add(chunkSize);
+        Object[] args = params.toArray();
+        
+        long deleted = 0;
+        try {
+            int affectedRows;
+            do {
+                // 每块单独提交，避免长时间持有大量行锁
+                affectedRows = DatabaseUtil.executeUpdate(sql, args);
+                deleted += affectedRows;
+                if (progress != null && affectedRows > 0) {
+                    progress.accept(deleted);
+                }
+            } while (affectedRows >= chunkSize && !Thread.currentThread().isInterrupted());
+            
+            logger.info("批量删除导航历史完成: {} 条, 条件: {}", deleted, filter);
+        } catch (Exception e) {
+            logger.error("批量删除导航历史失败，已删除 {} 条: {}", deleted, filter, e);
+            throw new DatabaseException("批量删除导航历史失败（已删除 " + deleted + " 条）: " + e.getMessage(), e);
+        }
+        return deleted;
+    }
+    
+    @Override
+    public Stream<NavigationHistory> streamByFilter(HistoryFilter filter) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " " + FROM_CLAUSE + buildFilterWhere(filter, "nh.", params) +
+                " ORDER BY nh.id";
+        return queryForStream(sql, params.toArray());
+    }
+    
+    /**
+     * 构建过滤条件的WHERE子句，参数追加到params
+     * @param prefix 列名前缀（带JOIN的查询中为表别名加点）
+     */
+    private String buildFilterWhere(HistoryFilter filter, String prefix, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter != null) {
+            if (filter.getUserId() != null) {
+                conditions.add(prefix + "user_id = ?");
+                params.add(filter.getUserId());
+            }
+            if (filter.getFrom() != null) {
+                conditions.add(prefix + "created_at >= ?");
+                params.add(filter.getFrom());
+            }
+            if (filter.getTo() != null) {
+                conditions.add(prefix + "created_at < ?");
+                params.add(filter.getTo());
+            }
+            if (filter.getStrategy() != null) {
+                conditions.add(prefix + "path_strategy = ?");
+                params.add(filter.getStrategy().name());
+            }
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+    
+    /**
+     * INSERT_SQL的参数
+     */
+    private Object[] toInsertParams(NavigationHistory history) {
+        return new Object[]{
+                history.getUserId(),
+                history.getStartLocationId(),
+                history.getEndLocationId(),
+                history.getPathStrategy() != null ? history.getPathStrategy().name() : NavigationStrategy.SHORTEST.name(),
+                history.getTotalDistance(),
+                history.getTotalTime(),
+                history.getCreatedAt() != null ? history.getCreatedAt() : LocalDateTime.now()};
+    }
+    
     @Override
     protected DatabaseUtil.RowMapper<NavigationHistory> getRowMapper() {
-        return new DatabaseUtil.RowMapper<NavigationHistory>() {
+        return new IndexedRowMapper<NavigationHistory>(
+                "id", "user_id", "start_location_id", "end_location_id", "path_strategy",
+                "total_distance", "total_time", "created_at",
+                "username", "user_type", "start_name", "end_name") {
             @Override
-            public NavigationHistory mapRow(ResultSet rs, int rowNum) throws SQLException {
+            protected NavigationHistory mapRow(ResultSet rs, int[] columns) throws SQLException {
+                int userId = rs.getInt(columns[1]);
+                int startLocationId = rs.getInt(columns[2]);
+                int endLocationId = rs.getInt(columns[3]);
+                
                 // 构建用户对象
                 User user = User.builder()
-                        .id(rs.getInt("user_id"))
-                        .username(rs.getString("username"))
-                        .userType(User.UserType.fromString(rs.getString("user_type")))
+                        .id(userId)
+                        .username(rs.getString(columns[8]))
+                        .userType(User.UserType.fromString(rs.getString(columns[9])))
                         .build();
                 
                 // 构建起点地点对象
                 com.campus.nav.model.Location startLocation = com.campus.nav.model.Location.builder()
-                        .id(rs.getInt("start_location_id"))
-                        .name(rs.getString("start_name"))
+                        .id(startLocationId)
+                        .name(rs.getString(columns[10]))
                         .build();
                 
                 // 构建终点地点对象
                 com.campus.nav.model.Location endLocation = com.campus.nav.model.Location.builder()
-                        .id(rs.getInt("end_location_id"))
-                        .name(rs.getString("end_name"))
+                        .id(endLocationId)
+                        .name(rs.getString(columns[11]))
                         .build();
                 
                 return NavigationHistory.builder()
-                        .id(rs.getInt("id"))
-                        .userId(rs.getInt("user_id"))
+                        .id(rs.getInt(columns[0]))
+                        .userId(userId)
                         .user(user)
-                        .startLocationId(rs.getInt("start_location_id"))
+                        .startLocationId(startLocationId)
                         .startLocation(startLocation)
-                        .endLocationId(rs.getInt("end_location_id"))
+                        .endLocationId(endLocationId)
                         .endLocation(endLocation)
-                        .pathStrategy(NavigationStrategy.fromString(rs.getString("path_strategy")))
-                        .totalDistance(rs.getDouble("total_distance"))
-                        .totalTime(rs.getInt("total_time"))
-                        .createdAt(rs.getTimestamp("created_at") != null ? 
-                                rs.getTimestamp("created_at").toLocalDateTime() : null)
+                        .pathStrategy(NavigationStrategy.fromString(rs.getString(columns[4])))
+                        .totalDistance(rs.getDouble(columns[5]))
+                        .totalTime(rs.getInt(columns[6]))
+                        .createdAt(getLocalDateTime(rs, columns[7]))
                         .build();
             }
         };
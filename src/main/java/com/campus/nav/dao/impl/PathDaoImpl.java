@@ -1,10 +1,16 @@
 package com.campus.nav.dao.impl;
 
+import com.campus.nav.config.DatabaseConfig;
 import com.campus.nav.dao.PathDao;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.DataChange;
 import com.campus.nav.model.Path;
+import com.campus.nav.model.PathGraphData;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.StatementCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -12,6 +18,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 路径DAO实现类
@@ -54,19 +61,31 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
     private static final String UPDATE_STATUS = "UPDATE " + TABLE_NAME + 
             " SET is_active = ? WHERE id = ?";
     private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_NAME;
+    private static final KeysetOrder<Path> PAGE_ORDER = KeysetOrder.byId("p.id", true, Path::getId);
+    // 路网加载专用的窄投影：只取ID和数值列，地点表仅用于过滤不可通行的端点
+    private static final String SELECT_GRAPH_EDGES = "SELECT p.id, p.start_location_id, p.end_location_id, " +
+            "p.distance, p.time_cost, p.has_shade, p.scenic_level FROM " + TABLE_NAME + " p " +
+            "JOIN locations l1 ON p.start_location_id = l1.id " +
+            "JOIN locations l2 ON p.end_location_id = l2.id " +
+            "WHERE p.is_active = TRUE AND l1.is_accessible = TRUE AND l2.is_accessible = TRUE";
+    
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(INSERT_SQL, UPDATE_SQL, DELETE_SQL, DELETE_BY_LOCATION_ID_SQL,
+                SELECT_BY_ID, SELECT_ALL, SELECT_BY_START_END, SELECT_BY_START, SELECT_BY_END,
+                SELECT_BETWEEN, SELECT_ACTIVE, UPDATE_STATUS, COUNT_SQL);
+    }
     
     @Override
     public boolean save(Path path) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL,
-                    path.getStartLocationId(),
-                    path.getEndLocationId(),
-                    path.getDistance(),
-                    path.getTimeCost(),
-                    path.getHasShade() != null ? path.getHasShade() : false,
-                    path.getScenicLevel() != null ? path.getScenicLevel() : 1,
-                    path.getIsIndoor() != null ? path.getIsIndoor() : false,
-                    path.getIsActive() != null ? path.getIsActive() : true);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(INSERT_SQL, toInsertParams(path));
+                if (rows > 0) {
+                    changeLog().recordInsert(TABLE_NAME);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("保存路径失败: {} -> {}", 
@@ -75,17 +94,30 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
         }
     }
     
+    @Override
+    public BatchResult saveBatchWithResult(List<Path> paths) {
+        BatchResult result = insertBatch(INSERT_SQL, paths, this::toInsertParams, Path::setId);
+        recordBatchInsert(TABLE_NAME, result);
+        return result;
+    }
+    
     @Override
     public boolean update(Path path) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(UPDATE_SQL,
-                    path.getDistance(),
-                    path.getTimeCost(),
-                    path.getHasShade(),
-                    path.getScenicLevel(),
-                    path.getIsIndoor(),
-                    path.getIsActive(),
-                    path.getId());
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(UPDATE_SQL,
+                        path.getDistance(),
+                        path.getTimeCost(),
+                        path.getHasShade(),
+                        path.getScenicLevel(),
+                        path.getIsIndoor(),
+                        path.getIsActive(),
+                        path.getId());
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, path.getId(), DataChange.Operation.UPDATE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("更新路径失败: {}", path.getId(), e);
@@ -96,7 +128,13 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
     @Override
     public boolean deleteById(Integer id) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(DELETE_SQL, id);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(DELETE_SQL, id);
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, id, DataChange.Operation.DELETE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("删除路径失败: {}", id, e);
@@ -106,7 +144,12 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
     @Override
     public boolean deleteByLocationId(Integer locationId){
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(DELETE_BY_LOCATION_ID_SQL, locationId, locationId);
+            int affectedRows = writeWithChangeLog(() -> {
+                // 删除前登记将被删除的路径
+                changeLog().recordMatching(TABLE_NAME, DataChange.Operation.DELETE,
+                        "start_location_id = ? OR end_location_id = ?", locationId, locationId);
+                return DatabaseUtil.executeUpdate(DELETE_BY_LOCATION_ID_SQL, locationId, locationId);
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("删除路径失败: {}", locationId, e);
@@ -124,58 +167,33 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
         return queryForList(SELECT_ALL);
     }
     
+    @Override
+    public Stream<Path> streamAll() {
+        return queryForStream(SELECT_ALL);
+    }
+    
     @Override
     public PageResult<Path> findByPage(PageQuery query) {
         if (query == null) {
             query = PageQuery.defaultQuery();
         }
         
-        // 构建查询SQL
-        StringBuilder sqlBuilder = new StringBuilder("SELECT " + COLUMNS + " " + FROM_CLAUSE);
-        StringBuilder countSqlBuilder = new StringBuilder("SELECT COUNT(*) FROM " + TABLE_NAME);
-        
-        // 添加搜索条件
-        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
-            String keyword = "%" + query.getKeyword() + "%";
-            String whereClause = " WHERE l1.name LIKE ? OR l2.name LIKE ?";
-            sqlBuilder.append(whereClause);
-            countSqlBuilder.append(" p LEFT JOIN locations l1 ON p.start_location_id = l1.id " +
-                    "LEFT JOIN locations l2 ON p.end_location_id = l2.id").append(whereClause);
-        }
-        
-        // 添加排序
+        // 指定排序字段时无法生成游标，退回OFFSET分页
+        String customOrderBy = null;
         if (query.getSortBy() != null) {
-            sqlBuilder.append(" ORDER BY p.").append(query.getSortBy());
-            if (query.getSortOrder() != null) {
-                sqlBuilder.append(" ").append(query.getSortOrder());
-            }
-        } else {
-            sqlBuilder.append(" ORDER BY p.id DESC");
+            customOrderBy = "p." + query.getSortBy()
+                    + (query.getSortOrder() != null ? " " + query.getSortOrder() : "");
         }
         
-        // 添加分页
-        sqlBuilder.append(" LIMIT ? OFFSET ?");
-        
-        String sql = sqlBuilder.toString();
-        String countSql = countSqlBuilder.toString();
-        
         try {
-            // 执行查询
-            List<Path> data;
-            Long total;
-            
+            // 添加搜索条件
             if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
                 String keyword = "%" + query.getKeyword() + "%";
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        keyword, keyword, query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, keyword, keyword);
-            } else {
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class);
+                return queryForPage("SELECT " + COLUMNS + " " + FROM_CLAUSE, "SELECT COUNT(*) " + FROM_CLAUSE,
+                        "l1.name LIKE ? OR l2.name LIKE ?", PAGE_ORDER, customOrderBy, query, keyword, keyword);
             }
-            
-            return PageResult.of(data, total, query);
+            return queryForPage("SELECT " + COLUMNS + " " + FROM_CLAUSE, COUNT_SQL,
+                    null, PAGE_ORDER, customOrderBy, query);
             
         } catch (Exception e) {
             logger.error("分页查询路径失败", e);
@@ -200,29 +218,35 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
     
     @Override
     public List<Path> findByStartLocation(Integer startLocationId) {
-        return DatabaseUtil.executeQuery(SELECT_BY_START, getRowMapper(), startLocationId);
+        return DatabaseUtil.executeQuery(SELECT_BY_START, rowMapper(SELECT_BY_START), startLocationId);
     }
     
     @Override
     public List<Path> findByEndLocation(Integer endLocationId) {
-        return DatabaseUtil.executeQuery(SELECT_BY_END, getRowMapper(), endLocationId);
+        return DatabaseUtil.executeQuery(SELECT_BY_END, rowMapper(SELECT_BY_END), endLocationId);
     }
     
     @Override
     public List<Path> findPathsBetween(Integer locationId1, Integer locationId2) {
-        return DatabaseUtil.executeQuery(SELECT_BETWEEN, getRowMapper(), 
+        return DatabaseUtil.executeQuery(SELECT_BETWEEN, rowMapper(SELECT_BETWEEN), 
                 locationId1, locationId2, locationId2, locationId1);
     }
     
     @Override
     public List<Path> findActivePaths() {
-        return DatabaseUtil.executeQuery(SELECT_ACTIVE, getRowMapper());
+        return DatabaseUtil.executeQuery(SELECT_ACTIVE, rowMapper(SELECT_ACTIVE));
     }
     
     @Override
     public boolean updateStatus(Integer pathId, boolean isActive) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(UPDATE_STATUS, isActive, pathId);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(UPDATE_STATUS, isActive, pathId);
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, pathId, DataChange.Operation.UPDATE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("更新路径状态失败: {}", pathId, e);
@@ -230,41 +254,78 @@ public class PathDaoImpl extends AbstractBaseDao<Path, Integer> implements PathD
         }
     }
     
+    @Override
+    public PathGraphData loadGraphData() {
+        PathGraphData data = new PathGraphData();
+        int fetchSize = Integer.parseInt(DatabaseConfig.getProperty("db.graph.fetchSize", "5000"));
+        // 按列序号直接读取到基本类型数组，不创建实体对象
+        DatabaseUtil.executeQueryForEach(SELECT_GRAPH_EDGES, fetchSize, rs -> data.add(
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getInt(3),
+                rs.getDouble(4),
+                rs.getInt(5),
+                rs.getBoolean(6),
+                rs.getInt(7)));
+        logger.debug("加载路网图数据: {} 条边", data.size());
+        return data;
+    }
+    
+    /**
+     * INSERT_SQL的参数
+     */
+    private Object[] toInsertParams(Path path) {
+        return new Object[]{
+                path.getStartLocationId(),
+                path.getEndLocationId(),
+                path.getDistance(),
+                path.getTimeCost(),
+                path.getHasShade() != null ? path.getHasShade() : false,
+                path.getScenicLevel() != null ? path.getScenicLevel() : 1,
+                path.getIsIndoor() != null ? path.getIsIndoor() : false,
+                path.getIsActive() != null ? path.getIsActive() : true};
+    }
+    
     @Override
     protected DatabaseUtil.RowMapper<Path> getRowMapper() {
-        return new DatabaseUtil.RowMapper<Path>() {
+        return new IndexedRowMapper<Path>(
+                "id", "start_location_id", "end_location_id", "distance", "time_cost", "has_shade",
+                "scenic_level", "is_indoor", "is_active", "created_at",
+                "start_name", "start_x", "start_y", "end_name", "end_x", "end_y") {
             @Override
-            public Path mapRow(ResultSet rs, int rowNum) throws SQLException {
+            protected Path mapRow(ResultSet rs, int[] columns) throws SQLException {
+                int startLocationId = rs.getInt(columns[1]);
+                int endLocationId = rs.getInt(columns[2]);
+                
                 // 构建起点地点对象
                 com.campus.nav.model.Location startLocation = com.campus.nav.model.Location.builder()
-                        .id(rs.getInt("start_location_id"))
-                        .name(rs.getString("start_name"))
-                        .xCoordinate(rs.getDouble("start_x"))
-                        .yCoordinate(rs.getDouble("start_y"))
+                        .id(startLocationId)
+                        .name(rs.getString(columns[10]))
+                        .xCoordinate(rs.getDouble(columns[11]))
+                        .yCoordinate(rs.getDouble(columns[12]))
                         .build();
                 
                 // 构建终点地点对象
                 com.campus.nav.model.Location endLocation = com.campus.nav.model.Location.builder()
-                        .id(rs.getInt("end_location_id"))
-                        .name(rs.getString("end_name"))
-                        .xCoordinate(rs.getDouble("end_x"))
-                        .yCoordinate(rs.getDouble("end_y"))
+                        .id(endLocationId)
+                        .name(rs.getString(columns[13]))
+                        .xCoordinate(rs.getDouble(columns[14]))
+                        .yCoordinate(rs.getDouble(columns[15]))
                         .build();
                 
                 return Path.builder()
-                        .id(rs.getInt("id"))
-                        .startLocationId(rs.getInt("start_location_id"))
-                        .endLocationId(rs.getInt("end_location_id"))
+                        .id(rs.getInt(columns[0]))
+                        .startLocationId(startLocationId)
+                        .endLocationId(endLocationId)
                         .startLocation(startLocation)
                         .endLocation(endLocation)
-                        .distance(rs.getDouble("distance"))
-                        .timeCost(rs.getInt("time_cost"))
-                        .hasShade(rs.getBoolean("has_shade"))
-                        .scenicLevel(rs.getInt("scenic_level"))
-                        .isIndoor(rs.getBoolean("is_indoor"))
-                        .isActive(rs.getBoolean("is_active"))
-                        .createdAt(rs.getTimestamp("created_at") != null ? 
-                                rs.getTimestamp("created_at").toLocalDateTime() : null)
+                        .distance(rs.getDouble(columns[3]))
+                        .timeCost(rs.getInt(columns[4]))
+                        .hasShade(rs.getBoolean(columns[5]))
+                        .scenicLevel(rs.getInt(columns[6]))
+                        .isIndoor(rs.getBoolean(columns[7]))
+                        .isActive(rs.getBoolean(columns[8]))
+                        .createdAt(getLocalDateTime(rs, columns[9]))
                         .build();
             }
         };
@@ -0,0 +1,66 @@
+package com.campus.nav.dao.impl;
+
+/**
+ * 导航历史汇总的安全进度
+ * 自增ID按分配顺序递增，但事务不按ID顺序提交：更小ID的事务可能在更大ID的之后才提交，
+ * 只看已可见的行会跳过它。这里先记下当时可见的最大ID和数据库时间作为候选，
+ * 之后检查到其他连接上已没有在该时间之前开始的读写事务时，候选ID及以下的事务都已提交或回滚，
+ * 才把进度推进到候选ID。无法查看事务列表时，改为等候选时间过去最长事务时长
+ */
+final class RollupWatermark {
+
+    /**
+     * 进度判断所需的数据库查询
+     */
+    interface Source {
+        /**
+         * 当前可见的最大历史ID
+         */
+        long maxId();
+
+        /**
+         * 数据库当前时间（秒）
+         */
+        long now();
+
+        /**
+         * 其他连接上仍在进行的最早读写事务的开始时间（秒）；没有时返回0，无法查询时返回-1
+         */
+        long oldestTransactionStart();
+    }
+
+    private long settledId;
+    private long candidateId;
+    private long candidateAt = -1;
+
+    /**
+     * 推进安全进度并返回
+     * 需在事务中第一次一致性读之前调用，使随后的读取能看到已确认结束的事务
+     * @param maxTransactionSeconds 无法查看事务列表时假定的最长事务时长
+     * @return 该ID及以下的历史所在事务都已结束
+     */
+    synchronized long advance(Source source, long maxTransactionSeconds) {
+        if (candidateAt >= 0 && finishedSince(source, candidateAt, maxTransactionSeconds)) {
+            settledId = Math.max(settledId, candidateId);
+            candidateAt = -1;
+        }
+        if (candidateAt < 0) {
+            // 先读最大ID再读时间：最大ID及以下的ID都在读取时间之前分配，所在事务也都在此之前开始
+            long maxId = source.maxId();
+            if (maxId > settledId) {
+                candidateId = maxId;
+                candidateAt = source.now();
+            }
+        }
+        return settledId;
+    }
+
+    private static boolean finishedSince(Source source, long at, long maxTransactionSeconds) {
+        long oldest = source.oldestTransactionStart();
+        if (oldest < 0) {
+            return source.now() - at >= maxTransactionSeconds;
+        }
+        // 事务开始时间只精确到秒，同一秒开始的事务按未结束处理
+        return oldest == 0 || oldest > at;
+    }
+}
@@ -1,18 +1,26 @@
 package com.campus.nav.dao.impl;
 
 import com.campus.nav.dao.SystemConfigDao;
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.DataChange;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.model.SystemConfig;
 import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.StatementCache;
+import com.campus.nav.utils.TransactionTemplate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 系统配置DAO实现类
@@ -34,14 +42,25 @@ public class SystemConfigDaoImpl extends AbstractBaseDao<SystemConfig, Integer>
     private static final String UPDATE_VALUE = "UPDATE " + TABLE_NAME + 
             " SET config_value = ?, updated_at = NOW() WHERE config_key = ?";
     private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_NAME;
+    private static final KeysetOrder<SystemConfig> PAGE_ORDER =
+            new KeysetOrder<>("config_key", "id", false, SystemConfig::getConfigKey, SystemConfig::getId);
+    
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(INSERT_SQL, UPDATE_SQL, DELETE_SQL, SELECT_BY_ID, SELECT_ALL,
+                SELECT_BY_KEY, UPDATE_VALUE, COUNT_SQL);
+    }
     
     @Override
     public boolean save(SystemConfig config) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL,
-                    config.getConfigKey(),
-                    config.getConfigValue(),
-                    config.getDescription());
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(INSERT_SQL, toInsertParams(config));
+                if (rows > 0) {
+                    changeLog().recordInsert(TABLE_NAME);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("保存系统配置失败: {}", config.getConfigKey(), e);
@@ -49,13 +68,26 @@ public class SystemConfigDaoImpl extends AbstractBaseDao<SystemConfig, Integer>
         }
     }
     
+    @Override
+    public BatchResult saveBatchWithResult(List<SystemConfig> configs) {
+        BatchResult result = insertBatch(INSERT_SQL, configs, this::toInsertParams, SystemConfig::setId);
+        recordBatchInsert(TABLE_NAME, result);
+        return result;
+    }
+    
     @Override
     public boolean update(SystemConfig config) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(UPDATE_SQL,
-                    config.getConfigValue(),
-                    config.getDescription(),
-                    config.getId());
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(UPDATE_SQL,
+                        config.getConfigValue(),
+                        config.getDescription(),
+                        config.getId());
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, config.getId(), DataChange.Operation.UPDATE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("更新系统配置失败: {}", config.getId(), e);
@@ -66,7 +98,13 @@ public class SystemConfigDaoImpl extends AbstractBaseDao<SystemConfig, Integer>
     @Override
     public boolean deleteById(Integer id) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(DELETE_SQL, id);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(DELETE_SQL, id);
+                if (rows > 0) {
+                    changeLog().record(TABLE_NAME, id, DataChange.Operation.DELETE);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("删除系统配置失败: {}", id, e);
@@ -84,50 +122,26 @@ public class SystemConfigDaoImpl extends AbstractBaseDao<SystemConfig, Integer>
         return queryForList(SELECT_ALL);
     }
     
+    @Override
+    public Stream<SystemConfig> streamAll() {
+        return queryForStream(SELECT_ALL);
+    }
+    
     @Override
     public PageResult<SystemConfig> findByPage(PageQuery query) {
         if (query == null) {
             query = PageQuery.defaultQuery();
         }
         
-        // 构建查询SQL
-        StringBuilder sqlBuilder = new StringBuilder("SELECT " + COLUMNS + " FROM " + TABLE_NAME);
-        StringBuilder countSqlBuilder = new StringBuilder("SELECT COUNT(*) FROM " + TABLE_NAME);
-        
-        // 添加搜索条件
-        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
-            String keyword = "%" + query.getKeyword() + "%";
-            String whereClause = " WHERE config_key LIKE ? OR description LIKE ?";
-            sqlBuilder.append(whereClause);
-            countSqlBuilder.append(whereClause);
-        }
-        
-        // 添加排序
-        sqlBuilder.append(" ORDER BY config_key ASC");
-        
-        // 添加分页
-        sqlBuilder.append(" LIMIT ? OFFSET ?");
-        
-        String sql = sqlBuilder.toString();
-        String countSql = countSqlBuilder.toString();
-        
         try {
-            // 执行查询
-            List<SystemConfig> data;
-            Long total;
-            
+            // 添加搜索条件
             if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
                 String keyword = "%" + query.getKeyword() + "%";
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        keyword, keyword, query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, keyword, keyword);
-            } else {
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class);
+                return queryForPage("SELECT " + COLUMNS + " FROM " + TABLE_NAME, COUNT_SQL,
+                        "config_key LIKE ? OR description LIKE ?", PAGE_ORDER, null, query, keyword, keyword);
             }
-            
-            return PageResult.of(data, total, query);
+            return queryForPage("SELECT " + COLUMNS + " FROM " + TABLE_NAME, COUNT_SQL,
+                    null, PAGE_ORDER, null, query);
             
         } catch (Exception e) {
             logger.error("分页查询系统配置失败", e);
@@ -153,7 +167,13 @@ public class SystemConfigDaoImpl extends AbstractBaseDao<SystemConfig, Integer>
     @Override
     public boolean updateValue(String configKey, String configValue) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(UPDATE_VALUE, configValue, configKey);
+            int affectedRows = writeWithChangeLog(() -> {
+                int rows = DatabaseUtil.executeUpdate(UPDATE_VALUE, configValue, configKey);
+                if (rows > 0) {
+                    changeLog().recordMatching(TABLE_NAME, DataChange.Operation.UPDATE, "config_key = ?", configKey);
+                }
+                return rows;
+            });
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("更新配置值失败: {}", configKey, e);
@@ -167,27 +187,55 @@ public class SystemConfigDaoImpl extends AbstractBaseDao<SystemConfig, Integer>
             return true;
         }
         
-        boolean allSuccess = true;
+        List<Object[]> paramsList = new ArrayList<>(configs.size());
+        List<Integer> ids = new ArrayList<>(configs.size());
         for (SystemConfig config : configs) {
             if (config.getId() != null) {
-                allSuccess = update(config) && allSuccess;
+                paramsList.add(new Object[]{config.getConfigValue(), config.getDescription(), config.getId()});
+                ids.add(config.getId());
             }
         }
-        return allSuccess;
+        if (paramsList.isEmpty()) {
+            return true;
+        }
+        
+        try {
+            // 一次JDBC批量执行，与变更日志在同一个事务中提交；任何一条失败或配置不存在都整体回滚
+            TransactionTemplate.executeWithoutResult(() -> {
+                BatchResult updated = DatabaseUtil.executeBatch(UPDATE_SQL, paramsList, 0, false);
+                if (!updated.isAllSucceeded()) {
+                    throw new DatabaseException("部分配置不存在: " + updated);
+                }
+                changeLog().recordAll(TABLE_NAME, ids, DataChange.Operation.UPDATE);
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("批量更新系统配置失败", e);
+            return false;
+        }
+    }
+    
+    /**
+     * INSERT_SQL的参数
+     */
+    private Object[] toInsertParams(SystemConfig config) {
+        return new Object[]{
+                config.getConfigKey(),
+                config.getConfigValue(),
+                config.getDescription()};
     }
     
     @Override
     protected DatabaseUtil.RowMapper<SystemConfig> getRowMapper() {
-        return new DatabaseUtil.RowMapper<SystemConfig>() {
+        return new IndexedRowMapper<SystemConfig>("id", "config_key", "config_value", "description", "updated_at") {
             @Override
-            public SystemConfig mapRow(ResultSet rs, int rowNum) throws SQLException {
+            protected SystemConfig mapRow(ResultSet rs, int[] columns) throws SQLException {
                 return SystemConfig.builder()
-                        .id(rs.getInt("id"))
-                        .configKey(rs.getString("config_key"))
-                        .configValue(rs.getString("config_value"))
-                        .description(rs.getString("description"))
-                        .updatedAt(rs.getTimestamp("updated_at") != null ? 
-                                rs.getTimestamp("updated_at").toLocalDateTime() : null)
+                        .id(rs.getInt(columns[0]))
+                        .configKey(rs.getString(columns[1]))
+                        .configValue(rs.getString(columns[2]))
+                        .description(rs.getString(columns[3]))
+                        .updatedAt(getLocalDateTime(rs, columns[4]))
                         .build();
             }
         };
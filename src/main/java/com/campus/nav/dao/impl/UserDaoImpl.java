@@ -1,10 +1,13 @@
 package com.campus.nav.dao.impl;
 
 import com.campus.nav.dao.UserDao;
+import com.campus.nav.model.BatchResult;
 import com.campus.nav.model.PageQuery;
 import com.campus.nav.model.PageResult;
 import com.campus.nav.model.User;
 import com.campus.nav.utils.DatabaseUtil;
+import com.campus.nav.utils.IndexedRowMapper;
+import com.campus.nav.utils.StatementCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -13,6 +16,7 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 用户DAO实现类
@@ -41,16 +45,19 @@ public class UserDaoImpl extends AbstractBaseDao<User, Integer> implements UserD
     private static final String UPDATE_STATUS = "UPDATE " + TABLE_NAME + 
             " SET is_active = ?, updated_at = NOW() WHERE id = ?";
     private static final String COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_NAME;
+    private static final KeysetOrder<User> PAGE_ORDER = KeysetOrder.byId("id", true, User::getId);
+    
+    static {
+        // 登记固定SQL，启动时在连接池上预热语句缓存
+        StatementCache.register(INSERT_SQL, UPDATE_SQL, DELETE_SQL, SELECT_BY_ID, SELECT_ALL,
+                SELECT_BY_USERNAME, SELECT_BY_EMAIL, VALIDATE_USER, EXISTS_BY_USERNAME,
+                EXISTS_BY_EMAIL, UPDATE_PASSWORD, UPDATE_STATUS, COUNT_SQL);
+    }
     
     @Override
     public boolean save(User user) {
         try {
-            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL,
-                    user.getUsername(),
-                    user.getPassword(),
-                    user.getEmail(),
-                    user.getUserType() != null ? user.getUserType().name() : User.UserType.USER.name(),
-                    user.getIsActive() != null ? user.getIsActive() : true);
+            int affectedRows = DatabaseUtil.executeUpdate(INSERT_SQL, toInsertParams(user));
             return affectedRows > 0;
         } catch (Exception e) {
             logger.error("保存用户失败: {}", user.getUsername(), e);
@@ -58,6 +65,11 @@ public class UserDaoImpl extends AbstractBaseDao<User, Integer> implements UserD
         }
     }
     
+    @Override
+    public BatchResult saveBatchWithResult(List<User> users) {
+        return insertBatch(INSERT_SQL, users, this::toInsertParams, User::setId);
+    }
+    
     @Override
     public boolean update(User user) {
         try {
@@ -95,57 +107,33 @@ public class UserDaoImpl extends AbstractBaseDao<User, Integer> implements UserD
         return queryForList(SELECT_ALL);
     }
     
+    @Override
+    public Stream<User> streamAll() {
+        return queryForStream(SELECT_ALL);
+    }
+    
     @Override
     public PageResult<User> findByPage(PageQuery query) {
         if (query == null) {
             query = PageQuery.defaultQuery();
         }
         
-        // 构建查询SQL
-        StringBuilder sqlBuilder = new StringBuilder("SELECT " + COLUMNS + " FROM " + TABLE_NAME);
-        StringBuilder countSqlBuilder = new StringBuilder("SELECT COUNT(*) FROM " + TABLE_NAME);
-        
-        // 添加搜索条件
-        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
-            String keyword = "%" + query.getKeyword() + "%";
-            String whereClause = " WHERE username LIKE ? OR email LIKE ?";
-            sqlBuilder.append(whereClause);
-            countSqlBuilder.append(whereClause);
-        }
-        
-        // 添加排序
+        // 指定排序字段时无法生成游标，退回OFFSET分页
+        String customOrderBy = null;
         if (query.getSortBy() != null) {
-            sqlBuilder.append(" ORDER BY ").append(query.getSortBy());
-            if (query.getSortOrder() != null) {
-                sqlBuilder.append(" ").append(query.getSortOrder());
-            }
-        } else {
-            sqlBuilder.append(" ORDER BY id DESC");
+            customOrderBy = query.getSortBy()
+                    + (query.getSortOrder() != null ? " " + query.getSortOrder() : "");
         }
         
-        // 添加分页
-        sqlBuilder.append(" LIMIT ? OFFSET ?");
-        
-        String sql = sqlBuilder.toString();
-        String countSql = countSqlBuilder.toString();
-        
         try {
-            // 执行查询
-            List<User> data;
-            Long total;
-            
+            // 添加搜索条件
             if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
                 String keyword = "%" + query.getKeyword() + "%";
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        keyword, keyword, query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class, keyword, keyword);
-            } else {
-                data = DatabaseUtil.executeQuery(sql, getRowMapper(),
-                        query.getPageSize(), query.getOffset());
-                total = DatabaseUtil.executeQueryForSingle(countSql, Long.class);
+                return queryForPage("SELECT " + COLUMNS + " FROM " + TABLE_NAME, COUNT_SQL,
+                        "username LIKE ? OR email LIKE ?", PAGE_ORDER, customOrderBy, query, keyword, keyword);
             }
-            
-            return PageResult.of(data, total, query);
+            return queryForPage("SELECT " + COLUMNS + " FROM " + TABLE_NAME, COUNT_SQL,
+                    null, PAGE_ORDER, customOrderBy, query);
             
         } catch (Exception e) {
             logger.error("分页查询用户失败", e);
@@ -175,7 +163,7 @@ public class UserDaoImpl extends AbstractBaseDao<User, Integer> implements UserD
     
     @Override
     public Optional<User> validateUser(String username, String password) {
-        List<User> users = DatabaseUtil.executeQuery(VALIDATE_USER, getRowMapper(),
+        List<User> users = DatabaseUtil.executeQuery(VALIDATE_USER, rowMapper(VALIDATE_USER),
                 username, username, password);
         return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
     }
@@ -224,22 +212,33 @@ public class UserDaoImpl extends AbstractBaseDao<User, Integer> implements UserD
         }
     }
     
+    /**
+     * INSERT_SQL的参数
+     */
+    private Object[] toInsertParams(User user) {
+        return new Object[]{
+                user.getUsername(),
+                user.getPassword(),
+                user.getEmail(),
+                user.getUserType() != null ? user.getUserType().name() : User.UserType.USER.name(),
+                user.getIsActive() != null ? user.getIsActive() : true};
+    }
+    
     @Override
     protected DatabaseUtil.RowMapper<User> getRowMapper() {
-        return new DatabaseUtil.RowMapper<User>() {
+        return new IndexedRowMapper<User>(
+                "id", "username", "password", "email", "user_type", "created_at", "updated_at", "is_active") {
             @Override
-            public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+            protected User mapRow(ResultSet rs, int[] columns) throws SQLException {
                 return User.builder()
-                        .id(rs.getInt("id"))
-                        .username(rs.getString("username"))
-                        .password(rs.getString("password"))
-                        .email(rs.getString("email"))
-                        .userType(User.UserType.fromString(rs.getString("user_type")))
-                        .createdAt(rs.getTimestamp("created_at") != null ? 
-                                rs.getTimestamp("created_at").toLocalDateTime() : null)
-                        .updatedAt(rs.getTimestamp("updated_at") != null ? 
-                                rs.getTimestamp("updated_at").toLocalDateTime() : null)
-                        .isActive(rs.getBoolean("is_active"))
+                        .id(rs.getInt(columns[0]))
+                        .username(rs.getString(columns[1]))
+                        .password(rs.getString(columns[2]))
+                        .email(rs.getString(columns[3]))
+                        .userType(User.UserType.fromString(rs.getString(columns[4])))
+                        .createdAt(getLocalDateTime(rs, columns[5]))
+                        .updatedAt(getLocalDateTime(rs, columns[6]))
+                        .isActive(rs.getBoolean(columns[7]))
                         .build();
             }
         };
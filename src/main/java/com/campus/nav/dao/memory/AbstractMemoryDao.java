@@ -0,0 +1,284 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.BaseDao;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.CountMode;
+import com.campus.nav.model.PageCursor;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.utils.TransactionTemplate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 内存DAO的公共实现
+ * 与AbstractBaseDao对应：写入失败时记录日志并返回false（事务中同时标记回滚），
+ * 分页的顺序、键集游标和PageResult的内容与MySQL实现一致
+ */
+abstract class AbstractMemoryDao<T> implements BaseDao<T, Integer> {
+    protected final Logger logger = LogManager.getLogger(getClass());
+    protected final MemoryStore store;
+    protected final MemoryTable<T> table;
+
+    AbstractMemoryDao(MemoryStore store, MemoryTable<T> table) {
+        this.store = store;
+        this.table = table;
+    }
+
+    @Override
+    public boolean save(T entity) {
+        try {
+            table.assignId(entity, insert(entity));
+            return true;
+        } catch (Exception e) {
+            logger.error("保存{}失败: {}", table.getName(), e.getMessage());
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean saveBatch(List<T> entities) {
+        return saveBatchWithResult(entities).isAllSucceeded();
+    }
+
+    @Override
+    public BatchResult saveBatchWithResult(List<T> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return new BatchResult(0);
+        }
+        BatchResult result = new BatchResult(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            T entity = entities.get(i);
+            try {
+                int id = insert(entity);
+                table.assignId(entity, id);
+                result.markSuccess(i, (long) id);
+            } catch (Exception e) {
+                result.markFailed(i, i + 1, e.getMessage());
+            }
+        }
+        if (!result.isAllSucceeded()) {
+            logger.warn("批量保存{}部分失败: {}, {}", table.getName(), result, result.getErrors());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        if (id == null) {
+            return false;
+        }
+        try {
+            return table.delete(id);
+        } catch (Exception e) {
+            logger.error("删除{}失败: {}", table.getName(), id, e);
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<T> findById(Integer id) {
+        return id != null ? table.get(id).map(this::decorate) : Optional.empty();
+    }
+
+    @Override
+    public List<T> findAll() {
+        return decorate(table.select(null));
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return findAll().stream();
+    }
+
+    @Override
+    public long count() {
+        return table.size();
+    }
+
+    /**
+     * 按插入语句的默认值补全字段后插入，返回生成的ID
+     */
+    protected abstract int insert(T entity);
+
+    /**
+     * 填充关联对象（对应MySQL实现中JOIN出来的列），默认不处理
+     */
+    protected T decorate(T row) {
+        return row;
+    }
+
+    protected List<T> decorate(List<T> rows) {
+        rows.replaceAll(this::decorate);
+        return rows;
+    }
+
+    /**
+     * 修改一行，失败时记录日志并返回false
+     */
+    protected boolean update(Integer id, Consumer<T> mutator) {
+        if (id == null) {
+            return false;
+        }
+        try {
+            return table.update(id, mutator);
+        } catch (Exception e) {
+            logger.error("更新{}失败: {}", table.getName(), id, e);
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+    }
+
+    /**
+     * 分页查询
+     * 默认顺序为表的顺序（reversed为true时反向），带游标时从游标之后（backward时之前）在有序集合上定位；
+     * 指定了自定义排序时按OFFSET分页。内存中计数代价很低，所有CountMode都返回精确总数（NONE除外）
+     * @param filter        过滤条件，为null时不过滤
+     * @param reversed      默认分页顺序是否与表的顺序相反
+     * @param customOrder   自定义排序，为null时使用默认顺序
+     * @param order         游标的生成与定位
+     */
+    protected PageResult<T> queryForPage(Predicate<T> filter, boolean reversed, Comparator<T> customOrder,
+                                         CursorOrder<T> order, PageQuery query) {
+        boolean seek = customOrder == null && query.getCursor() != null;
+        boolean backward = seek && query.isBackward();
+        CountMode countMode = query.getCountMode() != null ? query.getCountMode() : CountMode.EXACT;
+        int pageSize = query.getPageSize();
+        int limit = countMode == CountMode.NONE ? pageSize + 1 : pageSize;
+
+        List<T> data = new ArrayList<>(limit);
+        long[] total = {0};
+        table.read(() -> {
+            if (countMode != CountMode.NONE) {
+                total[0] = filter == null ? table.ordered().size() : count(table.ordered(), filter);
+            }
+            if (customOrder != null) {
+                List<T> matched = new ArrayList<>();
+                for (T row : table.ordered()) {
+                    if (filter == null || filter.test(row)) {
+                        matched.add(row);
+                    }
+                }
+                matched.sort(customOrder);
+                int from = Math.min(query.getOffset(), matched.size());
+                for (T row : matched.subList(from, Math.min(from + limit, matched.size()))) {
+                    data.add(table.copy(row));
+                }
+                return null;
+            }
+
+            boolean descending = reversed != backward;
+            NavigableSet<T> rows = table.ordered();
+            if (seek) {
+                T probe = order.probe(query.getCursor());
+                rows = descending ? rows.headSet(probe, false) : rows.tailSet(probe, false);
+            }
+            int skip = seek ? 0 : query.getOffset();
+            for (T row : descending ? rows.descendingSet() : rows) {
+                if (filter != null && !filter.test(row)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                data.add(table.copy(row));
+                if (data.size() >= limit) {
+                    break;
+                }
+            }
+            return null;
+        });
+
+        boolean hasMore = data.size() > pageSize;
+        List<T> page = hasMore ? new ArrayList<>(data.subList(0, pageSize)) : data;
+        if (backward) {
+            Collections.reverse(page);
+        }
+        decorate(page);
+
+        PageResult<T> result;
+        if (countMode == CountMode.NONE) {
+            int pageNum = query.getPageNum() != null ? query.getPageNum() : 1;
+            result = backward
+                    ? PageResult.withoutTotal(page, hasMore, true, query)
+                    : PageResult.withoutTotal(page, pageNum > 1, hasMore, query);
+        } else {
+            result = PageResult.of(page, total[0], query);
+        }
+        if (customOrder == null && !page.isEmpty()) {
+            result.setStartCursor(order.cursorOf(page.get(0)));
+            result.setEndCursor(order.cursorOf(page.get(page.size() - 1)));
+        }
+        return result;
+    }
+
+    /**
+     * 按PageQuery的sortBy/sortOrder选择自定义排序，未指定或不支持的列返回null（使用默认顺序）
+     */
+    protected Comparator<T> customOrder(PageQuery query, Map<String, Comparator<T>> sortColumns) {
+        if (query.getSortBy() == null) {
+            return null;
+        }
+        Comparator<T> comparator = sortColumns.get(query.getSortBy().toLowerCase(Locale.ROOT));
+        if (comparator == null) {
+            logger.warn("不支持的排序字段: {}", query.getSortBy());
+            return null;
+        }
+        return "DESC".equalsIgnoreCase(query.getSortOrder()) ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * 按列排序（null在前，与MySQL一致）
+     */
+    protected static <T, U extends Comparable<? super U>> Comparator<T> column(Function<T, U> key) {
+        return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    /**
+     * 关键词匹配（对应 LIKE '%keyword%'，不区分大小写）
+     */
+    protected static boolean contains(String value, String keyword) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(keyword);
+    }
+
+    private static <T> long count(Iterable<T> rows, Predicate<T> filter) {
+        long count = 0;
+        for (T row : rows) {
+            if (filter.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 键集分页游标：与MySQL实现的KeysetOrder生成相同的游标
+     */
+    interface CursorOrder<T> {
+        /**
+         * 生成指定行的游标
+         */
+        PageCursor cursorOf(T row);
+
+        /**
+         * 由游标构造一个只含排序字段和ID的行，用于在有序集合上定位
+         */
+        T probe(PageCursor cursor);
+    }
+}
@@ -0,0 +1,47 @@
+package com.campus.nav.dao.memory;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的int列表（二级索引中保存行ID，元素无序）
+ */
+final class IntList {
+    private int[] elements = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * 删除一个等于value的元素（与末尾元素交换）
+     */
+    boolean remove(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                elements[i] = elements[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int get(int index) {
+        return elements[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
@@ -0,0 +1,124 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.HistoryRollupDao;
+import com.campus.nav.model.HistoryStat;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.NavigationHistory;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.RouteStat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 导航历史汇总DAO内存实现
+ * 内存中的导航历史规模有限，统计时直接聚合，不维护汇总表，catchUp不做任何事
+ */
+public class MemoryHistoryRollupDao implements HistoryRollupDao {
+    private final MemoryStore store;
+
+    public MemoryHistoryRollupDao(MemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int catchUp(int batchSize, int maxTransactionSeconds) {
+        return 0;
+    }
+
+    @Override
+    public long getLastProcessedId() {
+        return 0;
+    }
+
+    @Override
+    public List<RouteStat> findTopRoutes(NavigationStrategy strategy, int limit) {
+        return topRoutes(history -> strategy == null || strategy == history.getPathStrategy(), limit);
+    }
+
+    @Override
+    public List<RouteStat> findTopRoutesFrom(Integer startLocationId, int limit) {
+        return topRoutes(history -> Objects.equals(startLocationId, history.getStartLocationId()), limit);
+    }
+
+    @Override
+    public List<HistoryStat> findStrategyMix(LocalDate from, LocalDate to) {
+        List<HistoryStat> stats = new ArrayList<>(aggregate(from, to, NavigationHistory::getPathStrategy,
+                strategy -> HistoryStat.builder().strategy(strategy)).values());
+        stats.sort(Comparator.comparing(HistoryStat::getNavCount).reversed());
+        return stats;
+    }
+
+    @Override
+    public List<HistoryStat> findHourlyCounts(LocalDate from, LocalDate to) {
+        return new ArrayList<>(aggregate(from, to, history -> history.getCreatedAt().getHour(),
+                hour -> HistoryStat.builder().hour(hour)).values());
+    }
+
+    private List<RouteStat> topRoutes(Predicate<NavigationHistory> filter, int limit) {
+        Map<List<Object>, RouteStat> routes = new HashMap<>();
+        for (NavigationHistory history : store.histories.select(filter)) {
+            RouteStat stat = routes.computeIfAbsent(
+                    Arrays.asList(history.getStartLocationId(), history.getEndLocationId(), history.getPathStrategy()),
+                    key -> RouteStat.builder()
+                            .startLocationId(history.getStartLocationId())
+                            .startLocationName(locationName(history.getStartLocationId()))
+                            .endLocationId(history.getEndLocationId())
+                            .endLocationName(locationName(history.getEndLocationId()))
+                            .strategy(history.getPathStrategy())
+                            .navCount(0L).distanceSum(0.0).timeSum(0L)
+                            .build());
+            stat.setNavCount(stat.getNavCount() + 1);
+            stat.setDistanceSum(stat.getDistanceSum() + valueOf(history.getTotalDistance()));
+            stat.setTimeSum(stat.getTimeSum() + valueOf(history.getTotalTime()));
+            if (stat.getLastNavigatedAt() == null || history.getCreatedAt().isAfter(stat.getLastNavigatedAt())) {
+                stat.setLastNavigatedAt(history.getCreatedAt());
+            }
+        }
+        List<RouteStat> result = new ArrayList<>(routes.values());
+        result.sort(Comparator.comparing(RouteStat::getNavCount).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private <K extends Comparable<K>> Map<K, HistoryStat> aggregate(LocalDate from, LocalDate to,
+                                                                   Function<NavigationHistory, K> key,
+                                                                   Function<K, HistoryStat.HistoryStatBuilder> init) {
+        Map<K, HistoryStat> stats = new TreeMap<>();
+        for (NavigationHistory history : store.histories.select(history -> history.getCreatedAt() != null
+                && !history.getCreatedAt().toLocalDate().isBefore(from)
+                && history.getCreatedAt().toLocalDate().isBefore(to))) {
+            HistoryStat stat = stats.computeIfAbsent(key.apply(history),
+                    k -> init.apply(k).navCount(0L).distanceSum(0.0).timeSum(0L).build());
+            stat.setNavCount(stat.getNavCount() + 1);
+            stat.setDistanceSum(stat.getDistanceSum() + valueOf(history.getTotalDistance()));
+            stat.setTimeSum(stat.getTimeSum() + valueOf(history.getTotalTime()));
+        }
+        return stats;
+    }
+
+    private String locationName(Integer locationId) {
+        return locationId != null ? store.locations.get(locationId).map(Location::getName).orElse(null) : null;
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static long valueOf(Integer value) {
+        return value != null ? value : 0L;
+    }
+}
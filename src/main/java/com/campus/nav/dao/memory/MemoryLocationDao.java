@@ -0,0 +1,130 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.LocationDao;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.PageCursor;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.utils.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * 地点DAO内存实现
+ */
+public class MemoryLocationDao extends AbstractMemoryDao<Location> implements LocationDao {
+    private static final Map<String, Comparator<Location>> SORT_COLUMNS = Map.of(
+            "id", column(Location::getId),
+            "name", column(Location::getName),
+            "type", column(Location::getType),
+            "x_coordinate", column(Location::getXCoordinate),
+            "y_coordinate", column(Location::getYCoordinate),
+            "scenic_level", column(Location::getScenicLevel),
+            "created_at", column(Location::getCreatedAt));
+    private static final CursorOrder<Location> PAGE_ORDER = new CursorOrder<>() {
+        @Override
+        public PageCursor cursorOf(Location location) {
+            return new PageCursor(location.getName(), location.getId());
+        }
+
+        @Override
+        public Location probe(PageCursor cursor) {
+            return Location.builder().name((String) cursor.getSortValue()).id(cursor.getId()).build();
+        }
+    };
+
+    public MemoryLocationDao(MemoryStore store) {
+        super(store, store.locations);
+    }
+
+    @Override
+    protected int insert(Location location) {
+        return table.insert(location.toBuilder()
+                .id(null)
+                .type(location.getType() != null ? location.getType() : Location.LocationType.OTHER)
+                .hasShade(location.getHasShade() != null ? location.getHasShade() : false)
+                .scenicLevel(location.getScenicLevel() != null ? location.getScenicLevel() : 1)
+                .isAccessible(location.getIsAccessible() != null ? location.getIsAccessible() : true)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public boolean update(Location location) {
+        return update(location.getId(), row -> {
+            row.setName(location.getName());
+            row.setDescription(location.getDescription());
+            row.setType(location.getType() != null ? location.getType() : Location.LocationType.OTHER);
+            row.setXCoordinate(location.getXCoordinate());
+            row.setYCoordinate(location.getYCoordinate());
+            row.setHasShade(location.getHasShade() != null ? location.getHasShade() : false);
+            row.setScenicLevel(location.getScenicLevel() != null ? location.getScenicLevel() : 1);
+            row.setIsAccessible(location.getIsAccessible() != null ? location.getIsAccessible() : true);
+        });
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        // 对应外键约束：仍被路径或导航历史引用的地点不能删除
+        if (id != null && (store.paths.count(store.pathsByStart, id, null) > 0
+                || store.paths.count(store.pathsByEnd, id, null) > 0
+                || store.histories.count(store.historiesByStart, id, null) > 0
+                || store.histories.count(store.historiesByEnd, id, null) > 0)) {
+            logger.error("删除地点失败: {}，仍被路径或导航历史引用", id);
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+        return super.deleteById(id);
+    }
+
+    @Override
+    public PageResult<Location> findByPage(PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        Predicate<Location> filter = null;
+        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
+            String keyword = query.getKeyword().toLowerCase(Locale.ROOT);
+            filter = location -> contains(location.getName(), keyword) || contains(location.getDescription(), keyword);
+        }
+        return queryForPage(filter, false, customOrder(query, SORT_COLUMNS), PAGE_ORDER, query);
+    }
+
+    @Override
+    public Optional<Location> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        return table.select(store.locationsByName, MemoryStore.lowerCase(name), null).stream().findFirst();
+    }
+
+    @Override
+    public List<Location> findByType(Location.LocationType type) {
+        return table.select(store.locationsByType, type.ordinal(), null);
+    }
+
+    @Override
+    public List<Location> findAccessibleLocations() {
+        return table.select(location -> Boolean.TRUE.equals(location.getIsAccessible()));
+    }
+
+    @Override
+    public List<Location> findByCoordinateRange(double minX, double maxX, double minY, double maxY) {
+        return table.select(location -> location.getXCoordinate() != null && location.getYCoordinate() != null
+                && location.getXCoordinate() >= minX && location.getXCoordinate() <= maxX
+                && location.getYCoordinate() >= minY && location.getYCoordinate() <= maxY);
+    }
+
+    @Override
+    public List<Location> search(String keyword) {
+        String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        return table.select(location -> contains(location.getName(), lowerKeyword)
+                || contains(location.getDescription(), lowerKeyword));
+    }
+}
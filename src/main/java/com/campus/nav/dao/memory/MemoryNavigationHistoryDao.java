@@ -0,0 +1,213 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.NavigationHistoryDao;
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.HistoryFilter;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.NavigationHistory;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.PageCursor;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.model.User;
+import com.campus.nav.utils.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 导航历史DAO内存实现
+ */
+public class MemoryNavigationHistoryDao extends AbstractMemoryDao<NavigationHistory> implements NavigationHistoryDao {
+    private static final CursorOrder<NavigationHistory> PAGE_ORDER = new CursorOrder<>() {
+        @Override
+        public PageCursor cursorOf(NavigationHistory history) {
+            return new PageCursor(history.getCreatedAt(), history.getId());
+        }
+
+        @Override
+        public NavigationHistory probe(PageCursor cursor) {
+            return NavigationHistory.builder()
+                    .createdAt((LocalDateTime) cursor.getSortValue())
+                    .id(cursor.getId())
+                    .build();
+        }
+    };
+
+    public MemoryNavigationHistoryDao(MemoryStore store) {
+        super(store, store.histories);
+    }
+
+    @Override
+    protected int insert(NavigationHistory history) {
+        // 对应外键约束：用户和两端地点必须存在
+        if (history.getUserId() == null || store.users.get(history.getUserId()).isEmpty()
+                || history.getStartLocationId() == null || store.locations.get(history.getStartLocationId()).isEmpty()
+                || history.getEndLocationId() == null || store.locations.get(history.getEndLocationId()).isEmpty()) {
+            throw new DatabaseException("导航历史引用的用户或地点不存在: user=" + history.getUserId()
+                    + ", " + history.getStartLocationId() + " -> " + history.getEndLocationId());
+        }
+        return table.insert(history.toBuilder()
+                .id(null)
+                .pathStrategy(history.getPathStrategy() != null ? history.getPathStrategy() : NavigationStrategy.SHORTEST)
+                .createdAt(history.getCreatedAt() != null ? history.getCreatedAt() : LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public boolean update(NavigationHistory entity) {
+        // 导航历史通常不允许更新
+        throw new UnsupportedOperationException("导航历史不允许更新");
+    }
+
+    @Override
+    public PageResult<NavigationHistory> findByPage(PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        Predicate<NavigationHistory> filter = null;
+        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
+            // 先找出用户名或地点名匹配的ID，再按导航历史的外键过滤
+            String keyword = query.getKeyword().toLowerCase(Locale.ROOT);
+            Set<Integer> users = new HashSet<>();
+            for (User user : store.users.select(user -> contains(user.getUsername(), keyword))) {
+                users.add(user.getId());
+            }
+            Set<Integer> locations = new HashSet<>();
+            for (Location location : store.locations.select(location -> contains(location.getName(), keyword))) {
+                locations.add(location.getId());
+            }
+            filter = history -> users.contains(history.getUserId())
+                    || locations.contains(history.getStartLocationId())
+                    || locations.contains(history.getEndLocationId());
+        }
+        return queryForPage(filter, false, null, PAGE_ORDER, query);
+    }
+
+    @Override
+    public List<NavigationHistory> findByUserId(Integer userId) {
+        return userId == null ? List.of() : decorate(table.select(store.historiesByUser, userId, null));
+    }
+
+    @Override
+    public Stream<NavigationHistory> streamByUserId(Integer userId) {
+        return findByUserId(userId).stream();
+    }
+
+    @Override
+    public PageResult<NavigationHistory> findByUserIdPage(Integer userId, PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        return queryForPage(history -> userId != null && userId.equals(history.getUserId()),
+                false, null, PAGE_ORDER, query);
+    }
+
+    @Override
+    public boolean deleteByUserId(Integer userId) {
+        if (userId == null) {
+            return false;
+        }
+        try {
+            return table.deleteWhere(store.historiesByUser, userId, null) > 0;
+        } catch (Exception e) {
+            logger.error("删除用户导航历史失败: {}", userId, e);
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+    }
+
+    @Override
+    public long countByUserId(Integer userId) {
+        return userId == null ? 0 : table.count(store.historiesByUser, userId, null);
+    }
+
+    @Override
+    public long countByFilter(HistoryFilter filter) {
+        if (filter != null && filter.getUserId() != null) {
+            return table.count(store.historiesByUser, filter.getUserId(), toPredicate(filter));
+        }
+        return table.count(toPredicate(filter));
+    }
+
+    @Override
+    public Stream<NavigationHistory> streamByFilter(HistoryFilter filter) {
+        List<NavigationHistory> histories = filter != null && filter.getUserId() != null
+                ? table.select(store.historiesByUser, filter.getUserId(), toPredicate(filter))
+                : table.select(toPredicate(filter));
+        histories.sort(Comparator.comparing(NavigationHistory::getId));
+        return decorate(histories).stream();
+    }
+
+    @Override
+    public long deleteByFilter(HistoryFilter filter, int chunkSize, LongConsumer progress) {
+        Predicate<NavigationHistory> predicate = toPredicate(filter);
+        if (predicate == null) {
+            predicate = history -> true;
+        }
+        long deleted = 0;
+        try {
+            int affectedRows;
+            do {
+                affectedRows = table.deleteWhere(predicate, chunkSize);
+                deleted += affectedRows;
+                if (progress != null && affectedRows > 0) {
+                    progress.accept(deleted);
+                }
+            } while (affectedRows >= chunkSize && !Thread.currentThread().isInterrupted());
+
+            logger.info("批量删除导航历史完成: {} 条, 条件: {}", deleted, filter);
+        } catch (Exception e) {
+            logger.error("批量删除导航历史失败，已删除 {} 条: {}", deleted, filter, e);
+            throw new DatabaseException("批量删除导航历史失败（已删除 " + deleted + " 条）: " + e.getMessage(), e);
+        }
+        return deleted;
+    }
+
+    @Override
+    protected NavigationHistory decorate(NavigationHistory history) {
+        Optional<User> user = history.getUserId() != null ? store.users.get(history.getUserId()) : Optional.empty();
+        history.setUser(User.builder()
+                .id(history.getUserId())
+                .username(user.map(User::getUsername).orElse(null))
+                .userType(user.map(User::getUserType).orElse(User.UserType.USER))
+                .build());
+        history.setStartLocation(locationRef(history.getStartLocationId()));
+        history.setEndLocation(locationRef(history.getEndLocationId()));
+        return history;
+    }
+
+    /**
+     * 地点引用（对应JOIN出的名称）
+     */
+    private Location locationRef(Integer locationId) {
+        return Location.builder()
+                .id(locationId)
+                .name(locationId != null ? store.locations.get(locationId).map(Location::getName).orElse(null) : null)
+                .build();
+    }
+
+    /**
+     * 过滤条件转为谓词，没有条件时返回null
+     */
+    private static Predicate<NavigationHistory> toPredicate(HistoryFilter filter) {
+        if (filter == null || (filter.getUserId() == null && filter.getFrom() == null
+                && filter.getTo() == null && filter.getStrategy() == null)) {
+            return null;
+        }
+        return history -> (filter.getUserId() == null || filter.getUserId().equals(history.getUserId()))
+                && (filter.getFrom() == null
+                || history.getCreatedAt() != null && !history.getCreatedAt().isBefore(filter.getFrom()))
+                && (filter.getTo() == null
+                || history.getCreatedAt() != null && history.getCreatedAt().isBefore(filter.getTo()))
+                && (filter.getStrategy() == null || filter.getStrategy() == history.getPathStrategy());
+    }
+}
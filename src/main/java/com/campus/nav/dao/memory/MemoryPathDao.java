@@ -0,0 +1,208 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.PathDao;
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.PageCursor;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.model.Path;
+import com.campus.nav.model.PathGraphData;
+import com.campus.nav.utils.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 路径DAO内存实现
+ */
+public class MemoryPathDao extends AbstractMemoryDao<Path> implements PathDao {
+    private static final Map<String, Comparator<Path>> SORT_COLUMNS = Map.of(
+            "id", column(Path::getId),
+            "start_location_id", column(Path::getStartLocationId),
+            "end_location_id", column(Path::getEndLocationId),
+            "distance", column(Path::getDistance),
+            "time_cost", column(Path::getTimeCost),
+            "scenic_level", column(Path::getScenicLevel),
+            "created_at", column(Path::getCreatedAt));
+    private static final CursorOrder<Path> PAGE_ORDER = new CursorOrder<>() {
+        @Override
+        public PageCursor cursorOf(Path path) {
+            return new PageCursor(null, path.getId());
+        }
+
+        @Override
+        public Path probe(PageCursor cursor) {
+            return Path.builder().id(cursor.getId()).build();
+        }
+    };
+
+    public MemoryPathDao(MemoryStore store) {
+        super(store, store.paths);
+    }
+
+    @Override
+    protected int insert(Path path) {
+        // 对应外键约束：两端地点必须存在
+        if (store.locations.get(path.getStartLocationId() != null ? path.getStartLocationId() : 0).isEmpty()
+                || store.locations.get(path.getEndLocationId() != null ? path.getEndLocationId() : 0).isEmpty()) {
+            throw new DatabaseException("路径的起点或终点不存在: "
+                    + path.getStartLocationId() + " -> " + path.getEndLocationId());
+        }
+        return table.insert(path.toBuilder()
+                .id(null)
+                .hasShade(path.getHasShade() != null ? path.getHasShade() : false)
+                .scenicLevel(path.getScenicLevel() != null ? path.getScenicLevel() : 1)
+                .isIndoor(path.getIsIndoor() != null ? path.getIsIndoor() : false)
+                .isActive(path.getIsActive() != null ? path.getIsActive() : true)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public boolean update(Path path) {
+        return update(path.getId(), row -> {
+            row.setDistance(path.getDistance());
+            row.setTimeCost(path.getTimeCost());
+            row.setHasShade(path.getHasShade());
+            row.setScenicLevel(path.getScenicLevel());
+            row.setIsIndoor(path.getIsIndoor());
+            row.setIsActive(path.getIsActive());
+        });
+    }
+
+    @Override
+    public boolean deleteByLocationId(Integer locationId) {
+        if (locationId == null) {
+            return false;
+        }
+        try {
+            int deleted = table.deleteWhere(store.pathsByStart, locationId, null)
+                    + table.deleteWhere(store.pathsByEnd, locationId, null);
+            return deleted > 0;
+        } catch (Exception e) {
+            logger.error("删除路径失败: {}", locationId, e);
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+    }
+
+    @Override
+    public PageResult<Path> findByPage(PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        Predicate<Path> filter = null;
+        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
+            // 先在地点表中找出名称匹配的地点，再按路径两端过滤
+            String keyword = query.getKeyword().toLowerCase(Locale.ROOT);
+            Set<Integer> matched = new HashSet<>();
+            for (Location location : store.locations.select(location -> contains(location.getName(), keyword))) {
+                matched.add(location.getId());
+            }
+            filter = path -> matched.contains(path.getStartLocationId()) || matched.contains(path.getEndLocationId());
+        }
+        return queryForPage(filter, true, customOrder(query, SORT_COLUMNS), PAGE_ORDER, query);
+    }
+
+    @Override
+    public Optional<Path> findByStartAndEnd(Integer startLocationId, Integer endLocationId) {
+        Long key = MemoryStore.pairKey(startLocationId, endLocationId);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return decorate(table.select(store.pathsByStartAndEnd, key, null)).stream().findFirst();
+    }
+
+    @Override
+    public List<Path> findByStartLocation(Integer startLocationId) {
+        return startLocationId == null ? List.of()
+                : decorate(table.select(store.pathsByStart, startLocationId, MemoryPathDao::isActive));
+    }
+
+    @Override
+    public List<Path> findByEndLocation(Integer endLocationId) {
+        return endLocationId == null ? List.of()
+                : decorate(table.select(store.pathsByEnd, endLocationId, MemoryPathDao::isActive));
+    }
+
+    @Override
+    public List<Path> findPathsBetween(Integer locationId1, Integer locationId2) {
+        if (locationId1 == null || locationId2 == null) {
+            return List.of();
+        }
+        List<Path> paths = table.select(store.pathsByStart, locationId1,
+                path -> isActive(path) && locationId2.equals(path.getEndLocationId()));
+        paths.addAll(table.select(store.pathsByStart, locationId2,
+                path -> isActive(path) && locationId1.equals(path.getEndLocationId())));
+        return decorate(paths);
+    }
+
+    @Override
+    public List<Path> findActivePaths() {
+        List<Path> paths = table.select(MemoryPathDao::isActive);
+        paths.sort(column(Path::getStartLocationId).thenComparing(column(Path::getEndLocationId)));
+        return decorate(paths);
+    }
+
+    @Override
+    public boolean updateStatus(Integer pathId, boolean isActive) {
+        return update(pathId, row -> row.setIsActive(isActive));
+    }
+
+    @Override
+    public PathGraphData loadGraphData() {
+        // 先取可通行地点的ID，再遍历路径表，两张表的锁不嵌套
+        Set<Integer> accessible = new HashSet<>();
+        for (Location location : store.locations.select(location -> Boolean.TRUE.equals(location.getIsAccessible()))) {
+            accessible.add(location.getId());
+        }
+        PathGraphData data = new PathGraphData(table.size());
+        table.read(() -> {
+            for (Path path : table.ordered()) {
+                if (isActive(path) && accessible.contains(path.getStartLocationId())
+                        && accessible.contains(path.getEndLocationId())) {
+                    data.add(path.getId(), path.getStartLocationId(), path.getEndLocationId(),
+                            path.getDistance() != null ? path.getDistance() : 0,
+                            path.getTimeCost() != null ? path.getTimeCost() : 0,
+                            Boolean.TRUE.equals(path.getHasShade()),
+                            path.getScenicLevel() != null ? path.getScenicLevel() : 0);
+                }
+            }
+            return null;
+        });
+        logger.debug("加载路网图数据: {} 条边", data.size());
+        return data;
+    }
+
+    @Override
+    protected Path decorate(Path path) {
+        path.setStartLocation(endpoint(path.getStartLocationId()));
+        path.setEndLocation(endpoint(path.getEndLocationId()));
+        return path;
+    }
+
+    /**
+     * 路径端点（对应JOIN出的名称和坐标），地点不存在时只有ID
+     */
+    private Location endpoint(Integer locationId) {
+        Optional<Location> location = locationId != null ? store.locations.get(locationId) : Optional.empty();
+        return Location.builder()
+                .id(locationId)
+                .name(location.map(Location::getName).orElse(null))
+                .xCoordinate(location.map(Location::getXCoordinate).orElse(0.0))
+                .yCoordinate(location.map(Location::getYCoordinate).orElse(0.0))
+                .build();
+    }
+
+    private static boolean isActive(Path path) {
+        return Boolean.TRUE.equals(path.getIsActive());
+    }
+}
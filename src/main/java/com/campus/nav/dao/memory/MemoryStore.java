@@ -0,0 +1,430 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.NavigationHistory;
+import com.campus.nav.model.Path;
+import com.campus.nav.model.SystemConfig;
+import com.campus.nav.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 内存数据存储（dao.backend=memory）
+ * 保存五张表及其二级索引，供dao.memory下的DAO实现使用，不需要MySQL。
+ * 启动时从快照文件（dao.memory.snapshotFile）加载，没有快照时加载内置的示例数据；
+ * 有修改时定时写回快照，关闭时再写一次。
+ * 事务：TransactionTemplate在内存模式下调用begin/commit/rollback，事务之间串行执行，
+ * 回滚时按逆序执行各表登记的撤销操作。事务外的读不等待事务（未提交的修改对其他线程可见）；
+ * 事务外的写等待进行中的事务结束，回滚恢复的旧值不会覆盖其他线程的修改
+ */
+public final class MemoryStore {
+    private static final Logger logger = LogManager.getLogger(MemoryStore.class);
+
+    private static final String SEED_RESOURCE = "database/memory-seed.json";
+
+    private static volatile MemoryStore instance;
+
+    final MemoryTable<Location> locations;
+    final MemoryTable.KeyIndex<Location, String> locationsByName;
+    final MemoryTable.IntIndex<Location> locationsByType;
+
+    final MemoryTable<Path> paths;
+    final MemoryTable.IntIndex<Path> pathsByStart;
+    final MemoryTable.IntIndex<Path> pathsByEnd;
+    final MemoryTable.KeyIndex<Path, Long> pathsByStartAndEnd;
+
+    final MemoryTable<User> users;
+    final MemoryTable.KeyIndex<User, String> usersByUsername;
+    final MemoryTable.KeyIndex<User, String> usersByEmail;
+
+    final MemoryTable<NavigationHistory> histories;
+    final MemoryTable.IntIndex<NavigationHistory> historiesByUser;
+    final MemoryTable.IntIndex<NavigationHistory> historiesByStart;
+    final MemoryTable.IntIndex<NavigationHistory> historiesByEnd;
+
+    final MemoryTable<SystemConfig> configs;
+    final MemoryTable.KeyIndex<SystemConfig, String> configsByKey;
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+    private final ReentrantLock transactionLock = new ReentrantLock();
+    private final ThreadLocal<Deque<Runnable>> undoLog = new ThreadLocal<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile long savedModifications;
+    private File snapshotFile;
+    private ScheduledExecutorService snapshotScheduler;
+
+    MemoryStore() {
+        locations = new MemoryTable<>(this, "locations",
+                Comparator.comparing(Location::getName, Comparator.nullsFirst(Comparator.naturalOrder())),
+                Location::getId, Location::setId, location -> location.toBuilder().build());
+        locationsByName = locations.keyIndex("name", location -> lowerCase(location.getName()), false);
+        locationsByType = locations.intIndex(location -> location.getType() != null ? location.getType().ordinal() : null);
+
+        paths = new MemoryTable<>(this, "paths", Comparator.comparing(Path::getId),
+                Path::getId, Path::setId, path -> path.toBuilder().startLocation(null).endLocation(null).build());
+        pathsByStart = paths.intIndex(Path::getStartLocationId);
+        pathsByEnd = paths.intIndex(Path::getEndLocationId);
+        pathsByStartAndEnd = paths.keyIndex("unique_path",
+                path -> pairKey(path.getStartLocationId(), path.getEndLocationId()), true);
+
+        users = new MemoryTable<>(this, "users", Comparator.comparing(User::getId),
+                User::getId, User::setId, user -> user.toBuilder().build());
+        usersByUsername = users.keyIndex("username", user -> lowerCase(user.getUsername()), true);
+        usersByEmail = users.keyIndex("email", user -> lowerCase(user.getEmail()), true);
+
+        // 导航历史默认按创建时间倒序，与分页顺序一致
+        histories = new MemoryTable<>(this, "navigation_history",
+                Comparator.comparing(NavigationHistory::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(NavigationHistory::getId, Comparator.reverseOrder()),
+                NavigationHistory::getId, NavigationHistory::setId, history -> history.toBuilder()
+                        .user(null).startLocation(null).endLocation(null)
+                        .pathLocations(history.getPathLocations() != null
+                                ? new ArrayList<>(history.getPathLocations()) : null)
+                        .build());
+        historiesByUser = histories.intIndex(NavigationHistory::getUserId);
+        historiesByStart = histories.intIndex(NavigationHistory::getStartLocationId);
+        historiesByEnd = histories.intIndex(NavigationHistory::getEndLocationId);
+
+        configs = new MemoryTable<>(this, "system_config",
+                Comparator.comparing(SystemConfig::getConfigKey, Comparator.nullsFirst(Comparator.naturalOrder())),
+                SystemConfig::getId, SystemConfig::setId, config -> config.toBuilder().build());
+        configsByKey = configs.keyIndex("config_key", config -> lowerCase(config.getConfigKey()), true);
+    }
+
+    /**
+     * 是否使用内存后端（dao.backend=memory）
+     */
+    public static boolean isEnabled() {
+        return DatabaseConfig.isMemoryBackend();
+    }
+
+    /**
+     * 获取内存存储实例，首次调用时加载快照并启动定时保存
+     */
+    public static MemoryStore getInstance() {
+        if (instance == null) {
+            synchronized (MemoryStore.class) {
+                if (instance == null) {
+                    MemoryStore store = new MemoryStore();
+                    store.open();
+                    instance = store;
+                }
+            }
+        }
+        return instance;
+    }
+
+    // ---------------------------------------------------------------- 事务
+
+    /**
+     * 开始事务（由TransactionTemplate调用）
+     */
+    public void begin() {
+        transactionLock.lock();
+        undoLog.set(new ArrayDeque<>());
+    }
+
+    /**
+     * 提交事务
+     */
+    public void commit() {
+        undoLog.remove();
+        transactionLock.unlock();
+    }
+
+    /**
+     * 回滚事务：按逆序撤销事务中的修改
+     */
+    public void rollback() {
+        Deque<Runnable> log = undoLog.get();
+        undoLog.remove();
+        try {
+            while (log != null && !log.isEmpty()) {
+                log.pop().run();
+            }
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    /**
+     * 持有事务锁执行写操作（MemoryTable的每个写操作都经过这里）
+     */
+    <R> R write(Supplier<R> action) {
+        transactionLock.lock();
+        try {
+            return action.get();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    /**
+     * 登记撤销操作（当前线程不在事务中时忽略）
+     */
+    void recordUndo(Runnable undo) {
+        Deque<Runnable> log = undoLog.get();
+        if (log != null) {
+            log.push(undo);
+        }
+    }
+
+    void markModified() {
+        modifications.incrementAndGet();
+    }
+
+    // ---------------------------------------------------------------- 快照
+
+    /**
+     * 保存快照到配置的文件（未配置时不保存）
+     * @return 是否保存成功
+     */
+    public boolean saveSnapshot() {
+        return snapshotFile != null && saveSnapshot(snapshotFile);
+    }
+
+    /**
+     * 保存快照到指定文件（先写临时文件再替换，不会留下写了一半的快照）
+     */
+    public boolean saveSnapshot(File file) {
+        // 持有事务锁，快照中不会包含进行中的事务的一部分修改
+        transactionLock.lock();
+        try {
+            long version = modifications.get();
+            Snapshot snapshot = new Snapshot();
+            snapshot.locations = locations.select(null);
+            snapshot.paths = paths.select(null);
+            snapshot.users = users.select(null);
+            snapshot.histories = histories.select(null);
+            snapshot.configs = configs.select(null);
+
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            File temp = new File(file.getPath() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                gson.toJson(snapshot, writer);
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (file.equals(snapshotFile)) {
+                savedModifications = version;
+            }
+            logger.info("内存数据快照已保存: {} ({})", file, getStatus());
+            return true;
+        } catch (Exception e) {
+            logger.error("保存内存数据快照失败: {}", file, e);
+            return false;
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    /**
+     * 从快照文件加载，替换当前所有数据
+     */
+    public boolean loadSnapshot(File file) {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            load(gson.fromJson(reader, Snapshot.class));
+            logger.info("已加载内存数据快照: {} ({})", file, getStatus());
+            return true;
+        } catch (Exception e) {
+            logger.error("加载内存数据快照失败: {}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * 是否有未保存到快照的修改
+     */
+    public boolean isDirty() {
+        return modifications.get() != savedModifications;
+    }
+
+    /**
+     * 获取存储状态信息
+     */
+    public String getStatus() {
+        return String.format("内存存储: 地点=%d, 路径=%d, 用户=%d, 导航历史=%d, 系统配置=%d",
+                locations.size(), paths.size(), users.size(), histories.size(), configs.size());
+    }
+
+    /**
+     * 停止定时保存并写回快照
+     */
+    public void shutdown() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+            snapshotScheduler = null;
+        }
+        if (isDirty()) {
+            saveSnapshot();
+        }
+    }
+
+    private void open() {
+        String path = DatabaseConfig.getProperty("dao.memory.snapshotFile", "");
+        snapshotFile = path.isEmpty() ? null : new File(path);
+
+        if (snapshotFile != null && snapshotFile.isFile()) {
+            loadSnapshot(snapshotFile);
+        } else if (Boolean.parseBoolean(DatabaseConfig.getProperty("dao.memory.seed", "true"))) {
+            loadSeed();
+        }
+        savedModifications = modifications.get();
+
+        long interval = Long.parseLong(DatabaseConfig.getProperty("dao.memory.snapshotIntervalSeconds", "60"));
+        if (snapshotFile != null && interval > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "memory-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(() -> {
+                if (isDirty()) {
+                    saveSnapshot();
+                }
+            }, interval, interval, TimeUnit.SECONDS);
+        }
+        DatabaseConfig.addCloseHook(this::shutdown);
+    }
+
+    private void loadSeed() {
+        try (InputStream input = MemoryStore.class.getClassLoader().getResourceAsStream(SEED_RESOURCE)) {
+            if (input == null) {
+                logger.warn("找不到内置示例数据: {}", SEED_RESOURCE);
+                return;
+            }
+            load(gson.fromJson(new InputStreamReader(input, StandardCharsets.UTF_8), Snapshot.class));
+            logger.info("已加载内置示例数据 ({})", getStatus());
+        } catch (IOException e) {
+            logger.error("加载内置示例数据失败", e);
+        }
+    }
+
+    private void load(Snapshot snapshot) {
+        transactionLock.lock();
+        try {
+            locations.clear();
+            paths.clear();
+            users.clear();
+            histories.clear();
+            configs.clear();
+            LocalDateTime now = LocalDateTime.now();
+            insertAll(locations, snapshot.locations, location -> {
+                if (location.getCreatedAt() == null) {
+                    location.setCreatedAt(now);
+                }
+            });
+            insertAll(paths, snapshot.paths, path -> {
+                if (path.getCreatedAt() == null) {
+                    path.setCreatedAt(now);
+                }
+            });
+            insertAll(users, snapshot.users, user -> {
+                if (user.getCreatedAt() == null) {
+                    user.setCreatedAt(now);
+                    user.setUpdatedAt(now);
+                }
+            });
+            insertAll(histories, snapshot.histories, history -> {
+                if (history.getCreatedAt() == null) {
+                    history.setCreatedAt(now);
+                }
+            });
+            insertAll(configs, snapshot.configs, config -> {
+                if (config.getUpdatedAt() == null) {
+                    config.setUpdatedAt(now);
+                }
+            });
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    private static <T> void insertAll(MemoryTable<T> table, List<T> rows, Consumer<T> defaults) {
+        if (rows == null) {
+            return;
+        }
+        for (T row : rows) {
+            defaults.accept(row);
+            table.insert(row);
+        }
+    }
+
+    static String lowerCase(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    static Long pairKey(Integer startId, Integer endId) {
+        return startId != null && endId != null ? ((long) startId << 32) | (endId & 0xFFFFFFFFL) : null;
+    }
+
+    /**
+     * 快照文件的内容
+     */
+    private static final class Snapshot {
+        private List<Location> locations;
+        private List<Path> paths;
+        private List<User> users;
+        private List<NavigationHistory> histories;
+        private List<SystemConfig> configs;
+    }
+
+    /**
+     * LocalDateTime按ISO-8601字符串读写
+     */
+    private static final class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.toString());
+            }
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return LocalDateTime.parse(in.nextString());
+        }
+    }
+}
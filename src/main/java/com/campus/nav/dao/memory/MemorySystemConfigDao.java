@@ -0,0 +1,104 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.SystemConfigDao;
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.PageCursor;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.model.SystemConfig;
+import com.campus.nav.utils.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * 系统配置DAO内存实现
+ */
+public class MemorySystemConfigDao extends AbstractMemoryDao<SystemConfig> implements SystemConfigDao {
+    private static final CursorOrder<SystemConfig> PAGE_ORDER = new CursorOrder<>() {
+        @Override
+        public PageCursor cursorOf(SystemConfig config) {
+            return new PageCursor(config.getConfigKey(), config.getId());
+        }
+
+        @Override
+        public SystemConfig probe(PageCursor cursor) {
+            return SystemConfig.builder().configKey((String) cursor.getSortValue()).id(cursor.getId()).build();
+        }
+    };
+
+    public MemorySystemConfigDao(MemoryStore store) {
+        super(store, store.configs);
+    }
+
+    @Override
+    protected int insert(SystemConfig config) {
+        return table.insert(config.toBuilder()
+                .id(null)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public boolean update(SystemConfig config) {
+        return update(config.getId(), row -> {
+            row.setConfigValue(config.getConfigValue());
+            row.setDescription(config.getDescription());
+            row.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+
+    @Override
+    public PageResult<SystemConfig> findByPage(PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        Predicate<SystemConfig> filter = null;
+        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
+            String keyword = query.getKeyword().toLowerCase(Locale.ROOT);
+            filter = config -> contains(config.getConfigKey(), keyword) || contains(config.getDescription(), keyword);
+        }
+        return queryForPage(filter, false, null, PAGE_ORDER, query);
+    }
+
+    @Override
+    public Optional<SystemConfig> findByKey(String configKey) {
+        if (configKey == null) {
+            return Optional.empty();
+        }
+        return table.select(store.configsByKey, MemoryStore.lowerCase(configKey), null).stream().findFirst();
+    }
+
+    @Override
+    public boolean updateValue(String configKey, String configValue) {
+        Optional<SystemConfig> config = findByKey(configKey);
+        return config.isPresent() && update(config.get().getId(), row -> {
+            row.setConfigValue(configValue);
+            row.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+
+    @Override
+    public boolean updateBatch(List<SystemConfig> configs) {
+        if (configs == null || configs.isEmpty()) {
+            return true;
+        }
+        // 与MySQL实现一致在一个事务中执行，任何一项不存在或更新失败都整体撤销
+        try {
+            TransactionTemplate.executeWithoutResult(() -> {
+                for (SystemConfig config : configs) {
+                    if (config.getId() != null && !update(config)) {
+                        throw new DatabaseException("配置不存在或更新失败: " + config.getId());
+                    }
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("批量更新系统配置失败", e);
+            return false;
+        }
+    }
+}
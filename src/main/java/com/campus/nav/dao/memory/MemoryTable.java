@@ -0,0 +1,538 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.exception.DatabaseException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 内存表
+ * 行按int主键存放在IntObjectMap中，同时维护一个按表的默认顺序排列的有序集合和若干二级索引；
+ * 读写锁保护：读操作并发执行，写操作互斥。存入和读出时都复制实体，调用方修改返回的对象不会影响表中的数据；
+ * 写操作持有存储的事务锁，在事务中时登记撤销操作，回滚时按逆序恢复
+ */
+final class MemoryTable<T> {
+    private final String name;
+    private final MemoryStore store;
+    private final Function<T, Integer> idGetter;
+    private final BiConsumer<T, Integer> idSetter;
+    private final UnaryOperator<T> copier;
+    private final IntObjectMap<T> rows = new IntObjectMap<>();
+    private final NavigableSet<T> ordered;
+    private final List<Index<T>> indexes = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int nextId = 1;
+
+    /**
+     * @param order  表的默认顺序（相同时按主键）
+     * @param copier 复制实体（同时去掉关联对象，表中只保存本表的列）
+     */
+    MemoryTable(MemoryStore store, String name, Comparator<T> order,
+                Function<T, Integer> idGetter, BiConsumer<T, Integer> idSetter, UnaryOperator<T> copier) {
+        this.store = store;
+        this.name = name;
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+        this.copier = copier;
+        this.ordered = new TreeSet<>(order.thenComparing(idGetter));
+    }
+
+    /**
+     * 添加int键的二级索引（键为null的行不进入索引）
+     */
+    IntIndex<T> intIndex(Function<T, Integer> key) {
+        IntIndex<T> index = new IntIndex<>(key);
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * 添加对象键的二级索引
+     * @param unique 是否唯一（写入重复键时抛出DatabaseException）
+     */
+    <K> KeyIndex<T, K> keyIndex(String indexName, Function<T, K> key, boolean unique) {
+        KeyIndex<T, K> index = new KeyIndex<>(name + "." + indexName, key, unique);
+        indexes.add(index);
+        return index;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // ---------------------------------------------------------------- 读
+
+    Optional<T> get(int id) {
+        return read(() -> Optional.ofNullable(rows.get(id)).map(copier));
+    }
+
+    int size() {
+        return read(rows::size);
+    }
+
+    /**
+     * 按默认顺序返回满足条件的行（filter为null时返回全部）
+     */
+    List<T> select(Predicate<T> filter) {
+        return read(() -> {
+            List<T> result = new ArrayList<>();
+            for (T row : ordered) {
+                if (filter == null || filter.test(row)) {
+                    result.add(copier.apply(row));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 按索引查找后过滤，结果按默认顺序排列
+     */
+    List<T> select(IntIndex<T> index, int key, Predicate<T> filter) {
+        return read(() -> copyAll(resolve(index.ids(key), filter)));
+    }
+
+    /**
+     * 按索引查找后过滤，结果按默认顺序排列
+     */
+    <K> List<T> select(KeyIndex<T, K> index, K key, Predicate<T> filter) {
+        return read(() -> copyAll(resolve(index.ids(key), filter)));
+    }
+
+    long count(Predicate<T> filter) {
+        return read(() -> {
+            if (filter == null) {
+                return (long) rows.size();
+            }
+            long count = 0;
+            for (T row : ordered) {
+                if (filter.test(row)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    long count(IntIndex<T> index, int key, Predicate<T> filter) {
+        return read(() -> (long) resolve(index.ids(key), filter).size());
+    }
+
+    <K> boolean exists(KeyIndex<T, K> index, K key) {
+        return read(() -> {
+            IntList ids = index.ids(key);
+            return ids != null && !ids.isEmpty();
+        });
+    }
+
+    /**
+     * 在读锁内执行操作（可通过ordered()/row()直接访问表中的行，返回前需用copy()复制）
+     */
+    <R> R read(Supplier<R> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按默认顺序排列的行（只能在read()内使用）
+     */
+    NavigableSet<T> ordered() {
+        return ordered;
+    }
+
+    /**
+     * 表中的行（只能在read()内使用）
+     */
+    T row(int id) {
+        return rows.get(id);
+    }
+
+    T copy(T row) {
+        return copier.apply(row);
+    }
+
+    /**
+     * 回填ID
+     */
+    void assignId(T entity, int id) {
+        idSetter.accept(entity, id);
+    }
+
+    // ---------------------------------------------------------------- 写
+
+    /**
+     * 插入一行，ID为空时自动分配，分配的ID回填到entity
+     * @return 行ID
+     */
+    int insert(T entity) {
+        return store.write(() -> insertRow(entity));
+    }
+
+    private int insertRow(T entity) {
+        T row = copier.apply(entity);
+        int id;
+        lock.writeLock().lock();
+        try {
+            Integer requested = idGetter.apply(row);
+            if (requested != null && requested > 0) {
+                if (rows.containsKey(requested)) {
+                    throw duplicate(requested, name + ".PRIMARY");
+                }
+                id = requested;
+            } else {
+                id = nextId;
+            }
+            idSetter.accept(row, id);
+            checkUnique(row, id);
+            link(row, id);
+            nextId = Math.max(nextId, id + 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        idSetter.accept(entity, id);
+        store.recordUndo(() -> writeLocked(() -> {
+            T current = rows.get(id);
+            if (current != null) {
+                unlink(current, id);
+            }
+        }));
+        store.markModified();
+        return id;
+    }
+
+    /**
+     * 修改一行：在行的副本上执行mutator，替换原来的行
+     * @return 行不存在时返回false
+     */
+    boolean update(int id, Consumer<T> mutator) {
+        return store.write(() -> updateRow(id, mutator));
+    }
+
+    private boolean updateRow(int id, Consumer<T> mutator) {
+        T old;
+        lock.writeLock().lock();
+        try {
+            old = rows.get(id);
+            if (old == null) {
+                return false;
+            }
+            T row = copier.apply(old);
+            mutator.accept(row);
+            idSetter.accept(row, id);
+            unlink(old, id);
+            try {
+                checkUnique(row, id);
+            } catch (RuntimeException e) {
+                link(old, id);
+                throw e;
+            }
+            link(row, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        store.recordUndo(() -> replace(id, old));
+        store.markModified();
+        return true;
+    }
+
+    /**
+     * 删除一行
+     * @return 行不存在时返回false
+     */
+    boolean delete(int id) {
+        return store.write(() -> deleteRow(id));
+    }
+
+    private boolean deleteRow(int id) {
+        T old;
+        lock.writeLock().lock();
+        try {
+            old = rows.get(id);
+            if (old == null) {
+                return false;
+            }
+            unlink(old, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        store.recordUndo(() -> replace(id, old));
+        store.markModified();
+        return true;
+    }
+
+    /**
+     * 按默认顺序删除满足条件的行
+     * @param limit 最多删除的行数，&lt;=0表示不限制
+     * @return 删除的行数
+     */
+    int deleteWhere(Predicate<T> filter, int limit) {
+        return deleteRows(() -> {
+            List<T> matched = new ArrayList<>();
+            for (T row : ordered) {
+                if (filter == null || filter.test(row)) {
+                    matched.add(row);
+                    if (limit > 0 && matched.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            return matched;
+        });
+    }
+
+    /**
+     * 按索引查找后删除满足条件的行
+     */
+    int deleteWhere(IntIndex<T> index, int key, Predicate<T> filter) {
+        return deleteRows(() -> resolve(index.ids(key), filter));
+    }
+
+    /**
+     * 清空表（加载快照前调用，不登记撤销）
+     */
+    void clear() {
+        writeLocked(() -> {
+            rows.clear();
+            ordered.clear();
+            indexes.forEach(Index::clear);
+            nextId = 1;
+        });
+    }
+
+    private int deleteRows(Supplier<List<T>> matcher) {
+        return store.write(() -> deleteMatched(matcher));
+    }
+
+    private int deleteMatched(Supplier<List<T>> matcher) {
+        List<T> deleted;
+        lock.writeLock().lock();
+        try {
+            deleted = matcher.get();
+            for (T row : deleted) {
+                unlink(row, idGetter.apply(row));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!deleted.isEmpty()) {
+            store.recordUndo(() -> writeLocked(() -> {
+                for (T row : deleted) {
+                    link(row, idGetter.apply(row));
+                }
+            }));
+            store.markModified();
+        }
+        return deleted.size();
+    }
+
+    private void replace(int id, T row) {
+        writeLocked(() -> {
+            T current = rows.get(id);
+            if (current != null) {
+                unlink(current, id);
+            }
+            link(row, id);
+        });
+    }
+
+    private void writeLocked(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(T row, int id) {
+        rows.put(id, row);
+        ordered.add(row);
+        for (Index<T> index : indexes) {
+            index.add(row, id);
+        }
+    }
+
+    private void unlink(T row, int id) {
+        rows.remove(id);
+        ordered.remove(row);
+        for (Index<T> index : indexes) {
+            index.remove(row, id);
+        }
+    }
+
+    private void checkUnique(T row, int id) {
+        for (Index<T> index : indexes) {
+            index.checkUnique(row, id);
+        }
+    }
+
+    private List<T> resolve(IntList ids, Predicate<T> filter) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<T> matched = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            T row = rows.get(ids.get(i));
+            if (row != null && (filter == null || filter.test(row))) {
+                matched.add(row);
+            }
+        }
+        matched.sort(ordered.comparator());
+        return matched;
+    }
+
+    private List<T> copyAll(List<T> rowList) {
+        List<T> result = new ArrayList<>(rowList.size());
+        for (T row : rowList) {
+            result.add(copier.apply(row));
+        }
+        return result;
+    }
+
+    private static DatabaseException duplicate(Object key, String indexName) {
+        return new DatabaseException("Duplicate entry '" + key + "' for key '" + indexName + "'");
+    }
+
+    /**
+     * 二级索引
+     */
+    private interface Index<T> {
+        void add(T row, int id);
+
+        void remove(T row, int id);
+
+        void checkUnique(T row, int id);
+
+        void clear();
+    }
+
+    /**
+     * int键索引：键 -> 行ID列表
+     */
+    static final class IntIndex<T> implements Index<T> {
+        private final Function<T, Integer> key;
+        private final IntObjectMap<IntList> entries = new IntObjectMap<>();
+
+        private IntIndex(Function<T, Integer> key) {
+            this.key = key;
+        }
+
+        IntList ids(int value) {
+            return entries.get(value);
+        }
+
+        @Override
+        public void add(T row, int id) {
+            Integer value = key.apply(row);
+            if (value == null) {
+                return;
+            }
+            IntList ids = entries.get(value);
+            if (ids == null) {
+                ids = new IntList();
+                entries.put(value, ids);
+            }
+            ids.add(id);
+        }
+
+        @Override
+        public void remove(T row, int id) {
+            Integer value = key.apply(row);
+            if (value == null) {
+                return;
+            }
+            IntList ids = entries.get(value);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                entries.remove(value);
+            }
+        }
+
+        @Override
+        public void checkUnique(T row, int id) {
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 对象键索引：键 -> 行ID列表，可声明为唯一
+     */
+    static final class KeyIndex<T, K> implements Index<T> {
+        private final String name;
+        private final Function<T, K> key;
+        private final boolean unique;
+        private final Map<K, IntList> entries = new HashMap<>();
+
+        private KeyIndex(String name, Function<T, K> key, boolean unique) {
+            this.name = name;
+            this.key = key;
+            this.unique = unique;
+        }
+
+        IntList ids(K value) {
+            return entries.get(value);
+        }
+
+        @Override
+        public void add(T row, int id) {
+            K value = key.apply(row);
+            if (value != null) {
+                entries.computeIfAbsent(value, k -> new IntList()).add(id);
+            }
+        }
+
+        @Override
+        public void remove(T row, int id) {
+            K value = key.apply(row);
+            if (value == null) {
+                return;
+            }
+            IntList ids = entries.get(value);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                entries.remove(value);
+            }
+        }
+
+        @Override
+        public void checkUnique(T row, int id) {
+            if (!unique) {
+                return;
+            }
+            K value = key.apply(row);
+            IntList ids = value != null ? entries.get(value) : null;
+            if (ids == null) {
+                return;
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) != id) {
+                    throw duplicate(value, name);
+                }
+            }
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.dao.UserDao;
+import com.campus.nav.model.PageCursor;
+import com.campus.nav.model.PageQuery;
+import com.campus.nav.model.PageResult;
+import com.campus.nav.model.User;
+import com.campus.nav.utils.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * 用户DAO内存实现
+ */
+public class MemoryUserDao extends AbstractMemoryDao<User> implements UserDao {
+    private static final Map<String, Comparator<User>> SORT_COLUMNS = Map.of(
+            "id", column(User::getId),
+            "username", column(User::getUsername),
+            "email", column(User::getEmail),
+            "user_type", column(User::getUserType),
+            "created_at", column(User::getCreatedAt),
+            "updated_at", column(User::getUpdatedAt));
+    private static final CursorOrder<User> PAGE_ORDER = new CursorOrder<>() {
+        @Override
+        public PageCursor cursorOf(User user) {
+            return new PageCursor(null, user.getId());
+        }
+
+        @Override
+        public User probe(PageCursor cursor) {
+            return User.builder().id(cursor.getId()).build();
+        }
+    };
+
+    public MemoryUserDao(MemoryStore store) {
+        super(store, store.users);
+    }
+
+    @Override
+    protected int insert(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        return table.insert(user.toBuilder()
+                .id(null)
+                .userType(user.getUserType() != null ? user.getUserType() : User.UserType.USER)
+                .isActive(user.getIsActive() != null ? user.getIsActive() : true)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    @Override
+    public boolean update(User user) {
+        return update(user.getId(), row -> {
+            row.setUsername(user.getUsername());
+            row.setEmail(user.getEmail());
+            row.setUserType(user.getUserType() != null ? user.getUserType() : User.UserType.USER);
+            row.setIsActive(user.getIsActive() != null ? user.getIsActive() : true);
+            row.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        // 对应外键约束：有导航历史的用户不能删除
+        if (id != null && store.histories.count(store.historiesByUser, id, null) > 0) {
+            logger.error("删除用户失败: {}，仍有导航历史", id);
+            TransactionTemplate.setRollbackOnly();
+            return false;
+        }
+        return super.deleteById(id);
+    }
+
+    @Override
+    public PageResult<User> findByPage(PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        Predicate<User> filter = null;
+        if (query.getKeyword() != null && !query.getKeyword().trim().isEmpty()) {
+            String keyword = query.getKeyword().toLowerCase(Locale.ROOT);
+            filter = user -> contains(user.getUsername(), keyword) || contains(user.getEmail(), keyword);
+        }
+        return queryForPage(filter, true, customOrder(query, SORT_COLUMNS), PAGE_ORDER, query);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        return table.select(store.usersByUsername, MemoryStore.lowerCase(username), null).stream().findFirst();
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return table.select(store.usersByEmail, MemoryStore.lowerCase(email), null).stream().findFirst();
+    }
+
+    @Override
+    public Optional<User> validateUser(String username, String password) {
+        if (username == null || password == null) {
+            return Optional.empty();
+        }
+        // 用户名或邮箱均可登录
+        Predicate<User> matches = user -> password.equals(user.getPassword()) && Boolean.TRUE.equals(user.getIsActive());
+        String key = MemoryStore.lowerCase(username);
+        Optional<User> user = table.select(store.usersByUsername, key, matches).stream().findFirst();
+        return user.isPresent() ? user : table.select(store.usersByEmail, key, matches).stream().findFirst();
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return username != null && table.exists(store.usersByUsername, MemoryStore.lowerCase(username));
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return email != null && table.exists(store.usersByEmail, MemoryStore.lowerCase(email));
+    }
+
+    @Override
+    public boolean updatePassword(Integer userId, String newPassword) {
+        return update(userId, row -> {
+            row.setPassword(newPassword);
+            row.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+
+    @Override
+    public boolean updateStatus(Integer userId, boolean isActive) {
+        return update(userId, row -> {
+            row.setIsActive(isActive);
+            row.setUpdatedAt(LocalDateTime.now());
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.campus.nav.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量写入结果
+ * 按输入顺序记录每一行是否成功以及数据库生成的主键
+ */
+public class BatchResult {
+    private final boolean[] succeeded;
+    private final Long[] generatedKeys;
+    private final List<String> errors = new ArrayList<>();
+    private int successCount;
+
+    public BatchResult(int totalCount) {
+        this.succeeded = new boolean[totalCount];
+        this.generatedKeys = new Long[totalCount];
+    }
+
+    /**
+     * 标记某一行成功
+     * @param generatedKey 生成的主键，没有时为null
+     */
+    public void markSuccess(int index, Long generatedKey) {
+        if (!succeeded[index]) {
+            succeeded[index] = true;
+            successCount++;
+        }
+        generatedKeys[index] = generatedKey;
+    }
+
+    /**
+     * 标记[from, to)范围内的行失败
+     */
+    public void markFailed(int from, int to, String error) {
+        for (int i = from; i < to; i++) {
+            if (succeeded[i]) {
+                succeeded[i] = false;
+                successCount--;
+            }
+            generatedKeys[i] = null;
+        }
+        errors.add(String.format("第 %d-%d 行: %s", from + 1, to, error));
+    }
+
+    /**
+     * 总行数
+     */
+    public int getTotalCount() {
+        return succeeded.length;
+    }
+
+    /**
+     * 成功行数
+     */
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * 失败行数
+     */
+    public int getFailedCount() {
+        return succeeded.length - successCount;
+    }
+
+    /**
+     * 是否全部成功
+     */
+    public boolean isAllSucceeded() {
+        return successCount == succeeded.length;
+    }
+
+    /**
+     * 指定行是否成功
+     */
+    public boolean isSuccess(int index) {
+        return succeeded[index];
+    }
+
+    /**
+     * 指定行生成的主键
+     */
+    public Long getGeneratedKey(int index) {
+        return generatedKeys[index];
+    }
+
+    /**
+     * 失败行的下标
+     */
+    public List<Integer> getFailedIndexes() {
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < succeeded.length; i++) {
+            if (!succeeded[i]) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 错误信息
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult{total=%d, success=%d, failed=%d}",
+                getTotalCount(), successCount, getFailedCount());
+    }
+}
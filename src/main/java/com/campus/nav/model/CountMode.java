@@ -0,0 +1,27 @@
+package com.campus.nav.model;
+
+/**
+ * 分页总数统计方式枚举
+ */
+public enum CountMode {
+    EXACT("精确计数", "每次查询执行COUNT(*)"),
+    CACHED("缓存计数", "按查询条件缓存COUNT(*)结果，超时或表被写入后重新统计"),
+    ESTIMATED("估算计数", "无过滤条件时读取表统计信息中的行数，有过滤条件时按缓存计数处理"),
+    NONE("不计数", "多取一行判断是否有下一页，不返回总数");
+    
+    private final String displayName;
+    private final String description;
+    
+    CountMode(String displayName, String description) {
+        this.displayName = displayName;
+        this.description = description;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,75 @@
+package com.campus.nav.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据变更日志记录（data_change_log），用于多个实例之间增量刷新缓存
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataChange {
+    /**
+     * 变更版本号（自增）
+     */
+    private Long id;
+    
+    /**
+     * 变更的表
+     */
+    private String tableName;
+    
+    /**
+     * 变更行ID，为null表示整表变更
+     */
+    private Integer rowId;
+    
+    /**
+     * 变更类型
+     */
+    private Operation operation;
+    
+    /**
+     * 写入变更的实例ID
+     */
+    private String source;
+    
+    /**
+     * 变更时间
+     */
+    private LocalDateTime changedAt;
+    
+    /**
+     * 变更类型枚举
+     */
+    public enum Operation {
+        INSERT("I"),
+        UPDATE("U"),
+        DELETE("D");
+        
+        private final String code;
+        
+        Operation(String code) {
+            this.code = code;
+        }
+        
+        public String getCode() {
+            return code;
+        }
+        
+        public static Operation fromCode(String code) {
+            for (Operation operation : values()) {
+                if (operation.code.equals(code)) {
+                    return operation;
+                }
+            }
+            return UPDATE;
+        }
+    }
+}
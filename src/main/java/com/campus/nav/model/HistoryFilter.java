@@ -0,0 +1,58 @@
+package com.campus.nav.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导航历史过滤条件（用于批量清理），为null的条件不参与过滤
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryFilter {
+    /**
+     * 用户ID
+     */
+    private Integer userId;
+    
+    /**
+     * 起始时间（包含）
+     */
+    private LocalDateTime from;
+    
+    /**
+     * 结束时间（不包含）
+     */
+    private LocalDateTime to;
+    
+    /**
+     * 导航策略
+     */
+    private NavigationStrategy strategy;
+    
+    /**
+     * 全部记录
+     */
+    public static HistoryFilter all() {
+        return new HistoryFilter();
+    }
+    
+    /**
+     * 指定用户的记录
+     */
+    public static HistoryFilter forUser(Integer userId) {
+        return HistoryFilter.builder().userId(userId).build();
+    }
+    
+    /**
+     * 指定时间范围内的记录
+     */
+    public static HistoryFilter between(LocalDateTime from, LocalDateTime to) {
+        return HistoryFilter.builder().from(from).to(to).build();
+    }
+}
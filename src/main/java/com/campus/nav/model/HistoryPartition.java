@@ -0,0 +1,32 @@
+package com.campus.nav.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * 导航历史表的一个分区（按月RANGE分区）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPartition {
+    /**
+     * 分区名（pYYYYMM，兜底分区为p_future）
+     */
+    private String name;
+    
+    /**
+     * 分区对应的月份，兜底分区或无法识别的分区为null
+     */
+    private YearMonth month;
+    
+    /**
+     * 估算行数（information_schema统计值）
+     */
+    private Long rows;
+}
@@ -0,0 +1,38 @@
+package com.campus.nav.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 导航历史按时间汇总的统计（history_daily_rollup），
+ * 按策略或按小时聚合时未参与分组的字段为null
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryStat {
+    /**
+     * 小时（0-23）
+     */
+    private Integer hour;
+    
+    private NavigationStrategy strategy;
+    
+    /**
+     * 导航次数
+     */
+    private Long navCount;
+    
+    /**
+     * 总距离之和（米）
+     */
+    private Double distanceSum;
+    
+    /**
+     * 总时间之和（秒）
+     */
+    private Long timeSum;
+}
@@ -0,0 +1,96 @@
+package com.campus.nav.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 地图数据批量导入结果
+ * 无效的行被拒绝并记录原因（最多保留maxErrors条），已存在的地点（同名）和路径（相同起点终点）跳过
+ */
+public class ImportResult {
+    private final int maxErrors;
+    private final List<String> errors = new ArrayList<>();
+    private int locationsImported;
+    private int locationsSkipped;
+    private int pathsImported;
+    private int pathsSkipped;
+    private int rejected;
+    private long elapsedMillis;
+
+    public ImportResult(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void addLocationsImported(int count) {
+        locationsImported += count;
+    }
+
+    public void locationSkipped() {
+        locationsSkipped++;
+    }
+
+    public void addPathsImported(int count) {
+        pathsImported += count;
+    }
+
+    public void pathSkipped() {
+        pathsSkipped++;
+    }
+
+    /**
+     * 拒绝一行
+     * @param position 行所在的位置，如“locations.csv 第 3 行”
+     */
+    public void reject(String position, String reason) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(position + ": " + reason);
+        }
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getLocationsImported() {
+        return locationsImported;
+    }
+
+    public int getLocationsSkipped() {
+        return locationsSkipped;
+    }
+
+    public int getPathsImported() {
+        return pathsImported;
+    }
+
+    public int getPathsSkipped() {
+        return pathsSkipped;
+    }
+
+    /**
+     * 被拒绝的行数
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 被拒绝的原因（超过上限的不再记录）
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportResult{locations=%d, skippedLocations=%d, paths=%d, skippedPaths=%d, " +
+                        "rejected=%d, elapsed=%dms}", locationsImported, locationsSkipped, pathsImported,
+                pathsSkipped, rejected, elapsedMillis);
+    }
+}
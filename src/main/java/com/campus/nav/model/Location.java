@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
  * 地点实体类
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Location {
@@ -12,7 +12,7 @@ import java.util.List;
  * 导航历史实体类
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class NavigationHistory {
@@ -0,0 +1,24 @@
+package com.campus.nav.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 键集分页游标
+ * 记录一页边界行的排序列值和ID，下一次查询从该位置继续定位
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCursor {
+    /**
+     * 排序列的值
+     */
+    private Object sortValue;
+    
+    /**
+     * 主键（排序列值相同时的次序）
+     */
+    private Integer id;
+}
@@ -38,6 +38,21 @@ public class PageQuery {
      */
     private String keyword;
     
+    /**
+     * 键集分页游标：为null时按页码（OFFSET）查询
+     */
+    private PageCursor cursor;
+    
+    /**
+     * 是否从游标向前翻页（上一页）
+     */
+    private boolean backward;
+    
+    /**
+     * 总数统计方式，为null时精确计数
+     */
+    private CountMode countMode;
+    
     /**
      * 获取偏移量
      */
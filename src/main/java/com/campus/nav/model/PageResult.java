@@ -50,6 +50,21 @@ public class PageResult<T> {
      */
     private Boolean hasNext;
     
+    /**
+     * 本页第一行的游标（用于上一页）
+     */
+    private PageCursor startCursor;
+    
+    /**
+     * 本页最后一行的游标（用于下一页）
+     */
+    private PageCursor endCursor;
+    
+    /**
+     * 总数是否为估算值
+     */
+    private Boolean totalEstimated;
+    
     /**
      * 创建分页结果
      */
@@ -70,6 +85,25 @@ public class PageResult<T> {
                 .totalPages(totalPages)
                 .hasPrevious(pageNum > 1)
                 .hasNext(pageNum < totalPages)
+                .totalEstimated(false)
+                .build();
+    }
+    
+    /**
+     * 创建不含总数的分页结果（total和totalPages为null）
+     */
+    public static <T> PageResult<T> withoutTotal(List<T> data, boolean hasPrevious, boolean hasNext, PageQuery query) {
+        if (query == null) {
+            query = PageQuery.defaultQuery();
+        }
+        
+        return PageResult.<T>builder()
+                .data(data)
+                .pageNum(query.getPageNum() != null ? query.getPageNum() : 1)
+                .pageSize(query.getPageSize() != null ? query.getPageSize() : 10)
+                .hasPrevious(hasPrevious)
+                .hasNext(hasNext)
+                .totalEstimated(false)
                 .build();
     }
 }
\ No newline at end of file
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
  * 路径实体类
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Path {
@@ -82,16 +82,26 @@ public class Path {
      * @return 加权后的距离
      */
     public double calculateWeightedDistance(NavigationStrategy strategy, java.util.Map<String, Double> weights) {
-        double baseDistance = this.distance != null ? this.distance : 0;
+        return weightedDistance(this.distance != null ? this.distance : 0,
+                Boolean.TRUE.equals(this.hasShade),
+                this.scenicLevel != null ? this.scenicLevel : 1,
+                strategy, weights);
+    }
+
+    /**
+     * 根据路径属性计算加权距离（供不持有实体对象的路网图使用）
+     */
+    public static double weightedDistance(double baseDistance, boolean hasShade, int scenicLevel,
+                                          NavigationStrategy strategy, java.util.Map<String, Double> weights) {
         double weight = 1.0;
 
         switch (strategy) {
             case SHADIEST:
-                weight = Boolean.TRUE.equals(this.hasShade) ?
+                weight = hasShade ?
                         weights.getOrDefault("shade", 1.5) : 1.0;
                 break;
             case MOST_SCENIC:
-                int scenic = this.scenicLevel != null ? this.scenicLevel : 1;
+                int scenic = scenicLevel > 0 ? scenicLevel : 1;
                 // 景色越好，权重越小（距离"更短"）
                 weight = 1.0 / (scenic * weights.getOrDefault("scenic", 1.3));
                 break;
@@ -0,0 +1,94 @@
+package com.campus.nav.model;
+
+import java.util.Arrays;
+
+/**
+ * 路网图的边数据（列式存储）
+ * 只保存路径计算需要的ID和数值属性，按列存放在基本类型数组中，不创建实体对象
+ */
+public class PathGraphData {
+    private int size;
+    private int[] pathIds;
+    private int[] startIds;
+    private int[] endIds;
+    private double[] distances;
+    private int[] timeCosts;
+    private boolean[] shades;
+    private int[] scenicLevels;
+
+    public PathGraphData() {
+        this(256);
+    }
+
+    public PathGraphData(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.pathIds = new int[capacity];
+        this.startIds = new int[capacity];
+        this.endIds = new int[capacity];
+        this.distances = new double[capacity];
+        this.timeCosts = new int[capacity];
+        this.shades = new boolean[capacity];
+        this.scenicLevels = new int[capacity];
+    }
+
+    /**
+     * 追加一条边
+     */
+    public void add(int pathId, int startId, int endId, double distance,
+                    int timeCost, boolean hasShade, int scenicLevel) {
+        if (size == pathIds.length) {
+            grow();
+        }
+        pathIds[size] = pathId;
+        startIds[size] = startId;
+        endIds[size] = endId;
+        distances[size] = distance;
+        timeCosts[size] = timeCost;
+        shades[size] = hasShade;
+        scenicLevels[size] = scenicLevel;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = pathIds.length * 2;
+        pathIds = Arrays.copyOf(pathIds, capacity);
+        startIds = Arrays.copyOf(startIds, capacity);
+        endIds = Arrays.copyOf(endIds, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        timeCosts = Arrays.copyOf(timeCosts, capacity);
+        shades = Arrays.copyOf(shades, capacity);
+        scenicLevels = Arrays.copyOf(scenicLevels, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPathId(int i) {
+        return pathIds[i];
+    }
+
+    public int getStartId(int i) {
+        return startIds[i];
+    }
+
+    public int getEndId(int i) {
+        return endIds[i];
+    }
+
+    public double getDistance(int i) {
+        return distances[i];
+    }
+
+    public int getTimeCost(int i) {
+        return timeCosts[i];
+    }
+
+    public boolean hasShade(int i) {
+        return shades[i];
+    }
+
+    public int getScenicLevel(int i) {
+        return scenicLevels[i];
+    }
+}
@@ -0,0 +1,43 @@
+package com.campus.nav.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 路线热度统计（route_rollup，按起点、终点、策略汇总的导航历史）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStat {
+    private Integer startLocationId;
+    private String startLocationName;
+    private Integer endLocationId;
+    private String endLocationName;
+    private NavigationStrategy strategy;
+    
+    /**
+     * 导航次数
+     */
+    private Long navCount;
+    
+    /**
+     * 总距离之和（米）
+     */
+    private Double distanceSum;
+    
+    /**
+     * 总时间之和（秒）
+     */
+    private Long timeSum;
+    
+    /**
+     * 最近一次导航时间
+     */
+    private LocalDateTime lastNavigatedAt;
+}
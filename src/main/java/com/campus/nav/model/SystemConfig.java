@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
  * 系统配置实体类
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class SystemConfig {
@@ -2,7 +2,11 @@ package com.campus.nav.service;
 
 import com.campus.nav.model.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 /**
  * 导航Service接口
@@ -20,6 +24,11 @@ public interface NavigationService {
      */
     boolean saveNavigationHistory(NavigationHistory history);
     
+    /**
+     * 立即写入异步队列中尚未保存的导航历史
+     */
+    void flushNavigationHistory();
+    
     /**
      * 获取用户的导航历史
      */
@@ -36,12 +45,82 @@ public interface NavigationService {
     boolean clearUserNavigationHistory(Integer userId);
     
     /**
-     * 获取推荐路径（基于历史记录）
+     * 统计符合条件的导航历史数量
+     */
+    long countNavigationHistory(HistoryFilter filter);
+    
+    /**
+     * 按条件批量清理导航历史（分块删除，耗时操作，不要在EDT上调用）
+     * @param progress 累计删除数回调，可为null
+     * @return 删除的记录数
+     * @throws com.campus.nav.exception.DatabaseException 删除失败时
+     */
+    long purgeNavigationHistory(HistoryFilter filter, LongConsumer progress);
+    
+    /**
+     * 批量清理用户的导航历史
+     */
+    long purgeUserNavigationHistory(Integer userId, LongConsumer progress);
+    
+    /**
+     * 批量清理时间范围内的导航历史
+     */
+    long purgeNavigationHistoryBetween(LocalDateTime from, LocalDateTime to, LongConsumer progress);
+    
+    /**
+     * 清理全部导航历史
+     */
+    long purgeAllNavigationHistory(LongConsumer progress);
+    
+    /**
+     * 获取推荐路径（按用户和全局最常用的策略，返回缓存的路线）
      */
     List<Location> getRecommendedPath(Integer userId, Integer startLocationId, Integer endLocationId);
     
+    /**
+     * 从起点出发的常用目的地（先取用户自己的，不足时用全局热门补齐）
+     * @param userId 用户ID，为null时只取全局热门
+     */
+    List<RouteStat> getFrequentDestinations(Integer userId, Integer startLocationId, int limit);
+    
+    /**
+     * 热门路线（读取导航历史汇总表）
+     * @param strategy 导航策略，为null时不限
+     */
+    List<RouteStat> getPopularRoutes(NavigationStrategy strategy, int limit);
+    
+    /**
+     * 从指定起点出发的热门路线
+     */
+    List<RouteStat> getPopularRoutesFrom(Integer startLocationId, int limit);
+    
+    /**
+     * 日期范围[from, to)内各导航策略的使用统计
+     */
+    List<HistoryStat> getStrategyStatistics(LocalDate from, LocalDate to);
+    
+    /**
+     * 日期范围[from, to)内按小时的导航次数统计
+     */
+    List<HistoryStat> getHourlyStatistics(LocalDate from, LocalDate to);
+    
     /**
      * 查找附近的地点
      */
     List<Location> findNearbyLocations(Integer locationId, double radius);
+    
+    /**
+     * 预先构建路网图快照（启动时在后台调用，首次导航不再等待构建），已构建时不做处理
+     */
+    void preloadRouteGraph();
+    
+    /**
+     * 使路网图快照失效（路径或地点变更后调用）
+     */
+    void invalidateRouteGraph();
+    
+    /**
+     * 增量更新路网图快照（其他实例修改了路径或地点后由变更日志轮询调用），快照尚未构建时不做处理
+     */
+    void applyGraphChanges(Collection<Integer> changedPathIds, Collection<Integer> changedLocationIds);
 }
\ No newline at end of file
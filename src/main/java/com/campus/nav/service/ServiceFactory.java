@@ -1,5 +1,6 @@
 package com.campus.nav.service;
 
+import com.campus.nav.dao.DaoFactory;
 import com.campus.nav.service.impl.*;
 
 /**
@@ -11,6 +12,12 @@ public class ServiceFactory {
     private static volatile LocationService locationService;
     private static volatile PathService pathService;
     private static volatile NavigationService navigationService;
+    private static volatile ChangeLogPoller changeLogPoller;
+    private static volatile HistoryPartitionManager historyPartitionManager;
+    private static volatile HistoryRollupJob historyRollupJob;
+    private static volatile MapImporter mapImporter;
+    private static volatile HistoryCsvExporter historyCsvExporter;
+    private static volatile SystemConfigManager systemConfigManager;
     
     private ServiceFactory() {
         // 私有构造器，防止实例化
@@ -71,4 +78,92 @@ public class ServiceFactory {
         }
         return navigationService;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 获取变更日志轮询实例
+     */
+    public static ChangeLogPoller getChangeLogPoller() {
+        if (changeLogPoller == null) {
+            synchronized (ServiceFactory.class) {
+                if (changeLogPoller == null) {
+                    changeLogPoller = new ChangeLogPoller(DaoFactory.getChangeLogDao(), getNavigationService());
+                }
+            }
+        }
+        return changeLogPoller;
+    }
+    
+    /**
+     * 获取导航历史分区管理实例
+     */
+    public static HistoryPartitionManager getHistoryPartitionManager() {
+        if (historyPartitionManager == null) {
+            synchronized (ServiceFactory.class) {
+                if (historyPartitionManager == null) {
+                    historyPartitionManager = new HistoryPartitionManager(DaoFactory.getHistoryPartitionDao());
+                }
+            }
+        }
+        return historyPartitionManager;
+    }
+    
+    /**
+     * 获取导航历史汇总任务实例
+     */
+    public static HistoryRollupJob getHistoryRollupJob() {
+        if (historyRollupJob == null) {
+            synchronized (ServiceFactory.class) {
+                if (historyRollupJob == null) {
+                    historyRollupJob = new HistoryRollupJob(DaoFactory.getHistoryRollupDao());
+                }
+            }
+        }
+        return historyRollupJob;
+    }
+    
+    /**
+     * 获取地图数据批量导入实例
+     */
+    public static MapImporter getMapImporter() {
+        if (mapImporter == null) {
+            synchronized (ServiceFactory.class) {
+                if (mapImporter == null) {
+                    mapImporter = new MapImporter(DaoFactory.getLocationDao(), DaoFactory.getPathDao(),
+                            getNavigationService());
+                }
+            }
+        }
+        return mapImporter;
+    }
+    
+    /**
+     * 获取导航历史CSV导出实例
+     */
+    public static HistoryCsvExporter getHistoryCsvExporter() {
+        if (historyCsvExporter == null) {
+            synchronized (ServiceFactory.class) {
+                if (historyCsvExporter == null) {
+                    historyCsvExporter = new HistoryCsvExporter(DaoFactory.getNavigationHistoryDao(),
+                            getNavigationService());
+                }
+            }
+        }
+        return historyCsvExporter;
+    }
+    
+    /**
+     * 获取系统配置加载实例（随变更日志轮询热更新）
+     */
+    public static SystemConfigManager getSystemConfigManager() {
+        if (systemConfigManager == null) {
+            synchronized (ServiceFactory.class) {
+                if (systemConfigManager == null) {
+                    SystemConfigManager manager = new SystemConfigManager(DaoFactory.getSystemConfigDao());
+                    getChangeLogPoller().addListener(manager);
+                    systemConfigManager = manager;
+                }
+            }
+        }
+        return systemConfigManager;
+    }
+}
@@ -0,0 +1,375 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.ChangeLogDao;
+import com.campus.nav.dao.DaoFactory;
+import com.campus.nav.dao.LocationDao;
+import com.campus.nav.dao.impl.CachedLocationDao;
+import com.campus.nav.model.DataChange;
+import com.campus.nav.service.NavigationService;
+import com.campus.nav.utils.CountCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 变更日志轮询
+ * 定时读取其他实例登记的变更（版本号大于上次读到的版本），按表汇总后增量刷新本实例的地点缓存、
+ * 分页计数缓存和路网图，再通知监听器（如主界面重新加载地图数据）。
+ * 自增ID按分配顺序而不是提交顺序可见：版本号出现空洞时先应用空洞后面的变更并等待空洞补齐。
+ * 空洞后面的变更读到时，空洞对应的事务已经开始；之后主库上不再有在那之前开始的事务时，
+ * 这些事务都已结束，再读一次仍未出现的空洞属于已回滚的事务，跳过。无法查看事务列表时，
+ * 等待changelog.maxTransactionSeconds后跳过并全量重新加载，不丢失超时后才提交的变更
+ */
+public class ChangeLogPoller {
+    private static final Logger logger = LogManager.getLogger(ChangeLogPoller.class);
+
+    private static final String LOCATIONS = "locations";
+    private static final String PATHS = "paths";
+    private static final String SYSTEM_CONFIG = "system_config";
+    private static final int PURGE_CHUNK = 1000;
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 变更监听器，在轮询线程上回调
+     */
+    public interface Listener {
+        /**
+         * @param tableName 表名
+         * @param rowIds 变更的行ID，null表示整表需要重新加载
+         */
+        void onChange(String tableName, Set<Integer> rowIds);
+    }
+
+    private final ChangeLogDao changeLogDao;
+    private final NavigationService navigationService;
+    private final long pollIntervalMillis;
+    private final int batchSize;
+    private final long maxTransactionSeconds;
+    private final long retentionMillis;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // 以下状态只在轮询线程上访问
+    private long version = -1;
+    // 空洞后面已应用的变更 -> 读到时的主库时间（秒）
+    private final TreeMap<Long, Long> appliedAbove = new TreeMap<>();
+    private long lastPolledAt;
+    private long lastPurgedAt;
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder skippedGaps = new LongAdder();
+    private final LongAdder fullReloads = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    public ChangeLogPoller(ChangeLogDao changeLogDao, NavigationService navigationService) {
+        this.changeLogDao = changeLogDao;
+        this.navigationService = navigationService;
+        this.pollIntervalMillis = Long.parseLong(DatabaseConfig.getProperty("changelog.pollIntervalMillis", "2000"));
+        this.batchSize = Integer.parseInt(DatabaseConfig.getProperty("changelog.batchSize", "500"));
+        this.maxTransactionSeconds = Long.parseLong(
+                DatabaseConfig.getProperty("changelog.maxTransactionSeconds", "3600"));
+        this.retentionMillis = TimeUnit.HOURS.toMillis(
+                Long.parseLong(DatabaseConfig.getProperty("changelog.retentionHours", "24")));
+    }
+
+    /**
+     * 启动轮询线程；变更日志未启用时不启动
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        if (!changeLogDao.isEnabled()) {
+            logger.info("变更日志未启用，不轮询其他实例的修改");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "changelog-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        DatabaseConfig.addCloseHook(this::stop);
+        logger.info("变更日志轮询已启动: 实例 {}, 间隔 {}ms", changeLogDao.getInstanceId(), pollIntervalMillis);
+    }
+
+    /**
+     * 停止轮询线程
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            logger.info("变更日志轮询已停止: {}", getStatus());
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 获取轮询状态信息
+     */
+    public String getStatus() {
+        return String.format("变更日志轮询: 版本=%d, 轮询=%d, 应用变更=%d, 跳过空洞=%d, 全量重载=%d, 失败=%d",
+                version, polls.sum(), applied.sum(), skippedGaps.sum(), fullReloads.sum(), failures.sum());
+    }
+
+    /**
+     * 执行一次轮询
+     */
+    private void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            if (version < 0) {
+                // 首次轮询从当前最新版本开始，之前的数据在启动加载时已经读到
+                long latest = changeLogDao.findLatestVersion();
+                if (latest < 0) {
+                    return;
+                }
+                version = latest;
+            } else if (now - lastPolledAt > retentionMillis) {
+                // 停顿超过保留时长，期间的变更可能已被清理，只能全量重载
+                logger.warn("变更日志轮询中断超过 {} 小时，全量重新加载", TimeUnit.MILLISECONDS.toHours(retentionMillis));
+                long latest = changeLogDao.findLatestVersion();
+                if (latest < 0) {
+                    return;
+                }
+                reloadAll();
+                version = latest;
+                appliedAbove.clear();
+            } else {
+                pollChanges();
+            }
+            lastPolledAt = now;
+            polls.increment();
+            purgeIfDue(now);
+        } catch (Exception e) {
+            failures.increment();
+            logger.error("变更日志轮询失败", e);
+        }
+    }
+
+    /**
+     * 分页读取新变更，汇总后一次性应用
+     */
+    private void pollChanges() {
+        // 在读取之前判断哪些空洞已确认结束：已提交的会在随后的读取中出现，仍未出现的就是已回滚的
+        long settledBefore = Long.MIN_VALUE;
+        boolean reloadOnSkip = false;
+        if (!appliedAbove.isEmpty()) {
+            if (appliedAbove.containsValue(Long.MAX_VALUE)) {
+                // 上一轮在记录读取时间前失败，按现在的时间记录（只会等待更久）
+                long seenAt = changeLogDao.currentTime();
+                appliedAbove.replaceAll((id, at) -> at == Long.MAX_VALUE ? seenAt : at);
+            }
+            long oldest = changeLogDao.oldestTransactionStart();
+            if (oldest == 0) {
+                settledBefore = changeLogDao.currentTime() + 1;
+            } else if (oldest > 0) {
+                // 事务开始时间只精确到秒，同一秒读到的空洞按未结束处理
+                settledBefore = oldest;
+            } else {
+                settledBefore = changeLogDao.currentTime() - maxTransactionSeconds + 1;
+                reloadOnSkip = true;
+            }
+        }
+
+        Map<String, Set<Integer>> changes = new LinkedHashMap<>();
+        List<Long> newGaps = new ArrayList<>();
+        long cursor = version;
+        List<DataChange> page;
+        do {
+            page = changeLogDao.findSince(cursor, batchSize);
+            for (DataChange change : page) {
+                cursor = change.getId();
+                if (change.getId() <= version || appliedAbove.containsKey(change.getId())) {
+                    // 空洞补齐前已经应用过
+                    continue;
+                }
+                if (!changeLogDao.getInstanceId().equals(change.getSource())) {
+                    // 本实例的写操作已在DAO中失效了缓存
+                    collect(changes, change);
+                }
+                if (change.getId() == version + 1) {
+                    version = change.getId();
+                    advanceOverApplied();
+                } else {
+                    // 读取时间在本轮读完后记录，之前不参与跳过
+                    appliedAbove.put(change.getId(), Long.MAX_VALUE);
+                    newGaps.add(change.getId());
+                }
+            }
+        } while (page.size() >= batchSize);
+
+        // 空洞前面最早的变更读到时已开始的事务都已结束，空洞对应的事务已回滚
+        boolean skipped = false;
+        while (!appliedAbove.isEmpty() && appliedAbove.firstEntry().getValue() < settledBefore) {
+            long next = appliedAbove.pollFirstEntry().getKey();
+            skippedGaps.increment();
+            skipped = true;
+            logger.debug("变更日志版本 {} 到 {} 之间的空洞已确认回滚，跳过", version, next);
+            version = next;
+            advanceOverApplied();
+        }
+        if (!newGaps.isEmpty()) {
+            long seenAt = changeLogDao.currentTime();
+            for (Long id : newGaps) {
+                appliedAbove.replace(id, seenAt);
+            }
+        }
+
+        if (skipped && reloadOnSkip) {
+            // 没有确认空洞已回滚，全量重新加载以包含可能更晚提交的修改
+            logger.warn("变更日志空洞等待超过 {} 秒，跳过并全量重新加载", maxTransactionSeconds);
+            reloadAll();
+        } else if (!changes.isEmpty()) {
+            apply(changes);
+        }
+    }
+
+    private void advanceOverApplied() {
+        while (appliedAbove.remove(version + 1) != null) {
+            version++;
+        }
+    }
+
+    private static void collect(Map<String, Set<Integer>> changes, DataChange change) {
+        String table = change.getTableName();
+        if (change.getRowId() == null) {
+            changes.put(table, null);
+            return;
+        }
+        if (!changes.containsKey(table)) {
+            changes.put(table, new HashSet<>());
+        }
+        Set<Integer> ids = changes.get(table);
+        if (ids != null) {
+            ids.add(change.getRowId());
+        }
+    }
+
+    /**
+     * 应用汇总后的变更：先刷新数据缓存，再增量更新路网图，最后通知监听器
+     */
+    private void apply(Map<String, Set<Integer>> changes) {
+        for (String table : changes.keySet()) {
+            CountCache.invalidateTable(table);
+        }
+
+        boolean locationsChanged = changes.containsKey(LOCATIONS);
+        Set<Integer> locationIds = changes.get(LOCATIONS);
+        if (locationsChanged) {
+            LocationDao locationDao = DaoFactory.getLocationDao();
+            if (locationDao instanceof CachedLocationDao) {
+                if (locationIds == null) {
+                    ((CachedLocationDao) locationDao).invalidate();
+                } else {
+                    ((CachedLocationDao) locationDao).refresh(locationIds);
+                }
+            }
+        }
+
+        boolean pathsChanged = changes.containsKey(PATHS);
+        Set<Integer> pathIds = changes.get(PATHS);
+        if (locationsChanged || pathsChanged) {
+            if ((locationsChanged && locationIds == null) || (pathsChanged && pathIds == null)) {
+                navigationService.invalidateRouteGraph();
+            } else {
+                navigationService.applyGraphChanges(
+                        pathIds != null ? pathIds : Collections.emptySet(),
+                        locationIds != null ? locationIds : Collections.emptySet());
+            }
+        }
+
+        int count = 0;
+        for (Map.Entry<String, Set<Integer>> entry : changes.entrySet()) {
+            Set<Integer> ids = entry.getValue();
+            count += ids != null ? ids.size() : 1;
+            notifyListeners(entry.getKey(), ids != null ? Collections.unmodifiableSet(ids) : null);
+        }
+        applied.add(count);
+        logger.info("已应用其他实例的数据变更: {}", describe(changes));
+    }
+
+    /**
+     * 全量重新加载所有缓存
+     */
+    private void reloadAll() {
+        LocationDao locationDao = DaoFactory.getLocationDao();
+        if (locationDao instanceof CachedLocationDao) {
+            ((CachedLocationDao) locationDao).invalidate();
+        }
+        CountCache.clear();
+        navigationService.invalidateRouteGraph();
+        for (String table : new String[]{LOCATIONS, PATHS, SYSTEM_CONFIG}) {
+            notifyListeners(table, null);
+        }
+        fullReloads.increment();
+    }
+
+    private void notifyListeners(String table, Set<Integer> rowIds) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onChange(table, rowIds);
+            } catch (Exception e) {
+                logger.error("变更监听器处理失败: {}", table, e);
+            }
+        }
+    }
+
+    /**
+     * 大约每小时清理一次超过保留时长的变更日志
+     */
+    private void purgeIfDue(long now) {
+        if (now - lastPurgedAt < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgedAt = now;
+        LocalDateTime before = LocalDateTime.now().minus(retentionMillis, ChronoUnit.MILLIS);
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = changeLogDao.purgeBefore(before, PURGE_CHUNK);
+            purged += deleted;
+        } while (deleted >= PURGE_CHUNK && !Thread.currentThread().isInterrupted());
+        if (purged > 0) {
+            logger.info("已清理 {} 条过期变更日志", purged);
+        }
+    }
+
+    private static String describe(Map<String, Set<Integer>> changes) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Set<Integer>> entry : changes.entrySet()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(entry.getKey()).append('=')
+                    .append(entry.getValue() != null ? entry.getValue().size() + "行" : "整表");
+        }
+        return text.toString();
+    }
+}
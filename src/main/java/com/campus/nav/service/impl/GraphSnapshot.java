@@ -0,0 +1,279 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.model.Location;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.Path;
+import com.campus.nav.model.PathGraphData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路网图快照（不可变）
+ * 邻接关系以CSR（压缩稀疏行）形式存储，各导航策略的边权重在构建时预先计算，
+ * 路径搜索过程只访问基本类型数组，不访问数据库
+ */
+public final class GraphSnapshot {
+    private final Map<Integer, Integer> nodeIndex;
+    private final Location[] locations;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] edgeRefs;
+    private final PathGraphData edges;
+    private final EnumMap<NavigationStrategy, double[]> weights;
+
+    /**
+     * @param nodeIndex 地点ID到节点序号的映射
+     * @param locations 节点序号对应的地点
+     * @param offsets   每个节点出边在targets中的起始位置，长度为节点数+1
+     * @param targets   出边指向的节点序号
+     * @param edgeRefs  出边在edges中的下标
+     * @param edges     原始边数据
+     * @param weights   各策略下按edges下标存放的边权重
+     */
+    GraphSnapshot(Map<Integer, Integer> nodeIndex, Location[] locations,
+                  int[] offsets, int[] targets, int[] edgeRefs,
+                  PathGraphData edges, EnumMap<NavigationStrategy, double[]> weights) {
+        this.nodeIndex = nodeIndex;
+        this.locations = locations;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edgeRefs = edgeRefs;
+        this.edges = edges;
+        this.weights = weights;
+    }
+
+    /**
+     * 使用新的边权重、结构不变的快照
+     */
+    GraphSnapshot withWeights(EnumMap<NavigationStrategy, double[]> newWeights) {
+        return new GraphSnapshot(nodeIndex, locations, offsets, targets, edgeRefs, edges, newWeights);
+    }
+
+    /**
+     * 节点数
+     */
+    public int getNodeCount() {
+        return locations.length;
+    }
+
+    /**
+     * 边数
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * 图中的地点（可通行地点），增量更新时使用
+     */
+    Location[] getLocations() {
+        return locations;
+    }
+
+    /**
+     * 原始边数据，增量更新时使用
+     */
+    PathGraphData getEdges() {
+        return edges;
+    }
+
+    /**
+     * 是否包含指定地点
+     */
+    public boolean containsLocation(Integer locationId) {
+        return nodeIndex.containsKey(locationId);
+    }
+
+    /**
+     * 获取地点
+     */
+    public Location getLocation(Integer locationId) {
+        Integer node = nodeIndex.get(locationId);
+        return node != null ? locations[node] : null;
+    }
+
+    /**
+     * 使用Dijkstra算法查找路线
+     * @return 依次经过的边（edges下标），找不到时返回null
+     */
+    public int[] findRoute(Integer startId, Integer endId, NavigationStrategy strategy) {
+        Integer source = nodeIndex.get(startId);
+        Integer target = nodeIndex.get(endId);
+        if (source == null || target == null) {
+            return null;
+        }
+
+        double[] edgeWeights = weights.get(strategy);
+        int n = locations.length;
+        double[] dist = new double[n];
+        int[] viaEdge = new int[n];
+        Arrays.fill(dist, Double.MAX_VALUE);
+        Arrays.fill(viaEdge, -1);
+        dist[source] = 0.0;
+
+        MinHeap heap = new MinHeap(targets.length + 1);
+        heap.push(source, 0.0);
+
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int u = heap.pop();
+
+            if (u == target) {
+                break;
+            }
+            if (d > dist[u]) {
+                continue;
+            }
+
+            for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+                int v = targets[slot];
+                double nd = d + edgeWeights[edgeRefs[slot]];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    viaEdge[v] = edgeRefs[slot];
+                    heap.push(v, nd);
+                }
+            }
+        }
+
+        if (viaEdge[target] < 0) {
+            return null;
+        }
+
+        // 从终点回溯
+        int hops = 0;
+        for (int node = target; node != source; node = nodeIndex.get(edges.getStartId(viaEdge[node]))) {
+            hops++;
+        }
+        int[] route = new int[hops];
+        int node = target;
+        for (int i = hops - 1; i >= 0; i--) {
+            route[i] = viaEdge[node];
+            node = nodeIndex.get(edges.getStartId(route[i]));
+        }
+        return route;
+    }
+
+    /**
+     * 将路线转换为依次经过的地点列表
+     */
+    public List<Location> toLocations(int[] route) {
+        List<Location> result = new ArrayList<>(route.length + 1);
+        if (route.length == 0) {
+            return result;
+        }
+        result.add(getLocation(edges.getStartId(route[0])));
+        for (int edge : route) {
+            result.add(getLocation(edges.getEndId(edge)));
+        }
+        return result;
+    }
+
+    /**
+     * 将路线转换为路径对象列表
+     */
+    public List<Path> toPaths(int[] route) {
+        List<Path> result = new ArrayList<>(route.length);
+        for (int edge : route) {
+            result.add(Path.builder()
+                    .id(edges.getPathId(edge))
+                    .startLocationId(edges.getStartId(edge))
+                    .endLocationId(edges.getEndId(edge))
+                    .startLocation(getLocation(edges.getStartId(edge)))
+                    .endLocation(getLocation(edges.getEndId(edge)))
+                    .distance(edges.getDistance(edge))
+                    .timeCost(edges.getTimeCost(edge))
+                    .hasShade(edges.hasShade(edge))
+                    .scenicLevel(edges.getScenicLevel(edge))
+                    .isActive(true)
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * 路线总距离（米）
+     */
+    public double totalDistance(int[] route) {
+        double total = 0.0;
+        for (int edge : route) {
+            total += edges.getDistance(edge);
+        }
+        return total;
+    }
+
+    /**
+     * 路线总时间（分钟）
+     */
+    public int totalTime(int[] route) {
+        int total = 0;
+        for (int edge : route) {
+            total += edges.getTimeCost(edge);
+        }
+        return total;
+    }
+
+    /**
+     * 基于数组的二叉最小堆（节点序号 + 距离）
+     */
+    private static final class MinHeap {
+        private final int[] nodes;
+        private final double[] keys;
+        private int size;
+
+        MinHeap(int capacity) {
+            this.nodes = new int[capacity];
+            this.keys = new double[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        void push(int node, double key) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            double lastKey = keys[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (lastKey <= keys[child]) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            keys[i] = lastKey;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.SystemConfig;
+import com.campus.nav.dao.LocationDao;
+import com.campus.nav.dao.PathDao;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.Path;
+import com.campus.nav.model.PathGraphData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路网图快照构建器
+ * 通过PathDao的窄投影查询加载边数据，构建CSR邻接结构并预计算各策略权重
+ */
+public class GraphSnapshotBuilder {
+    private static final Logger logger = LogManager.getLogger(GraphSnapshotBuilder.class);
+
+    private final PathDao pathDao;
+    private final LocationDao locationDao;
+
+    public GraphSnapshotBuilder(PathDao pathDao, LocationDao locationDao) {
+        this.pathDao = pathDao;
+        this.locationDao = locationDao;
+    }
+
+    /**
+     * 从数据库加载数据并构建快照
+     */
+    public GraphSnapshot build() {
+        long begin = System.nanoTime();
+        PathGraphData edges = pathDao.loadGraphData();
+        List<Location> locations = locationDao.findAccessibleLocations();
+        GraphSnapshot snapshot = build(edges, locations, SystemConfig.getPathWeights());
+        logger.info("路网图快照构建完成: {} 个节点, {} 条边, 耗时 {} ms",
+                snapshot.getNodeCount(), snapshot.getEdgeCount(), (System.nanoTime() - begin) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * 增量更新快照：只读取变更的路径和地点，与现有快照的其余数据合并后在内存中重建图结构
+     * 地点的可通行状态变化会影响相连路径是否进入图中，这些路径一并重新读取
+     * @param changedPathIds     变更（插入、更新、删除）的路径ID
+     * @param changedLocationIds 变更的地点ID
+     */
+    public GraphSnapshot update(GraphSnapshot current, Collection<Integer> changedPathIds,
+                                Collection<Integer> changedLocationIds) {
+        long begin = System.nanoTime();
+
+        // 重新读取变更的地点，已删除或不可通行的从图中移除
+        Map<Integer, Location> locations = new LinkedHashMap<>();
+        for (Location location : current.getLocations()) {
+            locations.put(location.getId(), location);
+        }
+        Map<Integer, Path> freshPaths = new HashMap<>();
+        for (Integer locationId : changedLocationIds) {
+            locations.remove(locationId);
+            locationDao.findById(locationId)
+                    .filter(location -> Boolean.TRUE.equals(location.getIsAccessible()))
+                    .ifPresent(location -> locations.put(locationId, location));
+            for (Path path : pathDao.findByStartLocation(locationId)) {
+                freshPaths.put(path.getId(), path);
+            }
+            for (Path path : pathDao.findByEndLocation(locationId)) {
+                freshPaths.put(path.getId(), path);
+            }
+        }
+
+        // 重新读取变更的路径，已删除的为null
+        for (Integer pathId : changedPathIds) {
+            freshPaths.put(pathId, pathDao.findById(pathId).orElse(null));
+        }
+
+        // 保留未变更的边，追加重新读取的有效边
+        PathGraphData oldEdges = current.getEdges();
+        PathGraphData edges = new PathGraphData(oldEdges.size() + freshPaths.size());
+        for (int i = 0; i < oldEdges.size(); i++) {
+            if (!freshPaths.containsKey(oldEdges.getPathId(i))) {
+                edges.add(oldEdges.getPathId(i), oldEdges.getStartId(i), oldEdges.getEndId(i),
+                        oldEdges.getDistance(i), oldEdges.getTimeCost(i), oldEdges.hasShade(i),
+                        oldEdges.getScenicLevel(i));
+            }
+        }
+        for (Path path : freshPaths.values()) {
+            if (path != null && Boolean.TRUE.equals(path.getIsActive())
+                    && path.getStartLocationId() != null && path.getEndLocationId() != null) {
+                edges.add(path.getId(), path.getStartLocationId(), path.getEndLocationId(),
+                        path.getDistance() != null ? path.getDistance() : 0,
+                        path.getTimeCost() != null ? path.getTimeCost() : 0,
+                        Boolean.TRUE.equals(path.getHasShade()),
+                        path.getScenicLevel() != null ? path.getScenicLevel() : 0);
+            }
+        }
+
+        GraphSnapshot snapshot = build(edges, new ArrayList<>(locations.values()), SystemConfig.getPathWeights());
+        logger.info("路网图快照增量更新: 变更路径 {} 条, 变更地点 {} 个, {} 个节点, {} 条边, 耗时 {} ms",
+                changedPathIds.size(), changedLocationIds.size(), snapshot.getNodeCount(), snapshot.getEdgeCount(),
+                (System.nanoTime() - begin) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * 由已加载的数据构建快照
+     */
+    public static GraphSnapshot build(PathGraphData edges, List<Location> locations, Map<String, Double> pathWeights) {
+        // 节点编号
+        Map<Integer, Integer> nodeIndex = new HashMap<>(locations.size() * 2);
+        Location[] nodes = new Location[locations.size()];
+        int n = 0;
+        for (Location location : locations) {
+            if (location.getId() != null && !nodeIndex.containsKey(location.getId())) {
+                nodeIndex.put(location.getId(), n);
+                nodes[n++] = location;
+            }
+        }
+        if (n < nodes.length) {
+            nodes = Arrays.copyOf(nodes, n);
+        }
+
+        // 过滤无效边，统计每个节点的出度
+        int m = edges.size();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            Integer u = nodeIndex.get(edges.getStartId(i));
+            Integer v = nodeIndex.get(edges.getEndId(i));
+            if (u == null || v == null || !isEdgeValid(edges, i)) {
+                from[i] = -1;
+                continue;
+            }
+            from[i] = u;
+            to[i] = v;
+            offsets[u + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        // 填充CSR数组
+        int[] targets = new int[offsets[n]];
+        int[] edgeRefs = new int[offsets[n]];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < m; i++) {
+            if (from[i] < 0) {
+                continue;
+            }
+            int slot = cursor[from[i]]++;
+            targets[slot] = to[i];
+            edgeRefs[slot] = i;
+        }
+
+        return new GraphSnapshot(nodeIndex, nodes, offsets, targets, edgeRefs, edges,
+                computeWeights(edges, pathWeights));
+    }
+
+    /**
+     * 路径权重配置变化后重新计算边权重，图结构与现有快照共享
+     */
+    public static GraphSnapshot reweigh(GraphSnapshot current, Map<String, Double> pathWeights) {
+        return current.withWeights(computeWeights(current.getEdges(), pathWeights));
+    }
+
+    /**
+     * 预计算各策略的边权重
+     */
+    private static EnumMap<NavigationStrategy, double[]> computeWeights(PathGraphData edges,
+                                                                        Map<String, Double> pathWeights) {
+        int m = edges.size();
+        EnumMap<NavigationStrategy, double[]> weights = new EnumMap<>(NavigationStrategy.class);
+        for (NavigationStrategy strategy : NavigationStrategy.values()) {
+            double[] w = new double[m];
+            for (int i = 0; i < m; i++) {
+                w[i] = Path.weightedDistance(edges.getDistance(i), edges.hasShade(i),
+                        edges.getScenicLevel(i), strategy, pathWeights);
+            }
+            weights.put(strategy, w);
+        }
+        return weights;
+    }
+
+    /**
+     * 检查边是否有效
+     */
+    private static boolean isEdgeValid(PathGraphData edges, int i) {
+        if (edges.getStartId(i) == edges.getEndId(i)) return false; // 自环路径
+        if (edges.getDistance(i) <= 0) return false;
+        if (edges.getTimeCost(i) <= 0) return false;
+        return true;
+    }
+}
@@ -0,0 +1,175 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.NavigationHistoryDao;
+import com.campus.nav.model.HistoryFilter;
+import com.campus.nav.model.NavigationHistory;
+import com.campus.nav.service.NavigationService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * 导航历史CSV导出
+ * 按过滤条件用服务端游标流式读取全部匹配的历史（不只是界面上的当前页），每行在复用的StringBuilder中
+ * 格式化后写入带缓冲的Writer，内存占用与总行数无关。
+ * 先写入临时文件，完成后替换目标文件；线程被中断（取消）或失败时删除临时文件
+ */
+public class HistoryCsvExporter {
+    private static final Logger logger = LogManager.getLogger(HistoryCsvExporter.class);
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final NavigationHistoryDao navigationHistoryDao;
+    private final NavigationService navigationService;
+    private final int bufferSize;
+
+    public HistoryCsvExporter(NavigationHistoryDao navigationHistoryDao, NavigationService navigationService) {
+        this.navigationHistoryDao = navigationHistoryDao;
+        this.navigationService = navigationService;
+        this.bufferSize = Integer.parseInt(DatabaseConfig.getProperty("export.bufferSize", "65536"));
+    }
+
+    /**
+     * 导出到文件
+     * @param includeUser 是否包含用户名列
+     * @param progress 已写入的行数，可以为null
+     * @return 导出的行数
+     */
+    public long exportToFile(HistoryFilter filter, boolean includeUser, File file, LongConsumer progress)
+            throws IOException {
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".part");
+        boolean completed = false;
+        try {
+            long rows;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(temp.toPath()), StandardCharsets.UTF_8), bufferSize)) {
+                rows = export(filter, includeUser, writer, progress);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            completed = true;
+            logger.info("导航历史已导出: {} 条 -> {}", rows, file.getAbsolutePath());
+            return rows;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+
+    /**
+     * 导出到Writer（调用方负责缓冲和关闭）
+     * @return 导出的行数
+     */
+    public long export(HistoryFilter filter, boolean includeUser, Writer writer, LongConsumer progress)
+            throws IOException {
+        // 先写入异步队列中尚未保存的历史
+        navigationService.flushNavigationHistory();
+
+        writer.write(includeUser
+                ? "用户名,起点,终点,策略,距离(米),时间(分钟),导航时间\n"
+                : "起点,终点,策略,距离(米),时间(分钟),导航时间\n");
+
+        StringBuilder line = new StringBuilder(256);
+        long rows = 0;
+        try (Stream<NavigationHistory> histories = navigationHistoryDao.streamByFilter(filter)) {
+            Iterator<NavigationHistory> iterator = histories.iterator();
+            while (iterator.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("导出已取消");
+                }
+                line.setLength(0);
+                formatRow(iterator.next(), includeUser, line);
+                writer.append(line);
+                if (++rows % PROGRESS_INTERVAL == 0 && progress != null) {
+                    progress.accept(rows);
+                }
+            }
+        }
+        if (progress != null) {
+            progress.accept(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * 格式化一行（不经过String.format，时间直接格式化到line中）
+     */
+    private static void formatRow(NavigationHistory history, boolean includeUser, StringBuilder line) {
+        if (includeUser) {
+            appendField(line, history.getUser() != null ? history.getUser().getUsername() : null);
+            line.append(',');
+        }
+        appendField(line, history.getStartLocation() != null ? history.getStartLocation().getName() : null);
+        line.append(',');
+        appendField(line, history.getEndLocation() != null ? history.getEndLocation().getName() : null);
+        line.append(',');
+        appendField(line, history.getPathStrategy() != null ? history.getPathStrategy().getDisplayName() : null);
+        line.append(',');
+        appendOneDecimal(line, history.getTotalDistance() != null ? history.getTotalDistance() : 0.0);
+        line.append(',');
+        line.append(history.getTotalTime() != null ? history.getTotalTime() : 0);
+        line.append(',');
+        if (history.getCreatedAt() != null) {
+            TIME_FORMAT.formatTo(history.getCreatedAt(), line);
+        }
+        line.append('\n');
+    }
+
+    /**
+     * 追加文本字段，含逗号、引号或换行时加引号并转义
+     */
+    private static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * 四舍五入保留一位小数
+     */
+    private static void appendOneDecimal(StringBuilder line, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            line.append(value);
+            return;
+        }
+        long scaled = Math.round(value * 10);
+        if (scaled < 0) {
+            line.append('-');
+            scaled = -scaled;
+        }
+        line.append(scaled / 10).append('.').append(scaled % 10);
+    }
+}
@@ -0,0 +1,165 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.HistoryPartitionDao;
+import com.campus.nav.model.HistoryPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导航历史分区管理
+ * 启动时和之后每隔history.partition.checkIntervalHours检查一次：
+ * 1. 提前建好当前月之后history.partition.monthsAhead个月的分区，新数据不会落入兜底分区
+ * 2. 配置了保留月数（history.partition.retentionMonths，默认0不清理）时，更早的分区整体交换到归档表，
+ *    或在显式配置retentionAction=DROP时直接删除，代替逐行DELETE
+ * 维护持有数据库命名锁，多个实例同时检查时只有一个执行DDL，其余跳过；失败时下次检查按最新的分区状态重试
+ */
+public class HistoryPartitionManager {
+    private static final Logger logger = LogManager.getLogger(HistoryPartitionManager.class);
+
+    /**
+     * 超过保留期的分区的处理方式
+     */
+    public enum RetentionAction {
+        DROP,     // 直接删除
+        ARCHIVE   // 交换到归档表后删除分区
+    }
+
+    private final HistoryPartitionDao partitionDao;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final RetentionAction retentionAction;
+    private final long checkIntervalHours;
+
+    private ScheduledExecutorService scheduler;
+
+    public HistoryPartitionManager(HistoryPartitionDao partitionDao) {
+        this.partitionDao = partitionDao;
+        this.monthsAhead = Integer.parseInt(DatabaseConfig.getProperty("history.partition.monthsAhead", "3"));
+        this.retentionMonths = Integer.parseInt(DatabaseConfig.getProperty("history.partition.retentionMonths", "0"));
+        this.retentionAction = RetentionAction.valueOf(DatabaseConfig.getProperty(
+                "history.partition.retentionAction", "ARCHIVE").trim().toUpperCase(Locale.ROOT));
+        this.checkIntervalHours = Long.parseLong(DatabaseConfig.getProperty("history.partition.checkIntervalHours", "24"));
+    }
+
+    /**
+     * 立即在后台检查一次并启动定时检查
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, checkIntervalHours, TimeUnit.HOURS);
+        DatabaseConfig.addCloseHook(this::stop);
+        if (retentionMonths > 0) {
+            logger.warn("导航历史保留 {} 个月，更早的分区将{}", retentionMonths,
+                    retentionAction == RetentionAction.DROP ? "直接删除" : "归档后删除");
+        }
+    }
+
+    /**
+     * 停止定时检查
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 执行一次分区维护
+     */
+    public void maintain() {
+        try {
+            List<HistoryPartition> partitions = partitionDao.findPartitions();
+            if (partitions.isEmpty()) {
+                logger.warn("navigation_history未分区，跳过分区维护（旧库请先执行database/partition.sql）");
+                return;
+            }
+            partitionDao.runWithMaintenanceLock(() -> {
+                // 持锁后重新读取，其他实例可能刚完成维护
+                YearMonth current = YearMonth.now();
+                rollForward(partitionDao.findPartitions(), current);
+                if (retentionMonths > 0) {
+                    enforceRetention(partitionDao.findPartitions(), current.minusMonths(retentionMonths - 1L));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("导航历史分区维护失败", e);
+        }
+    }
+
+    /**
+     * 在最后一个月分区之后补齐到current + monthsAhead
+     */
+    private void rollForward(List<HistoryPartition> partitions, YearMonth current) {
+        YearMonth last = null;
+        for (HistoryPartition partition : partitions) {
+            if (partition.getMonth() != null && (last == null || partition.getMonth().isAfter(last))) {
+                last = partition.getMonth();
+            }
+        }
+
+        YearMonth next;
+        if (last != null) {
+            next = last.plusMonths(1);
+        } else {
+            // 首次拆分兜底分区：从最早的数据所在月开始（不早于保留期），更早的数据归入第一个分区
+            next = partitionDao.findOldestMonth().orElse(current);
+            if (retentionMonths > 0 && next.isBefore(current.minusMonths(retentionMonths - 1L))) {
+                next = current.minusMonths(retentionMonths - 1L);
+            }
+            if (next.isAfter(current)) {
+                next = current;
+            }
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = next; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        partitionDao.addMonthlyPartitions(months);
+    }
+
+    /**
+     * 删除或归档早于oldestKept的月分区；至少保留一个月分区
+     */
+    private void enforceRetention(List<HistoryPartition> partitions, YearMonth oldestKept) {
+        List<HistoryPartition> monthly = new ArrayList<>();
+        for (HistoryPartition partition : partitions) {
+            if (partition.getMonth() != null) {
+                monthly.add(partition);
+            }
+        }
+        for (int i = 0; i < monthly.size() - 1; i++) {
+            HistoryPartition partition = monthly.get(i);
+            if (!partition.getMonth().isBefore(oldestKept)) {
+                break;
+            }
+            if (retentionAction == RetentionAction.ARCHIVE) {
+                if (!partitionDao.archivePartition(partition.getName())) {
+                    // 归档失败时不再删除后面的分区，保持只删最早分区的顺序
+                    break;
+                }
+            } else {
+                partitionDao.dropPartition(partition.getName());
+                logger.info("导航历史分区 {} 超过保留期 {} 个月，已删除（约 {} 行）",
+                        partition.getName(), retentionMonths, partition.getRows());
+            }
+        }
+    }
+}
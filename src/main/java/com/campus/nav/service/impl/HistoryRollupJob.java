@@ -0,0 +1,86 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.HistoryRollupDao;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导航历史汇总任务
+ * 定时把新写入的导航历史按批合并到汇总表，每轮一直处理到没有完整的一批为止（首次运行时回填全部历史）
+ */
+public class HistoryRollupJob {
+    private static final Logger logger = LogManager.getLogger(HistoryRollupJob.class);
+
+    private final HistoryRollupDao rollupDao;
+    private final long intervalSeconds;
+    private final int batchSize;
+    private final int maxTransactionSeconds;
+
+    private ScheduledExecutorService scheduler;
+
+    public HistoryRollupJob(HistoryRollupDao rollupDao) {
+        this.rollupDao = rollupDao;
+        this.intervalSeconds = Long.parseLong(DatabaseConfig.getProperty("history.rollup.intervalSeconds", "60"));
+        this.batchSize = Integer.parseInt(DatabaseConfig.getProperty("history.rollup.batchSize", "10000"));
+        this.maxTransactionSeconds = Integer.parseInt(
+                DatabaseConfig.getProperty("history.rollup.maxTransactionSeconds", "3600"));
+    }
+
+    /**
+     * 启动定时汇总；汇总表不存在时每轮直接跳过
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, intervalSeconds, TimeUnit.SECONDS);
+        DatabaseConfig.addCloseHook(this::stop);
+    }
+
+    /**
+     * 停止定时汇总
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 执行一轮汇总
+     * @return 本轮合并的历史条数
+     */
+    public long runOnce() {
+        long total = 0;
+        try {
+            if (!rollupDao.isAvailable()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            int merged;
+            do {
+                merged = rollupDao.catchUp(batchSize, maxTransactionSeconds);
+                total += merged;
+            } while (merged >= batchSize && !Thread.currentThread().isInterrupted());
+
+            if (total > 0) {
+                logger.info("导航历史汇总完成: {} 条, 进度ID {}, 耗时 {}ms", total, rollupDao.getLastProcessedId(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (Exception e) {
+            logger.error("导航历史汇总失败，已合并 {} 条", total, e);
+        }
+        return total;
+    }
+}
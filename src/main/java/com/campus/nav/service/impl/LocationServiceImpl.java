@@ -7,6 +7,8 @@ import com.campus.nav.dao.PathDao;
 import com.campus.nav.exception.ValidationException;
 import com.campus.nav.model.Location;
 import com.campus.nav.service.LocationService;
+import com.campus.nav.service.ServiceFactory;
+import com.campus.nav.utils.TransactionTemplate;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -154,7 +156,7 @@ public class LocationServiceImpl extends AbstractBaseService<Location, Integer>
                 location.setCreatedAt(LocalDateTime.now());
             }
             
-            return locationDao.save(location);
+            return invalidateRouteGraphIf(locationDao.save(location));
             
         } catch (ValidationException e) {
             logger.warn("保存地点验证失败", e);
@@ -190,7 +192,7 @@ public class LocationServiceImpl extends AbstractBaseService<Location, Integer>
                 throw new ValidationException("地点坐标超出地图范围");
             }
             
-            return locationDao.update(location);
+            return invalidateRouteGraphIf(locationDao.update(location));
             
         } catch (ValidationException e) {
             logger.warn("更新地点验证失败: {}", location.getId(), e);
@@ -208,8 +210,12 @@ public class LocationServiceImpl extends AbstractBaseService<Location, Integer>
             if (id == null) {
                 throw new ValidationException("地点ID不能为空");
             }
-            pathDao.deleteByLocationId(id);
-            result = locationDao.deleteById(id);
+            // 先删关联路径再删地点，两步在同一事务中完成
+            result = TransactionTemplate.execute(() -> {
+                pathDao.deleteByLocationId(id);
+                return locationDao.deleteById(id);
+            });
+            invalidateRouteGraphIf(result);
             return result;
         } catch (ValidationException e) {
             logger.warn("删除地点验证失败: {}", id, e);
@@ -262,4 +268,14 @@ public class LocationServiceImpl extends AbstractBaseService<Location, Integer>
             return 0;
         }
     }
+    
+    /**
+     * 路网变更后使路网图快照失效
+     */
+    private boolean invalidateRouteGraphIf(boolean changed) {
+        if (changed) {
+            ServiceFactory.getNavigationService().invalidateRouteGraph();
+        }
+        return changed;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,694 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.config.SystemConfig;
+import com.campus.nav.dao.LocationDao;
+import com.campus.nav.dao.PathDao;
+import com.campus.nav.dao.impl.CachedLocationDao;
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.exception.ValidationException;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.ImportResult;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.Path;
+import com.campus.nav.service.NavigationService;
+import com.campus.nav.utils.CsvReader;
+import com.campus.nav.utils.TransactionTemplate;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * 地图数据批量导入（地点和路径，CSV或GeoJSON）
+ * 先把已有地点（名称 -> ID）和路径（起点, 终点）各读一遍建立内存索引，之后逐行流式解析、
+ * 只在内存中校验和去重：地点按名称去重，路径按unique_path（起点, 终点）去重，起点终点可以写名称或ID。
+ * 通过校验的行按import.chunkSize分块批量插入，整个导入在一个事务中，失败或取消时全部回滚
+ *（提交前最后检查一次取消，之后的取消不再生效，以返回结果为准）；
+ * 无效的行被拒绝并记入结果，不影响其他行
+ *
+ * CSV：地点文件表头包含name, x, y（可选type, description, has_shade, scenic_level, is_accessible）；
+ * 路径文件表头包含start, end, distance（可选time_cost, has_shade, scenic_level, is_indoor, is_active,
+ * bidirectional）。GeoJSON：Point要素为地点，LineString要素为路径（properties.start/end，
+ * 没有distance时按折线长度计算），属性名与CSV列名相同
+ */
+public class MapImporter {
+    private static final Logger logger = LogManager.getLogger(MapImporter.class);
+
+    private static final double WALKING_SPEED = 1.4; // 默认时间与PathServiceImpl一致
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private static final Map<String, String> ALIASES = Map.of(
+            "x_coordinate", "x",
+            "y_coordinate", "y",
+            "start_location", "start",
+            "start_location_id", "start",
+            "end_location", "end",
+            "end_location_id", "end");
+
+    private final LocationDao locationDao;
+    private final PathDao pathDao;
+    private final NavigationService navigationService;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public MapImporter(LocationDao locationDao, PathDao pathDao, NavigationService navigationService) {
+        this.locationDao = locationDao;
+        this.pathDao = pathDao;
+        this.navigationService = navigationService;
+        this.chunkSize = Integer.parseInt(DatabaseConfig.getProperty("import.chunkSize", "1000"));
+        this.maxErrors = Integer.parseInt(DatabaseConfig.getProperty("import.maxErrors", "100"));
+    }
+
+    /**
+     * 导入文件：.geojson/.json按GeoJSON解析；CSV按表头区分路径文件（含start和end列）和地点文件，
+     * 先导入所有地点再导入路径
+     * @param progress 已处理的行数，可以为null
+     * @param cancelled 是否已请求取消，可以为null；取消时抛出CancellationException并回滚
+     */
+    public ImportResult importFiles(List<File> files, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        List<File> locationFiles = new ArrayList<>();
+        List<File> pathFiles = new ArrayList<>();
+        List<File> geoJsonFiles = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".geojson") || name.endsWith(".json")) {
+                geoJsonFiles.add(file);
+            } else if (isPathCsv(file)) {
+                pathFiles.add(file);
+            } else {
+                locationFiles.add(file);
+            }
+        }
+
+        return run(progress, cancelled, session -> {
+            for (File file : locationFiles) {
+                try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    session.readLocationsCsv(file.getName(), reader);
+                }
+            }
+            for (File file : geoJsonFiles) {
+                try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    session.readGeoJson(file.getName(), reader);
+                }
+            }
+            session.resolveDeferredPaths();
+            for (File file : pathFiles) {
+                try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    session.readPathsCsv(file.getName(), reader);
+                }
+            }
+        });
+    }
+
+    /**
+     * 导入CSV，先导入地点再导入路径
+     * @param locations 地点CSV，可以为null
+     * @param paths 路径CSV，可以为null
+     */
+    public ImportResult importCsv(Reader locations, Reader paths, LongConsumer progress,
+                                  BooleanSupplier cancelled) {
+        return run(progress, cancelled, session -> {
+            if (locations != null) {
+                session.readLocationsCsv("locations.csv", locations);
+            }
+            if (paths != null) {
+                session.readPathsCsv("paths.csv", paths);
+            }
+        });
+    }
+
+    /**
+     * 导入GeoJSON FeatureCollection
+     */
+    public ImportResult importGeoJson(Reader geoJson, LongConsumer progress, BooleanSupplier cancelled) {
+        return run(progress, cancelled, session -> {
+            session.readGeoJson("geojson", geoJson);
+            session.resolveDeferredPaths();
+        });
+    }
+
+    /**
+     * 读取CSV表头，判断是否为路径文件
+     */
+    private static boolean isPathCsv(File file) throws IOException {
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            String[] header = csv.next();
+            if (header == null) {
+                return false;
+            }
+            Map<String, Integer> columns = columns(header);
+            return columns.containsKey("start") && columns.containsKey("end");
+        }
+    }
+
+    private ImportResult run(LongConsumer progress, BooleanSupplier cancelled, SessionTask task) {
+        long startTime = System.currentTimeMillis();
+        ImportResult result = new ImportResult(maxErrors);
+        Session session = new Session(result, progress, cancelled);
+        session.loadIndexes();
+
+        TransactionTemplate.executeWithoutResult(() -> {
+            try {
+                task.run(session);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            session.checkCancelled();
+            session.flushLocations();
+            session.checkCancelled();
+            session.flushPaths();
+            // 提交前最后一次检查，通过后导入结果以提交为准
+            session.checkCancelled();
+        });
+
+        // 事务提交后再让缓存重新加载，避免提交前被其他线程按旧数据重新填充
+        if (result.getLocationsImported() > 0 && locationDao instanceof CachedLocationDao) {
+            ((CachedLocationDao) locationDao).invalidate();
+        }
+        if (result.getLocationsImported() > 0 || result.getPathsImported() > 0) {
+            navigationService.invalidateRouteGraph();
+        }
+        session.reportProgress();
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        logger.info("地图数据导入完成: {}", result);
+        return result;
+    }
+
+    private interface SessionTask {
+        void run(Session session) throws IOException;
+    }
+
+    /**
+     * 一次导入的状态：内存索引、待写入的块和延后解析的路径
+     */
+    private final class Session {
+        private final ImportResult result;
+        private final LongConsumer progress;
+        private final BooleanSupplier cancelled;
+        private final Map<String, Integer> idsByName = new HashMap<>();
+        private final Set<Integer> knownIds = new HashSet<>();
+        private final Set<Long> pathKeys = new HashSet<>();
+        private final List<Location> pendingLocations = new ArrayList<>();
+        private final List<Path> pendingPaths = new ArrayList<>();
+        private final List<DeferredPath> deferredPaths = new ArrayList<>();
+        private long rows;
+
+        Session(ImportResult result, LongConsumer progress, BooleanSupplier cancelled) {
+            this.result = result;
+            this.progress = progress;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * 读取已有的地点和路径建立索引（各一次流式查询，代替逐行findById/findByStartAndEnd）
+         */
+        void loadIndexes() {
+            try (Stream<Location> locations = locationDao.streamAll()) {
+                locations.forEach(location -> {
+                    knownIds.add(location.getId());
+                    if (location.getName() != null) {
+                        idsByName.putIfAbsent(location.getName().trim(), location.getId());
+                    }
+                });
+            }
+            try (Stream<Path> paths = pathDao.streamAll()) {
+                paths.forEach(path -> pathKeys.add(pathKey(path.getStartLocationId(), path.getEndLocationId())));
+            }
+            logger.debug("导入索引已加载: 地点 {}, 路径 {}", knownIds.size(), pathKeys.size());
+        }
+
+        void readLocationsCsv(String source, Reader reader) throws IOException {
+            CsvReader csv = new CsvReader(reader);
+            Map<String, Integer> columns = header(csv, source, "name", "x", "y");
+            String[] record;
+            while ((record = csv.next()) != null) {
+                nextRow();
+                String position = source + " 第 " + csv.getLineNumber() + " 行";
+                try {
+                    Map<String, String> fields = fields(columns, record);
+                    addLocation(toLocation(fields, number(fields, "x"), number(fields, "y")));
+                } catch (IllegalArgumentException e) {
+                    result.reject(position, e.getMessage());
+                }
+            }
+        }
+
+        void readPathsCsv(String source, Reader reader) throws IOException {
+            flushLocations();
+            CsvReader csv = new CsvReader(reader);
+            Map<String, Integer> columns = header(csv, source, "start", "end", "distance");
+            String[] record;
+            while ((record = csv.next()) != null) {
+                nextRow();
+                String position = source + " 第 " + csv.getLineNumber() + " 行";
+                try {
+                    Map<String, String> fields = fields(columns, record);
+                    addPath(position, fields.get("start"), fields.get("end"),
+                            toPath(fields, number(fields, "distance")), bool(fields, "bidirectional", false));
+                } catch (IllegalArgumentException e) {
+                    result.reject(position, e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * 逐个要素解析FeatureCollection；路径可能出现在它引用的地点之前，先缓存到所有地点读完再解析
+         */
+        void readGeoJson(String source, Reader reader) throws IOException {
+            JsonReader json = new JsonReader(reader);
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!"features".equals(json.nextName())) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                int index = 0;
+                while (json.hasNext()) {
+                    nextRow();
+                    String position = source + " 第 " + (++index) + " 个要素";
+                    JsonElement feature = JsonParser.parseReader(json);
+                    try {
+                        addFeature(position, feature);
+                    } catch (IllegalArgumentException e) {
+                        // 要素结构不符合GeoJSON（缺少坐标、属性不是标量等）或数据无效
+                        result.reject(position, e.getMessage());
+                    }
+                }
+                json.endArray();
+            }
+            json.endObject();
+        }
+
+        /**
+         * 逐项检查要素结构，不符合时抛出IllegalArgumentException
+         */
+        private void addFeature(String position, JsonElement element) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("要素不是对象");
+            }
+            JsonObject feature = element.getAsJsonObject();
+            JsonElement geometryElement = feature.get("geometry");
+            if (geometryElement == null || !geometryElement.isJsonObject()) {
+                throw new IllegalArgumentException("缺少geometry");
+            }
+            JsonObject geometry = geometryElement.getAsJsonObject();
+            JsonElement typeElement = geometry.get("type");
+            if (typeElement == null || !typeElement.isJsonPrimitive()) {
+                throw new IllegalArgumentException("缺少geometry.type");
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            JsonElement properties = feature.get("properties");
+            if (properties != null && properties.isJsonObject()) {
+                for (Map.Entry<String, JsonElement> entry : properties.getAsJsonObject().entrySet()) {
+                    JsonElement value = entry.getValue();
+                    if (value.isJsonNull()) {
+                        continue;
+                    }
+                    if (!value.isJsonPrimitive()) {
+                        throw new IllegalArgumentException("属性 " + entry.getKey() + " 不是标量");
+                    }
+                    fields.put(columnName(entry.getKey()), value.getAsString().trim());
+                }
+            }
+
+            String type = typeElement.getAsString();
+            JsonElement coordinatesElement = geometry.get("coordinates");
+            if (coordinatesElement == null || !coordinatesElement.isJsonArray()) {
+                throw new IllegalArgumentException("缺少coordinates");
+            }
+            JsonArray coordinates = coordinatesElement.getAsJsonArray();
+            if ("Point".equals(type)) {
+                double[] point = point(coordinates);
+                addLocation(toLocation(fields, point[0], point[1]));
+            } else if ("LineString".equals(type)) {
+                double distance = StringUtils.isBlank(fields.get("distance")) ? lineLength(coordinates) : number(fields, "distance");
+                deferredPaths.add(new DeferredPath(position, fields.get("start"), fields.get("end"),
+                        toPath(fields, distance), bool(fields, "bidirectional", false)));
+            } else {
+                throw new IllegalArgumentException("不支持的几何类型: " + type);
+            }
+        }
+
+        /**
+         * 所有地点读完后解析缓存的路径
+         */
+        void resolveDeferredPaths() {
+            flushLocations();
+            for (DeferredPath deferred : deferredPaths) {
+                try {
+                    addPath(deferred.position, deferred.startRef, deferred.endRef, deferred.path, deferred.bidirectional);
+                } catch (IllegalArgumentException e) {
+                    result.reject(deferred.position, e.getMessage());
+                }
+            }
+            deferredPaths.clear();
+        }
+
+        private void addLocation(Location location) {
+            String name = location.getName();
+            if (idsByName.containsKey(name)) {
+                result.locationSkipped();
+                return;
+            }
+            // 写入前先占位，同一批中的重名也能被识别；写入后回填ID
+            idsByName.put(name, null);
+            pendingLocations.add(location);
+            if (pendingLocations.size() >= chunkSize) {
+                flushLocations();
+            }
+        }
+
+        private void addPath(String position, String startRef, String endRef, Path path, boolean bidirectional) {
+            Integer startId = resolve(startRef);
+            Integer endId = resolve(endRef);
+            if (startId == null) {
+                throw new IllegalArgumentException("起点不存在: " + startRef);
+            }
+            if (endId == null) {
+                throw new IllegalArgumentException("终点不存在: " + endRef);
+            }
+            if (startId.equals(endId)) {
+                throw new IllegalArgumentException("起点和终点不能相同");
+            }
+            path.setStartLocationId(startId);
+            path.setEndLocationId(endId);
+            queuePath(path);
+            if (bidirectional) {
+                queuePath(Path.builder()
+                        .startLocationId(endId)
+                        .endLocationId(startId)
+                        .distance(path.getDistance())
+                        .timeCost(path.getTimeCost())
+                        .hasShade(path.getHasShade())
+                        .scenicLevel(path.getScenicLevel())
+                        .isIndoor(path.getIsIndoor())
+                        .isActive(path.getIsActive())
+                        .createdAt(path.getCreatedAt())
+                        .build());
+            }
+        }
+
+        private void queuePath(Path path) {
+            if (!pathKeys.add(pathKey(path.getStartLocationId(), path.getEndLocationId()))) {
+                result.pathSkipped();
+                return;
+            }
+            pendingPaths.add(path);
+            if (pendingPaths.size() >= chunkSize) {
+                flushPaths();
+            }
+        }
+
+        /**
+         * 名称优先，其次按ID
+         */
+        private Integer resolve(String reference) {
+            if (StringUtils.isBlank(reference)) {
+                return null;
+            }
+            String key = reference.trim();
+            Integer id = idsByName.get(key);
+            if (id != null) {
+                return id;
+            }
+            try {
+                id = Integer.valueOf(key);
+                return knownIds.contains(id) ? id : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        void flushLocations() {
+            if (pendingLocations.isEmpty()) {
+                return;
+            }
+            BatchResult batch = locationDao.saveBatchWithResult(pendingLocations);
+            if (!batch.isAllSucceeded()) {
+                throw new DatabaseException("批量写入地点失败: " + batch.getErrors());
+            }
+            for (Location location : pendingLocations) {
+                idsByName.put(location.getName(), location.getId());
+                knownIds.add(location.getId());
+            }
+            result.addLocationsImported(pendingLocations.size());
+            pendingLocations.clear();
+        }
+
+        void flushPaths() {
+            if (pendingPaths.isEmpty()) {
+                return;
+            }
+            BatchResult batch = pathDao.saveBatchWithResult(pendingPaths);
+            if (!batch.isAllSucceeded()) {
+                throw new DatabaseException("批量写入路径失败: " + batch.getErrors());
+            }
+            result.addPathsImported(pendingPaths.size());
+            pendingPaths.clear();
+        }
+
+        /**
+         * 每处理一行调用：检查取消并定期报告进度
+         */
+        private void nextRow() {
+            checkCancelled();
+            if (++rows % PROGRESS_INTERVAL == 0) {
+                reportProgress();
+            }
+        }
+
+        /**
+         * 已请求取消（或线程被中断）时抛出CancellationException，事务随之回滚
+         */
+        void checkCancelled() {
+            if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.getAsBoolean())) {
+                throw new CancellationException("导入已取消");
+            }
+        }
+
+        void reportProgress() {
+            if (progress != null) {
+                progress.accept(rows);
+            }
+        }
+    }
+
+    /**
+     * 起点终点都已读到、等待解析引用的路径
+     */
+    private static final class DeferredPath {
+        private final String position;
+        private final String startRef;
+        private final String endRef;
+        private final Path path;
+        private final boolean bidirectional;
+
+        DeferredPath(String position, String startRef, String endRef, Path path, boolean bidirectional) {
+            this.position = position;
+            this.startRef = startRef;
+            this.endRef = endRef;
+            this.path = path;
+            this.bidirectional = bidirectional;
+        }
+    }
+
+    /**
+     * 按LocationServiceImpl.save的规则校验地点并填充默认值
+     */
+    private static Location toLocation(Map<String, String> fields, double x, double y) {
+        String name = fields.get("name");
+        if (StringUtils.isBlank(name)) {
+            throw new IllegalArgumentException("地点名称不能为空");
+        }
+        if (x < 0 || x > SystemConfig.getMapWidth() || y < 0 || y > SystemConfig.getMapHeight()) {
+            throw new IllegalArgumentException("地点坐标超出地图范围");
+        }
+        return Location.builder()
+                .name(name.trim())
+                .description(fields.get("description"))
+                .type(locationType(fields.get("type")))
+                .xCoordinate(x)
+                .yCoordinate(y)
+                .hasShade(bool(fields, "has_shade", false))
+                .scenicLevel(scenicLevel(fields))
+                .isAccessible(bool(fields, "is_accessible", true))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 按PathServiceImpl.save的规则校验路径并填充默认值（起点终点在解析引用后设置）
+     */
+    private static Path toPath(Map<String, String> fields, double distance) {
+        if (!(distance > 0)) {
+            throw new IllegalArgumentException("距离必须大于0");
+        }
+        String timeCost = fields.get("time_cost");
+        return Path.builder()
+                .distance(distance)
+                .timeCost(StringUtils.isBlank(timeCost) ? (int) (distance / WALKING_SPEED) : (int) number(fields, "time_cost"))
+                .hasShade(bool(fields, "has_shade", false))
+                .scenicLevel(scenicLevel(fields))
+                .isIndoor(bool(fields, "is_indoor", false))
+                .isActive(bool(fields, "is_active", true))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static Location.LocationType locationType(String value) {
+        if (StringUtils.isBlank(value)) {
+            return Location.LocationType.OTHER;
+        }
+        String text = value.trim();
+        for (Location.LocationType type : Location.LocationType.values()) {
+            if (type.name().equalsIgnoreCase(text) || type.getDescription().equals(text)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的地点类型: " + value);
+    }
+
+    private static int scenicLevel(Map<String, String> fields) {
+        if (StringUtils.isBlank(fields.get("scenic_level"))) {
+            return 1;
+        }
+        int level = (int) number(fields, "scenic_level");
+        if (level < 1 || level > 5) {
+            throw new IllegalArgumentException("景色等级必须在1-5之间");
+        }
+        return level;
+    }
+
+    private static double number(Map<String, String> fields, String column) {
+        String value = fields.get(column);
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalArgumentException(column + " 不能为空");
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " 不是数字: " + value);
+        }
+    }
+
+    private static boolean bool(Map<String, String> fields, String column, boolean defaultValue) {
+        String value = fields.get(column);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true": case "1": case "yes": case "y": case "是":
+                return true;
+            case "false": case "0": case "no": case "n": case "否":
+                return false;
+            default:
+                throw new IllegalArgumentException(column + " 不是布尔值: " + value);
+        }
+    }
+
+    /**
+     * 折线长度（坐标单位与地图坐标相同）
+     */
+    private static double lineLength(JsonArray coordinates) {
+        if (coordinates.size() < 2) {
+            throw new IllegalArgumentException("LineString至少需要两个点");
+        }
+        double length = 0;
+        double[] from = point(coordinates.get(0));
+        for (int i = 1; i < coordinates.size(); i++) {
+            double[] to = point(coordinates.get(i));
+            length += Math.hypot(to[0] - from[0], to[1] - from[1]);
+            from = to;
+        }
+        return length;
+    }
+
+    /**
+     * 坐标点[x, y]（可以有多余的分量）
+     */
+    private static double[] point(JsonElement element) {
+        if (!element.isJsonArray()) {
+            throw new IllegalArgumentException("坐标格式错误: " + element);
+        }
+        JsonArray point = element.getAsJsonArray();
+        if (point.size() < 2 || !isNumber(point.get(0)) || !isNumber(point.get(1))) {
+            throw new IllegalArgumentException("坐标格式错误: " + element);
+        }
+        return new double[]{point.get(0).getAsDouble(), point.get(1).getAsDouble()};
+    }
+
+    private static boolean isNumber(JsonElement element) {
+        return element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber();
+    }
+
+    private static Map<String, Integer> header(CsvReader csv, String source, String... required) throws IOException {
+        String[] header = csv.next();
+        if (header == null) {
+            throw new ValidationException(source + " 是空文件");
+        }
+        Map<String, Integer> columns = columns(header);
+        for (String column : required) {
+            if (!columns.containsKey(column)) {
+                throw new ValidationException(source + " 缺少列: " + column);
+            }
+        }
+        return columns;
+    }
+
+    private static Map<String, Integer> columns(String[] header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.putIfAbsent(columnName(header[i]), i);
+        }
+        return columns;
+    }
+
+    private static String columnName(String name) {
+        String column = name.trim().toLowerCase(Locale.ROOT);
+        return ALIASES.getOrDefault(column, column);
+    }
+
+    private static Map<String, String> fields(Map<String, Integer> columns, String[] record) {
+        Map<String, String> fields = new HashMap<>(columns.size() * 2);
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            if (column.getValue() < record.length) {
+                String value = record[column.getValue()].trim();
+                if (!value.isEmpty()) {
+                    fields.put(column.getKey(), value);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static long pathKey(Integer startId, Integer endId) {
+        return ((long) startId << 32) | (endId & 0xFFFFFFFFL);
+    }
+}
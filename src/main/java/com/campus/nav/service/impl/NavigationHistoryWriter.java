@@ -0,0 +1,324 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.NavigationHistoryDao;
+import com.campus.nav.model.BatchResult;
+import com.campus.nav.model.NavigationHistory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 导航历史异步写入队列（write-behind）
+ * 导航线程只做无锁入队，后台线程按批量大小或时间间隔用JDBC批处理写入；
+ * 队列有界，满时按溢出策略处理。批量写入失败的记录逐条重写，仍失败的留到下一轮重试，
+ * 超过重试次数才丢弃。关闭数据源前会排空队列
+ */
+public class NavigationHistoryWriter {
+    private static final Logger logger = LogManager.getLogger(NavigationHistoryWriter.class);
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        CALLER_RUNS,   // 由提交线程同步写入
+        DROP_NEWEST,   // 丢弃新记录
+        DROP_OLDEST    // 丢弃队列中最早的记录
+    }
+
+    private final NavigationHistoryDao navigationHistoryDao;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxRetries;
+
+    private final Queue<NavigationHistory> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // 以下两项由flushLock保护：下一轮重试的记录及其已失败次数
+    private List<NavigationHistory> retryBatch = new ArrayList<>();
+    private final Map<NavigationHistory, Integer> attempts = new IdentityHashMap<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    public NavigationHistoryWriter(NavigationHistoryDao navigationHistoryDao) {
+        this(navigationHistoryDao,
+                Integer.parseInt(DatabaseConfig.getProperty("history.writeBehind.capacity", "10000")),
+                Integer.parseInt(DatabaseConfig.getProperty("history.writeBehind.batchSize", "200")),
+                Long.parseLong(DatabaseConfig.getProperty("history.writeBehind.flushIntervalMillis", "1000")),
+                OverflowPolicy.valueOf(DatabaseConfig.getProperty("history.writeBehind.overflowPolicy", "CALLER_RUNS")),
+                Integer.parseInt(DatabaseConfig.getProperty("history.writeBehind.maxRetries", "3")));
+    }
+
+    /**
+     * @param maxRetries 写入失败的记录最多再重试的轮数，超过后丢弃
+     */
+    public NavigationHistoryWriter(NavigationHistoryDao navigationHistoryDao, int capacity, int batchSize,
+                                   long flushIntervalMillis, OverflowPolicy overflowPolicy, int maxRetries) {
+        this.navigationHistoryDao = navigationHistoryDao;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.maxRetries = maxRetries;
+
+        this.writerThread = new Thread(this::runWriter, "history-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        // 关闭连接池前先把队列写完
+        DatabaseConfig.addCloseHook(this::shutdown);
+    }
+
+    /**
+     * 提交一条导航历史
+     * @return 是否已入队或写入（被丢弃时返回false）
+     */
+    public boolean submit(NavigationHistory history) {
+        submitted.increment();
+        if (!running) {
+            return writeDirectly(history);
+        }
+
+        if (reserveSlot()) {
+            queue.offer(history);
+            if (size.get() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return true;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                dropped.increment();
+                logger.warn("导航历史队列已满（{}），丢弃新记录", capacity);
+                return false;
+            case DROP_OLDEST:
+                if (queue.poll() != null) {
+                    // 以新换旧，队列长度不变
+                    queue.offer(history);
+                    dropped.increment();
+                    return true;
+                }
+                if (reserveSlot()) {
+                    queue.offer(history);
+                    return true;
+                }
+                return writeDirectly(history);
+            case CALLER_RUNS:
+            default:
+                return writeDirectly(history);
+        }
+    }
+
+    /**
+     * 立即写入上一轮待重试的记录和队列中的所有记录（读取历史前调用，保证读到自己刚写入的记录）；
+     * 本轮失败的记录留到下一轮
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<NavigationHistory> rejected = new ArrayList<>();
+            boolean anyWritten = false;
+            if (!retryBatch.isEmpty()) {
+                List<NavigationHistory> pending = retryBatch;
+                retryBatch = new ArrayList<>();
+                retried.add(pending.size());
+                anyWritten = writeBatch(pending, rejected);
+            }
+            List<NavigationHistory> batch;
+            while (!(batch = pollBatch()).isEmpty()) {
+                anyWritten |= writeBatch(batch, rejected);
+            }
+            // 本轮有记录写入成功时，逐条写入仍失败的记录多半数据本身有问题，计入重试次数；
+            // 全部失败时按数据库不可用处理，不计次数，避免故障期间丢弃记录
+            for (NavigationHistory history : rejected) {
+                retryLater(history, anyWritten);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 停止后台线程并排空队列
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        // 关闭时不再等待下一轮，立即重试到次数用完
+        for (int i = 0; i < maxRetries && hasRetries(); i++) {
+            flush();
+        }
+        discardRetries();
+        logger.info("导航历史写入队列已关闭: {}", getStatus());
+    }
+
+    /**
+     * 当前排队数量
+     */
+    public int getPendingCount() {
+        return size.get();
+    }
+
+    /**
+     * 获取队列状态信息
+     */
+    public String getStatus() {
+        return String.format("历史写入队列: 排队=%d, 提交=%d, 已写入=%d, 丢弃=%d, 重试=%d, 失败=%d",
+                size.get(), submitted.sum(), written.sum(), dropped.sum(), retried.sum(), failed.sum());
+    }
+
+    /**
+     * 后台写入线程：达到批量大小或等待超过刷新间隔时写入
+     */
+    private void runWriter() {
+        while (running) {
+            if (size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.error("导航历史后台写入异常", e);
+            }
+        }
+    }
+
+    /**
+     * 无锁占用一个队列位置
+     */
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private List<NavigationHistory> pollBatch() {
+        List<NavigationHistory> batch = new ArrayList<>(Math.min(batchSize, Math.max(size.get(), 1)));
+        NavigationHistory history;
+        while (batch.size() < batchSize && (history = queue.poll()) != null) {
+            batch.add(history);
+        }
+        size.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private boolean hasRetries() {
+        flushLock.lock();
+        try {
+            return !retryBatch.isEmpty();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 批量写入；失败的块整块回滚，其中的记录逐条重写。连续两条逐条写入也失败时（多半是数据库不可用）
+     * 其余记录不再逐条尝试，直接留到下一轮
+     * @param rejected 收集逐条写入也失败的记录
+     * @return 是否有记录写入成功
+     */
+    private boolean writeBatch(List<NavigationHistory> batch, List<NavigationHistory> rejected) {
+        BatchResult result = navigationHistoryDao.saveBatchWithResult(batch);
+        written.add(result.getSuccessCount());
+        if (!attempts.isEmpty()) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (result.isSuccess(i)) {
+                    attempts.remove(batch.get(i));
+                }
+            }
+        }
+        if (result.isAllSucceeded()) {
+            return true;
+        }
+        logger.warn("导航历史批量写入失败 {} 条，改为逐条写入: {}", result.getFailedCount(), result.getErrors());
+        boolean anyWritten = result.getSuccessCount() > 0;
+        int consecutiveFailures = 0;
+        for (int index : result.getFailedIndexes()) {
+            NavigationHistory history = batch.get(index);
+            if (consecutiveFailures >= 2) {
+                retryLater(history, false);
+            } else if (navigationHistoryDao.save(history)) {
+                written.increment();
+                attempts.remove(history);
+                anyWritten = true;
+                consecutiveFailures = 0;
+            } else {
+                consecutiveFailures++;
+                rejected.add(history);
+            }
+        }
+        return anyWritten;
+    }
+
+    private void discardRetries() {
+        flushLock.lock();
+        try {
+            if (!retryBatch.isEmpty()) {
+                failed.add(retryBatch.size());
+                logger.error("关闭时仍有 {} 条导航历史写入失败，已丢弃", retryBatch.size());
+                retryBatch.clear();
+                attempts.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @param counted 是否计入重试次数
+     */
+    private void retryLater(NavigationHistory history, boolean counted) {
+        int attempt = counted ? attempts.merge(history, 1, Integer::sum) : attempts.getOrDefault(history, 0);
+        if (attempt > maxRetries || retryBatch.size() >= capacity) {
+            attempts.remove(history);
+            failed.increment();
+            logger.error("导航历史写入失败 {} 次，已丢弃: {}", attempt, history);
+        } else {
+            retryBatch.add(history);
+        }
+    }
+
+    private boolean writeDirectly(NavigationHistory history) {
+        boolean saved = navigationHistoryDao.save(history);
+        if (saved) {
+            written.increment();
+        } else {
+            failed.increment();
+        }
+        return saved;
+    }
+}
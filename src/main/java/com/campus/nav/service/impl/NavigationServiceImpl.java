@@ -1,18 +1,25 @@
 package com.campus.nav.service.impl;
 
+import com.campus.nav.config.ConfigSnapshot;
+import com.campus.nav.config.DatabaseConfig;
 import com.campus.nav.config.SystemConfig;
 import com.campus.nav.dao.DaoFactory;
-import com.campus.nav.dao.LocationDao;
+import com.campus.nav.dao.HistoryRollupDao;
 import com.campus.nav.dao.NavigationHistoryDao;
 import com.campus.nav.dao.PathDao;
 import com.campus.nav.exception.ValidationException;
 import com.campus.nav.model.*;
 import com.campus.nav.service.NavigationService;
+import com.campus.nav.utils.SingleFlight;
+import com.campus.nav.utils.StartupMetrics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,10 +30,27 @@ public class NavigationServiceImpl implements NavigationService {
     
     private final PathDao pathDao;
     private final NavigationHistoryDao navigationHistoryDao;
+    private final HistoryRollupDao historyRollupDao;
+    private final GraphSnapshotBuilder graphSnapshotBuilder;
+    private final NavigationHistoryWriter historyWriter;
+    private final SingleFlight<RouteKey, NavigationResult> routeFlight = new SingleFlight<>();
+    private volatile GraphSnapshot graphSnapshot;
+    private final AtomicLong graphVersion = new AtomicLong();
+    private final int routeCacheSize;
+    private volatile RouteCache routeCache;
+    private final RecommendationIndex recommendationIndex;
     
     public NavigationServiceImpl() {
         this.pathDao = DaoFactory.getPathDao();
         this.navigationHistoryDao = DaoFactory.getNavigationHistoryDao();
+        this.historyRollupDao = DaoFactory.getHistoryRollupDao();
+        this.graphSnapshotBuilder = new GraphSnapshotBuilder(pathDao, DaoFactory.getLocationDao());
+        this.historyWriter = Boolean.parseBoolean(DatabaseConfig.getProperty("history.writeBehind.enabled", "true"))
+                ? new NavigationHistoryWriter(navigationHistoryDao) : null;
+        this.routeCacheSize = Integer.parseInt(DatabaseConfig.getProperty("route.cache.maxSize", "1000"));
+        this.recommendationIndex = new RecommendationIndex(historyRollupDao, navigationHistoryDao,
+                this::flushNavigationHistory);
+        SystemConfig.addListener(this::onConfigChange);
     }
     
     @Override
@@ -42,57 +66,33 @@ public class NavigationServiceImpl implements NavigationService {
                 return NavigationResult.fail("起点和终点不能相同");
             }
             
-            if (strategy == null) {
-                strategy = NavigationStrategy.SHORTEST;
-            }
-            
-            logger.info("开始导航计算: {} -> {}, 策略: {}", startLocationId, endLocationId, strategy);
-            
-            // 使用Dijkstra算法计算最短路径
-            List<Location> pathLocations = calculatePath(startLocationId, endLocationId, strategy);
-            
-            if (pathLocations == null || pathLocations.size() < 2) {
-                return NavigationResult.fail("无法找到从起点到终点的路径");
-            }
+            NavigationStrategy effectiveStrategy = strategy != null ? strategy : SystemConfig.getDefaultStrategy();
             
-            // 计算总距离和时间
-            double totalDistance = 0.0;
-            int totalTime = 0;
-            List<Path> paths = new ArrayList<>();
+            // 相同(起点, 终点, 策略)的并发请求合并为一次计算
+            NavigationResult result = routeFlight.execute(
+                    new RouteKey(startLocationId, endLocationId, effectiveStrategy),
+                    () -> computeRoute(startLocationId, endLocationId, effectiveStrategy));
             
-            for (int i = 0; i < pathLocations.size() - 1; i++) {
-                Location current = pathLocations.get(i);
-                Location next = pathLocations.get(i + 1);
-                
-                Optional<Path> pathOpt = pathDao.findByStartAndEnd(current.getId(), next.getId());
-                if (pathOpt.isPresent()) {
-                    Path path = pathOpt.get();
-                    totalDistance += path.getDistance();
-                    totalTime += path.getTimeCost();
-                    paths.add(path);
-                }
+            if (!result.isSuccess()) {
+                return result;
             }
+            StartupMetrics.mark(StartupMetrics.FIRST_ROUTE);
             
-            // 保存导航历史
+            // 保存导航历史（每个用户各自记录），异步写入，不阻塞返回路线
             if (user != null) {
                 NavigationHistory history = NavigationHistory.builder()
                         .userId(user.getId())
                         .startLocationId(startLocationId)
                         .endLocationId(endLocationId)
-                        .pathStrategy(strategy)
-                        .totalDistance(totalDistance)
-                        .totalTime(totalTime)
+                        .pathStrategy(result.getStrategy())
+                        .totalDistance(result.getTotalDistance())
+                        .totalTime(result.getTotalTime())
                         .createdAt(LocalDateTime.now())
                         .build();
                 
-                saveNavigationHistory(history);
+                submitNavigationHistory(history);
             }
             
-            // 返回导航结果
-            NavigationResult result = NavigationResult.success(strategy, totalDistance, totalTime, 
-                    pathLocations, paths);
-            
-            logger.info("导航计算完成: 距离={}米, 时间={}分钟", totalDistance, totalTime);
             return result;
             
         } catch (Exception e) {
@@ -101,30 +101,52 @@ public class NavigationServiceImpl implements NavigationService {
         }
     }
     
+    /**
+     * 计算路线（不含历史记录），结果可被并发的相同请求共享；
+     * 成功的结果缓存到路网图快照被替换为止
+     */
+    private NavigationResult computeRoute(Integer startLocationId, Integer endLocationId,
+                                          NavigationStrategy strategy) {
+        GraphSnapshot graph = getGraphSnapshot();
+        RouteCache cache = routeCacheFor(graph);
+        RouteKey key = new RouteKey(startLocationId, endLocationId, strategy);
+        NavigationResult cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        logger.info("开始导航计算: {} -> {}, 策略: {}", startLocationId, endLocationId, strategy);
+        
+        // 使用Dijkstra算法计算最短路径
+        int[] route = findRoute(graph, startLocationId, endLocationId, strategy);
+        
+        if (route == null || route.length == 0) {
+            return NavigationResult.fail("无法找到从起点到终点的路径");
+        }
+        
+        // 路线上的地点、路径、总距离和时间都直接取自快照，无需逐段查询
+        List<Location> pathLocations = graph.toLocations(route);
+        List<Path> paths = graph.toPaths(route);
+        double totalDistance = graph.totalDistance(route);
+        int totalTime = graph.totalTime(route);
+        
+        NavigationResult result = NavigationResult.success(strategy, totalDistance, totalTime, 
+                pathLocations, paths);
+        cache.put(key, result);
+        
+        logger.info("导航计算完成: 距离={}米, 时间={}分钟", totalDistance, totalTime);
+        return result;
+    }
+    
     @Override
     public boolean saveNavigationHistory(NavigationHistory history) {
         try {
-            if (history == null) {
-                throw new ValidationException("导航历史不能为空");
+            validateHistory(history);
+            boolean saved = navigationHistoryDao.save(history);
+            if (saved) {
+                recommendationIndex.record(history);
             }
-            
-            if (history.getUserId() == null) {
-                throw new ValidationException("用户ID不能为空");
-            }
-            
-            if (history.getStartLocationId() == null || history.getEndLocationId() == null) {
-                throw new ValidationException("起点和终点不能为空");
-            }
-            
-            if (history.getTotalDistance() == null || history.getTotalDistance() <= 0) {
-                throw new ValidationException("总距离必须大于0");
-            }
-            
-            if (history.getCreatedAt() == null) {
-                history.setCreatedAt(LocalDateTime.now());
-            }
-            
-            return navigationHistoryDao.save(history);
+            return saved;
             
         } catch (ValidationException e) {
             logger.warn("保存导航历史验证失败", e);
@@ -135,12 +157,65 @@ public class NavigationServiceImpl implements NavigationService {
         }
     }
     
+    /**
+     * 提交导航历史到异步写入队列（未启用时同步保存）
+     */
+    private boolean submitNavigationHistory(NavigationHistory history) {
+        if (historyWriter == null) {
+            return saveNavigationHistory(history);
+        }
+        try {
+            validateHistory(history);
+            boolean submitted = historyWriter.submit(history);
+            if (submitted) {
+                recommendationIndex.record(history);
+            }
+            return submitted;
+        } catch (ValidationException e) {
+            logger.warn("保存导航历史验证失败", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 验证导航历史
+     */
+    private void validateHistory(NavigationHistory history) {
+        if (history == null) {
+            throw new ValidationException("导航历史不能为空");
+        }
+        
+        if (history.getUserId() == null) {
+            throw new ValidationException("用户ID不能为空");
+        }
+        
+        if (history.getStartLocationId() == null || history.getEndLocationId() == null) {
+            throw new ValidationException("起点和终点不能为空");
+        }
+        
+        if (history.getTotalDistance() == null || history.getTotalDistance() <= 0) {
+            throw new ValidationException("总距离必须大于0");
+        }
+        
+        if (history.getCreatedAt() == null) {
+            history.setCreatedAt(LocalDateTime.now());
+        }
+    }
+    
+    @Override
+    public void flushNavigationHistory() {
+        if (historyWriter != null) {
+            historyWriter.flush();
+        }
+    }
+    
     @Override
     public List<NavigationHistory> getUserNavigationHistory(Integer userId) {
         try {
             if (userId == null) {
                 return List.of();
             }
+            flushNavigationHistory();
             return navigationHistoryDao.findByUserId(userId);
         } catch (Exception e) {
             logger.error("获取用户导航历史失败: {}", userId, e);
@@ -154,6 +229,7 @@ public class NavigationServiceImpl implements NavigationService {
             if (userId == null) {
                 return PageResult.of(List.of(), 0L, query);
             }
+            flushNavigationHistory();
             return navigationHistoryDao.findByUserIdPage(userId, query);
         } catch (Exception e) {
             logger.error("分页获取用户导航历史失败: {}", userId, e);
@@ -167,7 +243,11 @@ public class NavigationServiceImpl implements NavigationService {
             if (userId == null) {
                 throw new ValidationException("用户ID不能为空");
             }
-            return navigationHistoryDao.deleteByUserId(userId);
+            // 队列中尚未写入的记录也应被清除
+            flushNavigationHistory();
+            boolean deleted = navigationHistoryDao.deleteByUserId(userId);
+            recommendationIndex.evictUser(userId);
+            return deleted;
         } catch (ValidationException e) {
             logger.warn("清除用户导航历史验证失败: {}", userId, e);
             throw e;
@@ -177,6 +257,50 @@ public class NavigationServiceImpl implements NavigationService {
         }
     }
     
+    @Override
+    public long countNavigationHistory(HistoryFilter filter) {
+        flushNavigationHistory();
+        return navigationHistoryDao.countByFilter(filter);
+    }
+    
+    @Override
+    public long purgeNavigationHistory(HistoryFilter filter, LongConsumer progress) {
+        // 先写入队列中的记录，避免清理后又被写回
+        flushNavigationHistory();
+        int chunkSize = Integer.parseInt(DatabaseConfig.getProperty("history.purge.chunkSize", "1000"));
+        try {
+            return navigationHistoryDao.deleteByFilter(filter, chunkSize, progress);
+        } finally {
+            // 部分清理成功时计数也已过期
+            if (filter != null && filter.getUserId() != null) {
+                recommendationIndex.evictUser(filter.getUserId());
+            } else {
+                recommendationIndex.clear();
+            }
+        }
+    }
+    
+    @Override
+    public long purgeUserNavigationHistory(Integer userId, LongConsumer progress) {
+        if (userId == null) {
+            throw new ValidationException("用户ID不能为空");
+        }
+        return purgeNavigationHistory(HistoryFilter.forUser(userId), progress);
+    }
+    
+    @Override
+    public long purgeNavigationHistoryBetween(LocalDateTime from, LocalDateTime to, LongConsumer progress) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ValidationException("开始时间必须早于结束时间");
+        }
+        return purgeNavigationHistory(HistoryFilter.between(from, to), progress);
+    }
+    
+    @Override
+    public long purgeAllNavigationHistory(LongConsumer progress) {
+        return purgeNavigationHistory(HistoryFilter.all(), progress);
+    }
+    
     @Override
     public List<Location> getRecommendedPath(Integer userId, Integer startLocationId, Integer endLocationId) {
         try {
@@ -184,20 +308,16 @@ public class NavigationServiceImpl implements NavigationService {
                 return List.of();
             }
             
-            // 获取用户的历史导航记录
-            List<NavigationHistory> userHistory = getUserNavigationHistory(userId);
-            
-            // 查找相似的历史路径
-            for (NavigationHistory history : userHistory) {
-                if (history.getStartLocationId().equals(startLocationId) && 
-                    history.getEndLocationId().equals(endLocationId)) {
-                    // 直接返回历史路径
-                    return calculatePath(startLocationId, endLocationId, history.getPathStrategy());
-                }
+            // 用户在这条路线上最常用的策略，没有走过时取全局最常用的策略
+            NavigationStrategy strategy = recommendationIndex.recommend(userId, startLocationId, endLocationId);
+            if (strategy == null) {
+                return List.of();
             }
             
-            // 如果没有找到相同的历史路径，返回空
-            return List.of();
+            NavigationResult result = routeFlight.execute(
+                    new RouteKey(startLocationId, endLocationId, strategy),
+                    () -> computeRoute(startLocationId, endLocationId, strategy));
+            return result.isSuccess() ? result.getPathLocations() : List.of();
             
         } catch (Exception e) {
             logger.error("获取推荐路径失败: {} -> {}", startLocationId, endLocationId, e);
@@ -205,6 +325,70 @@ public class NavigationServiceImpl implements NavigationService {
         }
     }
     
+    @Override
+    public List<RouteStat> getFrequentDestinations(Integer userId, Integer startLocationId, int limit) {
+        try {
+            if (startLocationId == null || limit <= 0) {
+                return List.of();
+            }
+            
+            GraphSnapshot graph = getGraphSnapshot();
+            List<RouteStat> destinations = new ArrayList<>();
+            for (RouteStat stat : recommendationIndex.frequentDestinations(userId, startLocationId, limit)) {
+                // 计数中可能有已删除的地点
+                Location start = graph.getLocation(stat.getStartLocationId());
+                Location end = graph.getLocation(stat.getEndLocationId());
+                if (start != null && end != null) {
+                    stat.setStartLocationName(start.getName());
+                    stat.setEndLocationName(end.getName());
+                    destinations.add(stat);
+                }
+            }
+            return destinations;
+            
+        } catch (Exception e) {
+            logger.error("获取常用目的地失败: {}", startLocationId, e);
+            return List.of();
+        }
+    }
+    
+    @Override
+    public List<RouteStat> getPopularRoutes(NavigationStrategy strategy, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return historyRollupDao.findTopRoutes(strategy, limit);
+    }
+    
+    @Override
+    public List<RouteStat> getPopularRoutesFrom(Integer startLocationId, int limit) {
+        if (startLocationId == null || limit <= 0) {
+            return List.of();
+        }
+        return historyRollupDao.findTopRoutesFrom(startLocationId, limit);
+    }
+    
+    @Override
+    public List<HistoryStat> getStrategyStatistics(LocalDate from, LocalDate to) {
+        validateDateRange(from, to);
+        return historyRollupDao.findStrategyMix(from, to);
+    }
+    
+    @Override
+    public List<HistoryStat> getHourlyStatistics(LocalDate from, LocalDate to) {
+        validateDateRange(from, to);
+        return historyRollupDao.findHourlyCounts(from, to);
+    }
+    
+    private static void validateDateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new ValidationException("统计的日期范围不能为空");
+        }
+        if (!from.isBefore(to)) {
+            throw new ValidationException("开始日期必须早于结束日期");
+        }
+    }
+    
     @Override
     public List<Location> findNearbyLocations(Integer locationId, double radius) {
         try {
@@ -228,230 +412,164 @@ public class NavigationServiceImpl implements NavigationService {
     }
 
     /**
-     * 使用Dijkstra算法计算路径
+     * 在路网图快照上查找路线
      */
-    private List<Location> calculatePath(Integer startId, Integer endId, NavigationStrategy strategy) {
-        // 获取所有地点和路径
-        List<Path> allPaths = pathDao.findActivePaths();
-
-        // 获取所有地点信息（需要添加地点DAO）
-        Map<Integer, Location> locationMap = getAllLocations();
-
-        // 构建图
-        Map<Integer, List<Edge>> graph = buildGraph(allPaths, strategy);
-
+    private int[] findRoute(GraphSnapshot graph, Integer startId, Integer endId, NavigationStrategy strategy) {
         // 检查起点和终点是否存在
-        if (!graph.containsKey(startId) || !graph.containsKey(endId)) {
+        if (!graph.containsLocation(startId) || !graph.containsLocation(endId)) {
             logger.warn("起点或终点不存在于图中: startId={}, endId={}", startId, endId);
             return null;
         }
 
-        // Dijkstra算法
-        Map<Integer, Double> distances = new HashMap<>();
-        Map<Integer, Integer> previous = new HashMap<>();
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingDouble(Node::getDistance));
-
-        // 初始化
-        for (Integer locationId : graph.keySet()) {
-            distances.put(locationId, Double.MAX_VALUE);
-        }
-        distances.put(startId, 0.0);
-        pq.offer(new Node(startId, 0.0));
-
-        // 算法主体
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-
-            if (current.getId().equals(endId)) {
-                break;
-            }
-
-            if (current.getDistance() > distances.get(current.getId())) {
-                continue;
-            }
-
-            List<Edge> edges = graph.get(current.getId());
-            if (edges == null) continue;
-
-            for (Edge edge : edges) {
-                double newDist = current.getDistance() + edge.getWeight();
-                if (newDist < distances.get(edge.getTo())) {
-                    distances.put(edge.getTo(), newDist);
-                    previous.put(edge.getTo(), current.getId());
-                    pq.offer(new Node(edge.getTo(), newDist));
-                }
-            }
-        }
-
-        // 如果找不到路径
-        if (!previous.containsKey(endId)) {
+        int[] route = graph.findRoute(startId, endId, strategy);
+        if (route == null) {
             logger.warn("找不到从起点到终点的路径: startId={}, endId={}", startId, endId);
             return null;
         }
 
-        // 构建路径
-        List<Location> path = new ArrayList<>();
-        Integer current = endId;
-
-        while (current != null) {
-            // 从缓存中获取完整的地点信息
-            Location location = locationMap.get(current);
-            if (location == null) {
-                logger.warn("地点信息缺失: locationId={}", current);
-                return null;
-            }
-            path.add(0, location);
-            current = previous.get(current);
-        }
-
-        // 验证路径的连续性
-        for (int i = 0; i < path.size() - 1; i++) {
-            Location currentLoc = path.get(i);
-            Location nextLoc = path.get(i + 1);
-            Optional<Path> pathOpt = pathDao.findByStartAndEnd(currentLoc.getId(), nextLoc.getId());
-            if (!pathOpt.isPresent()) {
-                logger.warn("路径不连续: {} -> {}", currentLoc.getId(), nextLoc.getId());
-                return null;
-            }
-        }
-
-        logger.debug("找到路径: {} -> {}, 包含 {} 个地点", startId, endId, path.size());
-        return path;
+        logger.debug("找到路径: {} -> {}, 包含 {} 个地点", startId, endId, route.length + 1);
+        return route;
     }
 
     /**
-     * 获取所有地点信息
+     * 获取路网图快照（首次使用或失效后重新构建）
      */
-    private Map<Integer, Location> getAllLocations() {
-        // 这里需要实现地点DAO的方法，或者使用已有的方法
-        // 假设有一个LocationDao
-        try {
-            // 临时方案：通过路径获取所有相关地点
-            List<Path> allPaths = pathDao.findActivePaths();
-            Set<Integer> locationIds = new HashSet<>();
-
-            for (Path path : allPaths) {
-                locationIds.add(path.getStartLocationId());
-                locationIds.add(path.getEndLocationId());
+    private GraphSnapshot getGraphSnapshot() {
+        GraphSnapshot snapshot = graphSnapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = graphSnapshot;
+                if (snapshot == null) {
+                    long version = graphVersion.get();
+                    snapshot = graphSnapshotBuilder.build();
+                    publishGraphSnapshot(snapshot, version);
+                }
             }
+        }
+        return snapshot;
+    }
 
-            // 这里需要调用LocationDao批量获取地点信息
-            // 假设有一个方法：List<Location> findByIds(Collection<Integer> ids)
-            LocationDao locationDao = DaoFactory.getLocationDao();
-            List<Location> locations = locationDao.findAccessibleLocations();
-
-            Map<Integer, Location> locationMap = new HashMap<>();
-            for (Location location : locations) {
-                locationMap.put(location.getId(), location);
-            }
+    @Override
+    public void preloadRouteGraph() {
+        getGraphSnapshot();
+    }
 
-            return locationMap;
+    @Override
+    public void invalidateRouteGraph() {
+        graphVersion.incrementAndGet();
+        graphSnapshot = null;
+        logger.debug("路网图快照已失效");
+    }
 
+    @Override
+    public synchronized void applyGraphChanges(Collection<Integer> changedPathIds,
+                                               Collection<Integer> changedLocationIds) {
+        GraphSnapshot current = graphSnapshot;
+        if (current == null || (changedPathIds.isEmpty() && changedLocationIds.isEmpty())) {
+            return;
+        }
+        long version = graphVersion.get();
+        try {
+            publishGraphSnapshot(graphSnapshotBuilder.update(current, changedPathIds, changedLocationIds), version);
         } catch (Exception e) {
-            logger.error("获取地点信息失败", e);
-            return new HashMap<>();
+            logger.error("路网图快照增量更新失败，下次使用时重新构建", e);
+            invalidateRouteGraph();
         }
     }
 
     /**
-     * 构建图 - 改进版
+     * 路径权重配置变化后重新计算当前快照的边权重（不重新读取路网数据），路线缓存随快照替换而清空
      */
-    private Map<Integer, List<Edge>> buildGraph(List<Path> paths, NavigationStrategy strategy) {
-        Map<Integer, List<Edge>> graph = new HashMap<>();
-        Map<String, Double> weights = SystemConfig.getPathWeights();
-
-        for (Path path : paths) {
-            // 检查路径是否有效
-            if (!isPathValid(path)) {
-                continue;
-            }
-
-            // 检查路径是否可用
-            if (!Boolean.TRUE.equals(path.getIsActive())) {
-                continue;
-            }
-
-            // 检查起点和终点地点是否可用
-            if (path.getStartLocation() != null && Boolean.FALSE.equals(path.getStartLocation().getIsAccessible())) {
-                continue;
-            }
-            if (path.getEndLocation() != null && Boolean.FALSE.equals(path.getEndLocation().getIsAccessible())) {
-                continue;
-            }
-
-            // 计算边的权重
-            double weight = path.calculateWeightedDistance(strategy, weights);
-
-            // 添加正向边
-            graph.computeIfAbsent(path.getStartLocationId(), k -> new ArrayList<>())
-                    .add(new Edge(path.getEndLocationId(), weight, path));
-
-            // 添加反向边（如果是双向路径）
-            graph.computeIfAbsent(path.getEndLocationId(), k -> new ArrayList<>())
-                    .add(new Edge(path.getStartLocationId(), weight, path));
+    private void onConfigChange(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (!previous.getPathWeights().equals(current.getPathWeights())) {
+            reweighRouteGraph(current.getPathWeights());
         }
+    }
 
-        return graph;
+    private synchronized void reweighRouteGraph(Map<String, Double> pathWeights) {
+        GraphSnapshot current = graphSnapshot;
+        if (current == null) {
+            return;
+        }
+        long version = graphVersion.get();
+        publishGraphSnapshot(GraphSnapshotBuilder.reweigh(current, pathWeights), version);
+        logger.info("路径权重已更新，路网图边权重已重新计算: {}", pathWeights);
     }
 
     /**
-     * 检查路径是否有效
+     * 发布构建好的快照；构建期间发生过失效时丢弃，避免旧数据覆盖失效
+     * （先写入再检查版本，与invalidateRouteGraph的先递增版本再清空配合，任意交错下都不会留下过期快照）
      */
-    private boolean isPathValid(Path path) {
-        if (path == null) return false;
-        if (path.getStartLocationId() == null || path.getEndLocationId() == null) return false;
-        if (path.getStartLocationId().equals(path.getEndLocationId())) return false; // 自环路径
-        if (path.getDistance() == null || path.getDistance() <= 0) return false;
-        if (path.getTimeCost() == null || path.getTimeCost() <= 0) return false;
-        return true;
+    private void publishGraphSnapshot(GraphSnapshot snapshot, long version) {
+        graphSnapshot = snapshot;
+        if (graphVersion.get() != version) {
+            graphSnapshot = null;
+        }
     }
 
     /**
-     * 图的边（增强版）
+     * 当前快照对应的路线缓存，快照被替换（失效或增量更新）后换成新的空缓存
      */
-    private static class Edge {
-        private final Integer to;
-        private final double weight;
-        private final Path path; // 保留路径信息
-
-        public Edge(Integer to, double weight, Path path) {
-            this.to = to;
-            this.weight = weight;
-            this.path = path;
+    private RouteCache routeCacheFor(GraphSnapshot graph) {
+        RouteCache cache = routeCache;
+        if (cache == null || cache.graph != graph) {
+            cache = new RouteCache(graph, routeCacheSize);
+            routeCache = cache;
         }
+        return cache;
+    }
 
-        public Integer getTo() {
-            return to;
+    /**
+     * 路线结果缓存（LRU），只对生成它的路网图快照有效
+     */
+    private static final class RouteCache {
+        private final GraphSnapshot graph;
+        private final Map<RouteKey, NavigationResult> results;
+
+        RouteCache(GraphSnapshot graph, int maxSize) {
+            this.graph = graph;
+            this.results = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<RouteKey, NavigationResult> eldest) {
+                    return size() > maxSize;
+                }
+            });
         }
 
-        public double getWeight() {
-            return weight;
+        NavigationResult get(RouteKey key) {
+            return results.get(key);
         }
 
-        public Path getPath() {
-            return path;
+        void put(RouteKey key, NavigationResult result) {
+            results.put(key, result);
         }
     }
 
-    
     /**
-     * Dijkstra算法的节点
+     * 路线请求键（起点、终点、策略）
      */
-    private static class Node {
-        private final Integer id;
-        private final double distance;
-        
-        public Node(Integer id, double distance) {
-            this.id = id;
-            this.distance = distance;
+    private static final class RouteKey {
+        private final Integer startId;
+        private final Integer endId;
+        private final NavigationStrategy strategy;
+
+        RouteKey(Integer startId, Integer endId, NavigationStrategy strategy) {
+            this.startId = startId;
+            this.endId = endId;
+            this.strategy = strategy;
         }
-        
-        public Integer getId() {
-            return id;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RouteKey)) return false;
+            RouteKey other = (RouteKey) o;
+            return startId.equals(other.startId) && endId.equals(other.endId) && strategy == other.strategy;
         }
-        
-        public double getDistance() {
-            return distance;
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startId, endId, strategy);
         }
     }
 }
\ No newline at end of file
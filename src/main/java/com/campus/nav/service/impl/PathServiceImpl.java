@@ -3,10 +3,13 @@ package com.campus.nav.service.impl;
 import com.campus.nav.dao.DaoFactory;
 import com.campus.nav.dao.LocationDao;
 import com.campus.nav.dao.PathDao;
+import com.campus.nav.exception.DatabaseException;
 import com.campus.nav.exception.ValidationException;
 import com.campus.nav.model.Location;
 import com.campus.nav.model.Path;
 import com.campus.nav.service.PathService;
+import com.campus.nav.service.ServiceFactory;
+import com.campus.nav.utils.TransactionTemplate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -113,7 +116,7 @@ public class PathServiceImpl extends AbstractBaseService<Path, Integer> implemen
                 throw new ValidationException("路径ID不能为空");
             }
             
-            return pathDao.updateStatus(pathId, isActive);
+            return invalidateRouteGraphIf(pathDao.updateStatus(pathId, isActive));
         } catch (ValidationException e) {
             logger.warn("更新路径状态验证失败: {}", pathId, e);
             throw e;
@@ -176,51 +179,57 @@ public class PathServiceImpl extends AbstractBaseService<Path, Integer> implemen
                 throw new ValidationException("距离必须大于0");
             }
             
-            // 检查地点是否存在
-            Optional<Location> loc1Opt = locationDao.findById(locationId1);
-            Optional<Location> loc2Opt = locationDao.findById(locationId2);
-            
-            if (loc1Opt.isEmpty() || loc2Opt.isEmpty()) {
-                throw new ValidationException("地点不存在");
-            }
-            
-            // 检查路径是否已存在
-            Optional<Path> existingPath = pathDao.findByStartAndEnd(locationId1, locationId2);
-            if (existingPath.isPresent()) {
-                throw new ValidationException("路径已存在");
-            }
-            
-            // 创建正向路径
-            Path forwardPath = Path.builder()
-                    .startLocationId(locationId1)
-                    .endLocationId(locationId2)
-                    .distance(distance)
-                    .timeCost(timeCost != null ? timeCost : (int)(distance / 1.4)) // 假设步行速度1.4m/s
-                    .hasShade(hasShade)
-                    .scenicLevel(scenicLevel != null ? scenicLevel : 1)
-                    .isIndoor(false)
-                    .isActive(true)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            
-            // 创建反向路径
-            Path backwardPath = Path.builder()
-                    .startLocationId(locationId2)
-                    .endLocationId(locationId1)
-                    .distance(distance)
-                    .timeCost(timeCost != null ? timeCost : (int)(distance / 1.4))
-                    .hasShade(hasShade)
-                    .scenicLevel(scenicLevel != null ? scenicLevel : 1)
-                    .isIndoor(false)
-                    .isActive(true)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            
-            // 保存两条路径
-            boolean forwardSuccess = pathDao.save(forwardPath);
-            boolean backwardSuccess = pathDao.save(backwardPath);
-            
-            return forwardSuccess && backwardSuccess;
+            // 查询校验和两条路径的写入在同一个连接、同一个事务中完成
+            boolean created = TransactionTemplate.execute(() -> {
+                // 检查地点是否存在
+                Optional<Location> loc1Opt = locationDao.findById(locationId1);
+                Optional<Location> loc2Opt = locationDao.findById(locationId2);
+                
+                if (loc1Opt.isEmpty() || loc2Opt.isEmpty()) {
+                    throw new ValidationException("地点不存在");
+                }
+                
+                // 检查路径是否已存在
+                Optional<Path> existingPath = pathDao.findByStartAndEnd(locationId1, locationId2);
+                if (existingPath.isPresent()) {
+                    throw new ValidationException("路径已存在");
+                }
+                
+                // 创建正向路径
+                Path forwardPath = Path.builder()
+                        .startLocationId(locationId1)
+                        .endLocationId(locationId2)
+                        .distance(distance)
+                        .timeCost(timeCost != null ? timeCost : (int)(distance / 1.4)) // 假设步行速度1.4m/s
+                        .hasShade(hasShade)
+                        .scenicLevel(scenicLevel != null ? scenicLevel : 1)
+                        .isIndoor(false)
+                        .isActive(true)
+                        .createdAt(LocalDateTime.now())
+                        .build();
+                
+                // 创建反向路径
+                Path backwardPath = Path.builder()
+                        .startLocationId(locationId2)
+                        .endLocationId(locationId1)
+                        .distance(distance)
+                        .timeCost(timeCost != null ? timeCost : (int)(distance / 1.4))
+                        .hasShade(hasShade)
+                        .scenicLevel(scenicLevel != null ? scenicLevel : 1)
+                        .isIndoor(false)
+                        .isActive(true)
+                        .createdAt(LocalDateTime.now())
+                        .build();
+                
+                // 保存两条路径，任一失败则整体回滚，不会留下单向路径
+                if (!pathDao.save(forwardPath) || !pathDao.save(backwardPath)) {
+                    throw new DatabaseException("保存双向路径失败");
+                }
+                return true;
+            });
+                
+            invalidateRouteGraphIf(created);
+            return created;
             
         } catch (ValidationException e) {
             logger.warn("创建双向路径验证失败: {} <-> {}", locationId1, locationId2, e);
@@ -291,7 +300,7 @@ public class PathServiceImpl extends AbstractBaseService<Path, Integer> implemen
                 path.setCreatedAt(LocalDateTime.now());
             }
             
-            return pathDao.save(path);
+            return invalidateRouteGraphIf(pathDao.save(path));
             
         } catch (ValidationException e) {
             logger.warn("保存路径验证失败: {} -> {}", 
@@ -320,7 +329,7 @@ public class PathServiceImpl extends AbstractBaseService<Path, Integer> implemen
                 throw new ValidationException("距离必须大于0");
             }
             
-            return pathDao.update(path);
+            return invalidateRouteGraphIf(pathDao.update(path));
             
         } catch (ValidationException e) {
             logger.warn("更新路径验证失败: {}", path.getId(), e);
@@ -338,7 +347,7 @@ public class PathServiceImpl extends AbstractBaseService<Path, Integer> implemen
                 throw new ValidationException("路径ID不能为空");
             }
             
-            return pathDao.deleteByLocationId(id);
+            return invalidateRouteGraphIf(pathDao.deleteByLocationId(id));
             
         } catch (ValidationException e) {
             logger.warn("删除路径验证失败: {}", id, e);
@@ -391,4 +400,14 @@ public class PathServiceImpl extends AbstractBaseService<Path, Integer> implemen
             return 0;
         }
     }
+    
+    /**
+     * 路网变更后使路网图快照失效
+     */
+    private boolean invalidateRouteGraphIf(boolean changed) {
+        if (changed) {
+            ServiceFactory.getNavigationService().invalidateRouteGraph();
+        }
+        return changed;
+    }
 }
\ No newline at end of file
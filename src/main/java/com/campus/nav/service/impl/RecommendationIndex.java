@@ -0,0 +1,332 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.HistoryRollupDao;
+import com.campus.nav.dao.NavigationHistoryDao;
+import com.campus.nav.model.NavigationHistory;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.RouteStat;
+import com.campus.nav.utils.SingleFlight;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 路线推荐索引
+ * 按(起点, 终点, 策略)统计导航次数：全局计数从热门路线汇总加载，用户计数在首次查询该用户时
+ * 从其导航历史加载（只保留最近使用的recommend.maxUsers个用户），之后都随导航历史的写入增量累加。
+ * 查询某条路线最常用的策略只需两次哈希查找，不再扫描用户的全部历史
+ */
+public class RecommendationIndex {
+    private static final Logger logger = LogManager.getLogger(RecommendationIndex.class);
+
+    private static final NavigationStrategy[] STRATEGIES = NavigationStrategy.values();
+
+    private final HistoryRollupDao historyRollupDao;
+    private final NavigationHistoryDao navigationHistoryDao;
+    private final Runnable flushPending;
+    private final int maxUsers;
+    private final int globalRoutes;
+    private final long globalRefreshMillis;
+
+    private volatile RouteCounts global;
+    private volatile long globalLoadedAt;
+    private final AtomicBoolean globalLoading = new AtomicBoolean();
+
+    private final Map<Integer, RouteCounts> users;
+    private final ConcurrentMap<Integer, RouteCounts> loadingUsers = new ConcurrentHashMap<>();
+    private final SingleFlight<Integer, RouteCounts> userFlight = new SingleFlight<>();
+
+    private final LongAdder userHits = new LongAdder();
+    private final LongAdder globalHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder userLoads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param flushPending 加载用户历史前调用，把异步写入队列中的历史先写入数据库
+     */
+    public RecommendationIndex(HistoryRollupDao historyRollupDao, NavigationHistoryDao navigationHistoryDao,
+                               Runnable flushPending) {
+        this.historyRollupDao = historyRollupDao;
+        this.navigationHistoryDao = navigationHistoryDao;
+        this.flushPending = flushPending;
+        this.maxUsers = Integer.parseInt(DatabaseConfig.getProperty("recommend.maxUsers", "10000"));
+        this.globalRoutes = Integer.parseInt(DatabaseConfig.getProperty("recommend.globalRoutes", "5000"));
+        this.globalRefreshMillis = TimeUnit.MINUTES.toMillis(
+                Long.parseLong(DatabaseConfig.getProperty("recommend.globalRefreshMinutes", "10")));
+        this.users = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RouteCounts> eldest) {
+                if (size() > RecommendationIndex.this.maxUsers) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 记录一次导航，累加到全局计数和已加载的用户计数
+     */
+    public void record(NavigationHistory history) {
+        if (history.getStartLocationId() == null || history.getEndLocationId() == null
+                || history.getPathStrategy() == null) {
+            return;
+        }
+        RouteCounts current = global;
+        if (current != null) {
+            current.add(history.getStartLocationId(), history.getEndLocationId(), history.getPathStrategy(), 1);
+        }
+        if (history.getUserId() == null) {
+            return;
+        }
+        RouteCounts user = users.get(history.getUserId());
+        if (user == null) {
+            // 正在加载时，加载开始之后创建的历史由这里累加，加载只读取之前的历史
+            user = loadingUsers.get(history.getUserId());
+            if (user != null && history.getCreatedAt() != null && history.getCreatedAt().isBefore(user.since)) {
+                return;
+            }
+        }
+        if (user != null) {
+            user.add(history.getStartLocationId(), history.getEndLocationId(), history.getPathStrategy(), 1);
+        }
+    }
+
+    /**
+     * 推荐策略：优先取用户在这条路线上最常用的策略，用户没走过时取全局最常用的策略
+     * @return 没有任何记录时返回null
+     */
+    public NavigationStrategy recommend(Integer userId, Integer startLocationId, Integer endLocationId) {
+        PairCounts pair = userCounts(userId).get(startLocationId, endLocationId);
+        if (pair != null) {
+            userHits.increment();
+            return pair.best();
+        }
+        pair = globalCounts().get(startLocationId, endLocationId);
+        if (pair != null) {
+            globalHits.increment();
+            return pair.best();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 从起点出发的常用目的地：先按用户自己的次数排序，不足limit个时用全局次数补齐
+     * 返回的统计只包含起点、终点、最常用策略和导航次数
+     */
+    public List<RouteStat> frequentDestinations(Integer userId, Integer startLocationId, int limit) {
+        List<RouteStat> result = new ArrayList<>(limit);
+        Set<Integer> seen = new HashSet<>();
+        if (userId != null) {
+            collectTop(userCounts(userId), startLocationId, limit, result, seen);
+        }
+        if (result.size() < limit) {
+            collectTop(globalCounts(), startLocationId, limit, result, seen);
+        }
+        return result;
+    }
+
+    /**
+     * 用户的历史被删除后丢弃其计数，下次查询时重新加载
+     */
+    public void evictUser(Integer userId) {
+        users.remove(userId);
+    }
+
+    /**
+     * 丢弃全部计数（批量清理历史后调用）
+     */
+    public void clear() {
+        users.clear();
+        global = null;
+    }
+
+    /**
+     * 获取索引状态信息
+     */
+    public String getStatus() {
+        return String.format("推荐索引: 用户=%d/%d, 用户命中=%d, 全局命中=%d, 未命中=%d, 用户加载=%d, 淘汰=%d",
+                users.size(), maxUsers, userHits.sum(), globalHits.sum(), misses.sum(),
+                userLoads.sum(), evictions.sum());
+    }
+
+    private static void collectTop(RouteCounts counts, Integer startLocationId, int limit,
+                                   List<RouteStat> result, Set<Integer> seen) {
+        Map<Integer, PairCounts> destinations = counts.destinations(startLocationId);
+        if (destinations == null) {
+            return;
+        }
+        List<RouteStat> candidates = new ArrayList<>(destinations.size());
+        for (Map.Entry<Integer, PairCounts> entry : destinations.entrySet()) {
+            if (!seen.contains(entry.getKey())) {
+                PairCounts pair = entry.getValue();
+                candidates.add(RouteStat.builder()
+                        .startLocationId(startLocationId)
+                        .endLocationId(entry.getKey())
+                        .strategy(pair.best())
+                        .navCount(pair.total())
+                        .build());
+            }
+        }
+        candidates.sort(Comparator.comparing(RouteStat::getNavCount).reversed());
+        for (RouteStat stat : candidates) {
+            if (result.size() >= limit) {
+                break;
+            }
+            seen.add(stat.getEndLocationId());
+            result.add(stat);
+        }
+    }
+
+    /**
+     * 用户计数，不在索引中时从导航历史加载（相同用户的并发加载合并为一次）
+     */
+    private RouteCounts userCounts(Integer userId) {
+        RouteCounts counts = users.get(userId);
+        if (counts != null) {
+            return counts;
+        }
+        return userFlight.execute(userId, () -> {
+            RouteCounts loaded = users.get(userId);
+            return loaded != null ? loaded : loadUser(userId);
+        });
+    }
+
+    private RouteCounts loadUser(Integer userId) {
+        RouteCounts counts = new RouteCounts(LocalDateTime.now());
+        loadingUsers.put(userId, counts);
+        try {
+            flushPending.run();
+            try (Stream<NavigationHistory> histories = navigationHistoryDao.streamByUserId(userId)) {
+                histories.forEach(history -> {
+                    if (history.getCreatedAt() == null || history.getCreatedAt().isBefore(counts.since)) {
+                        counts.add(history.getStartLocationId(), history.getEndLocationId(),
+                                history.getPathStrategy(), 1);
+                    }
+                });
+            }
+            users.put(userId, counts);
+            userLoads.increment();
+            return counts;
+        } catch (Exception e) {
+            // 加载失败时本次按没有历史处理，不放入索引，下次查询再加载
+            logger.error("加载用户导航历史到推荐索引失败: {}", userId, e);
+            return new RouteCounts(counts.since);
+        } finally {
+            loadingUsers.remove(userId);
+        }
+    }
+
+    /**
+     * 全局计数；超过recommend.globalRefreshMinutes后由一个调用方重新从汇总表加载，
+     * 其他实例的导航在汇总后才会计入
+     */
+    private RouteCounts globalCounts() {
+        RouteCounts current = global;
+        boolean stale = current == null || System.currentTimeMillis() - globalLoadedAt > globalRefreshMillis;
+        if (stale && globalLoading.compareAndSet(false, true)) {
+            try {
+                current = loadGlobal();
+                global = current;
+                globalLoadedAt = System.currentTimeMillis();
+            } finally {
+                globalLoading.set(false);
+            }
+        }
+        return current != null ? current : new RouteCounts(LocalDateTime.now());
+    }
+
+    private RouteCounts loadGlobal() {
+        RouteCounts counts = new RouteCounts(LocalDateTime.now());
+        if (!historyRollupDao.isAvailable()) {
+            return counts;
+        }
+        for (RouteStat stat : historyRollupDao.findTopRoutes(null, globalRoutes)) {
+            counts.add(stat.getStartLocationId(), stat.getEndLocationId(), stat.getStrategy(), stat.getNavCount());
+        }
+        logger.debug("推荐索引已加载全局热门路线: {} 条", counts.size());
+        return counts;
+    }
+
+    /**
+     * 一组导航计数：起点 -> 终点 -> 各策略次数
+     */
+    private static final class RouteCounts {
+        private final LocalDateTime since;
+        private final ConcurrentMap<Integer, ConcurrentMap<Integer, PairCounts>> byStart = new ConcurrentHashMap<>();
+
+        RouteCounts(LocalDateTime since) {
+            this.since = since;
+        }
+
+        void add(Integer startId, Integer endId, NavigationStrategy strategy, long count) {
+            if (startId == null || endId == null || strategy == null) {
+                return;
+            }
+            byStart.computeIfAbsent(startId, id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(endId, id -> new PairCounts())
+                    .add(strategy, count);
+        }
+
+        PairCounts get(Integer startId, Integer endId) {
+            Map<Integer, PairCounts> destinations = byStart.get(startId);
+            return destinations != null ? destinations.get(endId) : null;
+        }
+
+        Map<Integer, PairCounts> destinations(Integer startId) {
+            return byStart.get(startId);
+        }
+
+        int size() {
+            int size = 0;
+            for (Map<Integer, PairCounts> destinations : byStart.values()) {
+                size += destinations.size();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 一条路线（起点、终点）上各策略的次数；次数只增不减，最常用策略随累加同步更新
+     */
+    private static final class PairCounts {
+        private final long[] counts = new long[STRATEGIES.length];
+        private long total;
+        private NavigationStrategy best;
+
+        synchronized void add(NavigationStrategy strategy, long count) {
+            counts[strategy.ordinal()] += count;
+            total += count;
+            if (best == null || counts[strategy.ordinal()] > counts[best.ordinal()]) {
+                best = strategy;
+            }
+        }
+
+        synchronized NavigationStrategy best() {
+            return best;
+        }
+
+        synchronized long total() {
+            return total;
+        }
+    }
+}
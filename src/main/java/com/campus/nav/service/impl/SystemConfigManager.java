@@ -0,0 +1,81 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.dao.SystemConfigDao;
+import com.campus.nav.model.SystemConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 系统配置加载
+ * 把system_config表加载为配置快照（com.campus.nav.config.SystemConfig）。其他实例修改配置后，
+ * 变更日志轮询读到新版本时通知这里重新加载；通过本类修改的配置提交后立即重新加载。
+ * 加载失败时保留当前快照
+ */
+public class SystemConfigManager implements ChangeLogPoller.Listener {
+    private static final Logger logger = LogManager.getLogger(SystemConfigManager.class);
+
+    private static final String SYSTEM_CONFIG = "system_config";
+
+    private final SystemConfigDao systemConfigDao;
+
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SystemConfigManager(SystemConfigDao systemConfigDao) {
+        this.systemConfigDao = systemConfigDao;
+    }
+
+    /**
+     * 从system_config表重新加载配置（串行执行，避免较早读到的配置覆盖较新的）
+     * @return 是否加载成功
+     */
+    public synchronized boolean reload() {
+        try {
+            Map<String, String> values = new HashMap<>();
+            for (SystemConfig config : systemConfigDao.findAll()) {
+                values.put(config.getConfigKey(), config.getConfigValue());
+            }
+            reloads.increment();
+            if (com.campus.nav.config.SystemConfig.reload(values)) {
+                logger.info("已从system_config加载 {} 项配置", values.size());
+            }
+            return true;
+        } catch (Exception e) {
+            failures.increment();
+            logger.error("加载系统配置失败，继续使用当前配置", e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量修改配置（一个事务），成功后重新加载
+     */
+    public boolean updateConfigs(List<SystemConfig> configs) {
+        boolean success = systemConfigDao.updateBatch(configs);
+        if (success) {
+            reload();
+        }
+        return success;
+    }
+
+    @Override
+    public void onChange(String tableName, Set<Integer> rowIds) {
+        if (SYSTEM_CONFIG.equals(tableName)) {
+            reload();
+        }
+    }
+
+    /**
+     * 获取加载状态信息
+     */
+    public String getStatus() {
+        return String.format("系统配置: 版本=%d, 加载=%d, 失败=%d",
+                com.campus.nav.config.SystemConfig.current().getVersion(), reloads.sum(), failures.sum());
+    }
+}
@@ -0,0 +1,123 @@
+package com.campus.nav.utils;
+
+import com.campus.nav.config.DatabaseConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 分页总数缓存
+ * 按COUNT语句和参数缓存结果，超过TTL或语句涉及的表被写入（由DatabaseUtil通知，事务中的写入在提交后再通知一次）后失效
+ */
+public class CountCache {
+    private static final Logger logger = LogManager.getLogger(CountCache.class);
+
+    private static final Pattern TABLE_PATTERN =
+            Pattern.compile("\\b(?:FROM|JOIN|INTO|UPDATE)\\s+`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private CountCache() {
+    }
+
+    /**
+     * 获取缓存的总数，不存在或已过期时返回null
+     */
+    public static Long get(String countSql, Object... params) {
+        Entry entry = entries.get(key(countSql, params));
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.count;
+    }
+
+    /**
+     * 缓存总数
+     */
+    public static void put(String countSql, long count, Object... params) {
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        long ttlMillis = Long.parseLong(DatabaseConfig.getProperty("db.count.cacheTtlSeconds", "30")) * 1000;
+        entries.put(key(countSql, params),
+                new Entry(count, System.currentTimeMillis() + ttlMillis, tablesOf(countSql)));
+    }
+
+    /**
+     * 写操作后使涉及表的缓存失效
+     */
+    public static void invalidateFor(String writeSql) {
+        for (String table : tablesOf(writeSql)) {
+            invalidateTable(table);
+        }
+    }
+
+    /**
+     * 使指定表相关的缓存失效
+     */
+    public static void invalidateTable(String table) {
+        String name = table.toLowerCase(Locale.ROOT);
+        if (entries.values().removeIf(entry -> entry.tables.contains(name))) {
+            logger.debug("表 {} 已写入，清除相关分页计数缓存", name);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 获取缓存状态信息
+     */
+    public static String getStatus() {
+        return String.format("计数缓存: 条目=%d, 命中=%d, 未命中=%d", entries.size(), hits.sum(), misses.sum());
+    }
+
+    private static String key(String countSql, Object... params) {
+        return countSql + "|" + Arrays.toString(params);
+    }
+
+    /**
+     * 解析SQL中涉及的表名（小写）
+     */
+    static Set<String> tablesOf(String sql) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = TABLE_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+        return tables;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+        private final long count;
+        private final long expiresAt;
+        private final Set<String> tables;
+
+        Entry(long count, long expiresAt, Set<String> tables) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+            this.tables = tables;
+        }
+    }
+}
@@ -2,18 +2,30 @@ package com.campus.nav.utils;
 
 import com.campus.nav.config.DatabaseConfig;
 import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.BatchResult;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 数据库操作工具类
  */
 public class DatabaseUtil {
     private static final Logger logger = LogManager.getLogger(DatabaseUtil.class);
+    
+    /**
+     * 流式读取每读这么多行把连接标记为正在使用一次，避免长时间的导出、导入被连接池当作泄漏连接回收
+     */
+    private static final int KEEP_ALIVE_ROWS = 1024;
 
     /**
      * 执行更新操作（INSERT, UPDATE, DELETE）
@@ -21,19 +33,28 @@ public class DatabaseUtil {
     public static int executeUpdate(String sql, Object... params) {
         Connection conn = null;
         PreparedStatement pstmt = null;
+        SqlMetrics.Sample sample = SqlMetrics.start(sql);
         
         try {
-            conn = DatabaseConfig.getConnection();
-            pstmt = conn.prepareStatement(sql);
+            conn = getConnection();
+            sample.connectionAcquired();
+            pstmt = StatementCache.prepare(conn, sql);
+            QueryContext.attach(pstmt);
             
             // 设置参数
             setParameters(pstmt, params);
             
             int result = pstmt.executeUpdate();
+            sample.success(result, params);
+            if (result > 0) {
+                afterWrite(sql);
+            }
             logger.debug("SQL执行成功: {}, 影响行数: {}", sql, result);
             return result;
             
         } catch (SQLException e) {
+            sample.failure(params);
+            TransactionTemplate.setRollbackOnly();
             logger.error("SQL执行失败: {}", sql, e);
             throw new DatabaseException("数据库操作失败: " + e.getMessage(), e);
         } finally {
@@ -41,6 +62,113 @@ public class DatabaseUtil {
         }
     }
 
+    /**
+     * 批量执行更新操作（JDBC addBatch/executeBatch）
+     * 按chunkSize分块，每块一个事务：某块失败时只回滚该块并继续执行后续块；
+     * 在TransactionTemplate事务中执行时不单独提交，任何一块失败都会使整个事务回滚
+     * @param chunkSize 每块行数，&lt;=0时使用db.batch.size配置
+     * @param returnKeys 是否读取生成的主键
+     */
+    public static BatchResult executeBatch(String sql, List<Object[]> paramsList, int chunkSize, boolean returnKeys) {
+        BatchResult result = new BatchResult(paramsList.size());
+        if (paramsList.isEmpty()) {
+            return result;
+        }
+        int size = chunkSize > 0 ? chunkSize
+                : Integer.parseInt(DatabaseConfig.getProperty("db.batch.size", "500"));
+        
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        SqlMetrics.Sample sample = SqlMetrics.start(sql);
+        
+        try {
+            conn = getConnection();
+            sample.connectionAcquired();
+            pstmt = StatementCache.prepare(conn, sql,
+                    returnKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+            QueryContext.attach(pstmt);
+            boolean ownTransaction = !TransactionTemplate.isActive();
+            if (ownTransaction) {
+                beginTransaction(conn);
+            }
+            try {
+                for (int from = 0; from < paramsList.size(); from += size) {
+                    int to = Math.min(from + size, paramsList.size());
+                    executeChunk(conn, pstmt, sql, paramsList, from, to, returnKeys, ownTransaction, result);
+                }
+            } finally {
+                if (ownTransaction) {
+                    restoreAutoCommit(conn);
+                }
+            }
+            
+            sample.success(result.getSuccessCount(), null);
+            if (result.getSuccessCount() > 0) {
+                afterWrite(sql);
+            }
+            logger.debug("SQL批量执行完成: {}, {}", sql, result);
+            return result;
+            
+        } catch (SQLException e) {
+            sample.failure(null);
+            TransactionTemplate.setRollbackOnly();
+            logger.error("SQL批量执行失败: {}", sql, e);
+            throw new DatabaseException("数据库批量操作失败: " + e.getMessage(), e);
+        } finally {
+            closeResources(null, pstmt, conn);
+        }
+    }
+
+    /**
+     * 执行一个批次并提交，失败时回滚该批次
+     */
+    private static void executeChunk(Connection conn, PreparedStatement pstmt, String sql,
+                                     List<Object[]> paramsList, int from, int to, boolean returnKeys,
+                                     boolean ownTransaction, BatchResult result) throws SQLException {
+        try {
+            for (int i = from; i < to; i++) {
+                setParameters(pstmt, paramsList.get(i));
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+            List<Long> keys = returnKeys ? readGeneratedKeys(pstmt) : null;
+            if (ownTransaction) {
+                conn.commit();
+            }
+            
+            // 生成的主键按成功行的顺序返回
+            int keyIndex = 0;
+            for (int i = 0; i < to - from; i++) {
+                int count = i < counts.length ? counts[i] : Statement.EXECUTE_FAILED;
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    Long key = keys != null && keyIndex < keys.size() ? keys.get(keyIndex++) : null;
+                    result.markSuccess(from + i, key);
+                }
+            }
+        } catch (SQLException e) {
+            pstmt.clearBatch();
+            if (!ownTransaction) {
+                throw e;
+            }
+            rollbackTransaction(conn);
+            logger.warn("SQL批量执行失败，已回滚第 {}-{} 行: {}", from + 1, to, sql, e);
+            result.markFailed(from, to, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取生成的主键
+     */
+    private static List<Long> readGeneratedKeys(Statement stmt) throws SQLException {
+        List<Long> keys = new ArrayList<>();
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            while (rs.next()) {
+                keys.add(rs.getLong(1));
+            }
+        }
+        return keys;
+    }
+
     /**
      * 执行查询操作，返回单个值
      */
@@ -72,10 +200,13 @@ public class DatabaseUtil {
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         List<T> results = new ArrayList<>();
+        SqlMetrics.Sample sample = SqlMetrics.start(sql);
         
         try {
-            conn = DatabaseConfig.getConnection();
-            pstmt = conn.prepareStatement(sql);
+            conn = getReadConnection(sql);
+            sample.connectionAcquired();
+            pstmt = StatementCache.prepare(conn, sql);
+            QueryContext.attach(pstmt);
             
             // 设置参数
             setParameters(pstmt, params);
@@ -87,10 +218,13 @@ public class DatabaseUtil {
                 results.add(rowMapper.mapRow(rs, rowNum++));
             }
             
+            sample.success(results.size(), params);
             logger.debug("SQL查询成功: {}, 返回行数: {}", sql, results.size());
             return results;
             
         } catch (SQLException e) {
+            sample.failure(params);
+            TransactionTemplate.setRollbackOnly();
             logger.error("SQL查询失败: {}", sql, e);
             throw new DatabaseException("数据库查询失败: " + e.getMessage(), e);
         } finally {
@@ -98,6 +232,173 @@ public class DatabaseUtil {
         }
     }
 
+    /**
+     * 执行查询操作，以流的形式逐行返回结果（不构建结果列表）
+     * 返回的Stream持有数据库连接，必须关闭（建议使用try-with-resources）
+     * @param fetchSize 每批获取的行数，&lt;=0时使用db.stream.fetchSize配置
+     */
+    public static <T> Stream<T> executeQueryAsStream(String sql, RowMapper<T> rowMapper, int fetchSize, Object... params) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        SqlMetrics.Sample sample = SqlMetrics.start(sql);
+        
+        try {
+            conn = getReadConnection(sql);
+            sample.connectionAcquired();
+            pstmt = StatementCache.prepare(conn, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            QueryContext.attach(pstmt);
+            pstmt.setFetchSize(resolveFetchSize(fetchSize));
+            
+            // 设置参数
+            setParameters(pstmt, params);
+            
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            sample.failure(params);
+            TransactionTemplate.setRollbackOnly();
+            closeResources(rs, pstmt, conn);
+            logger.error("SQL查询失败: {}", sql, e);
+            throw new DatabaseException("数据库查询失败: " + e.getMessage(), e);
+        }
+        
+        ResultSet resultSet = rs;
+        Statement statement = pstmt;
+        Connection connection = conn;
+        int[] rowCounter = new int[1];
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(rowMapper.mapRow(resultSet, rowCounter[0]++));
+                    if (rowCounter[0] % KEEP_ALIVE_ROWS == 0) {
+                        DatabaseConfig.keepAlive(connection);
+                    }
+                    return true;
+                } catch (SQLException e) {
+                    sample.failure(params);
+                    TransactionTemplate.setRollbackOnly();
+                    logger.error("SQL结果读取失败: {}", sql, e);
+                    throw new DatabaseException("数据库查询失败: " + e.getMessage(), e);
+                }
+            }
+        };
+        
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            // 流式查询的耗时包含调用方处理每一行的时间
+            sample.success(rowCounter[0], params);
+            closeResources(resultSet, statement, connection);
+            logger.debug("SQL流式查询结束: {}", sql);
+        });
+    }
+
+    /**
+     * 执行查询操作，逐行回调处理结果集（不构建结果列表）
+     * @param fetchSize 每批获取的行数，&lt;=0时使用db.stream.fetchSize配置
+     * @return 处理的行数
+     */
+    public static int executeQueryForEach(String sql, int fetchSize, RowCallbackHandler handler, Object... params) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        SqlMetrics.Sample sample = SqlMetrics.start(sql);
+        
+        try {
+            conn = getReadConnection(sql);
+            sample.connectionAcquired();
+            pstmt = StatementCache.prepare(conn, sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            QueryContext.attach(pstmt);
+            pstmt.setFetchSize(resolveFetchSize(fetchSize));
+            
+            // 设置参数
+            setParameters(pstmt, params);
+            
+            rs = pstmt.executeQuery();
+            int rowNum = 0;
+            
+            while (rs.next()) {
+                handler.processRow(rs);
+                if (++rowNum % KEEP_ALIVE_ROWS == 0) {
+                    DatabaseConfig.keepAlive(conn);
+                }
+            }
+            
+            sample.success(rowNum, params);
+            logger.debug("SQL查询成功: {}, 处理行数: {}", sql, rowNum);
+            return rowNum;
+            
+        } catch (SQLException e) {
+            sample.failure(params);
+            TransactionTemplate.setRollbackOnly();
+            logger.error("SQL查询失败: {}", sql, e);
+            throw new DatabaseException("数据库查询失败: " + e.getMessage(), e);
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+    }
+
+    /**
+     * 获取连接：处于TransactionTemplate事务中时复用线程绑定的连接，否则从连接池获取
+     */
+    private static Connection getConnection() throws SQLException {
+        Connection bound = TransactionTemplate.currentConnection();
+        return bound != null ? bound : DatabaseConfig.getConnection();
+    }
+
+    /**
+     * 获取查询使用的连接：处于事务中时复用线程绑定的连接；配置了只读副本时按ReadRouting提示和读己之写规则选择
+     */
+    private static Connection getReadConnection(String sql) throws SQLException {
+        Connection bound = TransactionTemplate.currentConnection();
+        if (bound != null) {
+            return bound;
+        }
+        ReadRouting.Target target = ReadRouting.current();
+        if (!DatabaseConfig.hasReplicas() || target == ReadRouting.Target.PRIMARY) {
+            return DatabaseConfig.getConnection();
+        }
+        return DatabaseConfig.getReadConnection(CountCache.tablesOf(sql), target == ReadRouting.Target.REPLICA);
+    }
+
+    /**
+     * 写操作成功后：失效分页计数缓存，并记录写入的表用于读己之写；
+     * 事务中的写入在事务结束时再做一次，避免提交前其他连接按旧数据重新填充计数缓存
+     */
+    private static void afterWrite(String sql) {
+        Set<String> tables = DatabaseConfig.hasReplicas() ? CountCache.tablesOf(sql) : null;
+        invalidateAndRecord(sql, tables);
+        if (TransactionTemplate.isActive()) {
+            TransactionTemplate.afterCompletion(() -> invalidateAndRecord(sql, tables));
+        }
+    }
+
+    private static void invalidateAndRecord(String sql, Set<String> replicatedTables) {
+        CountCache.invalidateFor(sql);
+        if (replicatedTables != null) {
+            DatabaseConfig.recordWrite(replicatedTables);
+        }
+    }
+
+    /**
+     * 计算流式读取使用的fetchSize
+     * 开启useCursorFetch时使用服务端游标按批获取；否则使用MySQL驱动的逐行流式模式（Integer.MIN_VALUE）
+     */
+    private static int resolveFetchSize(int requested) {
+        boolean cursorFetch = Boolean.parseBoolean(
+                DatabaseConfig.getProperty("db.connection.useCursorFetch", "false"));
+        if (!cursorFetch) {
+            return Integer.MIN_VALUE;
+        }
+        if (requested > 0) {
+            return requested;
+        }
+        return Integer.parseInt(DatabaseConfig.getProperty("db.stream.fetchSize", "1000"));
+    }
+
     /**
      * 设置PreparedStatement参数
      */
@@ -120,13 +421,17 @@ public class DatabaseUtil {
         }
         
         try {
-            if (stmt != null) stmt.close();
+            if (stmt != null) {
+                QueryContext.detach(stmt);
+                stmt.close();
+            }
         } catch (SQLException e) {
             logger.warn("关闭Statement失败", e);
         }
         
         try {
-            if (conn != null && !conn.isClosed()) {
+            // 事务绑定的连接由TransactionTemplate负责关闭
+            if (conn != null && conn != TransactionTemplate.currentConnection() && !conn.isClosed()) {
                 conn.close();
             }
         } catch (SQLException e) {
@@ -190,4 +495,12 @@ public class DatabaseUtil {
     public interface RowMapper<T> {
         T mapRow(ResultSet rs, int rowNum) throws SQLException;
     }
+
+    /**
+     * 逐行处理回调接口
+     */
+    @FunctionalInterface
+    public interface RowCallbackHandler {
+        void processRow(ResultSet rs) throws SQLException;
+    }
 }
\ No newline at end of file
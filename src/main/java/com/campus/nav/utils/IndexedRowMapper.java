@@ -0,0 +1,82 @@
+package com.campus.nav.utils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * 按列序号读取的RowMapper
+ * 构造时给出需要的列标签，第一次映射时根据ResultSetMetaData把标签解析为列序号，
+ * 之后每行直接按序号读取，省去驱动按标签查找列的开销。
+ * 每个结果集的第一行会检查列数，结果集结构变化时重新解析。
+ * 一个实例对应一种结果集结构，应按SQL缓存（见AbstractBaseDao.rowMapper）
+ * @param <T> 实体类型
+ */
+public abstract class IndexedRowMapper<T> implements DatabaseUtil.RowMapper<T> {
+    private final String[] labels;
+    private volatile Resolved resolved;
+
+    /**
+     * @param labels 需要读取的列标签，mapRow中的columns[i]即labels[i]的列序号
+     */
+    protected IndexedRowMapper(String... labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public final T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Resolved current = resolved;
+        if (current == null || (rowNum == 0 && current.columnCount != rs.getMetaData().getColumnCount())) {
+            current = resolve(rs.getMetaData());
+            resolved = current;
+        }
+        return mapRow(rs, current.indexes);
+    }
+
+    /**
+     * 按列序号映射一行
+     * @param columns 与构造时的列标签一一对应的列序号
+     */
+    protected abstract T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+    /**
+     * 读取时间列（只读取一次）
+     */
+    protected static LocalDateTime getLocalDateTime(ResultSet rs, int column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private Resolved resolve(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        int[] indexes = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            indexes[i] = findColumn(metaData, columnCount, labels[i]);
+        }
+        return new Resolved(columnCount, indexes);
+    }
+
+    private static int findColumn(ResultSetMetaData metaData, int columnCount, String label) throws SQLException {
+        for (int column = 1; column <= columnCount; column++) {
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                return column;
+            }
+        }
+        throw new SQLException("结果集中不存在列: " + label);
+    }
+
+    /**
+     * 解析结果（不可变，整体替换）
+     */
+    private static final class Resolved {
+        private final int columnCount;
+        private final int[] indexes;
+
+        Resolved(int columnCount, int[] indexes) {
+            this.columnCount = columnCount;
+            this.indexes = indexes;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.campus.nav.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图（固定对数分桶，无锁记录）
+ * 分位数按所在桶的上界估算，不超过记录到的最大值
+ */
+public class LatencyHistogram {
+    /**
+     * 分桶上界（微秒），最后一个桶不设上界
+     */
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * 记录次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    /**
+     * 最大耗时（毫秒）
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * 估算分位数（毫秒）
+     * @param quantile 0~1之间，如0.99
+     */
+    public double getPercentileMillis(double quantile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        double max = getMaxMillis();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BUCKET_BOUNDS_MICROS.length ? Math.min(BUCKET_BOUNDS_MICROS[i] / 1000.0, max) : max;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 各桶的计数，键为桶上界（如"≤1ms"）
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length(); i++) {
+            String label = i < BUCKET_BOUNDS_MICROS.length
+                    ? "≤" + formatMicros(BUCKET_BOUNDS_MICROS[i])
+                    : ">" + formatMicros(BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 1]);
+            result.put(label, buckets.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 清空
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            if (micros <= BUCKET_BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MICROS.length;
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1_000) {
+            return micros + "us";
+        }
+        if (micros < 1_000_000) {
+            return micros / 1_000.0 % 1 == 0 ? micros / 1_000 + "ms" : micros / 1_000.0 + "ms";
+        }
+        return micros / 1_000_000.0 % 1 == 0 ? micros / 1_000_000 + "s" : micros / 1_000_000.0 + "s";
+    }
+}
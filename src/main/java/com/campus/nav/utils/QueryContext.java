@@ -0,0 +1,112 @@
+package com.campus.nav.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询上下文（截止时间与取消）
+ * 绑定到执行线程后，DatabaseUtil在执行每条语句前按剩余时间设置queryTimeout，并登记正在执行的语句，
+ * 取消时调用Statement.cancel()中断服务端查询。没有绑定上下文时不做任何处理
+ */
+public final class QueryContext {
+    private static final Logger logger = LogManager.getLogger(QueryContext.class);
+
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private volatile Statement runningStatement;
+    private volatile boolean cancelled;
+
+    /**
+     * @param timeoutNanos 超时时间，&lt;=0表示不限制
+     */
+    public QueryContext(long timeoutNanos) {
+        this.deadlineNanos = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+    }
+
+    /**
+     * 在当前线程上绑定此上下文执行操作
+     */
+    public void run(Runnable action) {
+        QueryContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 取消：之后的语句不再执行，正在执行的语句被取消
+     */
+    public void cancel() {
+        cancelled = true;
+        Statement statement = runningStatement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+                logger.debug("已取消正在执行的语句");
+            } catch (SQLException e) {
+                logger.warn("取消语句失败", e);
+            }
+        }
+    }
+
+    /**
+     * 是否已取消
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 语句执行前调用（由DatabaseUtil调用）：检查取消和超时，设置queryTimeout并登记语句
+     */
+    static void attach(Statement statement) throws SQLException {
+        QueryContext context = CURRENT.get();
+        if (context == null) {
+            return;
+        }
+        if (context.cancelled) {
+            throw new SQLException("查询已取消");
+        }
+        if (context.deadlineNanos != 0) {
+            long remaining = context.deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLTimeoutException("查询已超时");
+            }
+            // queryTimeout单位为秒，向上取整
+            statement.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999L)));
+        }
+        context.runningStatement = statement;
+    }
+
+    /**
+     * 语句关闭时调用（由DatabaseUtil调用）
+     */
+    static void detach(Statement statement) {
+        QueryContext context = CURRENT.get();
+        if (context == null || context.runningStatement != statement) {
+            return;
+        }
+        context.runningStatement = null;
+        if (context.deadlineNanos != 0) {
+            // 语句可能被连接池缓存复用，恢复为不限时
+            try {
+                statement.setQueryTimeout(0);
+            } catch (SQLException e) {
+                logger.debug("重置queryTimeout失败", e);
+            }
+        }
+    }
+}
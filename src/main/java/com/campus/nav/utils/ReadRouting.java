@@ -0,0 +1,60 @@
+package com.campus.nav.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * 查询路由提示
+ * 配置了只读副本时，DatabaseUtil的查询方法默认按读己之写规则选择副本或主库；
+ * 在此类的回调中执行的查询可以强制走主库，或者声明接受旧数据（只要副本延迟在上限内就读副本）。
+ * 事务中的查询始终使用事务绑定的主库连接
+ */
+public final class ReadRouting {
+
+    /**
+     * 路由目标
+     */
+    public enum Target {
+        /** 按读己之写规则选择 */
+        AUTO,
+        /** 强制读主库 */
+        PRIMARY,
+        /** 只读提示：接受副本延迟范围内的旧数据 */
+        REPLICA
+    }
+
+    private static final ThreadLocal<Target> CURRENT = ThreadLocal.withInitial(() -> Target.AUTO);
+
+    private ReadRouting() {
+    }
+
+    /**
+     * 回调中的查询强制读主库
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        return with(Target.PRIMARY, action);
+    }
+
+    /**
+     * 回调中的查询只读且接受旧数据，优先读副本
+     */
+    public static <T> T readOnly(Supplier<T> action) {
+        return with(Target.REPLICA, action);
+    }
+
+    /**
+     * 当前线程的路由目标
+     */
+    public static Target current() {
+        return CURRENT.get();
+    }
+
+    private static <T> T with(Target target, Supplier<T> action) {
+        Target previous = CURRENT.get();
+        CURRENT.set(target);
+        try {
+            return action.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.campus.nav.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 合并并发的相同请求（single-flight）
+ * 同一个key在计算期间到达的调用不会重复计算，而是等待并共享首个调用的结果；
+ * 计算结束后key立即移除，不做结果缓存
+ * @param <K> 请求键类型
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * 执行请求，若相同key的请求正在进行则加入等待
+     */
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> ownFuture = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, ownFuture);
+
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        executions.increment();
+        try {
+            V value = supplier.get();
+            ownFuture.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            ownFuture.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ownFuture);
+        }
+    }
+
+    /**
+     * 等待正在进行的计算完成
+     */
+    private V await(CompletableFuture<V> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 当前正在进行的请求数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 实际执行计算的次数
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * 共享他人结果的次数
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+}
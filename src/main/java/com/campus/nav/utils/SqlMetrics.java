@@ -0,0 +1,308 @@
+package com.campus.nav.utils;
+
+import com.campus.nav.config.DatabaseConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL执行指标
+ * 按SQL模板（带?占位符的语句）统计执行次数、错误数、返回/影响行数、连接池等待时间和执行耗时分布（LatencyHistogram）；
+ * 超过阈值的语句写入慢查询日志（com.campus.nav.sql.slow），绑定参数只记录类型和长度
+ */
+public class SqlMetrics {
+    private static final Logger logger = LogManager.getLogger(SqlMetrics.class);
+    private static final Logger slowLogger = LogManager.getLogger("com.campus.nav.sql.slow");
+
+    private static final String OTHER_TEMPLATE = "<其他SQL>";
+    private static final int MAX_SUMMARIZED_PARAMS = 10;
+
+    private static final boolean enabled =
+            Boolean.parseBoolean(DatabaseConfig.getProperty("db.metrics.enabled", "true"));
+    private static final long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(DatabaseConfig.getProperty("db.metrics.slowQueryMillis", "500")));
+    private static final int maxTemplates =
+            Integer.parseInt(DatabaseConfig.getProperty("db.metrics.maxTemplates", "500"));
+
+    private static final Map<String, TemplateStats> templates = new ConcurrentHashMap<>();
+    private static final LongAdder slowQueries = new LongAdder();
+
+    static {
+        if (enabled) {
+            // 关闭连接池时输出最慢的语句
+            DatabaseConfig.addCloseHook(() -> logger.info(getReport(10)));
+        }
+    }
+
+    private SqlMetrics() {
+    }
+
+    /**
+     * 开始一次语句执行计时（在获取连接之前调用）
+     */
+    public static Sample start(String sql) {
+        return enabled ? new Sample(sql) : Sample.NOOP;
+    }
+
+    /**
+     * 是否启用
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 各SQL模板的统计快照，按p99耗时从高到低排序
+     */
+    public static List<StatementStats> getSnapshot() {
+        List<StatementStats> snapshot = new ArrayList<>(templates.size());
+        templates.forEach((sql, stats) -> snapshot.add(stats.snapshot(sql)));
+        snapshot.sort(Comparator.comparingDouble(StatementStats::getP99Millis).reversed());
+        return snapshot;
+    }
+
+    /**
+     * 慢查询次数
+     */
+    public static long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    /**
+     * 重置统计
+     */
+    public static void reset() {
+        templates.clear();
+        slowQueries.reset();
+    }
+
+    /**
+     * 生成按p99排序的统计报告
+     * @param top 最多列出的语句数
+     */
+    public static String getReport(int top) {
+        List<StatementStats> snapshot = getSnapshot();
+        StringBuilder report = new StringBuilder(String.format(
+                "SQL执行统计: %d 个语句模板, 慢查询 %d 次", snapshot.size(), getSlowQueryCount()));
+        for (StatementStats stats : snapshot.subList(0, Math.min(top, snapshot.size()))) {
+            report.append(System.lineSeparator()).append("  ").append(stats);
+        }
+        return report.toString();
+    }
+
+    private static TemplateStats statsFor(String sql) {
+        TemplateStats stats = templates.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        // 模板数量超过上限后归入同一个桶，避免动态SQL撑大注册表
+        String key = templates.size() < maxTemplates ? sql : OTHER_TEMPLATE;
+        return templates.computeIfAbsent(key, k -> new TemplateStats());
+    }
+
+    /**
+     * 绑定参数摘要：数字、布尔和时间原样输出，字符串只输出长度（避免密码等敏感数据进入日志）
+     */
+    static String summarize(Object[] params) {
+        if (params == null || params.length == 0) {
+            return "[]";
+        }
+        StringBuilder summary = new StringBuilder("[");
+        int count = Math.min(params.length, MAX_SUMMARIZED_PARAMS);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            Object param = params[i];
+            if (param == null) {
+                summary.append("null");
+            } else if (param instanceof Number || param instanceof Boolean || param instanceof TemporalAccessor
+                    || param instanceof java.util.Date || param instanceof Enum) {
+                summary.append(param);
+            } else if (param instanceof CharSequence) {
+                summary.append("String(").append(((CharSequence) param).length()).append(')');
+            } else {
+                summary.append(param.getClass().getSimpleName());
+            }
+        }
+        if (params.length > count) {
+            summary.append(", ...共").append(params.length).append("个");
+        }
+        return summary.append(']').toString();
+    }
+
+    /**
+     * 一次语句执行的计时
+     */
+    public static class Sample {
+        private static final Sample NOOP = new Sample(null);
+
+        private final String sql;
+        private final long startNanos;
+        private long acquiredNanos;
+        private boolean finished;
+
+        private Sample(String sql) {
+            this.sql = sql;
+            this.startNanos = sql != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * 已获取连接（之前的时间计为连接池等待）
+         */
+        public void connectionAcquired() {
+            if (this != NOOP) {
+                acquiredNanos = System.nanoTime();
+            }
+        }
+
+        /**
+         * 执行成功
+         * @param rows 返回或影响的行数
+         */
+        public void success(long rows, Object[] params) {
+            finish(rows, false, params);
+        }
+
+        /**
+         * 执行失败
+         */
+        public void failure(Object[] params) {
+            finish(0, true, params);
+        }
+
+        private void finish(long rows, boolean error, Object[] params) {
+            if (this == NOOP || finished) {
+                return;
+            }
+            finished = true;
+            long end = System.nanoTime();
+            long acquired = acquiredNanos != 0 ? acquiredNanos : startNanos;
+            long poolWait = acquired - startNanos;
+            long elapsed = end - acquired;
+
+            statsFor(sql).record(poolWait, elapsed, rows, error);
+            if (elapsed + poolWait >= slowQueryNanos) {
+                slowQueries.increment();
+                slowLogger.warn("慢查询 {} ms (连接等待 {} ms, 行数 {}{}): {} 参数 {}",
+                        TimeUnit.NANOSECONDS.toMillis(elapsed + poolWait), TimeUnit.NANOSECONDS.toMillis(poolWait),
+                        rows, error ? ", 失败" : "", sql, summarize(params));
+            }
+        }
+    }
+
+    /**
+     * 单个SQL模板的累计统计
+     */
+    private static final class TemplateStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder poolWaitNanos = new LongAdder();
+
+        void record(long poolWait, long elapsed, long rowCount, boolean error) {
+            latency.record(elapsed);
+            if (error) {
+                errors.increment();
+            }
+            rows.add(rowCount);
+            poolWaitNanos.add(poolWait);
+        }
+
+        StatementStats snapshot(String sql) {
+            long n = latency.getCount();
+            return new StatementStats(sql, n, errors.sum(), rows.sum(),
+                    latency.getMeanMillis(),
+                    n == 0 ? 0 : poolWaitNanos.sum() / 1e6 / n,
+                    latency.getMaxMillis(),
+                    latency.getPercentileMillis(0.50),
+                    latency.getPercentileMillis(0.95),
+                    latency.getPercentileMillis(0.99));
+        }
+    }
+
+    /**
+     * SQL模板统计快照（耗时单位毫秒）
+     */
+    public static final class StatementStats {
+        private final String sql;
+        private final long count;
+        private final long errors;
+        private final long rows;
+        private final double avgMillis;
+        private final double avgPoolWaitMillis;
+        private final double maxMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+
+        StatementStats(String sql, long count, long errors, long rows, double avgMillis, double avgPoolWaitMillis,
+                       double maxMillis, double p50Millis, double p95Millis, double p99Millis) {
+            this.sql = sql;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.avgMillis = avgMillis;
+            this.avgPoolWaitMillis = avgPoolWaitMillis;
+            this.maxMillis = maxMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getAvgMillis() {
+            return avgMillis;
+        }
+
+        public double getAvgPoolWaitMillis() {
+            return avgPoolWaitMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("次数=%d, 错误=%d, 行数=%d, 平均=%.2fms, p50=%.2fms, p95=%.2fms, p99=%.2fms, " +
+                            "最大=%.2fms, 连接等待=%.2fms: %s",
+                    count, errors, rows, avgMillis, p50Millis, p95Millis, p99Millis, maxMillis, avgPoolWaitMillis, sql);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.campus.nav.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 启动阶段计时
+ * 记录各启动阶段的耗时和完成时刻（距JVM启动的毫秒数），以及首帧（登录窗口打开）、
+ * 首条路线等只记录一次的里程碑；同名阶段只保留第一次
+ */
+public final class StartupMetrics {
+    private static final Logger logger = LogManager.getLogger(StartupMetrics.class);
+
+    /**
+     * 登录窗口首次显示
+     */
+    public static final String FIRST_FRAME = "first-frame";
+
+    /**
+     * 首次导航计算成功
+     */
+    public static final String FIRST_ROUTE = "first-route";
+
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private static final ConcurrentMap<String, Phase> phases = new ConcurrentHashMap<>();
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * 执行一个启动阶段并记录耗时，阶段失败时同样记录
+     */
+    public static void time(String phase, Runnable action) {
+        long begin = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(phase, (System.nanoTime() - begin) / 1_000_000);
+        }
+    }
+
+    /**
+     * 记录里程碑（只记录第一次）
+     */
+    public static void mark(String milestone) {
+        if (!phases.containsKey(milestone)) {
+            record(milestone, -1);
+        }
+    }
+
+    /**
+     * 距JVM启动的毫秒数
+     */
+    public static long sinceStart() {
+        return System.currentTimeMillis() - JVM_START_MILLIS;
+    }
+
+    /**
+     * 已记录的阶段，按完成时刻排序
+     */
+    public static String getSummary() {
+        List<Phase> sorted = new ArrayList<>(phases.values());
+        sorted.sort(Comparator.comparingLong(phase -> phase.completedAt));
+        StringBuilder summary = new StringBuilder("启动阶段:");
+        for (Phase phase : sorted) {
+            summary.append(' ').append(phase.name).append('@').append(phase.completedAt).append("ms");
+            if (phase.durationMillis >= 0) {
+                summary.append('(').append(phase.durationMillis).append("ms)");
+            }
+        }
+        return summary.toString();
+    }
+
+    private static void record(String name, long durationMillis) {
+        Phase phase = new Phase(name, durationMillis, sinceStart());
+        if (phases.putIfAbsent(name, phase) != null) {
+            return;
+        }
+        if (durationMillis >= 0) {
+            logger.info("启动阶段 {} 完成: 耗时 {} ms, 距JVM启动 {} ms", name, durationMillis, phase.completedAt);
+        } else {
+            logger.info("启动里程碑 {}: 距JVM启动 {} ms", name, phase.completedAt);
+        }
+    }
+
+    private static final class Phase {
+        private final String name;
+        private final long durationMillis;
+        private final long completedAt;
+
+        Phase(String name, long durationMillis, long completedAt) {
+            this.name = name;
+            this.durationMillis = durationMillis;
+            this.completedAt = completedAt;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.campus.nav.utils;
+
+import com.campus.nav.config.DatabaseConfig;
+import org.apache.commons.dbcp2.DelegatingConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预编译语句缓存管理
+ * 实际的语句复用由DBCP的PreparedStatement池（每个物理连接一份）和MySQL驱动的
+ * cachePrepStmts/useServerPrepStmts完成；本类负责：
+ * 1. 登记各DAO的SQL常量，启动时在空闲连接上预热
+ * 2. 按物理连接记录已预编译的SQL，统计命中/未命中次数
+ */
+public class StatementCache {
+    private static final Logger logger = LogManager.getLogger(StatementCache.class);
+
+    private static final Set<String> registeredSql = ConcurrentHashMap.newKeySet();
+    private static final Map<Connection, Set<String>> preparedByConnection =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private StatementCache() {
+    }
+
+    /**
+     * 登记需要预热的SQL
+     */
+    public static void register(String... sqls) {
+        Collections.addAll(registeredSql, sqls);
+    }
+
+    /**
+     * 获取已登记的SQL
+     */
+    public static Set<String> getRegisteredSql() {
+        return Collections.unmodifiableSet(registeredSql);
+    }
+
+    /**
+     * 是否启用了连接池语句缓存
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(DatabaseConfig.getProperty("db.pool.poolPreparedStatements", "true"));
+    }
+
+    /**
+     * 预编译SQL并记录命中情况
+     */
+    public static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        recordPrepare(conn, sql);
+        return conn.prepareStatement(sql);
+    }
+
+    /**
+     * 预编译SQL（指定是否返回生成的主键）并记录命中情况
+     */
+    public static PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        recordPrepare(conn, sql);
+        return conn.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    /**
+     * 预编译SQL（指定结果集类型）并记录命中情况
+     */
+    public static PreparedStatement prepare(Connection conn, String sql,
+                                            int resultSetType, int resultSetConcurrency) throws SQLException {
+        recordPrepare(conn, sql);
+        return conn.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    /**
+     * 记录一次预编译：同一物理连接上已编译过的SQL视为命中
+     * 连接池按连接淘汰语句时这里不会感知，因此命中率是估计值
+     */
+    private static void recordPrepare(Connection conn, String sql) {
+        if (!isEnabled()) {
+            misses.increment();
+            return;
+        }
+        Connection physical = conn instanceof DelegatingConnection
+                ? ((DelegatingConnection<?>) conn).getInnermostDelegateInternal()
+                : conn;
+        if (physical == null) {
+            misses.increment();
+            return;
+        }
+        Set<String> prepared;
+        synchronized (preparedByConnection) {
+            prepared = preparedByConnection.computeIfAbsent(physical, k -> ConcurrentHashMap.newKeySet());
+        }
+        if (prepared.add(sql)) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+    }
+
+    /**
+     * 在连接池的多个连接上预热已登记的SQL
+     * @param connectionCount 同时借出的连接数（即预热的物理连接数）
+     * @return 预热成功的语句数
+     */
+    public static int warmUp(int connectionCount) {
+        if (!isEnabled() || registeredSql.isEmpty()) {
+            return 0;
+        }
+
+        long begin = System.nanoTime();
+        List<Connection> connections = new ArrayList<>();
+        int warmed = 0;
+        try {
+            // 同时持有多个连接，保证预热落在不同的物理连接上
+            for (int i = 0; i < connectionCount; i++) {
+                connections.add(DatabaseConfig.getConnection());
+            }
+            for (Connection conn : connections) {
+                for (String sql : registeredSql) {
+                    try {
+                        // 关闭后语句回到连接的语句池，下次借出时直接复用
+                        PreparedStatement statement = prepare(conn, sql);
+                        statement.close();
+                        warmed++;
+                    } catch (SQLException e) {
+                        logger.warn("预热SQL失败: {}", sql, e);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("预热语句缓存时获取连接失败", e);
+        } finally {
+            for (Connection conn : connections) {
+                DatabaseUtil.closeResources(null, null, conn);
+            }
+        }
+
+        logger.info("语句缓存预热完成: {} 个连接, {} 条语句, 耗时 {} ms",
+                connections.size(), warmed, (System.nanoTime() - begin) / 1_000_000);
+        return warmed;
+    }
+
+    /**
+     * 命中次数
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 未命中次数
+     */
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 命中率
+     */
+    public static double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * 重置统计
+     */
+    public static void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * 获取缓存状态信息
+     */
+    public static String getStatus() {
+        return String.format("语句缓存: 启用=%s, 已登记SQL=%d, 命中=%d, 未命中=%d, 命中率=%.1f%%",
+                isEnabled(), registeredSql.size(), getHitCount(), getMissCount(), getHitRatio() * 100);
+    }
+}
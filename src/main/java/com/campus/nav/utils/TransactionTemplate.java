@@ -0,0 +1,177 @@
+package com.campus.nav.utils;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.memory.MemoryStore;
+import com.campus.nav.exception.DatabaseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 事务模板
+ * 在当前线程上绑定一个连接，回调中的所有DAO操作（经由DatabaseUtil）复用该连接并处于同一事务中；
+ * 回调抛出异常或其中任何SQL执行失败时整体回滚。嵌套调用加入外层事务。
+ * 内存后端（dao.backend=memory）下不使用连接，由MemoryStore撤销回滚的修改
+ */
+public final class TransactionTemplate {
+    private static final Logger logger = LogManager.getLogger(TransactionTemplate.class);
+
+    private static final ThreadLocal<TransactionContext> CURRENT = new ThreadLocal<>();
+
+    private TransactionTemplate() {
+    }
+
+    /**
+     * 在事务中执行回调并返回结果
+     */
+    public static <T> T execute(TransactionCallback<T> callback) {
+        if (CURRENT.get() != null) {
+            return callback.doInTransaction();
+        }
+        if (DatabaseConfig.isMemoryBackend()) {
+            return executeInMemory(callback);
+        }
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConfig.getConnection();
+            DatabaseUtil.beginTransaction(conn);
+        } catch (SQLException e) {
+            DatabaseUtil.closeResources(null, null, conn);
+            logger.error("开启事务失败", e);
+            throw new DatabaseException("开启事务失败: " + e.getMessage(), e);
+        }
+
+        TransactionContext context = new TransactionContext(conn);
+        CURRENT.set(context);
+        boolean committed = false;
+        try {
+            T result = callback.doInTransaction();
+            if (context.rollbackOnly) {
+                throw new DatabaseException("事务中的数据库操作失败，已回滚");
+            }
+            DatabaseUtil.commitTransaction(conn);
+            committed = true;
+            return result;
+        } finally {
+            CURRENT.remove();
+            if (!committed) {
+                DatabaseUtil.rollbackTransaction(conn);
+                logger.debug("事务已回滚");
+            }
+            DatabaseUtil.restoreAutoCommit(conn);
+            DatabaseUtil.closeResources(null, null, conn);
+            runAfterCompletion(context);
+        }
+    }
+
+    /**
+     * 内存后端的事务：由MemoryStore串行执行并在失败时撤销修改
+     */
+    private static <T> T executeInMemory(TransactionCallback<T> callback) {
+        MemoryStore store = MemoryStore.getInstance();
+        TransactionContext context = new TransactionContext(null);
+        store.begin();
+        CURRENT.set(context);
+        boolean committed = false;
+        try {
+            T result = callback.doInTransaction();
+            if (context.rollbackOnly) {
+                throw new DatabaseException("事务中的数据库操作失败，已回滚");
+            }
+            store.commit();
+            committed = true;
+            return result;
+        } finally {
+            CURRENT.remove();
+            if (!committed) {
+                store.rollback();
+                logger.debug("事务已回滚");
+            }
+            runAfterCompletion(context);
+        }
+    }
+
+    /**
+     * 在事务中执行无返回值的操作
+     */
+    public static void executeWithoutResult(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 当前线程绑定的事务连接，没有事务时返回null
+     */
+    public static Connection currentConnection() {
+        TransactionContext context = CURRENT.get();
+        return context != null ? context.connection : null;
+    }
+
+    /**
+     * 当前线程是否处于事务中
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * 将当前事务标记为只能回滚（DAO吞掉异常时由DatabaseUtil调用）
+     */
+    public static void setRollbackOnly() {
+        TransactionContext context = CURRENT.get();
+        if (context != null) {
+            context.rollbackOnly = true;
+        }
+    }
+
+    /**
+     * 注册在当前事务结束（提交或回滚）后执行的操作，没有事务时立即执行
+     * 用于事务中修改数据后失效缓存，避免其他线程在提交前把旧数据重新加载进缓存
+     */
+    public static void afterCompletion(Runnable action) {
+        TransactionContext context = CURRENT.get();
+        if (context != null) {
+            context.afterCompletion.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private static void runAfterCompletion(TransactionContext context) {
+        for (Runnable action : context.afterCompletion) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                logger.error("事务结束回调执行失败", e);
+            }
+        }
+    }
+
+    /**
+     * 事务回调
+     */
+    @FunctionalInterface
+    public interface TransactionCallback<T> {
+        T doInTransaction();
+    }
+
+    /**
+     * 线程绑定的事务状态
+     */
+    private static final class TransactionContext {
+        private final Connection connection;
+        private boolean rollbackOnly;
+        private final List<Runnable> afterCompletion = new ArrayList<>();
+
+        TransactionContext(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
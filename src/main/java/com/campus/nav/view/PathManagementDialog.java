@@ -56,6 +56,7 @@ public class PathManagementDialog extends JDialog {
     private JButton cancelButton;
     private JButton closeButton;
     private JButton toggleStatusButton;
+    private JButton importButton;
     
     public PathManagementDialog(JFrame parent) {
         super(parent, "路径管理", true);
@@ -123,6 +124,7 @@ public class PathManagementDialog extends JDialog {
         cancelButton = new JButton("取消");
         closeButton = new JButton("关闭");
         toggleStatusButton = new JButton("切换状态");
+        importButton = new JButton("批量导入");
     }
     
     private void initLayout() {
@@ -263,6 +265,7 @@ public class PathManagementDialog extends JDialog {
         buttonContainer.add(editButton);
         buttonContainer.add(deleteButton);
         buttonContainer.add(toggleStatusButton);
+        buttonContainer.add(importButton);
         buttonContainer.add(saveButton);
         buttonContainer.add(cancelButton);
         buttonContainer.add(closeButton);
@@ -292,6 +295,7 @@ public class PathManagementDialog extends JDialog {
         cancelButton.setFont(buttonFont);
         closeButton.setFont(buttonFont);
         toggleStatusButton.setFont(buttonFont);
+        importButton.setFont(buttonFont);
         searchButton.setFont(buttonFont);
         prevButton.setFont(buttonFont);
         nextButton.setFont(buttonFont);
@@ -301,6 +305,7 @@ public class PathManagementDialog extends JDialog {
         setButtonStyle(editButton, new Color(0, 123, 255)); // 蓝色
         setButtonStyle(deleteButton, new Color(220, 53, 69)); // 红色
         setButtonStyle(toggleStatusButton, new Color(255, 193, 7)); // 黄色
+        setButtonStyle(importButton, new Color(0, 123, 255)); // 蓝色
         setButtonStyle(saveButton, new Color(40, 167, 69)); // 绿色
         setButtonStyle(cancelButton, new Color(108, 117, 125)); // 灰色
         setButtonStyle(closeButton, new Color(108, 117, 125)); // 灰色
@@ -375,6 +380,7 @@ public class PathManagementDialog extends JDialog {
     public JButton getCancelButton() { return cancelButton; }
     public JButton getCloseButton() { return closeButton; }
     public JButton getToggleStatusButton() { return toggleStatusButton; }
+    public JButton getImportButton() { return importButton; }
     public JButton getSearchButton() { return searchButton; }
     public JTextField getSearchField() { return searchField; }
     public JCheckBox getActiveOnlyCheckBox() { return activeOnlyCheckBox; }
@@ -47,17 +47,50 @@ CREATE TABLE paths (
 
 -- 导航历史表
 CREATE TABLE navigation_history (
-                                    id INT PRIMARY KEY AUTO_INCREMENT,
+                                    id INT AUTO_INCREMENT,
                                     user_id INT NOT NULL,
                                     start_location_id INT NOT NULL,
                                     end_location_id INT NOT NULL,
                                     path_strategy ENUM('SHORTEST', 'SHADIEST', 'MOST_SCENIC') NOT NULL,
                                     total_distance DOUBLE NOT NULL,
                                     total_time INT NOT NULL,
-                                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                                    FOREIGN KEY (user_id) REFERENCES users(id),
-                                    FOREIGN KEY (start_location_id) REFERENCES locations(id),
-                                    FOREIGN KEY (end_location_id) REFERENCES locations(id)
+                                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                    -- 分区表的主键必须包含分区列；分区表不支持外键，引用完整性由应用保证
+                                    PRIMARY KEY (id, created_at)
+)
+-- 按月RANGE分区，月分区由HistoryPartitionManager从兜底分区中滚动拆分出来
+PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- 路线热度汇总表（按起点、终点、策略累计，由HistoryRollupJob增量合并）
+CREATE TABLE route_rollup (
+                              start_location_id INT NOT NULL,
+                              end_location_id INT NOT NULL,
+                              path_strategy ENUM('SHORTEST', 'SHADIEST', 'MOST_SCENIC') NOT NULL,
+                              nav_count BIGINT NOT NULL DEFAULT 0,
+                              distance_sum DOUBLE NOT NULL DEFAULT 0,
+                              time_sum BIGINT NOT NULL DEFAULT 0,
+                              last_navigated_at TIMESTAMP NULL,
+                              PRIMARY KEY (start_location_id, end_location_id, path_strategy),
+                              INDEX idx_route_rollup_count (nav_count)
+);
+
+-- 导航历史按日期、小时、策略的汇总表
+CREATE TABLE history_daily_rollup (
+                                      stat_date DATE NOT NULL,
+                                      stat_hour TINYINT NOT NULL,
+                                      path_strategy ENUM('SHORTEST', 'SHADIEST', 'MOST_SCENIC') NOT NULL,
+                                      nav_count BIGINT NOT NULL DEFAULT 0,
+                                      distance_sum DOUBLE NOT NULL DEFAULT 0,
+                                      time_sum BIGINT NOT NULL DEFAULT 0,
+                                      PRIMARY KEY (stat_date, stat_hour, path_strategy)
+);
+
+-- 汇总进度（已合并到的最大导航历史ID）
+CREATE TABLE rollup_state (
+                              name VARCHAR(64) PRIMARY KEY,
+                              last_id BIGINT NOT NULL DEFAULT 0
 );
 
 -- 系统配置表（管理员可配置）
@@ -68,3 +101,14 @@ CREATE TABLE system_config (
                                description TEXT,
                                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
+
+-- 数据变更日志（地点、路径、系统配置的DAO在写操作的事务中登记，各实例轮询后增量刷新缓存和路网图）
+CREATE TABLE data_change_log (
+                                 id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                                 table_name VARCHAR(32) NOT NULL,
+                                 row_id INT NULL COMMENT '变更行ID，NULL表示整表变更',
+                                 operation CHAR(1) NOT NULL COMMENT 'I=插入 U=更新 D=删除',
+                                 source VARCHAR(64) NOT NULL COMMENT '写入变更的实例ID',
+                                 changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+                                 INDEX idx_change_log_time (changed_at)
+);
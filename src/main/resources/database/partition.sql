@@ -0,0 +1,19 @@
+-- 已有数据库的导航历史表改为按月分区（新库直接使用init.sql）
+-- 分区表不支持外键，主键必须包含分区列created_at；外键名为MySQL默认生成的名称，如有不同请按SHOW CREATE TABLE调整
+USE campus_navigation_system;
+
+ALTER TABLE navigation_history
+    DROP FOREIGN KEY navigation_history_ibfk_1,
+    DROP FOREIGN KEY navigation_history_ibfk_2,
+    DROP FOREIGN KEY navigation_history_ibfk_3;
+
+ALTER TABLE navigation_history
+    MODIFY created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+-- 先放入兜底分区，应用启动后HistoryPartitionManager按最早数据的月份（不早于保留期）拆分出月分区
+ALTER TABLE navigation_history
+    PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+        PARTITION p_future VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,85 @@
+package com.campus.nav;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.DaoFactory;
+import com.campus.nav.dao.PathDao;
+import com.campus.nav.model.Path;
+import com.campus.nav.utils.StatementCache;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预编译语句缓存基准测试（需要可用的MySQL数据库）
+ * 分别在关闭/开启语句缓存的情况下，对findByStartAndEnd和findById热点查询做吞吐量对比
+ * 直接运行main方法，数据库配置取自config.properties
+ */
+public class StatementCacheBenchmark {
+    private static final int THREADS = 8;
+    private static final long WARMUP_MILLIS = 3_000;
+    private static final long MEASURE_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        double baseline = run(false);
+        double cached = run(true);
+        System.out.printf("吞吐量提升: %.1f%%%n", (cached / baseline - 1) * 100);
+    }
+
+    private static double run(boolean cacheEnabled) throws Exception {
+        System.setProperty("db.pool.poolPreparedStatements", String.valueOf(cacheEnabled));
+        System.setProperty("db.connection.useServerPrepStmts", String.valueOf(cacheEnabled));
+        System.setProperty("db.connection.cachePrepStmts", String.valueOf(cacheEnabled));
+        System.setProperty("db.pool.maxTotal", String.valueOf(THREADS));
+        DatabaseConfig.initialize();
+
+        try {
+            PathDao pathDao = DaoFactory.getPathDao();
+            List<Path> paths = pathDao.findAll();
+            if (paths.isEmpty()) {
+                throw new IllegalStateException("paths表为空，无法测试");
+            }
+            if (cacheEnabled) {
+                DaoFactory.warmUpStatements();
+            }
+
+            measure(pathDao, paths, WARMUP_MILLIS);
+            StatementCache.resetStatistics();
+            double opsPerSecond = measure(pathDao, paths, MEASURE_MILLIS);
+
+            System.out.printf("语句缓存=%s: %.0f ops/s%n", cacheEnabled, opsPerSecond);
+            System.out.println(StatementCache.getStatus());
+            return opsPerSecond;
+        } finally {
+            DatabaseConfig.closeDataSource();
+        }
+    }
+
+    /**
+     * 多线程交替执行findByStartAndEnd和findById
+     */
+    private static double measure(PathDao pathDao, List<Path> paths, long millis) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        long deadline = System.currentTimeMillis() + millis;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            executor.execute(() -> {
+                int i = offset;
+                while (System.currentTimeMillis() < deadline) {
+                    Path path = paths.get(i++ % paths.size());
+                    pathDao.findByStartAndEnd(path.getStartLocationId(), path.getEndLocationId());
+                    pathDao.findById(path.getId());
+                    ops.add(2);
+                }
+            });
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(millis + 60_000, TimeUnit.MILLISECONDS);
+        return ops.sum() * 1000.0 / millis;
+    }
+}
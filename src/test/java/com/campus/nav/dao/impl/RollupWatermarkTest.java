@@ -0,0 +1,196 @@
+package com.campus.nav.dao.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 汇总安全进度测试（不需要数据库）
+ * 用模拟的事务表示自增ID的分配和提交，检查晚提交的更小ID不会被跳过
+ */
+public class RollupWatermarkTest {
+
+    private FakeDatabase db;
+    private RollupWatermark watermark;
+
+    @Before
+    public void setUp() {
+        db = new FakeDatabase();
+        watermark = new RollupWatermark();
+    }
+
+    @Test
+    public void testOutOfOrderCommitIsCounted() {
+        FakeTransaction slow = db.begin();
+        long slowId = slow.insert();
+        db.tick();
+        FakeTransaction fast = db.begin();
+        fast.insert();
+        fast.commit();
+
+        // 只有ID 2可见，ID 1的事务仍在进行：记下候选但不推进
+        assertEquals(0, merge());
+        db.tick();
+        assertEquals("更小ID的事务未结束时不应推进", 0, merge());
+
+        db.tick();
+        slow.commit();
+        assertEquals("晚提交的更小ID也应合并", 2, merge());
+        assertTrue(db.merged.contains(slowId));
+    }
+
+    @Test
+    public void testRolledBackIdIsPassed() {
+        FakeTransaction aborted = db.begin();
+        aborted.insert();
+        FakeTransaction committed = db.begin();
+        committed.insert();
+        committed.commit();
+        merge();
+
+        db.tick();
+        aborted.rollback();
+        assertEquals("回滚的ID不应阻塞进度", 1, merge());
+        assertEquals(2, watermark.advance(db, 3600));
+    }
+
+    @Test
+    public void testTransactionStartedAfterCandidateDoesNotBlock() {
+        FakeTransaction first = db.begin();
+        first.insert();
+        first.commit();
+        merge();
+
+        db.tick();
+        FakeTransaction later = db.begin();
+        later.insert();
+        assertEquals("候选之后开始的事务不影响已记下的候选", 1, merge());
+
+        db.tick();
+        later.commit();
+        merge();
+        assertEquals(1, merge());
+        assertEquals(List.of(1L, 2L), db.merged);
+    }
+
+    @Test
+    public void testSameSecondTransactionIsTreatedAsRunning() {
+        FakeTransaction committed = db.begin();
+        committed.insert();
+        committed.commit();
+        merge();
+
+        // 同一秒开始的事务无法判断先后，按未结束处理
+        db.begin();
+        assertEquals(0, merge());
+    }
+
+    @Test
+    public void testFallbackWaitsForMaxTransactionDuration() {
+        db.transactionsVisible = false;
+        FakeTransaction slow = db.begin();
+        slow.insert();
+        FakeTransaction fast = db.begin();
+        fast.insert();
+        fast.commit();
+        merge(10);
+
+        db.tick(9);
+        assertEquals("未超过最长事务时长时不应推进", 0, merge(10));
+        slow.commit();
+        db.tick(1);
+        assertEquals(2, merge(10));
+    }
+
+    private int merge() {
+        return merge(3600);
+    }
+
+    /**
+     * 模拟一次catchUp：推进安全进度后合并已提交的历史
+     */
+    private int merge(long maxTransactionSeconds) {
+        long settled = watermark.advance(db, maxTransactionSeconds);
+        int count = 0;
+        for (long id : db.committed) {
+            if (id > db.lastId && id <= settled) {
+                db.merged.add(id);
+                count++;
+            }
+        }
+        db.lastId = Math.max(db.lastId, settled);
+        return count;
+    }
+
+    private static final class FakeDatabase implements RollupWatermark.Source {
+        private final List<FakeTransaction> running = new ArrayList<>();
+        private final List<Long> committed = new ArrayList<>();
+        private final List<Long> merged = new ArrayList<>();
+        private long clock = 1000;
+        private long nextId = 1;
+        private long lastId;
+        private boolean transactionsVisible = true;
+
+        FakeTransaction begin() {
+            FakeTransaction transaction = new FakeTransaction(this, clock);
+            running.add(transaction);
+            return transaction;
+        }
+
+        void tick() {
+            tick(1);
+        }
+
+        void tick(long seconds) {
+            clock += seconds;
+        }
+
+        @Override
+        public long maxId() {
+            return committed.stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+
+        @Override
+        public long now() {
+            return clock;
+        }
+
+        @Override
+        public long oldestTransactionStart() {
+            if (!transactionsVisible) {
+                return -1;
+            }
+            return running.stream().mapToLong(transaction -> transaction.startedAt).min().orElse(0);
+        }
+    }
+
+    private static final class FakeTransaction {
+        private final FakeDatabase db;
+        private final long startedAt;
+        private final List<Long> ids = new ArrayList<>();
+
+        FakeTransaction(FakeDatabase db, long startedAt) {
+            this.db = db;
+            this.startedAt = startedAt;
+        }
+
+        long insert() {
+            long id = db.nextId++;
+            ids.add(id);
+            return id;
+        }
+
+        void commit() {
+            db.committed.addAll(ids);
+            db.running.remove(this);
+        }
+
+        void rollback() {
+            db.running.remove(this);
+        }
+    }
+}
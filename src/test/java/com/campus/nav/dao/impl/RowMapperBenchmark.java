@@ -0,0 +1,217 @@
+package com.campus.nav.dao.impl;
+
+import com.campus.nav.model.Location;
+import com.campus.nav.model.NavigationHistory;
+import com.campus.nav.model.NavigationStrategy;
+import com.campus.nav.model.Path;
+import com.campus.nav.model.User;
+import com.campus.nav.utils.DatabaseUtil;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 行映射基准测试（不需要数据库）
+ * 用内存结果集模拟paths和navigation_history的宽结果集（按标签取值时与驱动一样先做不区分大小写的列查找），
+ * 对比原来按列标签读取的映射器与按列序号读取的IndexedRowMapper的每行耗时
+ * 直接运行main方法
+ */
+public class RowMapperBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURE_ROUNDS = 500;
+
+    private static final String[] PATH_COLUMNS = {"id", "start_location_id", "end_location_id", "distance",
+            "time_cost", "has_shade", "scenic_level", "is_indoor", "is_active", "created_at",
+            "start_name", "start_x", "start_y", "end_name", "end_x", "end_y"};
+    private static final String[] HISTORY_COLUMNS = {"id", "user_id", "start_location_id", "end_location_id",
+            "path_strategy", "total_distance", "total_time", "created_at",
+            "username", "user_type", "start_name", "end_name"};
+
+    private static Object sink;
+
+    public static void main(String[] args) {
+        Object[][] pathRows = new Object[ROWS][];
+        Object[][] historyRows = new Object[ROWS][];
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < ROWS; i++) {
+            pathRows[i] = new Object[]{i, i % 50, (i + 1) % 50, 120.5 + i, 3, true, 4, false, true, now,
+                    "教学楼" + i, 10.0, 20.0, "图书馆" + i, 30.0, 40.0};
+            historyRows[i] = new Object[]{i, i % 20, i % 50, (i + 1) % 50, "SHORTEST_DISTANCE", 356.0, 5, now,
+                    "user" + i, "STUDENT", "教学楼" + i, "图书馆" + i};
+        }
+
+        PathDaoImpl pathDao = new PathDaoImpl();
+        NavigationHistoryDaoImpl historyDao = new NavigationHistoryDaoImpl();
+
+        double pathByLabel = run(PATH_COLUMNS, pathRows, RowMapperBenchmark::mapPathByLabel);
+        double pathByIndex = run(PATH_COLUMNS, pathRows, pathDao.rowMapper("paths"));
+        double historyByLabel = run(HISTORY_COLUMNS, historyRows, RowMapperBenchmark::mapHistoryByLabel);
+        double historyByIndex = run(HISTORY_COLUMNS, historyRows, historyDao.rowMapper("navigation_history"));
+
+        System.out.printf("paths (%d列):              按标签 %.1f ns/行, 按序号 %.1f ns/行, 提升 %.1f%%%n",
+                PATH_COLUMNS.length, pathByLabel, pathByIndex, (pathByLabel / pathByIndex - 1) * 100);
+        System.out.printf("navigation_history (%d列): 按标签 %.1f ns/行, 按序号 %.1f ns/行, 提升 %.1f%%%n",
+                HISTORY_COLUMNS.length, historyByLabel, historyByIndex, (historyByLabel / historyByIndex - 1) * 100);
+    }
+
+    /**
+     * 预热后测量，返回每行平均耗时（纳秒）
+     */
+    private static <T> double run(String[] columns, Object[][] rows, DatabaseUtil.RowMapper<T> mapper) {
+        InMemoryResultSet data = new InMemoryResultSet(columns, rows);
+        ResultSet rs = data.asResultSet();
+        try {
+            mapAll(data, rs, mapper, WARMUP_ROUNDS);
+            long begin = System.nanoTime();
+            mapAll(data, rs, mapper, MEASURE_ROUNDS);
+            return (double) (System.nanoTime() - begin) / ((long) MEASURE_ROUNDS * rows.length);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> void mapAll(InMemoryResultSet data, ResultSet rs, DatabaseUtil.RowMapper<T> mapper,
+                                   int rounds) throws SQLException {
+        for (int round = 0; round < rounds; round++) {
+            data.row = -1;
+            int rowNum = 0;
+            while (rs.next()) {
+                sink = mapper.mapRow(rs, rowNum++);
+            }
+        }
+    }
+
+    /**
+     * 原PathDaoImpl的映射方式（按列标签读取）
+     */
+    private static Path mapPathByLabel(ResultSet rs, int rowNum) throws SQLException {
+        Location startLocation = Location.builder()
+                .id(rs.getInt("start_location_id"))
+                .name(rs.getString("start_name"))
+                .xCoordinate(rs.getDouble("start_x"))
+                .yCoordinate(rs.getDouble("start_y"))
+                .build();
+        Location endLocation = Location.builder()
+                .id(rs.getInt("end_location_id"))
+                .name(rs.getString("end_name"))
+                .xCoordinate(rs.getDouble("end_x"))
+                .yCoordinate(rs.getDouble("end_y"))
+                .build();
+        return Path.builder()
+                .id(rs.getInt("id"))
+                .startLocationId(rs.getInt("start_location_id"))
+                .endLocationId(rs.getInt("end_location_id"))
+                .startLocation(startLocation)
+                .endLocation(endLocation)
+                .distance(rs.getDouble("distance"))
+                .timeCost(rs.getInt("time_cost"))
+                .hasShade(rs.getBoolean("has_shade"))
+                .scenicLevel(rs.getInt("scenic_level"))
+                .isIndoor(rs.getBoolean("is_indoor"))
+                .isActive(rs.getBoolean("is_active"))
+                .createdAt(rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime() : null)
+                .build();
+    }
+
+    /**
+     * 原NavigationHistoryDaoImpl的映射方式（按列标签读取）
+     */
+    private static NavigationHistory mapHistoryByLabel(ResultSet rs, int rowNum) throws SQLException {
+        User user = User.builder()
+                .id(rs.getInt("user_id"))
+                .username(rs.getString("username"))
+                .userType(User.UserType.fromString(rs.getString("user_type")))
+                .build();
+        Location startLocation = Location.builder()
+                .id(rs.getInt("start_location_id"))
+                .name(rs.getString("start_name"))
+                .build();
+        Location endLocation = Location.builder()
+                .id(rs.getInt("end_location_id"))
+                .name(rs.getString("end_name"))
+                .build();
+        return NavigationHistory.builder()
+                .id(rs.getInt("id"))
+                .userId(rs.getInt("user_id"))
+                .user(user)
+                .startLocationId(rs.getInt("start_location_id"))
+                .startLocation(startLocation)
+                .endLocationId(rs.getInt("end_location_id"))
+                .endLocation(endLocation)
+                .pathStrategy(NavigationStrategy.fromString(rs.getString("path_strategy")))
+                .totalDistance(rs.getDouble("total_distance"))
+                .totalTime(rs.getInt("total_time"))
+                .createdAt(rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime() : null)
+                .build();
+    }
+
+    /**
+     * 内存结果集，通过动态代理实现ResultSet中用到的方法
+     */
+    private static final class InMemoryResultSet {
+        private final String[] columns;
+        private final Object[][] rows;
+        private final Map<String, Integer> labelIndex = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private int row = -1;
+
+        InMemoryResultSet(String[] columns, Object[][] rows) {
+            this.columns = columns;
+            this.rows = rows;
+            for (int i = 0; i < columns.length; i++) {
+                labelIndex.put(columns[i], i + 1);
+            }
+        }
+
+        ResultSet asResultSet() {
+            ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getColumnCount":
+                                return columns.length;
+                            case "getColumnLabel":
+                            case "getColumnName":
+                                return columns[(Integer) args[0] - 1];
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+
+            return (ResultSet) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return ++row < rows.length;
+                            case "getMetaData":
+                                return metaData;
+                            case "findColumn":
+                                return findColumn((String) args[0]);
+                            case "getInt":
+                            case "getDouble":
+                            case "getBoolean":
+                            case "getString":
+                            case "getTimestamp":
+                                int column = args[0] instanceof String ? findColumn((String) args[0]) : (Integer) args[0];
+                                return rows[row][column - 1];
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private int findColumn(String label) throws SQLException {
+            Integer index = labelIndex.get(label);
+            if (index == null) {
+                throw new SQLException("Column '" + label + "' not found.");
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.campus.nav.dao.memory;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * IntObjectMap测试：开放寻址的存取、扩容和后移删除
+ */
+public class IntObjectMapTest {
+
+    @Test
+    public void testPutGetAndReplace() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(-7, "b"));
+        assertNull(map.put(0, "zero"));
+        assertEquals("a", map.put(1, "c"));
+
+        assertEquals(3, map.size());
+        assertEquals("c", map.get(1));
+        assertEquals("b", map.get(-7));
+        assertEquals("zero", map.get(0));
+        assertNull(map.get(2));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    public void testResizeKeepsAllEntries() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(2);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31, i);
+        }
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i * 31));
+        }
+    }
+
+    @Test
+    public void testRemoveShiftsCollidingKeysBack() {
+        // 容量16时这些键落在同一个槽位，形成一条探测链
+        IntObjectMap<String> map = new IntObjectMap<>();
+        int[] keys = collidingKeys(16, 4);
+        for (int key : keys) {
+            map.put(key, "v" + key);
+        }
+
+        // 删除链头和链中间的元素后，链上后面的键仍然能找到
+        assertEquals("v" + keys[0], map.remove(keys[0]));
+        assertEquals("v" + keys[2], map.remove(keys[2]));
+        assertNull(map.remove(keys[2]));
+        assertEquals(2, map.size());
+        assertNull(map.get(keys[0]));
+        assertEquals("v" + keys[1], map.get(keys[1]));
+        assertEquals("v" + keys[3], map.get(keys[3]));
+
+        map.put(keys[0], "again");
+        assertEquals("again", map.get(keys[0]));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 1_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        int[] visited = {0};
+        map.forEachValue(value -> visited[0]++);
+        assertEquals(expected.size(), visited[0]);
+    }
+
+    @Test
+    public void testClear() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        map.put(1, "c");
+        assertEquals("c", map.get(1));
+    }
+
+    /**
+     * 在给定容量下哈希到同一槽位的键（与IntObjectMap.slot的计算相同）
+     */
+    private static int[] collidingKeys(int capacity, int count) {
+        int[] keys = new int[count];
+        int found = 0;
+        int target = -1;
+        for (int key = 1; found < count; key++) {
+            int h = key * 0x9E3779B9;
+            int slot = (h ^ (h >>> 16)) & (capacity - 1);
+            if (target < 0) {
+                target = slot;
+            }
+            if (slot == target) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
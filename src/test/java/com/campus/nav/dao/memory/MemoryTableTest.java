@@ -0,0 +1,144 @@
+package com.campus.nav.dao.memory;
+
+import com.campus.nav.exception.DatabaseException;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.User;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * MemoryTable测试：二级索引的维护、唯一约束和事务回滚（不需要数据库）
+ */
+public class MemoryTableTest {
+
+    private MemoryStore store;
+
+    @Before
+    public void setUp() {
+        store = new MemoryStore();
+    }
+
+    @Test
+    public void testIndexesFollowInsertUpdateDelete() {
+        int library = insertLocation("图书馆", Location.LocationType.BUILDING);
+        int garden = insertLocation("花园", Location.LocationType.GARDEN);
+        insertLocation("教学楼", Location.LocationType.BUILDING);
+
+        assertEquals(2, store.locations.count(store.locationsByType, Location.LocationType.BUILDING.ordinal(), null));
+        assertTrue(store.locations.exists(store.locationsByName, "图书馆"));
+
+        store.locations.update(library, location -> {
+            location.setName("新图书馆");
+            location.setType(Location.LocationType.GARDEN);
+        });
+        assertFalse(store.locations.exists(store.locationsByName, "图书馆"));
+        assertTrue(store.locations.exists(store.locationsByName, "新图书馆"));
+        assertEquals(List.of(library, garden),
+                ids(store.locations.select(store.locationsByType, Location.LocationType.GARDEN.ordinal(), null)));
+
+        store.locations.delete(garden);
+        assertEquals(List.of(library),
+                ids(store.locations.select(store.locationsByType, Location.LocationType.GARDEN.ordinal(), null)));
+        assertEquals(List.of("教学楼", "新图书馆"),
+                store.locations.select(null).stream().map(Location::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testUniqueIndexRejectsDuplicateAndKeepsOldRow() {
+        int alice = store.users.insert(user("alice", "a@example.com"));
+        int bob = store.users.insert(user("bob", "b@example.com"));
+
+        assertThrows(DatabaseException.class, () -> store.users.insert(user("ALICE", "c@example.com")));
+        assertThrows(DatabaseException.class, () -> store.users.update(bob, u -> u.setEmail("a@example.com")));
+
+        // 失败的修改不改变原来的行和索引
+        assertEquals("b@example.com", store.users.get(bob).orElseThrow().getEmail());
+        assertEquals(List.of(bob), userIds(store.users.select(store.usersByEmail, "b@example.com", null)));
+        assertEquals(List.of(alice), userIds(store.users.select(store.usersByUsername, "alice", null)));
+        assertEquals(2, store.users.size());
+    }
+
+    @Test
+    public void testReturnedRowsAreCopies() {
+        int id = insertLocation("图书馆", Location.LocationType.BUILDING);
+        Location copy = store.locations.get(id).orElseThrow();
+        copy.setName("改名");
+        assertEquals("图书馆", store.locations.get(id).orElseThrow().getName());
+    }
+
+    @Test
+    public void testRollbackRestoresRowsAndIndexes() {
+        int library = insertLocation("图书馆", Location.LocationType.BUILDING);
+        int garden = insertLocation("花园", Location.LocationType.GARDEN);
+
+        store.begin();
+        int cafeteria = insertLocation("食堂", Location.LocationType.CAFETERIA);
+        store.locations.update(library, location -> location.setName("新图书馆"));
+        store.locations.delete(garden);
+        store.locations.deleteWhere(null, 0);
+        assertEquals(0, store.locations.size());
+        store.rollback();
+
+        assertEquals(2, store.locations.size());
+        assertFalse(store.locations.get(cafeteria).isPresent());
+        assertEquals("图书馆", store.locations.get(library).orElseThrow().getName());
+        assertTrue(store.locations.exists(store.locationsByName, "花园"));
+        assertFalse(store.locations.exists(store.locationsByName, "新图书馆"));
+        assertEquals(List.of(garden),
+                ids(store.locations.select(store.locationsByType, Location.LocationType.GARDEN.ordinal(), null)));
+        assertEquals(0, store.locations.count(store.locationsByType, Location.LocationType.CAFETERIA.ordinal(), null));
+    }
+
+    @Test
+    public void testCommitKeepsChanges() {
+        store.begin();
+        int id = insertLocation("图书馆", Location.LocationType.BUILDING);
+        store.commit();
+
+        // 提交后撤销记录已清除，下一个事务回滚不影响之前提交的修改
+        store.begin();
+        store.rollback();
+        assertTrue(store.locations.get(id).isPresent());
+    }
+
+    @Test
+    public void testRollbackDoesNotOverwriteWriteOutsideTransaction() throws Exception {
+        int id = insertLocation("图书馆", Location.LocationType.BUILDING);
+
+        store.begin();
+        store.locations.update(id, location -> location.setName("事务中"));
+
+        // 事务外的写等待事务结束，回滚恢复的旧值不会覆盖它
+        Thread writer = new Thread(() -> store.locations.update(id, location -> location.setName("事务外")));
+        writer.start();
+        writer.join(200);
+        assertTrue("事务外的写应等待进行中的事务", writer.isAlive());
+
+        store.rollback();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertEquals("事务外", store.locations.get(id).orElseThrow().getName());
+    }
+
+    private int insertLocation(String name, Location.LocationType type) {
+        return store.locations.insert(Location.builder()
+                .name(name).type(type).xCoordinate(0.0).yCoordinate(0.0).isAccessible(true).build());
+    }
+
+    private static User user(String username, String email) {
+        return User.builder().username(username).email(email).password("x").userType(User.UserType.USER).build();
+    }
+
+    private static List<Integer> ids(List<Location> rows) {
+        return rows.stream().map(Location::getId).collect(Collectors.toList());
+    }
+
+    private static List<Integer> userIds(List<User> rows) {
+        return rows.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
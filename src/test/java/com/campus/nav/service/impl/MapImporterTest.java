@@ -0,0 +1,221 @@
+package com.campus.nav.service.impl;
+
+import com.campus.nav.config.DatabaseConfig;
+import com.campus.nav.dao.LocationDao;
+import com.campus.nav.dao.PathDao;
+import com.campus.nav.dao.memory.MemoryLocationDao;
+import com.campus.nav.dao.memory.MemoryPathDao;
+import com.campus.nav.dao.memory.MemoryStore;
+import com.campus.nav.model.ImportResult;
+import com.campus.nav.model.Location;
+import com.campus.nav.model.Path;
+import com.campus.nav.service.NavigationService;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * MapImporter测试：拒绝无效行及错误数上限、起点终点按名称或ID解析、地点和路径去重（使用内存后端，不需要数据库）
+ */
+public class MapImporterTest {
+
+    private static final String[] BACKEND_PROPERTIES = {"dao.backend", "dao.memory.seed", "dao.memory.snapshotFile"};
+
+    private LocationDao locationDao;
+    private PathDao pathDao;
+    private AtomicInteger graphInvalidations;
+    private MapImporter importer;
+
+    @BeforeClass
+    public static void setUpBackend() {
+        System.setProperty("dao.backend", "memory");
+        System.setProperty("dao.memory.seed", "false");
+        System.setProperty("dao.memory.snapshotFile", "");
+        DatabaseConfig.initialize();
+    }
+
+    @AfterClass
+    public static void tearDownBackend() {
+        // 其他测试调用DatabaseConfig.initialize()时重新读取配置文件中的后端
+        for (String key : BACKEND_PROPERTIES) {
+            System.clearProperty(key);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        MemoryStore store = MemoryStore.getInstance();
+        locationDao = new MemoryLocationDao(store);
+        pathDao = new MemoryPathDao(store);
+        pathDao.findAll().forEach(path -> pathDao.deleteById(path.getId()));
+        locationDao.findAll().forEach(location -> locationDao.deleteById(location.getId()));
+
+        graphInvalidations = new AtomicInteger();
+        NavigationService navigationService = (NavigationService) Proxy.newProxyInstance(
+                NavigationService.class.getClassLoader(), new Class<?>[]{NavigationService.class},
+                (proxy, method, args) -> {
+                    if ("invalidateRouteGraph".equals(method.getName())) {
+                        graphInvalidations.incrementAndGet();
+                    }
+                    return null;
+                });
+        importer = new MapImporter(locationDao, pathDao, navigationService);
+    }
+
+    @Test
+    public void testImportLocationsAndPaths() {
+        ImportResult result = importCsv(
+                "name,x,y,type,scenic_level\n" +
+                "图书馆,100,100,BUILDING,3\n" +
+                "花园,200,150,花园,\n",
+                "start,end,distance,bidirectional\n" +
+                "图书馆,花园,50,true\n");
+
+        assertEquals(2, result.getLocationsImported());
+        assertEquals(2, result.getPathsImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(1, graphInvalidations.get());
+
+        Map<String, Location> locations = locationsByName();
+        assertEquals(Location.LocationType.GARDEN, locations.get("花园").getType());
+        assertEquals(Integer.valueOf(3), locations.get("图书馆").getScenicLevel());
+        Integer library = locations.get("图书馆").getId();
+        Integer garden = locations.get("花园").getId();
+        Path path = pathDao.findByStartAndEnd(library, garden).orElseThrow();
+        assertEquals(50.0, path.getDistance(), 1e-9);
+        // 没有time_cost时按步行速度计算
+        assertEquals(Integer.valueOf(35), path.getTimeCost());
+        assertTrue(pathDao.findByStartAndEnd(garden, library).isPresent());
+    }
+
+    @Test
+    public void testRejectedRowsAreCountedAndErrorsCapped() {
+        int maxErrors = Integer.parseInt(DatabaseConfig.getProperty("import.maxErrors", "100"));
+        StringBuilder csv = new StringBuilder("name,x,y\n图书馆,10,10\n");
+        for (int i = 0; i < maxErrors + 5; i++) {
+            csv.append("坏行").append(i).append(",abc,10\n");
+        }
+        csv.append(",10,10\n");
+        csv.append("越界,-1,10\n");
+
+        ImportResult result = importCsv(csv.toString(), null);
+
+        assertEquals(1, result.getLocationsImported());
+        assertEquals(maxErrors + 7, result.getRejected());
+        assertEquals(maxErrors, result.getErrors().size());
+        assertEquals("locations.csv 第 3 行: x 不是数字: abc", result.getErrors().get(0));
+        assertEquals(1, locationDao.count());
+    }
+
+    @Test
+    public void testPathEndpointsResolveByNameOrId() {
+        Integer gate = saveLocation("校门");
+        Integer library = saveLocation("图书馆");
+        // 名称是数字时按名称优先
+        Integer numbered = saveLocation(String.valueOf(gate));
+
+        ImportResult result = importCsv(null,
+                "start_location_id,end_location,distance\n" +
+                gate + ",图书馆,10\n" +
+                " 图书馆 ," + library + ",10\n" +
+                "图书馆," + numbered + ",10\n" +
+                "图书馆,不存在,10\n" +
+                "999999,图书馆,10\n" +
+                "图书馆,图书馆,10\n");
+
+        assertEquals(2, result.getPathsImported());
+        assertEquals(4, result.getRejected());
+        assertTrue(pathDao.findByStartAndEnd(numbered, library).isPresent());
+        assertTrue(pathDao.findByStartAndEnd(library, numbered).isPresent());
+        assertFalse(pathDao.findByStartAndEnd(gate, library).isPresent());
+        List<String> errors = result.getErrors();
+        assertEquals("paths.csv 第 3 行: 起点和终点不能相同", errors.get(0));
+        assertEquals("paths.csv 第 5 行: 终点不存在: 不存在", errors.get(1));
+        assertEquals("paths.csv 第 6 行: 起点不存在: 999999", errors.get(2));
+        assertEquals("paths.csv 第 7 行: 起点和终点不能相同", errors.get(3));
+    }
+
+    @Test
+    public void testDuplicatesAreSkipped() {
+        Integer library = saveLocation("图书馆");
+        Integer garden = saveLocation("花园");
+        pathDao.save(Path.builder().startLocationId(library).endLocationId(garden).distance(10.0).timeCost(7).build());
+
+        ImportResult result = importCsv(
+                "name,x,y\n" +
+                "图书馆,1,1\n" +
+                "食堂,2,2\n" +
+                "食堂,3,3\n",
+                "start,end,distance,bidirectional\n" +
+                "图书馆,花园,20,true\n" +
+                "食堂,花园,20,\n" +
+                "食堂," + garden + ",30,\n");
+
+        assertEquals(1, result.getLocationsImported());
+        assertEquals(2, result.getLocationsSkipped());
+        // 图书馆->花园已存在，花园->图书馆是反向路径；第二条食堂->花园与同批中的第一条重复
+        assertEquals(2, result.getPathsImported());
+        assertEquals(2, result.getPathsSkipped());
+        assertEquals(3, locationDao.count());
+        assertEquals(3, pathDao.count());
+        assertEquals(10.0, pathDao.findByStartAndEnd(library, garden).orElseThrow().getDistance(), 1e-9);
+        Integer cafeteria = locationsByName().get("食堂").getId();
+        assertEquals(20.0, pathDao.findByStartAndEnd(cafeteria, garden).orElseThrow().getDistance(), 1e-9);
+    }
+
+    @Test
+    public void testGeoJsonPathMayPrecedeLocations() {
+        ImportResult result = importer.importGeoJson(new StringReader("{\"type\":\"FeatureCollection\",\"features\":[" +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[3,4]]}," +
+                "\"properties\":{\"start\":\"图书馆\",\"end\":\"花园\"}}," +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[0,0]},\"properties\":{\"name\":\"图书馆\"}}," +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[3,4]},\"properties\":{\"name\":\"花园\"}}," +
+                "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[]}}]}"), null, null);
+
+        assertEquals(2, result.getLocationsImported());
+        assertEquals(1, result.getPathsImported());
+        assertEquals(1, result.getRejected());
+        assertEquals("geojson 第 4 个要素: 不支持的几何类型: Polygon", result.getErrors().get(0));
+        Map<String, Location> locations = locationsByName();
+        Path path = pathDao.findByStartAndEnd(locations.get("图书馆").getId(), locations.get("花园").getId()).orElseThrow();
+        // 没有distance时按折线长度计算
+        assertEquals(5.0, path.getDistance(), 1e-9);
+    }
+
+    @Test
+    public void testCancelRollsBackEverything() {
+        saveLocation("校门");
+        assertThrows(CancellationException.class, () -> importer.importCsv(
+                new StringReader("name,x,y\n图书馆,1,1\n花园,2,2\n"), null, null, () -> locationDao.count() > 1));
+
+        assertEquals(1, locationDao.count());
+        assertEquals(0, graphInvalidations.get());
+    }
+
+    private ImportResult importCsv(String locations, String paths) {
+        return importer.importCsv(locations != null ? new StringReader(locations) : null,
+                paths != null ? new StringReader(paths) : null, null, null);
+    }
+
+    private Integer saveLocation(String name) {
+        Location location = Location.builder().name(name).xCoordinate(1.0).yCoordinate(1.0).build();
+        assertTrue(locationDao.save(location));
+        return location.getId();
+    }
+
+    private Map<String, Location> locationsByName() {
+        return locationDao.findAll().stream().collect(Collectors.toMap(Location::getName, Function.identity()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.campus.nav.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CsvReader测试：引号、转义、字段内换行、BOM和行号
+ */
+public class CsvReaderTest {
+
+    @Test
+    public void testPlainFieldsAndEmptyLines() throws IOException {
+        List<String[]> records = readAll("name,x,y\r\n\r\n图书馆,10,20\n\n花园,,30\n");
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[]{"name", "x", "y"}, records.get(0));
+        assertArrayEquals(new String[]{"图书馆", "10", "20"}, records.get(1));
+        assertArrayEquals(new String[]{"花园", "", "30"}, records.get(2));
+    }
+
+    @Test
+    public void testQuotedFieldsWithCommaAndEscapedQuote() throws IOException {
+        List<String[]> records = readAll("\"a,b\",\"say \"\"hi\"\"\",\"\"\nlast,\"\"\"\"");
+        assertArrayEquals(new String[]{"a,b", "say \"hi\"", ""}, records.get(0));
+        // 最后一行没有换行符，只含一个转义的引号
+        assertArrayEquals(new String[]{"last", "\""}, records.get(1));
+    }
+
+    @Test
+    public void testQuoteInsideUnquotedFieldIsLiteral() throws IOException {
+        List<String[]> records = readAll("5\"3,x\n");
+        assertArrayEquals(new String[]{"5\"3", "x"}, records.get(0));
+    }
+
+    @Test
+    public void testEmbeddedNewlineKeepsLineNumbers() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("name,description\n图书馆,\"第一行\r\n第二行\"\n\n花园,x\n"))) {
+            csv.next();
+            assertEquals(1, csv.getLineNumber());
+
+            assertArrayEquals(new String[]{"图书馆", "第一行\r\n第二行"}, csv.next());
+            assertEquals(2, csv.getLineNumber());
+
+            // 字段内的换行和空行都计入行号
+            assertArrayEquals(new String[]{"花园", "x"}, csv.next());
+            assertEquals(5, csv.getLineNumber());
+            assertNull(csv.next());
+        }
+    }
+
+    @Test
+    public void testLeadingBomIsSkipped() throws IOException {
+        List<String[]> records = readAll("\uFEFFname,x\n\uFEFF图书馆,1\n");
+        assertArrayEquals(new String[]{"name", "x"}, records.get(0));
+        // 只跳过文件开头的BOM
+        assertArrayEquals(new String[]{"\uFEFF图书馆", "1"}, records.get(1));
+    }
+
+    @Test
+    public void testFieldSpanningBufferBoundary() throws IOException {
+        StringBuilder text = new StringBuilder("\"");
+        for (int i = 0; i < 20_000; i++) {
+            text.append(i % 100 == 0 ? "\"\"" : "x");
+        }
+        text.append("\",end\n");
+        String[] record = readAll(text.toString()).get(0);
+        assertEquals(2, record.length);
+        assertEquals(20_000, record[0].length());
+        assertEquals('"', record[0].charAt(0));
+        assertEquals("end", record[1]);
+    }
+
+    @Test
+    public void testUnclosedQuoteFails() {
+        IOException e = assertThrows(IOException.class, () -> readAll("name\n\"图书馆,1\n"));
+        assertTrue(e.getMessage().contains("第 2 行"));
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        assertTrue(readAll("").isEmpty());
+        assertTrue(readAll("\uFEFF\r\n\n").isEmpty());
+    }
+
+    private static List<String[]> readAll(String text) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new StringReader(text))) {
+            String[] record;
+            while ((record = csv.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}